@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package algebraics.quadratics;
+
+import algebraics.NotDivisibleException;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of the arithmetic of {@link QuadraticInteger}, in imaginary and
+ * real rings, with and without half-integers. Run under the GC profiler, as
+ * the benchmarks module does by default, these show how many bytes each
+ * operation allocates as well as how long it takes. In the rings with
+ * half-integers, about half the inputs are halves of odd numbers.
+ * @author Alonso del Arte
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class QuadraticIntegerBenchmark {
+
+    private static final int INPUT_COUNT = 1 << 10;
+
+    private static final int INPUT_MASK = INPUT_COUNT - 1;
+
+    /**
+     * The largest absolute value of a part of an input, small enough that no
+     * product overflows.
+     */
+    private static final int PART_BOUND = 1000;
+
+    /**
+     * The radicand of the ring: &minus;1 for the Gaussian integers, &minus;3
+     * for the Eisenstein integers, 2 for <b>Z</b>[&radic;2] and 5 for
+     * <b>Z</b>[&phi;].
+     */
+    @Param({"-1", "-3", "2", "5"})
+    public int radicand;
+
+    private QuadraticInteger[] multiplicands;
+
+    private QuadraticInteger[] multipliers;
+
+    private QuadraticInteger[] copies;
+
+    private QuadraticInteger[] products;
+
+    private int index = 0;
+
+    private static QuadraticInteger randomNumber(SplittableRandom random, QuadraticRing ring) {
+        int a, b;
+        if (ring.hasHalfIntegers() && random.nextBoolean()) {
+            a = 2 * random.nextInt(-PART_BOUND / 2, PART_BOUND / 2) + 1;
+            b = 2 * random.nextInt(-PART_BOUND / 2, PART_BOUND / 2) + 1;
+            return QuadraticInteger.apply(a, b, ring, 2);
+        }
+        a = random.nextInt(-PART_BOUND, PART_BOUND + 1);
+        do {
+            b = random.nextInt(-PART_BOUND, PART_BOUND + 1);
+        } while (b == 0);
+        return QuadraticInteger.apply(a, b, ring);
+    }
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(1729);
+        QuadraticRing ring;
+        if (this.radicand < 0) {
+            ring = new ImaginaryQuadraticRing(this.radicand);
+        } else {
+            ring = new RealQuadraticRing(this.radicand);
+        }
+        this.multiplicands = new QuadraticInteger[INPUT_COUNT];
+        this.multipliers = new QuadraticInteger[INPUT_COUNT];
+        this.copies = new QuadraticInteger[INPUT_COUNT];
+        this.products = new QuadraticInteger[INPUT_COUNT];
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            QuadraticInteger multiplicand = randomNumber(random, ring);
+            QuadraticInteger multiplier = randomNumber(random, ring);
+            this.multiplicands[i] = multiplicand;
+            this.multipliers[i] = multiplier;
+            this.copies[i] = QuadraticInteger.apply(multiplicand.getRegPartMult(), multiplicand.getSurdPartMult(), ring, multiplicand.getDenominator());
+            this.products[i] = multiplicand.times(multiplier);
+        }
+    }
+
+    @Benchmark
+    public QuadraticInteger plus() {
+        int i = this.index++ & INPUT_MASK;
+        return this.multiplicands[i].plus(this.multipliers[i]);
+    }
+
+    @Benchmark
+    public QuadraticInteger minus() {
+        int i = this.index++ & INPUT_MASK;
+        return this.multiplicands[i].minus(this.multipliers[i]);
+    }
+
+    @Benchmark
+    public QuadraticInteger times() {
+        int i = this.index++ & INPUT_MASK;
+        return this.multiplicands[i].times(this.multipliers[i]);
+    }
+
+    /**
+     * Divides a product by one of its factors, so that the division always
+     * comes out exact.
+     * @return The other factor.
+     * @throws NotDivisibleException Never, since the division is exact.
+     */
+    @Benchmark
+    public QuadraticInteger divides() throws NotDivisibleException {
+        int i = this.index++ & INPUT_MASK;
+        return this.products[i].divides(this.multipliers[i]);
+    }
+
+    @Benchmark
+    public long norm() {
+        return this.multiplicands[this.index++ & INPUT_MASK].norm();
+    }
+
+    @Benchmark
+    public QuadraticInteger conjugate() {
+        return this.multiplicands[this.index++ & INPUT_MASK].conjugate();
+    }
+
+    /**
+     * Compares each number to an equal but distinct object, and then to a
+     * number that's almost certainly different, so that both outcomes are
+     * measured.
+     * @return Whether the numbers are equal.
+     */
+    @Benchmark
+    public boolean equalsCheck() {
+        int count = this.index++;
+        int i = count & INPUT_MASK;
+        Object other = ((count & INPUT_COUNT) == 0) ? this.copies[i] : this.multipliers[i];
+        return this.multiplicands[i].equals(other);
+    }
+
+    @Benchmark
+    public int hashCodeCheck() {
+        return this.multiplicands[this.index++ & INPUT_MASK].hashCode();
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package calculators;
+
+import algebraics.AlgebraicInteger;
+import algebraics.NonUniqueFactorizationDomainException;
+import algebraics.quadratics.ImaginaryQuadraticInteger;
+import algebraics.quadratics.ImaginaryQuadraticRing;
+import algebraics.quadratics.QuadraticInteger;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of {@link
+ * NumberTheoreticFunctionsCalculator#isPrime(AlgebraicInteger)} and {@link
+ * NumberTheoreticFunctionsCalculator#primeFactors(AlgebraicInteger)} in a few
+ * imaginary quadratic rings with unique factorization, some with half-integers
+ * and some without. Real rings are left out for now, since
+ * <code>primeFactors</code> doesn't finish on some numbers of negative norm in
+ * them, such as &minus;5 + 5&radic;2.
+ * @author Alonso del Arte
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class AlgebraicPrimalityBenchmark {
+
+    private static final int INPUT_MASK = IntegerPrimalityBenchmark.INPUT_COUNT - 1;
+
+    /**
+     * The radicand of the ring. For example, &minus;1 for the Gaussian
+     * integers.
+     */
+    @Param({"-1", "-2", "-7", "-11"})
+    public int radicand;
+
+    /**
+     * About the largest absolute value of the norm of an input.
+     */
+    @Param({"100", "10000", "1000000"})
+    public int normBound;
+
+    private QuadraticInteger[] numbers;
+
+    private int index = 0;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(1729);
+        ImaginaryQuadraticRing ring = new ImaginaryQuadraticRing(this.radicand);
+        int regBound = (int) Math.sqrt(this.normBound / 2.0);
+        int surdBound = (int) Math.max(1, Math.sqrt(this.normBound / (-2.0 * this.radicand)));
+        this.numbers = new QuadraticInteger[IntegerPrimalityBenchmark.INPUT_COUNT];
+        int i = 0;
+        while (i < this.numbers.length) {
+            int a = random.nextInt(-regBound, regBound + 1);
+            int b = random.nextInt(1, surdBound + 1);
+            QuadraticInteger number = new ImaginaryQuadraticInteger(a, b, ring);
+            if (number.norm() > 1) {
+                this.numbers[i++] = number;
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean isPrimeAlgebraic() {
+        return NumberTheoreticFunctionsCalculator.isPrime(this.numbers[this.index++ & INPUT_MASK]);
+    }
+
+    @Benchmark
+    public List<AlgebraicInteger> primeFactorsAlgebraic() throws NonUniqueFactorizationDomainException {
+        return NumberTheoreticFunctionsCalculator.primeFactors(this.numbers[this.index++ & INPUT_MASK]);
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package calculators;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of {@link NumberTheoreticFunctionsCalculator#isPrime(long[])}
+ * and {@link NumberTheoreticFunctionsCalculator#factorAll(long[])}, against
+ * calling {@link NumberTheoreticFunctionsCalculator#isPrime(long)} in a loop
+ * on one thread. The speedup depends on how many cores the common pool has.
+ * @author Alonso del Arte
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class BatchPrimalityBenchmark {
+
+    static final int INPUT_COUNT = 1 << 16;
+
+    /**
+     * The largest input. Inputs are spread over the whole range on a
+     * logarithmic scale, so there are cheap and expensive ones in every
+     * batch.
+     */
+    @Param({"1000000", "1000000000"})
+    public long bound;
+
+    private long[] nums;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(1729);
+        this.nums = new long[INPUT_COUNT];
+        double logBound = Math.log(this.bound);
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            this.nums[i] = (long) Math.exp(random.nextDouble(0.0, logBound)) + 1;
+        }
+    }
+
+    @Benchmark
+    public BitSet isPrimeLoop() {
+        BitSet primes = new BitSet(INPUT_COUNT);
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            if (NumberTheoreticFunctionsCalculator.isPrime(this.nums[i])) {
+                primes.set(i);
+            }
+        }
+        return primes;
+    }
+
+    @Benchmark
+    public BitSet isPrimeBatch() {
+        return NumberTheoreticFunctionsCalculator.isPrime(this.nums);
+    }
+
+    @Benchmark
+    public PackedFactorizations factorAll() {
+        return NumberTheoreticFunctionsCalculator.factorAll(this.nums);
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package calculators;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of {@link NumberTheoreticFunctionsCalculator#kernel(int)} and
+ * {@link NumberTheoreticFunctionsCalculator#moebiusMu(int)} with the {@link
+ * FactorizationCache} on and off. Most calls go to a few numbers, the way a
+ * program working in a handful of rings keeps asking about the same
+ * radicands, and the rest are spread over many more numbers than the cache
+ * holds.
+ * @author Alonso del Arte
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class FactorizationCacheBenchmark {
+
+    private static final int INPUT_COUNT = 1 << 14;
+
+    private static final int INPUT_MASK = INPUT_COUNT - 1;
+
+    private static final int HOT_COUNT = 64;
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    private int[] nums;
+
+    private int index = 0;
+
+    @Setup
+    public void setUp() {
+        FactorizationCache.setEnabled(this.cached);
+        FactorizationCache.clear();
+        SplittableRandom random = new SplittableRandom(1729);
+        int[] hot = new int[HOT_COUNT];
+        for (int i = 0; i < HOT_COUNT; i++) {
+            hot[i] = random.nextInt(1000000, 10000000);
+        }
+        this.nums = new int[INPUT_COUNT];
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            if (random.nextInt(10) < 9) {
+                this.nums[i] = hot[random.nextInt(HOT_COUNT)];
+            } else {
+                this.nums[i] = random.nextInt(1000000, 10000000);
+            }
+        }
+    }
+
+    @Benchmark
+    public int kernel() {
+        return NumberTheoreticFunctionsCalculator.kernel(this.nums[this.index++ & INPUT_MASK]);
+    }
+
+    @Benchmark
+    public byte moebiusMu() {
+        return NumberTheoreticFunctionsCalculator.moebiusMu(this.nums[this.index++ & INPUT_MASK]);
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package calculators;
+
+import algebraics.AlgebraicInteger;
+import algebraics.NonEuclideanDomainException;
+import algebraics.quadratics.ImaginaryQuadraticInteger;
+import static calculators.NumberTheoreticFunctionsCalculator.RING_GAUSSIAN;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of every overload of <code>euclideanGCD</code>. The algebraic
+ * overloads are measured in the Gaussian integers, with real and imaginary
+ * parts up to the square root of the bound, so that the norms are about as
+ * big as the integer inputs.
+ * @author Alonso del Arte
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class GCDBenchmark {
+
+    private static final int INPUT_MASK = IntegerPrimalityBenchmark.INPUT_COUNT - 1;
+
+    /**
+     * The largest absolute value of an <code>int</code> input. The
+     * <code>long</code> inputs are about the square of this.
+     */
+    @Param({"1000", "1000000", "1000000000"})
+    public int bound;
+
+    private int[] intsA, intsB;
+
+    private long[] longsA, longsB;
+
+    private AlgebraicInteger[] gaussiansA, gaussiansB;
+
+    private int[] smallInts;
+
+    private int index = 0;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(1729);
+        int count = IntegerPrimalityBenchmark.INPUT_COUNT;
+        this.intsA = new int[count];
+        this.intsB = new int[count];
+        this.longsA = new long[count];
+        this.longsB = new long[count];
+        this.gaussiansA = new AlgebraicInteger[count];
+        this.gaussiansB = new AlgebraicInteger[count];
+        this.smallInts = new int[count];
+        long longBound = (long) this.bound * this.bound;
+        int partBound = (int) Math.sqrt(this.bound / 2.0);
+        for (int i = 0; i < count; i++) {
+            this.intsA[i] = random.nextInt(1, this.bound + 1);
+            this.intsB[i] = random.nextInt(1, this.bound + 1);
+            this.longsA[i] = random.nextLong(1, longBound + 1);
+            this.longsB[i] = random.nextLong(1, longBound + 1);
+            this.gaussiansA[i] = new ImaginaryQuadraticInteger(random.nextInt(-partBound, partBound + 1), random.nextInt(1, partBound + 1), RING_GAUSSIAN);
+            this.gaussiansB[i] = new ImaginaryQuadraticInteger(random.nextInt(-partBound, partBound + 1), random.nextInt(1, partBound + 1), RING_GAUSSIAN);
+            this.smallInts[i] = random.nextInt(2, this.bound / 2 + 2);
+        }
+    }
+
+    @Benchmark
+    public int gcdInt() {
+        int i = this.index++ & INPUT_MASK;
+        return NumberTheoreticFunctionsCalculator.euclideanGCD(this.intsA[i], this.intsB[i]);
+    }
+
+    @Benchmark
+    public long gcdLong() {
+        int i = this.index++ & INPUT_MASK;
+        return NumberTheoreticFunctionsCalculator.euclideanGCD(this.longsA[i], this.longsB[i]);
+    }
+
+    @Benchmark
+    public AlgebraicInteger gcdAlgebraic() throws NonEuclideanDomainException {
+        int i = this.index++ & INPUT_MASK;
+        return NumberTheoreticFunctionsCalculator.euclideanGCD(this.gaussiansA[i], this.gaussiansB[i]);
+    }
+
+    @Benchmark
+    public AlgebraicInteger gcdAlgebraicInt() throws NonEuclideanDomainException {
+        int i = this.index++ & INPUT_MASK;
+        return NumberTheoreticFunctionsCalculator.euclideanGCD(this.gaussiansA[i], this.smallInts[i]);
+    }
+
+    @Benchmark
+    public AlgebraicInteger gcdIntAlgebraic() throws NonEuclideanDomainException {
+        int i = this.index++ & INPUT_MASK;
+        return NumberTheoreticFunctionsCalculator.euclideanGCD(this.smallInts[i], this.gaussiansB[i]);
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package calculators;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of {@link NumberTheoreticFunctionsCalculator#isPrime(int)},
+ * {@link NumberTheoreticFunctionsCalculator#isPrime(long)} and {@link
+ * NumberTheoreticFunctionsCalculator#primeFactors(int)}. Each invocation takes
+ * the next of a fixed set of pseudorandom inputs up to the bound, so that the
+ * JIT compiler can't fold the call away.
+ * @author Alonso del Arte
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class IntegerPrimalityBenchmark {
+
+    static final int INPUT_COUNT = 1 << 10;
+
+    private static final int INPUT_MASK = INPUT_COUNT - 1;
+
+    /**
+     * The largest <code>int</code> input. The <code>long</code> inputs go up
+     * to a thousand times this, which for the largest bound is past the range
+     * of <code>int</code> but still leaves trial division of a prime at a few
+     * milliseconds.
+     */
+    @Param({"1000", "1000000", "1000000000"})
+    public int bound;
+
+    private int[] ints;
+
+    private long[] longs;
+
+    private int index = 0;
+
+    @Setup
+    public void setUp() {
+        FactorizationCache.setEnabled(false); // Otherwise primeFactorsInt would only time cache hits
+        SplittableRandom random = new SplittableRandom(1729);
+        this.ints = new int[INPUT_COUNT];
+        this.longs = new long[INPUT_COUNT];
+        long longBound = 1000L * this.bound;
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            this.ints[i] = random.nextInt(2, this.bound + 1);
+            this.longs[i] = random.nextLong(2, longBound + 1);
+        }
+    }
+
+    @Benchmark
+    public boolean isPrimeInt() {
+        return NumberTheoreticFunctionsCalculator.isPrime(this.ints[this.index++ & INPUT_MASK]);
+    }
+
+    @Benchmark
+    public boolean isPrimeLong() {
+        return NumberTheoreticFunctionsCalculator.isPrime(this.longs[this.index++ & INPUT_MASK]);
+    }
+
+    @Benchmark
+    public List<Integer> primeFactorsInt() {
+        return NumberTheoreticFunctionsCalculator.primeFactors(this.ints[this.index++ & INPUT_MASK]);
+    }
+
+}
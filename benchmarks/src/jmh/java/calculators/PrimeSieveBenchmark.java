@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package calculators;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of {@link PrimeSieve} against stepping through the odd numbers
+ * and calling {@link NumberTheoreticFunctionsCalculator#isPrime(long)} on
+ * each. Each benchmark adds up the primes below the bound, so that none of
+ * them can skip the work.
+ * @author Alonso del Arte
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class PrimeSieveBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public long bound;
+
+    @Benchmark
+    public long isPrimeLoop() {
+        long sum = 2;
+        for (long n = 3; n < this.bound; n += 2) {
+            if (NumberTheoreticFunctionsCalculator.isPrime(n)) {
+                sum += n;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long sequentialStream() {
+        return PrimeSieve.primes(0, this.bound).sum();
+    }
+
+    @Benchmark
+    public long parallelStream() {
+        return PrimeSieve.primes(0, this.bound, true).sum();
+    }
+
+    @Benchmark
+    public long count() {
+        return PrimeSieve.count(0, this.bound);
+    }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package calculators;
+
+import algebraics.AlgebraicInteger;
+import algebraics.quadratics.ImaginaryQuadraticRing;
+import algebraics.quadratics.RealQuadraticRing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of {@link
+ * NumberTheoreticFunctionsCalculator#fundamentalUnit(algebraics.IntegerRing)}
+ * and {@link
+ * NumberTheoreticFunctionsCalculator#fieldClassNumber(algebraics.IntegerRing)}
+ * over the quadratic rings with squarefree radicands up to the bound.
+ * <code>fundamentalUnit</code> searches the multiples of &radic;<i>d</i> one by
+ * one, computing <i>dy</i><sup>2</sup> in an <code>int</code>, so when the
+ * unit's surd part <i>y</i> is big enough for that to overflow, as with 67 and
+ * 94, it goes on for billions of steps. Even where the ring has half-integers,
+ * it first looks for a unit without them. So real rings with no such unit with
+ * <i>dy</i><sup>2</sup> in range and <i>y</i> at most {@value
+ * #MAXIMUM_UNIT_SURD} are left out.
+ * @author Alonso del Arte
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class RingInvariantBenchmark {
+
+    static final int MAXIMUM_UNIT_SURD = 10000;
+
+    /**
+     * The largest absolute value of a radicand.
+     */
+    @Param({"10", "100", "1000"})
+    public int bound;
+
+    private RealQuadraticRing[] realRings;
+
+    private ImaginaryQuadraticRing[] imaginaryRings;
+
+    private int realIndex = 0;
+
+    private int imaginaryIndex = 0;
+
+    @Setup
+    public void setUp() {
+        List<RealQuadraticRing> reals = new ArrayList<>();
+        List<ImaginaryQuadraticRing> imaginaries = new ArrayList<>();
+        for (int d = 2; d <= this.bound; d++) {
+            if (!NumberTheoreticFunctionsCalculator.isSquareFree(d)) {
+                continue;
+            }
+            imaginaries.add(new ImaginaryQuadraticRing(-d));
+            if (hasSmallUnit(d)) {
+                reals.add(new RealQuadraticRing(d));
+            }
+        }
+        imaginaries.add(new ImaginaryQuadraticRing(-1));
+        this.realRings = reals.toArray(new RealQuadraticRing[0]);
+        this.imaginaryRings = imaginaries.toArray(new ImaginaryQuadraticRing[0]);
+    }
+
+    /**
+     * Tells whether <i>x</i><sup>2</sup> &minus; <i>dy</i><sup>2</sup> =
+     * &plusmn;1 has a solution with <i>y</i> no more than {@value
+     * #MAXIMUM_UNIT_SURD} and <i>dy</i><sup>2</sup> no more than
+     * 2<sup>31</sup> &minus; 1.
+     */
+    private static boolean hasSmallUnit(int d) {
+        for (long y = 1; y <= MAXIMUM_UNIT_SURD && d * y * y <= Integer.MAX_VALUE; y++) {
+            long dySquared = d * y * y;
+            if (isSquare(dySquared - 1) || isSquare(dySquared + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSquare(long n) {
+        long root = (long) Math.sqrt(n);
+        while (root * root > n) {
+            root--;
+        }
+        while ((root + 1) * (root + 1) <= n) {
+            root++;
+        }
+        return root * root == n;
+    }
+
+    private RealQuadraticRing nextRealRing() {
+        RealQuadraticRing ring = this.realRings[this.realIndex++];
+        if (this.realIndex == this.realRings.length) {
+            this.realIndex = 0;
+        }
+        return ring;
+    }
+
+    @Benchmark
+    public AlgebraicInteger fundamentalUnit() {
+        return NumberTheoreticFunctionsCalculator.fundamentalUnit(this.nextRealRing());
+    }
+
+    @Benchmark
+    public int fieldClassNumberReal() {
+        return NumberTheoreticFunctionsCalculator.fieldClassNumber(this.nextRealRing());
+    }
+
+    @Benchmark
+    public int fieldClassNumberImaginary() {
+        ImaginaryQuadraticRing ring = this.imaginaryRings[this.imaginaryIndex++];
+        if (this.imaginaryIndex == this.imaginaryRings.length) {
+            this.imaginaryIndex = 0;
+        }
+        return NumberTheoreticFunctionsCalculator.fieldClassNumber(ring);
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package calculators;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of the Legendre, Jacobi and Kronecker symbols. The Legendre
+ * symbol gets odd primes for its second argument, the Jacobi symbol odd
+ * positive numbers and the Kronecker symbol any nonzero numbers.
+ * @author Alonso del Arte
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class SymbolBenchmark {
+
+    private static final int INPUT_MASK = IntegerPrimalityBenchmark.INPUT_COUNT - 1;
+
+    /**
+     * The largest absolute value of an argument. The Legendre symbol squares
+     * residues modulo its prime in an <code>int</code>, so the bound stays
+     * below the square root of 2<sup>31</sup>.
+     */
+    @Param({"100", "1000", "40000"})
+    public int bound;
+
+    private int[] tops;
+
+    private int[] oddPrimes;
+
+    private int[] oddNumbers;
+
+    private int[] bottoms;
+
+    private int index = 0;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(1729);
+        int count = IntegerPrimalityBenchmark.INPUT_COUNT;
+        this.tops = new int[count];
+        this.oddPrimes = new int[count];
+        this.oddNumbers = new int[count];
+        this.bottoms = new int[count];
+        for (int i = 0; i < count; i++) {
+            this.tops[i] = random.nextInt(-this.bound, this.bound + 1);
+            int p;
+            do {
+                p = random.nextInt(3, this.bound + 1) | 1;
+            } while (!NumberTheoreticFunctionsCalculator.isPrime(p));
+            this.oddPrimes[i] = p;
+            this.oddNumbers[i] = random.nextInt(1, this.bound + 1) | 1;
+            int m;
+            do {
+                m = random.nextInt(-this.bound, this.bound + 1);
+            } while (m == 0);
+            this.bottoms[i] = m;
+        }
+    }
+
+    @Benchmark
+    public byte legendre() {
+        int i = this.index++ & INPUT_MASK;
+        return NumberTheoreticFunctionsCalculator.symbolLegendre(this.tops[i], this.oddPrimes[i]);
+    }
+
+    @Benchmark
+    public byte jacobi() {
+        int i = this.index++ & INPUT_MASK;
+        return NumberTheoreticFunctionsCalculator.symbolJacobi(this.tops[i], this.oddNumbers[i]);
+    }
+
+    @Benchmark
+    public byte kronecker() {
+        int i = this.index++ & INPUT_MASK;
+        return NumberTheoreticFunctionsCalculator.symbolKronecker(this.tops[i], this.bottoms[i]);
+    }
+
+}
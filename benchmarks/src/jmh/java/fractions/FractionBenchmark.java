@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fractions;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of the arithmetic of {@link Fraction}. Run under the GC
+ * profiler, as the benchmarks module does by default, these show how many
+ * bytes each operation allocates as well as how long it takes.
+ * @author Alonso del Arte
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class FractionBenchmark {
+
+    private static final int INPUT_COUNT = 1 << 10;
+
+    private static final int INPUT_MASK = INPUT_COUNT - 1;
+
+    /**
+     * The largest absolute value of a numerator or denominator. With the
+     * largest bound, sums and products of numerators and denominators still
+     * fit in a <code>long</code>.
+     */
+    @Param({"100", "1000000", "1000000000"})
+    public int bound;
+
+    private Fraction[] augends;
+
+    private Fraction[] addends;
+
+    private Fraction[] copies;
+
+    private int index = 0;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(1729);
+        this.augends = new Fraction[INPUT_COUNT];
+        this.addends = new Fraction[INPUT_COUNT];
+        this.copies = new Fraction[INPUT_COUNT];
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            long numer = random.nextInt(-this.bound, this.bound + 1);
+            long denom = random.nextInt(1, this.bound + 1);
+            this.augends[i] = new Fraction(numer, denom);
+            this.copies[i] = new Fraction(numer, denom);
+            long otherNumer;
+            do {
+                otherNumer = random.nextInt(-this.bound, this.bound + 1);
+            } while (otherNumer == 0);
+            this.addends[i] = new Fraction(otherNumer, random.nextInt(1, this.bound + 1));
+        }
+    }
+
+    @Benchmark
+    public Fraction plus() {
+        int i = this.index++ & INPUT_MASK;
+        return this.augends[i].plus(this.addends[i]);
+    }
+
+    @Benchmark
+    public Fraction minus() {
+        int i = this.index++ & INPUT_MASK;
+        return this.augends[i].minus(this.addends[i]);
+    }
+
+    @Benchmark
+    public Fraction times() {
+        int i = this.index++ & INPUT_MASK;
+        return this.augends[i].times(this.addends[i]);
+    }
+
+    @Benchmark
+    public Fraction dividedBy() {
+        int i = this.index++ & INPUT_MASK;
+        return this.augends[i].dividedBy(this.addends[i]);
+    }
+
+    @Benchmark
+    public int compareTo() {
+        int i = this.index++ & INPUT_MASK;
+        return this.augends[i].compareTo(this.addends[i]);
+    }
+
+    /**
+     * Compares each fraction to an equal but distinct object, and then to a
+     * fraction that's almost certainly different, so that both outcomes are
+     * measured.
+     * @return Whether the fractions are equal.
+     */
+    @Benchmark
+    public boolean equalsCheck() {
+        int count = this.index++;
+        int i = count & INPUT_MASK;
+        Object other = ((count & INPUT_COUNT) == 0) ? this.copies[i] : this.addends[i];
+        return this.augends[i].equals(other);
+    }
+
+    @Benchmark
+    public int hashCodeCheck() {
+        return this.augends[this.index++ & INPUT_MASK].hashCode();
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package games;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of the hints of {@link GaussianIntegerGuessingGame}. A round
+ * played by always taking the suggested guess, from building the index of
+ * candidates to the right guess, is compared to a single scan of every point
+ * of the disk against one hint, which is what each hint would cost without
+ * the index.
+ * @author Alonso del Arte
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class GaussianIntegerGuessingGameBenchmark {
+
+    @Param({"100", "4096"})
+    public int radius;
+
+    private GaussianIntegerGuessingGame game;
+
+    @Setup
+    public void setUp() {
+        this.game = new GaussianIntegerGuessingGame(this.radius, new SplittableRandom(1729));
+    }
+
+    @Benchmark
+    public int playRound() {
+        this.game.startRound();
+        CompassHint hint;
+        do {
+            hint = this.game.checkGuess(this.game.suggestGuess());
+        } while (hint != CompassHint.CORRECT);
+        return this.game.getGuessCount();
+    }
+
+    @Benchmark
+    public long scanDisk() {
+        int r = this.radius;
+        long radiusSquared = (long) r * r;
+        long admitted = 0;
+        for (int x = -r; x <= r; x++) {
+            for (int y = -r; y <= r; y++) {
+                if ((long) x * x + (long) y * y <= radiusSquared && CompassHint.EAST_NORTHEAST.admits(0, 0, x, y)) {
+                    admitted++;
+                }
+            }
+        }
+        return admitted;
+    }
+
+}
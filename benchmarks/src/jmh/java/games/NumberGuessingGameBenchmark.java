@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package games;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Benchmarks of {@link NumberGuessingGame#chooseNumber(int, int,
+ * RandomGenerator)} under contention. With one generator shared by every
+ * thread, as with <code>Math.random()</code>, the threads contend for its
+ * seed; with {@link java.util.concurrent.ThreadLocalRandom} or a {@link
+ * SplittableRandom} per thread, they don't. Each generator is run on 1, 4 and
+ * 16 threads.
+ * @author Alonso del Arte
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class NumberGuessingGameBenchmark {
+
+    private static final Random SHARED_RANDOM = new Random(1729);
+
+    @Param({"shared", "threadLocal", "splittable"})
+    public String generator;
+
+    /**
+     * The generator for this thread, or null for the thread's {@link
+     * java.util.concurrent.ThreadLocalRandom}.
+     */
+    private RandomGenerator random;
+
+    @Setup
+    public void setUp() {
+        switch (this.generator) {
+            case "shared":
+                this.random = SHARED_RANDOM;
+                break;
+            case "threadLocal":
+                this.random = null;
+                break;
+            case "splittable":
+                this.random = new SplittableRandom();
+                break;
+            default:
+                String exceptionMessage = "Generator " + this.generator + " is not recognized";
+                throw new IllegalArgumentException(exceptionMessage);
+        }
+    }
+
+    private int choose() {
+        if (this.random == null) {
+            return NumberGuessingGame.chooseNumber(1, 100);
+        }
+        return NumberGuessingGame.chooseNumber(1, 100, this.random);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int chooseNumberOneThread() {
+        return this.choose();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int chooseNumberFourThreads() {
+        return this.choose();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public int chooseNumberSixteenThreads() {
+        return this.choose();
+    }
+
+}
@@ -23,6 +23,7 @@ import algebraics.quadratics.QuadraticRing;
 import algebraics.quadratics.RealQuadraticInteger;
 import algebraics.quadratics.RealQuadraticRing;
 import calculators.NumberTheoreticFunctionsCalculator;
+import calculators.NumberTheoryOperationEvent;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -68,6 +69,15 @@ public class NonUniqueFactorizationDomainException extends Exception {
      * then this exception will be thrown, with a detail message to that effect.
      */
     public List<AlgebraicInteger> tryToFactorizeAnyway() {
+        NumberTheoryOperationEvent event = new NumberTheoryOperationEvent("tryToFactorizeAnyway");
+        try {
+            return this.tryToFactorizeAnyway(event);
+        } finally {
+            event.finish(this.unfactorizedNumber);
+        }
+    }
+
+    private List<AlgebraicInteger> tryToFactorizeAnyway(NumberTheoryOperationEvent event) {
         if (this.unfactorizedNumber instanceof QuadraticInteger) {
             QuadraticInteger n = (QuadraticInteger) this.unfactorizedNumber;
             boolean realFlag = this.unfactorizedNumber instanceof RealQuadraticInteger;
@@ -91,6 +101,7 @@ public class NonUniqueFactorizationDomainException extends Exception {
                 QuadraticInteger testDivisor = unity.plus(1); // Should be 2
                 if (NumberTheoreticFunctionsCalculator.isIrreducible(testDivisor)) {
                     while (n.norm() % 4 == 0 && keepGoing) {
+                        event.iterate();
                         try {
                             n = n.divides(testDivisor);
                             factors.add(testDivisor);
@@ -108,6 +119,7 @@ public class NonUniqueFactorizationDomainException extends Exception {
                 while (Math.abs(n.norm()) >= Math.abs(testDivisor.norm()) && keepGoing) {
                     if (NumberTheoreticFunctionsCalculator.isIrreducible(testDivisor)) {
                         while (n.norm() % testDivisor.norm() == 0 && keepGoing) {
+                            event.iterate();
                             try {
                                 n = n.divides(testDivisor);
                                 factors.add(testDivisor);
@@ -140,6 +152,7 @@ public class NonUniqueFactorizationDomainException extends Exception {
                     if (NumberTheoreticFunctionsCalculator.isIrreducible(testDivisor) && Math.abs(testDivisor.norm()) != 1) {
                         keepGoing = true;
                         while (n.norm() % testDivisor.norm() == 0 && keepGoing) {
+                            event.iterate();
                             try {
                                 n = n.divides(testDivisor.conjugate());
                                 factors.add(testDivisor.conjugate());
@@ -151,6 +164,7 @@ public class NonUniqueFactorizationDomainException extends Exception {
                                 /* We just ignore the exception when it pertains
                                    to the conjugate */
                             }
+                            event.iterate();
                             try {
                                 n = n.divides(testDivisor);
                                 factors.add(testDivisor);
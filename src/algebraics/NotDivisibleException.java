@@ -22,6 +22,7 @@ import algebraics.quadratics.QuadraticInteger;
 import algebraics.quadratics.QuadraticRing;
 import algebraics.quadratics.RealQuadraticInteger;
 import algebraics.quadratics.RealQuadraticRing;
+import calculators.CalculatorMetrics;
 import calculators.NumberTheoreticFunctionsCalculator;
 import fractions.Fraction;
 
@@ -131,6 +132,46 @@ public class NotDivisibleException extends Exception {
         return Math.sqrt(hypotenuseSquare);
     }
 
+    /**
+     * Rounds a fraction down to an integer exactly. Going through {@link
+     * Fraction#getNumericApproximation()} would be wrong for numerators too
+     * large to be represented exactly as a <code>double</code>.
+     */
+    private static long floor(Fraction fraction) {
+        return Math.floorDiv(fraction.getNumerator(), fraction.getDenominator());
+    }
+
+    private static long ceiling(Fraction fraction) {
+        long quotient = Math.floorDiv(fraction.getNumerator(), fraction.getDenominator());
+        if (fraction.getDenominator() > 1) {
+            quotient++;
+        }
+        return quotient;
+    }
+
+    /**
+     * Rounds twice a fraction up to an integer exactly, without doubling the
+     * numerator when the denominator is even.
+     */
+    private static long ceilingOfDouble(Fraction fraction) {
+        long numer = fraction.getNumerator();
+        long denom = fraction.getDenominator();
+        if (denom % 2 == 0) {
+            denom /= 2;
+        } else {
+            numer *= 2;
+        }
+        long quotient = Math.floorDiv(numer, denom);
+        if (denom > 1) {
+            quotient++;
+        }
+        return quotient;
+    }
+
+    private static long truncate(Fraction fraction) {
+        return fraction.getNumerator() / fraction.getDenominator();
+    }
+
     /**
      * Gets the algebraic integers which surround the algebraic number 
      * represented by the fractions that were passed to the constructor. 
@@ -148,8 +189,6 @@ public class NotDivisibleException extends Exception {
         if (this.initRing instanceof QuadraticRing) {
             QuadraticRing workingRing = (QuadraticRing) initRing;
             QuadraticInteger zeroQI = new ImaginaryQuadraticInteger(0, 0, new ImaginaryQuadraticRing(-1));
-            double numerReg = this.fractions[0].getNumericApproximation();
-            double numerSurd = this.fractions[1].getNumericApproximation();
             if (workingRing instanceof ImaginaryQuadraticRing || workingRing instanceof RealQuadraticRing) {
                 int arrayLen = 0;
                 if (workingRing instanceof ImaginaryQuadraticRing) {
@@ -170,8 +209,8 @@ public class NotDivisibleException extends Exception {
                 }
                 if (workingRing.hasHalfIntegers()) {
                     int topPointA, topPointB;
-                    topPointA = (int) Math.ceil(numerReg * 2);
-                    topPointB = (int) Math.ceil(numerSurd * 2);
+                    topPointA = (int) ceilingOfDouble(this.fractions[0]);
+                    topPointB = (int) ceilingOfDouble(this.fractions[1]);
                     if ((topPointA % 2 == 0 && topPointB % 2 != 0) || (topPointA % 2 != 0 && topPointB % 2 == 0)) {
                         topPointA--;
                     }
@@ -188,10 +227,10 @@ public class NotDivisibleException extends Exception {
                     }
                 } else {
                     int floorA, floorB, ceilA, ceilB;
-                    floorA = (int) Math.floor(numerReg);
-                    floorB = (int) Math.floor(numerSurd);
-                    ceilA = (int) Math.ceil(numerReg);
-                    ceilB = (int) Math.ceil(numerSurd);
+                    floorA = (int) floor(this.fractions[0]);
+                    floorB = (int) floor(this.fractions[1]);
+                    ceilA = (int) ceiling(this.fractions[0]);
+                    ceilB = (int) ceiling(this.fractions[1]);
                     if (workingRing instanceof ImaginaryQuadraticRing) {
                         algIntArray[0] = new ImaginaryQuadraticInteger(floorA, floorB, workingRing);
                         algIntArray[1] = new ImaginaryQuadraticInteger(ceilA, floorB, workingRing);
@@ -249,22 +288,12 @@ public class NotDivisibleException extends Exception {
                 }
                 return bounds[bestIndex];
             }
-            double intermediateRegPart = this.fractions[0].getNumericApproximation();
-            double intermediateSurdPart = this.fractions[1].getNumericApproximation();
-            if (intermediateRegPart < 0) {
-                intermediateRegPart = Math.ceil(intermediateRegPart);
-            } else {
-                intermediateRegPart = Math.floor(intermediateRegPart);
-            }
-            if (intermediateSurdPart < 0) {
-                intermediateSurdPart = Math.ceil(intermediateSurdPart);
-            } else {
-                intermediateSurdPart = Math.floor(intermediateSurdPart);
-            }
+            long intermediateRegPart = truncate(this.fractions[0]);
+            long intermediateSurdPart = truncate(this.fractions[1]);
             boolean overflowFlag = (intermediateRegPart < Integer.MIN_VALUE) || (intermediateRegPart > Integer.MAX_VALUE);
             overflowFlag = overflowFlag || ((intermediateSurdPart < Integer.MIN_VALUE) || (intermediateSurdPart > Integer.MAX_VALUE));
             if (overflowFlag) {
-                throw new ArithmeticException("Real part " + intermediateRegPart + ", imaginary part " + intermediateSurdPart + " times sqrt(" + workingRing.getRadicand() + ") is outside the range of this implementation of ImaginaryQuadraticInteger, which uses 32-bit signed integers.");
+                throw CalculatorMetrics.overflow(new ArithmeticException("Real part " + intermediateRegPart + ", imaginary part " + intermediateSurdPart + " times sqrt(" + workingRing.getRadicand() + ") is outside the range of this implementation of ImaginaryQuadraticInteger, which uses 32-bit signed integers."));
             }
             if (workingRing instanceof ImaginaryQuadraticRing) {
                 return new ImaginaryQuadraticInteger((int) intermediateRegPart, (int) intermediateSurdPart, workingRing);
@@ -306,22 +335,18 @@ public class NotDivisibleException extends Exception {
                 }
                 return bounds[bestIndex];
             }
-            double intermediateRegPart = this.fractions[0].getNumericApproximation();
-            double intermediateSurdPart = this.fractions[1].getNumericApproximation();
-            if (intermediateRegPart < 0) {
-                intermediateRegPart = Math.floor(intermediateRegPart);
-            } else {
-                intermediateRegPart = Math.ceil(intermediateRegPart);
+            long intermediateRegPart = truncate(this.fractions[0]);
+            long intermediateSurdPart = truncate(this.fractions[1]);
+            if (this.fractions[0].getDenominator() > 1) {
+                intermediateRegPart += Long.signum(this.fractions[0].getNumerator());
             }
-            if (intermediateSurdPart < 0) {
-                intermediateSurdPart = Math.floor(intermediateSurdPart);
-            } else {
-                intermediateSurdPart = Math.ceil(intermediateSurdPart);
+            if (this.fractions[1].getDenominator() > 1) {
+                intermediateSurdPart += Long.signum(this.fractions[1].getNumerator());
             }
             boolean overflowFlag = (intermediateRegPart < Integer.MIN_VALUE) || (intermediateRegPart > Integer.MAX_VALUE);
             overflowFlag = overflowFlag || ((intermediateSurdPart < Integer.MIN_VALUE) || (intermediateSurdPart > Integer.MAX_VALUE));
             if (overflowFlag) {
-                throw new ArithmeticException("Real part " + intermediateRegPart + ", imaginary part " + intermediateSurdPart + " times sqrt(" + workingRing.getRadicand() + ") is outside the range of this implementation of ImaginaryQuadraticInteger, which uses 32-bit signed integers.");
+                throw CalculatorMetrics.overflow(new ArithmeticException("Real part " + intermediateRegPart + ", imaginary part " + intermediateSurdPart + " times sqrt(" + workingRing.getRadicand() + ") is outside the range of this implementation of ImaginaryQuadraticInteger, which uses 32-bit signed integers."));
             }
             if (workingRing instanceof ImaginaryQuadraticRing) {
                 return new ImaginaryQuadraticInteger((int) intermediateRegPart, (int) intermediateSurdPart, workingRing);
@@ -377,6 +402,7 @@ public class NotDivisibleException extends Exception {
      */
     public NotDivisibleException(String message, AlgebraicInteger dividend, AlgebraicInteger divisor, Fraction[] fractions) {
         super(message);
+        CalculatorMetrics.notDivisible();
         boolean ringNotSupportedFlag = !(dividend.getRing() instanceof QuadraticRing && divisor.getRing() instanceof QuadraticRing);
         if (dividend.getRing().equals(divisor.getRing()) || ringNotSupportedFlag) {
             this.initRing = dividend.getRing();
@@ -20,6 +20,7 @@ import algebraics.AlgebraicDegreeOverflowException;
 import algebraics.AlgebraicInteger;
 import algebraics.NotDivisibleException;
 import algebraics.UnsupportedNumberDomainException;
+import calculators.CalculatorMetrics;
 import calculators.NumberTheoreticFunctionsCalculator;
 import fractions.Fraction;
 
@@ -655,11 +656,11 @@ public abstract class QuadraticInteger implements AlgebraicInteger {
         long potSurd = potentialSurdPart.getNumerator();
         if (potReg < Integer.MIN_VALUE || potReg > Integer.MAX_VALUE) {
             String excMsg = "Regular part of " + potentialRegPart.toString() + " + " + potentialSurdPart.toString() + "sqrt(" + ring.getRadicand() + ") exceeds range of QuadraticInteger data type";
-            throw new ArithmeticException(excMsg);
+            throw CalculatorMetrics.overflow(new ArithmeticException(excMsg));
         }
         if (potSurd < Integer.MIN_VALUE || potSurd > Integer.MAX_VALUE) {
             String excMsg = "Surd part of " + potentialRegPart.toString() + " + " + potentialSurdPart.toString() + "sqrt(" + ring.getRadicand() + ") exceeds range of QuadraticInteger data type";
-            throw new ArithmeticException(excMsg);
+            throw CalculatorMetrics.overflow(new ArithmeticException(excMsg));
         }
     }
 
@@ -684,6 +685,15 @@ public abstract class QuadraticInteger implements AlgebraicInteger {
      * calculation.
      */
     public QuadraticInteger plus(QuadraticInteger summand) {
+        long start = CalculatorMetrics.start();
+        try {
+            return this.plusImpl(summand);
+        } finally {
+            CalculatorMetrics.record(CalculatorMetrics.Operation.QUADRATIC_PLUS, start);
+        }
+    }
+
+    private QuadraticInteger plusImpl(QuadraticInteger summand) {
         if (summand.surdPartMult == 0) {
             return this.plus(summand.regPartMult);
         }
@@ -725,7 +735,7 @@ public abstract class QuadraticInteger implements AlgebraicInteger {
             sumRegPart += summand;
         }
         if (sumRegPart < Integer.MIN_VALUE || sumRegPart > Integer.MAX_VALUE) {
-            throw new ArithmeticException("Real part of sum exceeds int data type: " + sumRegPart + " + " + this.surdPartMult + "sqrt(" + this.quadRing.radicand + ")");
+            throw CalculatorMetrics.overflow(new ArithmeticException("Real part of sum exceeds int data type: " + sumRegPart + " + " + this.surdPartMult + "sqrt(" + this.quadRing.radicand + ")"));
         }
         return apply((int) sumRegPart, (int) this.surdPartMult, this.quadRing, this.denominator);
     }
@@ -750,6 +760,15 @@ public abstract class QuadraticInteger implements AlgebraicInteger {
      * for the calculation.
      */
     public QuadraticInteger minus(QuadraticInteger subtrahend) {
+        long start = CalculatorMetrics.start();
+        try {
+            return this.minusImpl(subtrahend);
+        } finally {
+            CalculatorMetrics.record(CalculatorMetrics.Operation.QUADRATIC_MINUS, start);
+        }
+    }
+
+    private QuadraticInteger minusImpl(QuadraticInteger subtrahend) {
         QuadraticInteger negAddend = subtrahend.times(-1);
         return this.plus(negAddend);
     }
@@ -836,6 +855,15 @@ public abstract class QuadraticInteger implements AlgebraicInteger {
      * data type. You may need long or even BigInteger for the calculation.
      */
     public QuadraticInteger times(QuadraticInteger multiplicand) {
+        long start = CalculatorMetrics.start();
+        try {
+            return this.timesImpl(multiplicand);
+        } finally {
+            CalculatorMetrics.record(CalculatorMetrics.Operation.QUADRATIC_TIMES, start);
+        }
+    }
+
+    private QuadraticInteger timesImpl(QuadraticInteger multiplicand) {
         if (multiplicand.surdPartMult == 0) {
             return this.times(multiplicand.regPartMult);
         }
@@ -860,10 +888,10 @@ public abstract class QuadraticInteger implements AlgebraicInteger {
                 multDenom = 2;
             }
             if (multRegPart < Integer.MIN_VALUE || multRegPart > Integer.MAX_VALUE) {
-                throw new ArithmeticException("Real part of product exceeds int data type:" + multRegPart + " + " + multSurdPart + "sqrt(" + this.quadRing.radicand + ")");
+                throw CalculatorMetrics.overflow(new ArithmeticException("Real part of product exceeds int data type:" + multRegPart + " + " + multSurdPart + "sqrt(" + this.quadRing.radicand + ")"));
             }
             if (multSurdPart < Integer.MIN_VALUE || multSurdPart > Integer.MAX_VALUE) {
-                throw new ArithmeticException("Imaginary part of product exceeds int data type:" + multRegPart + " + " + multSurdPart + "sqrt(" + this.quadRing.radicand + ")");
+                throw CalculatorMetrics.overflow(new ArithmeticException("Imaginary part of product exceeds int data type:" + multRegPart + " + " + multSurdPart + "sqrt(" + this.quadRing.radicand + ")"));
             }
             return apply((int) multRegPart, (int) multSurdPart, this.quadRing, multDenom);
         } else {
@@ -889,10 +917,10 @@ public abstract class QuadraticInteger implements AlgebraicInteger {
         long multiplicationSurdPart = this.surdPartMult * multiplicand;
         // No need to worry about denominator, constructor will take care of it if necessary.
         if (multiplicationRegPart < Integer.MIN_VALUE || multiplicationRegPart > Integer.MAX_VALUE) {
-            throw new ArithmeticException("Real part of product exceeds int data type:" + multiplicationRegPart + " + " + multiplicationSurdPart + "sqrt(" + this.quadRing.radicand + ")");
+            throw CalculatorMetrics.overflow(new ArithmeticException("Real part of product exceeds int data type:" + multiplicationRegPart + " + " + multiplicationSurdPart + "sqrt(" + this.quadRing.radicand + ")"));
         }
         if (multiplicationSurdPart < Integer.MIN_VALUE || multiplicationSurdPart > Integer.MAX_VALUE) {
-            throw new ArithmeticException("Imaginary part of product exceeds int data type:" + multiplicationRegPart + " + " + multiplicationSurdPart + "sqrt(" + this.quadRing.radicand + ")");
+            throw CalculatorMetrics.overflow(new ArithmeticException("Imaginary part of product exceeds int data type:" + multiplicationRegPart + " + " + multiplicationSurdPart + "sqrt(" + this.quadRing.radicand + ")"));
         }
         return apply((int) multiplicationRegPart, (int) multiplicationSurdPart, this.quadRing, this.denominator);
     }
@@ -986,6 +1014,15 @@ public abstract class QuadraticInteger implements AlgebraicInteger {
      * the int data type.
      */
     public QuadraticInteger divides(QuadraticInteger divisor) throws NotDivisibleException {
+        long start = CalculatorMetrics.start();
+        try {
+            return this.dividesImpl(divisor);
+        } finally {
+            CalculatorMetrics.record(CalculatorMetrics.Operation.QUADRATIC_DIVIDES, start);
+        }
+    }
+
+    private QuadraticInteger dividesImpl(QuadraticInteger divisor) throws NotDivisibleException {
         if (this.quadRing.equals(divisor.quadRing)) {
             long divDenom = (long) (divisor.norm() * (long) this.denominator * (long) divisor.denominator);
             Fraction divRegFract = new Fraction((long) this.regPartMult * (long) divisor.regPartMult - (long) this.surdPartMult * (long) divisor.surdPartMult * (long) this.quadRing.radicand, divDenom);
@@ -1003,10 +1040,10 @@ public abstract class QuadraticInteger implements AlgebraicInteger {
             long divRegFractNumer = divRegFract.getNumerator();
             long divSurdFractNumer = divSurdFract.getNumerator();
             if (divRegFractNumer < Integer.MIN_VALUE || divRegFractNumer > Integer.MAX_VALUE) {
-                throw new ArithmeticException("Real part of division exceeds int data type:" + divRegFractNumer + " + " + divSurdFractNumer + "sqrt(" + this.quadRing.radicand + ")");
+                throw CalculatorMetrics.overflow(new ArithmeticException("Real part of division exceeds int data type:" + divRegFractNumer + " + " + divSurdFractNumer + "sqrt(" + this.quadRing.radicand + ")"));
             }
             if (divSurdFractNumer < Integer.MIN_VALUE || divSurdFractNumer > Integer.MAX_VALUE) {
-                throw new ArithmeticException("Imaginary part of division exceeds int data type:" + divRegFractNumer + " + " + divSurdFractNumer + "sqrt(" + this.quadRing.radicand + ")");
+                throw CalculatorMetrics.overflow(new ArithmeticException("Imaginary part of division exceeds int data type:" + divRegFractNumer + " + " + divSurdFractNumer + "sqrt(" + this.quadRing.radicand + ")"));
             }
             return apply((int) divRegFract.getNumerator(), (int) divSurdFract.getNumerator(), this.quadRing, (int) divRegFract.getDenominator());
         } else {
@@ -1077,10 +1114,10 @@ public abstract class QuadraticInteger implements AlgebraicInteger {
             throw new NotDivisibleException(this, wrappedDivisor, fracts);
         }
         if (divRegPart < Integer.MIN_VALUE || divRegPart > Integer.MAX_VALUE) {
-            throw new ArithmeticException("Real part of division exceeds int data type:" + divRegPart + " + " + divSurdPart + "sqrt(" + this.quadRing.radicand + ")");
+            throw CalculatorMetrics.overflow(new ArithmeticException("Real part of division exceeds int data type:" + divRegPart + " + " + divSurdPart + "sqrt(" + this.quadRing.radicand + ")"));
         }
         if (divSurdPart < Integer.MIN_VALUE || divSurdPart > Integer.MAX_VALUE) {
-            throw new ArithmeticException("Imaginary part of division exceeds int data type:" + divRegPart + " + " + divSurdPart + "sqrt(" + this.quadRing.radicand + ")");
+            throw CalculatorMetrics.overflow(new ArithmeticException("Imaginary part of division exceeds int data type:" + divRegPart + " + " + divSurdPart + "sqrt(" + this.quadRing.radicand + ")"));
         }
         return QuadraticInteger.apply((int) divRegPart, (int) divSurdPart, this.quadRing, (int) divDenom);
     }
@@ -18,6 +18,7 @@ package algebraics.quadratics;
 
 import algebraics.IntegerRing;
 import fractions.Fraction;
+import calculators.CalculatorMetrics;
 import calculators.NumberTheoreticFunctionsCalculator;
 
 /**
@@ -417,6 +418,7 @@ public abstract class QuadraticRing implements IntegerRing {
             throw new IllegalArgumentException(excMsg);
         }
         this.radicand = d;
+        CalculatorMetrics.ringConstructed();
     }
 
 }
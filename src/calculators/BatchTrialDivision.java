@@ -0,0 +1,304 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package calculators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs primality tests and factorizations of arrays of numbers on a fork/join
+ * pool. The cost of trial division grows with the square root of the number,
+ * so the numbers are first ordered by bit length, cheapest first, with a
+ * counting sort, and then cut into chunks of about the same estimated cost
+ * rather than the same length. That way a chunk of a few large primes is
+ * worth as much as a chunk of thousands of small numbers, and no one thread
+ * is left with all the hard cases at the end. Each chunk goes through its
+ * numbers in a plain loop, and writes its results only to the indices it
+ * owns, so the chunks share nothing while they run.
+ * @author Alonso del Arte
+ */
+final class BatchTrialDivision {
+
+    /**
+     * Batches this small are done on the calling thread.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 1024;
+
+    /**
+     * How many chunks to aim for per thread of the pool, so that threads
+     * that finish early can steal work from those that don't.
+     */
+    private static final int CHUNKS_PER_THREAD = 8;
+
+    /**
+     * Even a number of 64 bits can have 63 prime factors, if it's a power of
+     * 2, and the minus sign counts as one more.
+     */
+    private static final int MAXIMUM_FACTOR_COUNT = 64;
+
+    private static int bitLength(long num) {
+        return 64 - Long.numberOfLeadingZeros(Math.abs(num));
+    }
+
+    /**
+     * Estimates the cost of trial division for a number as the square root
+     * of the largest number of its bit length, which is the cost for a prime.
+     */
+    private static long estimatedCost(int bitLength) {
+        return 1L << ((bitLength + 1) / 2);
+    }
+
+    /**
+     * Orders the indices of the numbers by the bit length of the numbers,
+     * shortest first. The sort is stable, so numbers of the same length stay
+     * in their original order.
+     */
+    private static int[] orderByBitLength(long[] nums) {
+        int[] starts = new int[66];
+        for (long num : nums) {
+            starts[bitLength(num) + 1]++;
+        }
+        for (int i = 1; i < starts.length; i++) {
+            starts[i] += starts[i - 1];
+        }
+        int[] order = new int[nums.length];
+        for (int i = 0; i < nums.length; i++) {
+            order[starts[bitLength(nums[i])]++] = i;
+        }
+        return order;
+    }
+
+    /**
+     * Cuts the ordered numbers into chunks of about the same estimated cost.
+     * @return The boundaries of the chunks, as positions in the order,
+     * starting with 0 and ending with the length of the order.
+     */
+    private static int[] planChunks(long[] nums, int[] order, int parallelism) {
+        long totalCost = 0;
+        for (int index : order) {
+            totalCost += estimatedCost(bitLength(nums[index]));
+        }
+        long target = Math.max(1L, totalCost / ((long) parallelism * CHUNKS_PER_THREAD));
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+        long chunkCost = 0;
+        for (int pos = 0; pos < order.length; pos++) {
+            chunkCost += estimatedCost(bitLength(nums[order[pos]]));
+            if (chunkCost >= target && pos + 1 < order.length) {
+                bounds.add(pos + 1);
+                chunkCost = 0;
+            }
+        }
+        bounds.add(order.length);
+        return bounds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private abstract static class Chunk extends RecursiveAction {
+
+        private static final long serialVersionUID = 4549605263182934017L;
+
+        final long[] nums;
+        final int[] order;
+        final int from;
+        final int to;
+
+        Chunk(long[] nums, int[] order, int from, int to) {
+            this.nums = nums;
+            this.order = order;
+            this.from = from;
+            this.to = to;
+        }
+
+    }
+
+    private static final class PrimalityChunk extends Chunk {
+
+        private static final long serialVersionUID = 4549605263182934018L;
+
+        private final boolean[] primes;
+
+        PrimalityChunk(long[] nums, int[] order, int from, int to, boolean[] primes) {
+            super(nums, order, from, to);
+            this.primes = primes;
+        }
+
+        @Override
+        protected void compute() {
+            int index;
+            for (int pos = this.from; pos < this.to; pos++) {
+                index = this.order[pos];
+                this.primes[index] = NumberTheoreticFunctionsCalculator.isPrimeImpl(this.nums[index]);
+            }
+        }
+
+    }
+
+    private static final class FactoringChunk extends Chunk {
+
+        private static final long serialVersionUID = 4549605263182934019L;
+
+        private final int[] counts;
+
+        /**
+         * The factors of this chunk's numbers, in the order the chunk
+         * factored them, until they're copied to their places in the packed
+         * array.
+         */
+        private long[] buffer;
+
+        FactoringChunk(long[] nums, int[] order, int from, int to, int[] counts) {
+            super(nums, order, from, to);
+            this.counts = counts;
+            this.buffer = new long[Math.max(MAXIMUM_FACTOR_COUNT, 4 * (to - from))];
+        }
+
+        @Override
+        protected void compute() {
+            int length = 0;
+            int index;
+            for (int pos = this.from; pos < this.to; pos++) {
+                if (this.buffer.length - length < MAXIMUM_FACTOR_COUNT) {
+                    this.buffer = Arrays.copyOf(this.buffer, 2 * this.buffer.length);
+                }
+                index = this.order[pos];
+                int end = factorInto(this.nums[index], this.buffer, length);
+                this.counts[index] = end - length;
+                length = end;
+            }
+        }
+
+        /**
+         * Copies this chunk's factors to their places in the packed array.
+         */
+        void copyTo(int[] offsets, long[] factors) {
+            int length = 0;
+            int index;
+            for (int pos = this.from; pos < this.to; pos++) {
+                index = this.order[pos];
+                System.arraycopy(this.buffer, length, factors, offsets[index], this.counts[index]);
+                length += this.counts[index];
+            }
+        }
+
+    }
+
+    /**
+     * Factors a number by trial division up to its square root.
+     * @param num The number to factor.
+     * @param dest Where to put the factors. There has to be room for {@link
+     * #MAXIMUM_FACTOR_COUNT} of them.
+     * @param start Where to put the first factor.
+     * @return The position after the last factor.
+     */
+    static int factorInto(long num, long[] dest, int start) {
+        int pos = start;
+        if (num == 0) {
+            dest[pos++] = 0;
+            return pos;
+        }
+        long n = num;
+        if (n < 0) {
+            dest[pos++] = -1;
+            if (n == Long.MIN_VALUE) {
+                for (int i = 0; i < 63; i++) {
+                    dest[pos++] = 2;
+                }
+                return pos;
+            }
+            n = -n;
+        }
+        while ((n & 1) == 0) {
+            dest[pos++] = 2;
+            n >>= 1;
+        }
+        long trialDivisions = 0;
+        for (long divisor = 3; divisor <= n / divisor; divisor += 2) {
+            trialDivisions++;
+            while (n % divisor == 0) {
+                dest[pos++] = divisor;
+                n /= divisor;
+            }
+        }
+        CalculatorMetrics.trialDivisions(trialDivisions);
+        if (n > 1) {
+            dest[pos++] = n;
+        }
+        return pos;
+    }
+
+    private static void run(ForkJoinPool pool, List<? extends Chunk> chunks) {
+        if (chunks.size() == 1) {
+            chunks.get(0).invoke();
+        } else {
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(chunks)));
+        }
+    }
+
+    private static int[] plan(long[] nums, int[] order, ForkJoinPool pool) {
+        if (nums.length <= SEQUENTIAL_THRESHOLD || pool.getParallelism() == 1) {
+            return new int[]{0, nums.length};
+        }
+        return planChunks(nums, order, pool.getParallelism());
+    }
+
+    static BitSet isPrime(long[] nums, ForkJoinPool pool) {
+        int[] order = orderByBitLength(nums);
+        int[] bounds = plan(nums, order, pool);
+        boolean[] primes = new boolean[nums.length];
+        List<PrimalityChunk> chunks = new ArrayList<>(bounds.length - 1);
+        for (int i = 1; i < bounds.length; i++) {
+            chunks.add(new PrimalityChunk(nums, order, bounds[i - 1], bounds[i], primes));
+        }
+        run(pool, chunks);
+        BitSet result = new BitSet(nums.length);
+        for (int i = 0; i < primes.length; i++) {
+            if (primes[i]) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    static PackedFactorizations factorAll(long[] nums, ForkJoinPool pool) {
+        int[] order = orderByBitLength(nums);
+        int[] bounds = plan(nums, order, pool);
+        int[] counts = new int[nums.length];
+        List<FactoringChunk> chunks = new ArrayList<>(bounds.length - 1);
+        for (int i = 1; i < bounds.length; i++) {
+            chunks.add(new FactoringChunk(nums, order, bounds[i - 1], bounds[i], counts));
+        }
+        run(pool, chunks);
+        int[] offsets = new int[nums.length + 1];
+        for (int i = 0; i < nums.length; i++) {
+            offsets[i + 1] = Math.addExact(offsets[i], counts[i]);
+        }
+        long[] factors = new long[offsets[nums.length]];
+        for (FactoringChunk chunk : chunks) {
+            chunk.copyTo(offsets, factors);
+        }
+        return new PackedFactorizations(offsets, factors);
+    }
+
+    private BatchTrialDivision() {
+    }
+
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package calculators;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Opt-in counters for the internals of {@link NumberTheoreticFunctionsCalculator}
+ * and {@link algebraics.quadratics.QuadraticInteger}. The counters are off
+ * unless the JVM is started with <code>-Dcalculators.metrics=true</code>.
+ * Since {@link #ENABLED} is a constant, the just-in-time compiler drops the
+ * instrumentation entirely when it's off; when it's on, each counter is a
+ * <code>LongAdder</code>, so threads doing arithmetic in parallel don't fight
+ * over a shared cache line.
+ * <p>When enabled, the counters are published through JMX as a {@link
+ * CalculatorMetricsMXBean}.</p>
+ * @author Alonso del Arte
+ */
+public final class CalculatorMetrics implements CalculatorMetricsMXBean {
+
+    /**
+     * The system property that turns the counters on.
+     */
+    public static final String ENABLING_PROPERTY = "calculators.metrics";
+
+    /**
+     * Whether the counters are being updated. Read once from the system
+     * property {@value #ENABLING_PROPERTY}.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean(ENABLING_PROPERTY);
+
+    /**
+     * The name the metrics are registered under with the platform MBean
+     * server.
+     */
+    public static final String OBJECT_NAME = "calculators:type=CalculatorMetrics";
+
+    /**
+     * The public operations that are counted and timed.
+     */
+    public enum Operation {
+        PRIME_FACTORS,
+        IS_PRIME,
+        IS_PRIME_ALGEBRAIC,
+        IS_PRIME_BATCH,
+        FACTOR_ALL,
+        SYMBOL_LEGENDRE,
+        SYMBOL_JACOBI,
+        SYMBOL_KRONECKER,
+        PRIME_FACTORS_ALGEBRAIC,
+        IS_IRREDUCIBLE,
+        EUCLIDEAN_GCD,
+        EUCLIDEAN_GCD_ALGEBRAIC,
+        FUNDAMENTAL_UNIT,
+        FIELD_CLASS_NUMBER,
+        QUADRATIC_PLUS,
+        QUADRATIC_MINUS,
+        QUADRATIC_TIMES,
+        QUADRATIC_DIVIDES
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private static final LongAdder TRIAL_DIVISIONS = new LongAdder();
+    private static final LongAdder NOT_DIVISIBLE_EXCEPTIONS = new LongAdder();
+    private static final LongAdder OVERFLOW_EXCEPTIONS = new LongAdder();
+    private static final LongAdder RING_CONSTRUCTIONS = new LongAdder();
+    private static final LongAdder[] CALLS = new LongAdder[OPERATIONS.length];
+    private static final LongAdder[] NANOS = new LongAdder[OPERATIONS.length];
+
+    private static final CalculatorMetrics INSTANCE = new CalculatorMetrics();
+
+    static {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            CALLS[i] = new LongAdder();
+            NANOS[i] = new LongAdder();
+        }
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+            } catch (JMException jme) {
+                System.err.println("Calculator metrics not registered with JMX: " + jme.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Counts trial divisions. Callers that make many trial divisions in a
+     * loop should count them locally and call this once at the end.
+     * @param count How many trial divisions were made.
+     */
+    public static void trialDivisions(long count) {
+        if (ENABLED) {
+            TRIAL_DIVISIONS.add(count);
+        }
+    }
+
+    /**
+     * Counts a {@link algebraics.NotDivisibleException}.
+     */
+    public static void notDivisible() {
+        if (ENABLED) {
+            NOT_DIVISIBLE_EXCEPTIONS.increment();
+        }
+    }
+
+    /**
+     * Counts an overflow. Meant to be used right in the throw statement, as
+     * in <code>throw CalculatorMetrics.overflow(new
+     * ArithmeticException(exceptionMessage));</code>
+     * @param ae The exception about to be thrown.
+     * @return The same exception.
+     */
+    public static ArithmeticException overflow(ArithmeticException ae) {
+        if (ENABLED) {
+            OVERFLOW_EXCEPTIONS.increment();
+        }
+        return ae;
+    }
+
+    /**
+     * Counts the construction of a quadratic ring.
+     */
+    public static void ringConstructed() {
+        if (ENABLED) {
+            RING_CONSTRUCTIONS.increment();
+        }
+    }
+
+    /**
+     * Marks the start of an operation.
+     * @return The current value of <code>System.nanoTime()</code>, or 0 if
+     * metrics are not enabled, to be passed on to {@link #record(Operation,
+     * long)}.
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Counts a call to an operation and the time it took.
+     * @param operation The operation that was called.
+     * @param start What {@link #start()} returned when the operation started.
+     */
+    public static void record(Operation operation, long start) {
+        if (ENABLED) {
+            int index = operation.ordinal();
+            CALLS[index].increment();
+            NANOS[index].add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Gives access to the counters. This works the same whether or not the
+     * counters have been registered with JMX.
+     * @return The one instance of this class.
+     */
+    public static CalculatorMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    @Override
+    public long getTrialDivisions() {
+        return TRIAL_DIVISIONS.sum();
+    }
+
+    @Override
+    public long getNotDivisibleExceptions() {
+        return NOT_DIVISIBLE_EXCEPTIONS.sum();
+    }
+
+    @Override
+    public long getOverflowExceptions() {
+        return OVERFLOW_EXCEPTIONS.sum();
+    }
+
+    @Override
+    public long getRingConstructions() {
+        return RING_CONSTRUCTIONS.sum();
+    }
+
+    @Override
+    public long getFactorizationCacheHits() {
+        return FactorizationCache.getHitCount();
+    }
+
+    @Override
+    public long getFactorizationCacheMisses() {
+        return FactorizationCache.getMissCount();
+    }
+
+    /**
+     * Gives how many times the specified operation has been called.
+     * @param operation The operation to look up.
+     * @return The number of calls since startup or the last reset.
+     */
+    public long getCallCount(Operation operation) {
+        return CALLS[operation.ordinal()].sum();
+    }
+
+    /**
+     * Gives the total time spent in the specified operation.
+     * @param operation The operation to look up.
+     * @return The total time in nanoseconds since startup or the last reset.
+     */
+    public long getTotalNanos(Operation operation) {
+        return NANOS[operation.ordinal()].sum();
+    }
+
+    private static Map<String, Long> toMap(LongAdder[] adders) {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (Operation operation : OPERATIONS) {
+            map.put(operation.name(), adders[operation.ordinal()].sum());
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    @Override
+    public Map<String, Long> getCallCounts() {
+        return toMap(CALLS);
+    }
+
+    @Override
+    public Map<String, Long> getTotalNanos() {
+        return toMap(NANOS);
+    }
+
+    @Override
+    public void reset() {
+        TRIAL_DIVISIONS.reset();
+        NOT_DIVISIBLE_EXCEPTIONS.reset();
+        OVERFLOW_EXCEPTIONS.reset();
+        RING_CONSTRUCTIONS.reset();
+        FactorizationCache.resetStatistics();
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            CALLS[i].reset();
+            NANOS[i].reset();
+        }
+    }
+
+    private CalculatorMetrics() {
+    }
+
+}
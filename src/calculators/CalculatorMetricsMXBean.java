@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package calculators;
+
+import java.util.Map;
+
+/**
+ * Management interface for {@link CalculatorMetrics}. When metrics are
+ * enabled, this is registered with the platform MBean server under the name
+ * {@value CalculatorMetrics#OBJECT_NAME}, so that it can be looked at with
+ * JConsole, VisualVM or any other JMX client.
+ * @author Alonso del Arte
+ */
+public interface CalculatorMetricsMXBean {
+
+    /**
+     * Tells whether the counters are being updated. This is decided once, at
+     * startup, by the system property {@value CalculatorMetrics#ENABLING_PROPERTY}.
+     * @return True if the counters are being updated, false if they will stay
+     * at 0.
+     */
+    boolean isEnabled();
+
+    /**
+     * Gives how many trial divisions the primality tests and the prime
+     * factorization functions have made, in <b>Z</b> as well as in quadratic
+     * rings.
+     * @return The number of trial divisions since startup or the last reset.
+     */
+    long getTrialDivisions();
+
+    /**
+     * Gives how many times a {@link algebraics.NotDivisibleException} has been
+     * constructed, which is practically the same as how many times one has
+     * been thrown.
+     * @return The number of not divisible exceptions since startup or the last
+     * reset.
+     */
+    long getNotDivisibleExceptions();
+
+    /**
+     * Gives how many times an <code>ArithmeticException</code> has been thrown
+     * because a computation overflowed the range of <code>int</code> or
+     * <code>long</code>.
+     * @return The number of overflows since startup or the last reset.
+     */
+    long getOverflowExceptions();
+
+    /**
+     * Gives how many quadratic rings have been constructed.
+     * @return The number of ring constructions since startup or the last
+     * reset.
+     */
+    long getRingConstructions();
+
+    /**
+     * Gives how many prime factorizations were found in the {@link
+     * FactorizationCache}. This is counted even if metrics are not enabled.
+     * @return The number of cache hits since startup or the last reset.
+     */
+    long getFactorizationCacheHits();
+
+    /**
+     * Gives how many prime factorizations had to be computed because they
+     * were not in the {@link FactorizationCache}. This is counted even if
+     * metrics are not enabled.
+     * @return The number of cache misses since startup or the last reset.
+     */
+    long getFactorizationCacheMisses();
+
+    /**
+     * Gives how many times each instrumented public operation has been called.
+     * Calls made from inside another operation are counted too.
+     * @return A map from operation name to number of calls. Every operation
+     * is included, even those that have not been called.
+     */
+    Map<String, Long> getCallCounts();
+
+    /**
+     * Gives the total time spent in each instrumented public operation. Time
+     * spent in an operation called by another operation counts towards both.
+     * @return A map from operation name to total wall clock time in
+     * nanoseconds.
+     */
+    Map<String, Long> getTotalNanos();
+
+    /**
+     * Sets all the counters back to 0. Updates that happen while resetting
+     * may or may not survive the reset.
+     */
+    void reset();
+
+}
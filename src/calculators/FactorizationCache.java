@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package calculators;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Remembers prime factorizations of <code>int</code> values, so that {@link
+ * NumberTheoreticFunctionsCalculator#primeFactors(int)} and the functions
+ * that rely on it, like <code>kernel()</code>, <code>moebiusMu()</code>,
+ * <code>symbolJacobi()</code> and <code>symbolKronecker()</code>, don't redo
+ * the trial division for numbers they have already seen.
+ * <p>The cache is split into stripes by hash, each one a small map kept in
+ * least recently used order behind its own lock, so that threads factoring
+ * different numbers seldom wait on each other. Every miss is cached, and when
+ * a stripe is full, its least recently used factorization is evicted. The
+ * numbers that come up over and over again, like the radicands of the rings
+ * in use, stay cached as long as they keep coming up more often than the
+ * stripe fills, but a run of numbers that only come up once can still push
+ * them out.</p>
+ * <p>The capacity is set at startup by the system property {@value
+ * #CAPACITY_PROPERTY}, 4096 factorizations by default. A capacity of 0 turns
+ * the cache off, and so does {@link #setEnabled(boolean)
+ * setEnabled(false)} at any time.</p>
+ * @author Alonso del Arte
+ */
+public final class FactorizationCache {
+
+    /**
+     * The system property that sets how many factorizations to keep.
+     */
+    public static final String CAPACITY_PROPERTY = "calculators.factorizationCache.size";
+
+    /**
+     * How many factorizations are kept if the system property {@value
+     * #CAPACITY_PROPERTY} is not set.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * How many factorizations the cache holds at most.
+     */
+    public static final int CAPACITY = Math.max(0, Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY));
+
+    static final int STRIPE_COUNT = 16;
+
+    static final int STRIPE_CAPACITY = (CAPACITY + STRIPE_COUNT - 1) / STRIPE_COUNT;
+
+    private static final class Stripe extends LinkedHashMap<Integer, int[]> {
+
+        private static final long serialVersionUID = 4549605263182934020L;
+
+        Stripe() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+            return this.size() > STRIPE_CAPACITY;
+        }
+
+    }
+
+    private static final Stripe[] STRIPES = new Stripe[STRIPE_COUNT];
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+
+    private static volatile boolean enabled = CAPACITY > 0;
+
+    static {
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            STRIPES[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Tells which stripe a number goes in. The number is mixed first, so
+     * that multiples of 16 and other numbers that come up together don't all
+     * end up in the same stripe.
+     */
+    static int stripeIndex(int num) {
+        int hash = num * 0x9E3779B9;
+        return hash >>> 28;
+    }
+
+    private static Stripe stripeFor(int num) {
+        return STRIPES[stripeIndex(num)];
+    }
+
+    /**
+     * Gives the factorization of a number, from the cache if it's there or
+     * from the specified function if it's not. The factorization is computed
+     * outside of any lock, so two threads asking for the same number at the
+     * same time might both compute it.
+     * @param num The number to factorize. For example, 44100.
+     * @param factorizer The function to compute the factorization with if it
+     * is not in the cache.
+     * @return The factorization. For example, 2, 2, 3, 3, 5, 5, 7, 7. This
+     * array may be shared with other callers, so it must not be modified.
+     */
+    static int[] factorize(int num, IntFunction<int[]> factorizer) {
+        if (!enabled) {
+            return factorizer.apply(num);
+        }
+        Stripe stripe = stripeFor(num);
+        int[] factors;
+        synchronized (stripe) {
+            factors = stripe.get(num);
+        }
+        if (factors != null) {
+            HITS.increment();
+            return factors;
+        }
+        MISSES.increment();
+        factors = factorizer.apply(num);
+        synchronized (stripe) {
+            stripe.put(num, factors);
+        }
+        return factors;
+    }
+
+    /**
+     * Tells whether factorizations are being cached.
+     * @return True if factorizations are being cached, false otherwise.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns the cache on or off. Turning it off also empties it.
+     * @param on Whether to cache factorizations. If the capacity is 0, the
+     * cache stays off.
+     */
+    public static void setEnabled(boolean on) {
+        enabled = on && CAPACITY > 0;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     * Empties the cache. The hit and miss counts are not affected.
+     */
+    public static void clear() {
+        for (Stripe stripe : STRIPES) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /**
+     * Gives how many factorizations are in the cache.
+     * @return The number of factorizations cached, at most {@link #CAPACITY}
+     * rounded up to a multiple of the number of stripes.
+     */
+    public static int size() {
+        int size = 0;
+        for (Stripe stripe : STRIPES) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Gives how many factorizations were found in the cache.
+     * @return The number of hits since startup or the last reset.
+     */
+    public static long getHitCount() {
+        return HITS.sum();
+    }
+
+    /**
+     * Gives how many factorizations had to be computed while the cache was
+     * on.
+     * @return The number of misses since startup or the last reset.
+     */
+    public static long getMissCount() {
+        return MISSES.sum();
+    }
+
+    /**
+     * Gives the fraction of lookups that were found in the cache.
+     * @return The hit rate, from 0.0 to 1.0, or 0.0 if there have been no
+     * lookups since startup or the last reset.
+     */
+    public static double getHitRate() {
+        long hits = HITS.sum();
+        long lookups = hits + MISSES.sum();
+        return (lookups == 0) ? 0.0 : (double) hits / lookups;
+    }
+
+    /**
+     * Sets the hit and miss counts back to 0.
+     */
+    public static void resetStatistics() {
+        HITS.reset();
+        MISSES.reset();
+    }
+
+    private FactorizationCache() {
+    }
+
+}
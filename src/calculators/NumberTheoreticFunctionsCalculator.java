@@ -31,8 +31,12 @@ import algebraics.quadratics.RealQuadraticInteger;
 import algebraics.quadratics.RealQuadraticRing;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.PrimitiveIterator;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * A collection of number theoretic functions, including basic primality testing
@@ -135,7 +139,9 @@ public class NumberTheoreticFunctionsCalculator {
 
     /**
      * Determines the prime factors of a given number. Uses simple trial
-     * division with only basic optimization.
+     * division with only basic optimization, and remembers the result in the
+     * {@link FactorizationCache}. The list is a new one on every call, so the
+     * caller may change it.
      * @param num The integer for which to determine prime factors of.
      * @return A list of the prime factors, with some factors repeated as
      * needed. For example, given num = 44100, the resulting list should be 2,
@@ -145,27 +151,49 @@ public class NumberTheoreticFunctionsCalculator {
      * -44100, the resulting list should be -1, 2, 2, 3, 3, 5, 5, 7, 7.
      */
     public static List<Integer> primeFactors(int num) {
+        long start = CalculatorMetrics.start();
+        try {
+            return primeFactorsImpl(num);
+        } finally {
+            CalculatorMetrics.record(CalculatorMetrics.Operation.PRIME_FACTORS, start);
+        }
+    }
+
+    private static List<Integer> primeFactorsImpl(int num) {
+        int[] cachedFactors = FactorizationCache.factorize(num, NumberTheoreticFunctionsCalculator::trialDivide);
+        List<Integer> factors = new ArrayList<>(cachedFactors.length);
+        for (int factor : cachedFactors) {
+            factors.add(factor);
+        }
+        return factors;
+    }
+
+    private static int[] trialDivide(int num) {
         int n = num;
-        List<Integer> factors = new ArrayList<>();
+        int[] factors = new int[Integer.SIZE]; // No int has more factors, counting -1
+        int count = 0;
+        long trialDivisions = 0;
         if (n == 0) {
-            factors.add(0);
+            factors[count++] = 0;
         } else {
             if (n < 0) {
                 n *= (-1);
-                factors.add(-1);
+                factors[count++] = -1;
             }
             while (n % 2 == 0) {
-                factors.add(2); // Treating 2 as a special case
+                factors[count++] = 2; // Treating 2 as a special case
                 n /= 2;
             }
             for (int i = 3; i <= n; i += 2) {
+                trialDivisions++;
                 while (n % i == 0) {
-                    factors.add(i);
+                    factors[count++] = i;
                     n /= i;
                 }
             }
         }
-        return factors;
+        CalculatorMetrics.trialDivisions(trialDivisions);
+        return Arrays.copyOf(factors, count);
     }
 
     /**
@@ -183,6 +211,15 @@ public class NumberTheoreticFunctionsCalculator {
      * should all return false.
      */
     public static boolean isPrime(int num) {
+        long start = CalculatorMetrics.start();
+        try {
+            return isPrimeImpl(num);
+        } finally {
+            CalculatorMetrics.record(CalculatorMetrics.Operation.IS_PRIME, start);
+        }
+    }
+
+    private static boolean isPrimeImpl(int num) {
         switch (num) {
             case -1:
             case 0:
@@ -202,6 +239,7 @@ public class NumberTheoreticFunctionsCalculator {
                         primeFlag = (num % potentialFactor != 0);
                         potentialFactor += 2;
                     }
+                    CalculatorMetrics.trialDivisions(potentialFactor / 2 - 1);
                     return primeFlag;
                 }
         }
@@ -213,6 +251,22 @@ public class NumberTheoreticFunctionsCalculator {
      * @return True if the number is prime, false otherwise.
      */
     public static boolean isPrime(long num) {
+        long start = CalculatorMetrics.start();
+        try {
+            return isPrimeImpl(num);
+        } finally {
+            CalculatorMetrics.record(CalculatorMetrics.Operation.IS_PRIME, start);
+        }
+    }
+
+    /**
+     * Determines whether a number is prime, without recording the call in the
+     * {@link CalculatorMetrics}. The batch tests call this for each number,
+     * since they record the whole batch as a single call.
+     * @param num The number to be tested for primality.
+     * @return True if the number is prime, false otherwise.
+     */
+    static boolean isPrimeImpl(long num) {
         if (num == -1 || num == 0 || num == 1) {
             return false;
         }
@@ -229,10 +283,75 @@ public class NumberTheoreticFunctionsCalculator {
                 primeFlag = (num % potentialFactor != 0);
                 potentialFactor += 2;
             }
+            CalculatorMetrics.trialDivisions(potentialFactor / 2 - 1);
             return primeFlag;
         }
     }
 
+    /**
+     * Determines which numbers in an array are prime, on the common fork/join
+     * pool, as described for {@link #isPrime(long[], ForkJoinPool)}.
+     * @param nums The numbers to test for primality. For example, 1, 2, 3, 4,
+     * 5, &minus;7, 91.
+     * @return A bit set with a bit set for each prime number, at the same
+     * index as the number. For example, {1, 2, 4, 5}.
+     */
+    public static BitSet isPrime(long[] nums) {
+        return isPrime(nums, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Determines which numbers in an array are prime, on a given fork/join
+     * pool. The numbers are tested in order of their size, with the work cut
+     * into chunks of about the same estimated cost, so that a few large
+     * primes don't leave one thread working long after the others are done.
+     * Small arrays are tested on the calling thread.
+     * @param nums The numbers to test for primality. The array is not
+     * changed.
+     * @param pool The pool to run the tests on.
+     * @return A bit set with a bit set for each prime number, at the same
+     * index as the number.
+     */
+    public static BitSet isPrime(long[] nums, ForkJoinPool pool) {
+        long start = CalculatorMetrics.start();
+        try {
+            return BatchTrialDivision.isPrime(nums, pool);
+        } finally {
+            CalculatorMetrics.record(CalculatorMetrics.Operation.IS_PRIME_BATCH, start);
+        }
+    }
+
+    /**
+     * Determines the prime factors of the numbers in an array, on the common
+     * fork/join pool.
+     * @param nums The numbers to factor. For example, 44100, &minus;7, 0, 1.
+     * @return The factorizations, packed into two arrays. For example, 2, 2,
+     * 3, 3, 5, 5, 7, 7; &minus;1, 7; 0; and nothing.
+     */
+    public static PackedFactorizations factorAll(long[] nums) {
+        return factorAll(nums, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Determines the prime factors of the numbers in an array, on a given
+     * fork/join pool. Unlike {@link #primeFactors(int)}, trial division only
+     * goes up to the square root of what is left of the number. The work is
+     * divided as described for {@link #isPrime(long[], ForkJoinPool)}.
+     * @param nums The numbers to factor. The array is not changed.
+     * @param pool The pool to run the factorizations on.
+     * @return The factorizations, packed into two arrays.
+     * @throws ArithmeticException If there are more factors in all than fit in
+     * an array.
+     */
+    public static PackedFactorizations factorAll(long[] nums, ForkJoinPool pool) {
+        long start = CalculatorMetrics.start();
+        try {
+            return BatchTrialDivision.factorAll(nums, pool);
+        } finally {
+            CalculatorMetrics.record(CalculatorMetrics.Operation.FACTOR_ALL, start);
+        }
+    }
+
     /**
      * Determines whether a given algebraic integer is prime or not. It is not
      * enough for the number to be irreducible, it must be prime and not a unit,
@@ -254,6 +373,15 @@ public class NumberTheoreticFunctionsCalculator {
      * exception.
      */
     public static boolean isPrime(AlgebraicInteger num) {
+        long start = CalculatorMetrics.start();
+        try {
+            return isPrimeImpl(num);
+        } finally {
+            CalculatorMetrics.record(CalculatorMetrics.Operation.IS_PRIME_ALGEBRAIC, start);
+        }
+    }
+
+    private static boolean isPrimeImpl(AlgebraicInteger num) {
         if (isPrime(num.norm())) {
             return true;
         }
@@ -349,6 +477,15 @@ public class NumberTheoreticFunctionsCalculator {
      * is a runtime exception.
      */
     public static byte symbolLegendre(int a, int p) {
+        long start = CalculatorMetrics.start();
+        try {
+            return symbolLegendreImpl(a, p);
+        } finally {
+            CalculatorMetrics.record(CalculatorMetrics.Operation.SYMBOL_LEGENDRE, start);
+        }
+    }
+
+    private static byte symbolLegendreImpl(int a, int p) {
         if (!isPrime(p)) {
             throw new IllegalArgumentException(p + " is not a prime number. Consider using the Jacobi symbol instead.");
         }
@@ -394,6 +531,15 @@ public class NumberTheoreticFunctionsCalculator {
      * that this is a runtime exception.
      */
     public static byte symbolJacobi(int n, int m) {
+        long start = CalculatorMetrics.start();
+        try {
+            return symbolJacobiImpl(n, m);
+        } finally {
+            CalculatorMetrics.record(CalculatorMetrics.Operation.SYMBOL_JACOBI, start);
+        }
+    }
+
+    private static byte symbolJacobiImpl(int n, int m) {
         if (m % 2 == 0) {
             throw new IllegalArgumentException(m + " is not an odd number. Consider using the Kronecker symbol instead.");        }
         if (m < 0) {
@@ -451,6 +597,15 @@ public class NumberTheoreticFunctionsCalculator {
      * @return The result, for example, &minus;1.
      */
     public static byte symbolKronecker(int n, int m) {
+        long start = CalculatorMetrics.start();
+        try {
+            return symbolKroneckerImpl(n, m);
+        } finally {
+            CalculatorMetrics.record(CalculatorMetrics.Operation.SYMBOL_KRONECKER, start);
+        }
+    }
+
+    private static byte symbolKroneckerImpl(int n, int m) {
         if (euclideanGCD(n, m) > 1) {
             return 0;
         }
@@ -564,6 +719,15 @@ public class NumberTheoreticFunctionsCalculator {
      * (&#8731;2)<sup>2</sup> would probably trigger this exception.
      */
     public static List<AlgebraicInteger> primeFactors(AlgebraicInteger num) throws NonUniqueFactorizationDomainException {
+        long start = CalculatorMetrics.start();
+        try {
+            return primeFactorsImpl(num);
+        } finally {
+            CalculatorMetrics.record(CalculatorMetrics.Operation.PRIME_FACTORS_ALGEBRAIC, start);
+        }
+    }
+
+    private static List<AlgebraicInteger> primeFactorsImpl(AlgebraicInteger num) throws NonUniqueFactorizationDomainException {
         if (num instanceof QuadraticInteger) {
             QuadraticInteger number = (QuadraticInteger) num;
             QuadraticInteger unity = number.minus(number).plus(1);
@@ -589,7 +753,7 @@ public class NumberTheoreticFunctionsCalculator {
             }
             if ((d < 0) && (num.norm() < 0)) {
                 String exceptionMessage = "A norm computation error occurred for " + num.toASCIIString() + ", which should not have norm " + num.norm();
-                throw new ArithmeticException(exceptionMessage);
+                throw CalculatorMetrics.overflow(new ArithmeticException(exceptionMessage));
             }
             List<AlgebraicInteger> factors = new ArrayList<>();
             if (Math.abs(number.norm()) < 2) {
@@ -605,6 +769,7 @@ public class NumberTheoreticFunctionsCalculator {
                 boolean keepGoing = true;
                 if (isPrime(testDivisor)) {
                     while (number.norm() % 4 == 0) {
+                        CalculatorMetrics.trialDivisions(1);
                         try {
                             number = number.divides(testDivisor);
                             factors.add(testDivisor);
@@ -613,10 +778,17 @@ public class NumberTheoreticFunctionsCalculator {
                         }
                     }
                 }
-                testDivisor = testDivisor.plus(1);
-                while (Math.abs(number.norm()) > Math.abs(testDivisor.norm()) && keepGoing) {
+                // A composite rational integer is never prime in the ring, so only the odd rational primes need testing
+                long primesBound = Math.min(PrimeSieve.floorSqrt(Math.abs(number.norm())) + 1, Integer.MAX_VALUE);
+                PrimitiveIterator.OfLong rationalPrimes = PrimeSieve.iterator(3, primesBound);
+                while (keepGoing && rationalPrimes.hasNext()) {
+                    testDivisor = unity.times((int) rationalPrimes.nextLong());
+                    if (Math.abs(number.norm()) <= Math.abs(testDivisor.norm())) {
+                        break;
+                    }
                     if (isPrime(testDivisor)) {
                         while (number.norm() % testDivisor.norm() == 0) {
+                            CalculatorMetrics.trialDivisions(1);
                             try {
                                 number = number.divides(testDivisor);
                                 factors.add(testDivisor);
@@ -629,7 +801,6 @@ public class NumberTheoreticFunctionsCalculator {
                             }
                         }
                     }
-                    testDivisor = testDivisor.plus(2);
                 }
                 int testDivRegPartMult = 0;
                 int testDivSurdPartMult = 2; // These will be divided by 2 regardless of d = 1 mod 4 or not
@@ -651,6 +822,7 @@ public class NumberTheoreticFunctionsCalculator {
                     }
                     if (isPrime(testDivisor)) {
                         while (number.norm() % testDivisor.norm() == 0) {
+                            CalculatorMetrics.trialDivisions(2);
                             try {
                                 number = number.divides(testDivisor.conjugate());
                                 factors.add(testDivisor.conjugate());
@@ -722,10 +894,21 @@ public class NumberTheoreticFunctionsCalculator {
      * irreducible".
      */
     public static boolean isIrreducible(AlgebraicInteger num) {
+        long start = CalculatorMetrics.start();
+        NumberTheoryOperationEvent event = new NumberTheoryOperationEvent("isIrreducible");
+        try {
+            return isIrreducibleImpl(num, event);
+        } finally {
+            event.finish(num);
+            CalculatorMetrics.record(CalculatorMetrics.Operation.IS_IRREDUCIBLE, start);
+        }
+    }
+
+    private static boolean isIrreducibleImpl(AlgebraicInteger num, NumberTheoryOperationEvent event) {
         if (num instanceof ImaginaryQuadraticInteger || num instanceof RealQuadraticInteger) {
             if (num instanceof ImaginaryQuadraticInteger && num.norm() < 0) {
                 String exceptionMessage = "Overflow has occurred for the computation of the norm of " + num.toASCIIString();
-                throw new ArithmeticException(exceptionMessage);
+                throw CalculatorMetrics.overflow(new ArithmeticException(exceptionMessage));
             }
             if (isPrime(num.norm())) {
                 return true;
@@ -763,6 +946,8 @@ public class NumberTheoreticFunctionsCalculator {
                                 if (Math.abs(testDivisor.norm()) == 1) {
                                     withinRange = false;
                                 } else {
+                                    CalculatorMetrics.trialDivisions(1);
+                                    event.iterate();
                                     try {
                                         currDivision = number.divides(testDivisor);
                                         if (Math.abs(currDivision.norm()) > 1) {
@@ -972,6 +1157,15 @@ public class NumberTheoreticFunctionsCalculator {
      * technically wrong, but I think it's good enough for the purpose here.
      */
     public static int euclideanGCD(int a, int b) {
+        long start = CalculatorMetrics.start();
+        try {
+            return euclideanGCDImpl(a, b);
+        } finally {
+            CalculatorMetrics.record(CalculatorMetrics.Operation.EUCLIDEAN_GCD, start);
+        }
+    }
+
+    private static int euclideanGCDImpl(int a, int b) {
         int currA, currB, currRemainder;
         if (a < b) {
             currA = b;
@@ -1004,6 +1198,15 @@ public class NumberTheoreticFunctionsCalculator {
      * think it's good enough for the purpose here.
      */
     public static long euclideanGCD(long a, long b) {
+        long start = CalculatorMetrics.start();
+        try {
+            return euclideanGCDImpl(a, b);
+        } finally {
+            CalculatorMetrics.record(CalculatorMetrics.Operation.EUCLIDEAN_GCD, start);
+        }
+    }
+
+    private static long euclideanGCDImpl(long a, long b) {
         long currA, currB, currRemainder;
         if (a < b) {
             currA = b;
@@ -1052,6 +1255,15 @@ public class NumberTheoreticFunctionsCalculator {
      * for real quadratic integers, so the latter will trigger this exception.
      */
     public static AlgebraicInteger euclideanGCD(AlgebraicInteger a, AlgebraicInteger b) throws NonEuclideanDomainException {
+        long start = CalculatorMetrics.start();
+        try {
+            return euclideanGCDImpl(a, b);
+        } finally {
+            CalculatorMetrics.record(CalculatorMetrics.Operation.EUCLIDEAN_GCD_ALGEBRAIC, start);
+        }
+    }
+
+    private static AlgebraicInteger euclideanGCDImpl(AlgebraicInteger a, AlgebraicInteger b) throws NonEuclideanDomainException {
         if (a instanceof QuadraticInteger && b instanceof QuadraticInteger) {
             QuadraticInteger currA = (QuadraticInteger) a;
             QuadraticInteger currB = (QuadraticInteger) b;
@@ -1228,6 +1440,17 @@ public class NumberTheoreticFunctionsCalculator {
      * message will be "Null ring has no fundamental unit".
      */
     public static AlgebraicInteger fundamentalUnit(IntegerRing ring) {
+        long start = CalculatorMetrics.start();
+        NumberTheoryOperationEvent event = new NumberTheoryOperationEvent("fundamentalUnit");
+        try {
+            return fundamentalUnitImpl(ring, event);
+        } finally {
+            event.finish(ring);
+            CalculatorMetrics.record(CalculatorMetrics.Operation.FUNDAMENTAL_UNIT, start);
+        }
+    }
+
+    private static AlgebraicInteger fundamentalUnitImpl(IntegerRing ring, NumberTheoryOperationEvent event) {
         if (ring instanceof ImaginaryQuadraticRing) {
             String exceptionMessage = "Since " + ring.toASCIIString() + " has a finite unit group, there is no fundamental unit.";
             throw new IllegalArgumentException(exceptionMessage);
@@ -1241,6 +1464,7 @@ public class NumberTheoreticFunctionsCalculator {
             int trialSurd = 1;
             boolean notFoundYet = true;
             do {
+                event.iterate();
                 xd = trialSurd * trialSurd * d;
                 trialRegNeg = (long) Math.floor(Math.sqrt(xd));
                 potentialUnit = new RealQuadraticInteger((int) trialRegNeg, trialSurd, r);
@@ -1261,6 +1485,7 @@ public class NumberTheoreticFunctionsCalculator {
                 QuadraticInteger potentialHalfUnit;
                 trialSurd = 1;
                 do {
+                    event.iterate();
                     xd = trialSurd * trialSurd * d;
                     trialRegNeg = (long) Math.floor(Math.sqrt(xd - 4));
                     trialRegNeg += ((trialRegNeg % 2) - 1); // Make sure it's odd
@@ -1279,7 +1504,7 @@ public class NumberTheoreticFunctionsCalculator {
             }
             if (notFoundYet) {
                 String exceptionMessage = "Overflow occurred, fundamental unit is greater than " + potentialUnit.toASCIIString() + ".";
-                throw new ArithmeticException(exceptionMessage);
+                throw CalculatorMetrics.overflow(new ArithmeticException(exceptionMessage));
             } else {
                 return potentialUnit;
             }
@@ -1461,6 +1686,17 @@ public class NumberTheoreticFunctionsCalculator {
      * message will be "Null ring does not have class number".
      */
     public static int fieldClassNumber(IntegerRing ring) {
+        long start = CalculatorMetrics.start();
+        NumberTheoryOperationEvent event = new NumberTheoryOperationEvent("fieldClassNumber");
+        try {
+            return fieldClassNumberImpl(ring, event);
+        } finally {
+            event.finish(ring);
+            CalculatorMetrics.record(CalculatorMetrics.Operation.FIELD_CLASS_NUMBER, start);
+        }
+    }
+
+    private static int fieldClassNumberImpl(IntegerRing ring, NumberTheoryOperationEvent event) {
         if (ring instanceof QuadraticRing) {
             QuadraticRing r = (QuadraticRing) ring;
             int d = r.getRadicand();
@@ -1477,6 +1713,7 @@ public class NumberTheoreticFunctionsCalculator {
                 for (short i = 1; i < Math.abs(d); i++) {
                     kronSum += symbolKronecker(d, i) * i;
                 }
+                event.iterate(Math.abs(d) - 1);
                 interNum = sumMult * kronSum;
                 return (int) Math.round(interNum);
             } else {
@@ -1490,6 +1727,7 @@ public class NumberTheoreticFunctionsCalculator {
                     indKron *= symbolKronecker(d, i);
                     kronSum += indKron;
                 }
+                event.iterate(d - 1);
                 interNum = sumMult * kronSum;
                 return (int) Math.round(interNum);
             }
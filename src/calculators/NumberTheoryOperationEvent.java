@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package calculators;
+
+import algebraics.AlgebraicInteger;
+import algebraics.IntegerRing;
+import algebraics.quadratics.QuadraticRing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A Java Flight Recorder event for a number theoretic operation that can take
+ * a long time, such as computing the fundamental unit or the class number of
+ * a ring with a large radicand. Only calls that take at least as long as the
+ * threshold are recorded. The threshold is 20 milliseconds unless the
+ * recording says otherwise, for example with
+ * <code>-XX:StartFlightRecording:calculators.NumberTheoryOperation#threshold=1ms</code>
+ * or with <code>Recording.enable(NumberTheoryOperationEvent.class).withThreshold(...)</code>.
+ * <p>While the event is not being recorded, the JIT compiler can see that
+ * nothing uses the event object, so it costs practically nothing. The radicand
+ * and the input are only filled in for calls that will actually be
+ * recorded.</p>
+ * @author Alonso del Arte
+ */
+@Name(NumberTheoryOperationEvent.NAME)
+@Label("Number Theory Operation")
+@Category({"Numbers Guessing Games", "Calculators"})
+@Description("A slow call to a number theoretic function")
+@Threshold(NumberTheoryOperationEvent.DEFAULT_THRESHOLD)
+public final class NumberTheoryOperationEvent extends Event {
+
+    /**
+     * The name the event is recorded under.
+     */
+    public static final String NAME = "calculators.NumberTheoryOperation";
+
+    /**
+     * How long a call has to take to be recorded if the recording does not
+     * set a threshold of its own.
+     */
+    public static final String DEFAULT_THRESHOLD = "20 ms";
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Ring Radicand")
+    @Description("The radicand d of the quadratic ring, or 0 for other rings")
+    private int radicand;
+
+    @Label("Input")
+    private String input;
+
+    @Label("Iterations")
+    @Description("How many trial units, trial divisions or Kronecker symbols the operation went through")
+    private long iterations;
+
+    /**
+     * Counts one iteration of the operation's main loop.
+     */
+    public void iterate() {
+        this.iterations++;
+    }
+
+    /**
+     * Counts several iterations of the operation's main loop at once.
+     * @param count How many iterations to add.
+     */
+    public void iterate(long count) {
+        this.iterations += count;
+    }
+
+    /**
+     * Gives how many iterations have been counted so far.
+     * @return The number of iterations.
+     */
+    public long getIterations() {
+        return this.iterations;
+    }
+
+    private void finish(IntegerRing ring, Object in) {
+        this.end();
+        if (this.shouldCommit()) {
+            if (ring instanceof QuadraticRing) {
+                this.radicand = ((QuadraticRing) ring).getRadicand();
+            }
+            if (in instanceof AlgebraicInteger) {
+                this.input = ((AlgebraicInteger) in).toASCIIString();
+            } else if (in instanceof IntegerRing) {
+                this.input = ((IntegerRing) in).toASCIIString();
+            } else {
+                this.input = String.valueOf(in);
+            }
+            this.commit();
+        }
+    }
+
+    /**
+     * Ends an operation on a ring, recording it if it took long enough.
+     * @param ring The ring the operation was called upon. May be null.
+     */
+    public void finish(IntegerRing ring) {
+        this.finish(ring, ring);
+    }
+
+    /**
+     * Ends an operation on a number, recording it if it took long enough.
+     * @param number The number the operation was called upon. May be null.
+     */
+    public void finish(AlgebraicInteger number) {
+        this.finish(number == null ? null : number.getRing(), number);
+    }
+
+    /**
+     * Starts timing an operation.
+     * @param operation The name of the operation, such as "fundamentalUnit".
+     */
+    public NumberTheoryOperationEvent(String operation) {
+        this.operation = operation;
+        this.begin();
+    }
+
+}
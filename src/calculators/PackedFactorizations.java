@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package calculators;
+
+import java.util.Arrays;
+
+/**
+ * The prime factorizations of a batch of numbers, packed into two arrays in
+ * compressed sparse row form: the factors of the number at index <i>i</i> are
+ * <code>factors[offsets[i]]</code> up to but not including
+ * <code>factors[offsets[i + 1]]</code>. The factors of each number are listed
+ * in the same way as by {@link
+ * NumberTheoreticFunctionsCalculator#primeFactors(int)}: &minus;1 first for a
+ * negative number, then the primes in ascending order with repetition. The
+ * factorization of 0 is just 0 and that of 1 is empty.
+ * @author Alonso del Arte
+ */
+public final class PackedFactorizations {
+
+    private final int[] offsets;
+
+    private final long[] factors;
+
+    /**
+     * Tells how many numbers were factored.
+     * @return The number of factorizations. For example, 1000000.
+     */
+    public int size() {
+        return this.offsets.length - 1;
+    }
+
+    /**
+     * Tells how many prime factors a number has, counting repeated factors
+     * and &minus;1.
+     * @param index The index of the number in the batch.
+     * @return The number of factors. For example, 8 for 44100.
+     * @throws IndexOutOfBoundsException If the index is negative or not less
+     * than {@link #size()}.
+     */
+    public int factorCount(int index) {
+        return this.offsets[index + 1] - this.offsets[index];
+    }
+
+    /**
+     * Gives one of the prime factors of a number without copying anything.
+     * @param index The index of the number in the batch.
+     * @param ordinal Which factor, from 0 up to but not including {@link
+     * #factorCount(int)}.
+     * @return The factor. For example, 2 for the 0th factor of 44100.
+     * @throws IndexOutOfBoundsException If either index is out of range.
+     */
+    public long factor(int index, int ordinal) {
+        if (ordinal < 0 || ordinal >= this.factorCount(index)) {
+            String exceptionMessage = "Factor " + ordinal + " is out of range for number " + index + ", which has " + this.factorCount(index) + " factors";
+            throw new IndexOutOfBoundsException(exceptionMessage);
+        }
+        return this.factors[this.offsets[index] + ordinal];
+    }
+
+    /**
+     * Gives the prime factors of a number.
+     * @param index The index of the number in the batch.
+     * @return A new array with the factors. For example, 2, 2, 3, 3, 5, 5, 7,
+     * 7 for 44100.
+     * @throws IndexOutOfBoundsException If the index is negative or not less
+     * than {@link #size()}.
+     */
+    public long[] factorsOf(int index) {
+        return Arrays.copyOfRange(this.factors, this.offsets[index], this.offsets[index + 1]);
+    }
+
+    /**
+     * Gives a copy of the offsets array.
+     * @return An array one longer than {@link #size()}, starting with 0 and
+     * ending with the total number of factors.
+     */
+    public int[] getOffsets() {
+        return this.offsets.clone();
+    }
+
+    /**
+     * Gives a copy of the factors array.
+     * @return The factors of all the numbers, one after the other.
+     */
+    public long[] getFactors() {
+        return this.factors.clone();
+    }
+
+    PackedFactorizations(int[] offsets, long[] factors) {
+        this.offsets = offsets;
+        this.factors = factors;
+    }
+
+}
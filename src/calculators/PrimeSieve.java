@@ -0,0 +1,476 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package calculators;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The primes in a range, found with a segmented sieve of Eratosthenes. Only
+ * odd numbers are sieved, one bit each, in segments of 32 kilobytes, small
+ * enough to stay in the level 1 cache of most processors while the base
+ * primes up to the square root of the end of the range are crossed off. The
+ * primes can be streamed, with a spliterator that splits by segments so that
+ * parallel streams have independent work for each core, counted without
+ * being listed, or exported as a bitmap.
+ * <p>Memory use is 32 kilobytes for each segment being sieved at the same
+ * time, for its buffer of bits, plus 4 bytes for each base prime. The base primes are those up to the
+ * square root of the end of the range, which for ranges ending near {@link
+ * #MAXIMUM_BOUND} is about two million primes, or 8 megabytes.</p>
+ * @author Alonso del Arte
+ */
+public final class PrimeSieve {
+
+    /**
+     * The greatest supported end of a range, 2<sup>50</sup>. The base primes
+     * for a range ending there go up to 2<sup>25</sup>, which keeps them to a
+     * few megabytes. Much beyond that, the base primes alone would take more
+     * memory than most computers can spare.
+     */
+    public static final long MAXIMUM_BOUND = 1L << 50;
+
+    /**
+     * How many odd numbers there are in a segment, one bit each, for 32
+     * kilobytes a segment.
+     */
+    static final int SEGMENT_BITS = 1 << 18;
+
+    /**
+     * How many numbers a segment covers, odd and even.
+     */
+    static final long SEGMENT_SPAN = 2L * SEGMENT_BITS;
+
+    private static final int SEGMENT_WORDS = SEGMENT_BITS / 64;
+
+    private static void checkRange(long from, long to) {
+        if (to > MAXIMUM_BOUND) {
+            String exceptionMessage = "End of range " + to + " is beyond the supported maximum " + MAXIMUM_BOUND;
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+    }
+
+    /**
+     * Gives the greatest number whose square is at most the given number.
+     * @param num A number that is not negative. For example, 99.
+     * @return The integer square root. For example, 9.
+     */
+    static long floorSqrt(long num) {
+        long root = (long) Math.sqrt((double) num);
+        while (root * root > num) {
+            root--;
+        }
+        while ((root + 1) * (root + 1) <= num) {
+            root++;
+        }
+        return root;
+    }
+
+    /**
+     * Finds the odd primes up to a bound, with a plain sieve of Eratosthenes.
+     * @param bound The bound, inclusive. For example, 30. Must be less than
+     * <code>Integer.MAX_VALUE</code>, which {@link #MAXIMUM_BOUND} ensures
+     * for the base primes.
+     * @return The odd primes up to the bound. For example, 3, 5, 7, 11, 13,
+     * 17, 19, 23, 29.
+     */
+    static int[] oddPrimesUpTo(int bound) {
+        if (bound < 3) {
+            return new int[0];
+        }
+        BitSet composite = new BitSet(bound + 1);
+        for (long p = 3; p * p <= bound; p += 2) {
+            if (!composite.get((int) p)) {
+                for (long m = p * p; m <= bound; m += 2 * p) {
+                    composite.set((int) m);
+                }
+            }
+        }
+        int count = 0;
+        for (int n = 3; n <= bound; n += 2) {
+            if (!composite.get(n)) {
+                count++;
+            }
+        }
+        int[] primes = new int[count];
+        count = 0;
+        for (int n = 3; n <= bound; n += 2) {
+            if (!composite.get(n)) {
+                primes[count++] = n;
+            }
+        }
+        return primes;
+    }
+
+    private static int[] basePrimes(long to) {
+        return oddPrimesUpTo((int) floorSqrt(Math.max(0L, to - 1)));
+    }
+
+    /**
+     * Crosses off the odd composite numbers of a segment. Bit <i>j</i> of the
+     * segment stands for the number <i>low</i> + 2<i>j</i> + 1, and is set if
+     * that number is composite. The number 1 is not crossed off, so callers
+     * must skip it.
+     * @param segment The index of the segment, which starts at
+     * <code>segment * SEGMENT_SPAN</code>.
+     * @param basePrimes The odd primes up to at least the square root of the
+     * end of the segment or of the range, whichever is less.
+     * @param composite Where to put the bits, {@link #SEGMENT_WORDS} long.
+     */
+    static void sieveSegment(long segment, int[] basePrimes, long[] composite) {
+        Arrays.fill(composite, 0L);
+        long low = segment * SEGMENT_SPAN;
+        long high = low + SEGMENT_SPAN;
+        for (int p : basePrimes) {
+            long square = (long) p * p;
+            if (square >= high) {
+                break;
+            }
+            long start = Math.max(square, ((low + p - 1) / p) * p);
+            if ((start & 1) == 0) {
+                start += p;
+            }
+            long step = 2L * p;
+            for (long m = start; m < high; m += step) {
+                int j = (int) ((m - low) >>> 1);
+                composite[j >>> 6] |= 1L << j;
+            }
+        }
+    }
+
+    /**
+     * Gives the first bit of a segment standing for a number in the range.
+     */
+    private static int firstBit(long low, long from) {
+        long lowest = Math.max(from, 3L) - low - 1;
+        if (lowest <= 0) {
+            return 0;
+        }
+        return (int) Math.min(SEGMENT_BITS, (lowest + 1) / 2);
+    }
+
+    /**
+     * Gives the bit of a segment after the last one standing for a number in
+     * the range.
+     */
+    private static int endBit(long low, long to) {
+        long highest = to - low - 1;
+        if (highest <= 0) {
+            return 0;
+        }
+        return (int) Math.min(SEGMENT_BITS, (highest + 1) / 2);
+    }
+
+    private static long countSegment(long segment, int[] basePrimes, long from, long to) {
+        long[] composite = new long[SEGMENT_WORDS];
+        sieveSegment(segment, basePrimes, composite);
+        long low = segment * SEGMENT_SPAN;
+        int first = firstBit(low, from);
+        int end = endBit(low, to);
+        long count = (low == 0 && from <= 2 && to > 2) ? 1 : 0;
+        for (int j = first; j < end; ) {
+            int word = j >>> 6;
+            long bits = ~composite[word] & (-1L << j);
+            int wordEnd = (word + 1) << 6;
+            if (end < wordEnd) {
+                bits &= (1L << end) - 1;
+            }
+            count += Long.bitCount(bits);
+            j = wordEnd;
+        }
+        return count;
+    }
+
+    /**
+     * Splits the primes of a range by whole segments. Each part sieves its
+     * segments one at a time into a buffer of its own.
+     */
+    private static final class SegmentSpliterator implements Spliterator.OfLong {
+
+        private final int[] basePrimes;
+        private final long from;
+        private final long to;
+        private long nextSegment;
+        private final long endSegment;
+
+        private long[] composite = null;
+        private long low;
+        private int bit;
+        private int endBit;
+        private boolean pendingTwo;
+
+        SegmentSpliterator(int[] basePrimes, long from, long to, long firstSegment, long endSegment) {
+            this.basePrimes = basePrimes;
+            this.from = from;
+            this.to = to;
+            this.nextSegment = firstSegment;
+            this.endSegment = endSegment;
+        }
+
+        private boolean loadNextSegment() {
+            if (this.nextSegment >= this.endSegment) {
+                return false;
+            }
+            if (this.composite == null) {
+                this.composite = new long[SEGMENT_WORDS];
+            }
+            sieveSegment(this.nextSegment, this.basePrimes, this.composite);
+            this.low = this.nextSegment * SEGMENT_SPAN;
+            this.bit = firstBit(this.low, this.from);
+            this.endBit = endBit(this.low, this.to);
+            this.pendingTwo = (this.low == 0 && this.from <= 2 && this.to > 2);
+            this.nextSegment++;
+            return true;
+        }
+
+        /**
+         * Finds the next prime bit in the current segment, at or after the
+         * cursor.
+         * @return The bit, or -1 if there are no more in this segment.
+         */
+        private int nextPrimeBit() {
+            int j = this.bit;
+            while (j < this.endBit) {
+                int word = j >>> 6;
+                long bits = ~this.composite[word] & (-1L << j);
+                if (bits != 0) {
+                    int found = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    return (found < this.endBit) ? found : -1;
+                }
+                j = (word + 1) << 6;
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            do {
+                if (this.composite != null && this.bit < this.endBit || this.pendingTwo) {
+                    if (this.pendingTwo) {
+                        this.pendingTwo = false;
+                        action.accept(2L);
+                        return true;
+                    }
+                    int found = this.nextPrimeBit();
+                    if (found >= 0) {
+                        this.bit = found + 1;
+                        action.accept(this.low + 2L * found + 1);
+                        return true;
+                    }
+                    this.bit = this.endBit;
+                }
+            } while (this.loadNextSegment());
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            do {
+                if (this.pendingTwo) {
+                    this.pendingTwo = false;
+                    action.accept(2L);
+                }
+                if (this.composite != null) {
+                    for (int j = this.bit; j < this.endBit; ) {
+                        int word = j >>> 6;
+                        long bits = ~this.composite[word] & (-1L << j);
+                        int wordEnd = (word + 1) << 6;
+                        if (this.endBit < wordEnd) {
+                            bits &= (1L << this.endBit) - 1;
+                        }
+                        long wordBase = this.low + 2L * (word << 6) + 1;
+                        while (bits != 0) {
+                            action.accept(wordBase + 2L * Long.numberOfTrailingZeros(bits));
+                            bits &= bits - 1;
+                        }
+                        j = wordEnd;
+                    }
+                    this.bit = this.endBit;
+                }
+            } while (this.loadNextSegment());
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            long remaining = this.endSegment - this.nextSegment;
+            if (remaining < 2) {
+                return null;
+            }
+            if (this.composite != null && (this.bit < this.endBit || this.pendingTwo)) {
+                return null;
+            }
+            long middle = this.nextSegment + remaining / 2;
+            SegmentSpliterator prefix = new SegmentSpliterator(this.basePrimes, this.from, this.to, this.nextSegment, middle);
+            this.nextSegment = middle;
+            return prefix;
+        }
+
+        /**
+         * Estimates how many primes are left with the prime number theorem.
+         */
+        @Override
+        public long estimateSize() {
+            long start = Math.max(this.from, this.nextSegment * SEGMENT_SPAN);
+            long end = Math.min(this.to, this.endSegment * SEGMENT_SPAN);
+            long span = end - start;
+            if (span <= 0) {
+                return (this.composite == null) ? 0 : (this.endBit - this.bit) / 2 + 1;
+            }
+            return (long) (span / Math.log(Math.max(start + span / 2, 3))) + 1;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | SORTED | NONNULL | IMMUTABLE;
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() {
+            return null;
+        }
+
+    }
+
+    /**
+     * Gives a spliterator over the primes in a range, in ascending order.
+     * Splitting gives each part whole segments.
+     * @param from The start of the range, inclusive. For example, 1.
+     * @param to The end of the range, exclusive. For example, 100.
+     * @return A spliterator over the primes in the range. For example, 2, 3,
+     * 5, 7, 11, ..., 97.
+     * @throws IllegalArgumentException If <code>to</code> is beyond {@link
+     * #MAXIMUM_BOUND}.
+     */
+    public static Spliterator.OfLong spliterator(long from, long to) {
+        checkRange(from, to);
+        long start = Math.max(from, 0L);
+        if (start >= to) {
+            return Spliterators.emptyLongSpliterator();
+        }
+        return new SegmentSpliterator(basePrimes(to), start, to, start / SEGMENT_SPAN, (to - 1) / SEGMENT_SPAN + 1);
+    }
+
+    /**
+     * Gives the primes in a range as a stream.
+     * @param from The start of the range, inclusive. For example, 1.
+     * @param to The end of the range, exclusive. For example, 100.
+     * @param parallel Whether the stream should be parallel, in which case
+     * different segments are sieved on different threads.
+     * @return A stream of the primes in the range, in ascending order. For
+     * example, 2, 3, 5, 7, 11, ..., 97.
+     * @throws IllegalArgumentException If <code>to</code> is beyond {@link
+     * #MAXIMUM_BOUND}.
+     */
+    public static LongStream primes(long from, long to, boolean parallel) {
+        return StreamSupport.longStream(spliterator(from, to), parallel);
+    }
+
+    /**
+     * Gives the primes in a range as a sequential stream.
+     * @param from The start of the range, inclusive. For example, 1.
+     * @param to The end of the range, exclusive. For example, 100.
+     * @return A stream of the primes in the range, in ascending order. For
+     * example, 2, 3, 5, 7, 11, ..., 97.
+     * @throws IllegalArgumentException If <code>to</code> is beyond {@link
+     * #MAXIMUM_BOUND}.
+     */
+    public static LongStream primes(long from, long to) {
+        return primes(from, to, false);
+    }
+
+    /**
+     * Gives the primes in a range of <code>int</code> as a stream.
+     * @param from The start of the range, inclusive. For example, 1.
+     * @param to The end of the range, exclusive. For example, 100.
+     * @return A stream of the primes in the range, in ascending order. For
+     * example, 2, 3, 5, 7, 11, ..., 97.
+     */
+    public static IntStream intPrimes(int from, int to) {
+        return primes(from, to).mapToInt(p -> (int) p);
+    }
+
+    /**
+     * Gives an iterator over the primes in a range. Segments are sieved as
+     * the iteration gets to them, so stopping early saves the rest of the
+     * work.
+     * @param from The start of the range, inclusive. For example, 3.
+     * @param to The end of the range, exclusive. For example, 100.
+     * @return An iterator over the primes in the range, in ascending order.
+     * For example, 3, 5, 7, 11, ..., 97.
+     * @throws IllegalArgumentException If <code>to</code> is beyond {@link
+     * #MAXIMUM_BOUND}.
+     */
+    public static PrimitiveIterator.OfLong iterator(long from, long to) {
+        return Spliterators.iterator(spliterator(from, to));
+    }
+
+    /**
+     * Counts the primes in a range without listing them. The segments are
+     * sieved in parallel on the common fork/join pool.
+     * @param from The start of the range, inclusive. For example, 1.
+     * @param to The end of the range, exclusive. For example, 1000000000.
+     * @return How many primes there are in the range. For example,
+     * 50847534.
+     * @throws IllegalArgumentException If <code>to</code> is beyond {@link
+     * #MAXIMUM_BOUND}.
+     */
+    public static long count(long from, long to) {
+        checkRange(from, to);
+        long start = Math.max(from, 0L);
+        if (start >= to) {
+            return 0L;
+        }
+        int[] basePrimes = basePrimes(to);
+        return LongStream.range(start / SEGMENT_SPAN, (to - 1) / SEGMENT_SPAN + 1).parallel()
+                .map(segment -> countSegment(segment, basePrimes, start, to)).sum();
+    }
+
+    /**
+     * Gives the primes in a range as a bitmap.
+     * @param from The start of the range, inclusive. For example, 100.
+     * @param to The end of the range, exclusive. For example, 200.
+     * @return A bit set with bit <i>i</i> set if <code>from</code> +
+     * <i>i</i> is prime. For example, {1, 3, 7, 9, 13, 27, 31, 37, 39, 49,
+     * 51, 57, 63, 67, 73, 79, 81, 91, 93, 97, 99} for the primes from 100 to
+     * 200.
+     * @throws IllegalArgumentException If the range is longer than
+     * <code>Integer.MAX_VALUE</code>, or if <code>to</code> is beyond {@link
+     * #MAXIMUM_BOUND}.
+     */
+    public static BitSet bitmap(long from, long to) {
+        checkRange(from, to);
+        long length = to - from;
+        if (from < to && (length < 0 || length > Integer.MAX_VALUE)) {
+            String exceptionMessage = "Range from " + from + " to " + to + " is too long for a bitmap";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        BitSet bits = new BitSet((int) Math.max(0L, length));
+        spliterator(from, to).forEachRemaining((long p) -> bits.set((int) (p - from)));
+        return bits;
+    }
+
+    private PrimeSieve() {
+    }
+
+}
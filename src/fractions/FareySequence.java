@@ -0,0 +1,467 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fractions;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The Farey sequence of order <i>N</i>, the fractions from 0 to 1 inclusive
+ * with denominator at most <i>N</i>, in lowest terms and in ascending order.
+ * For example, the Farey sequence of order 5 is 0, 1/5, 1/4, 1/3, 2/5, 1/2,
+ * 3/5, 2/3, 3/4, 4/5, 1. The terms are generated lazily with the next-term
+ * recurrence: if <i>a</i>/<i>b</i> and <i>c</i>/<i>d</i> are consecutive
+ * terms, the next term is (<i>kc</i> &minus; <i>a</i>)/(<i>kd</i> &minus;
+ * <i>b</i>), where <i>k</i> = &lfloor;(<i>N</i> + <i>b</i>)/<i>d</i>&rfloor;.
+ * Nothing is ever sorted.
+ * <p>The rank of a fraction, its index in the sequence, is computed without
+ * enumerating the sequence, by counting the fractions not greater than it with
+ * the M&ouml;bius-style recursion <i>A</i>(<i>n</i>) = <i>S</i>(<i>n</i>)
+ * &minus; &Sigma;<sub><i>g</i> = 2</sub><sup><i>n</i></sup>
+ * <i>A</i>(&lfloor;<i>n</i>/<i>g</i>&rfloor;), where <i>S</i>(<i>n</i>)
+ * counts all pairs, reduced or not, and is a floor sum computed in logarithmic
+ * time. Only the <i>O</i>(&radic;<i>N</i>) distinct values of
+ * &lfloor;<i>N</i>/<i>g</i>&rfloor; need to be visited, in groups, for a
+ * total of <i>O</i>(<i>N</i><sup>3/4</sup>) time. Unranking walks down the
+ * Stern&ndash;Brocot tree, binary searching each run of same-side steps by
+ * rank, for <i>O</i>(log<sup>2</sup> <i>N</i>) rank computations.</p>
+ * @author Alonso del Arte
+ */
+public class FareySequence implements Iterable<Fraction> {
+
+    /**
+     * Spliterators don't split below this many terms, since each split needs
+     * an unranking.
+     */
+    private static final long MINIMUM_SPLIT_SIZE = 1 << 12;
+
+    private final long order;
+
+    private final long size;
+
+    /**
+     * Receives terms of a Farey sequence as pairs of primitives, so that the
+     * sequence can be traversed without creating any objects.
+     */
+    @FunctionalInterface
+    public interface TermConsumer {
+
+        /**
+         * Receives a term.
+         * @param numer The numerator of the term, for example, 2.
+         * @param denom The denominator of the term, for example, 5.
+         */
+        void accept(long numer, long denom);
+
+    }
+
+    /**
+     * Tells the order of this Farey sequence.
+     * @return The order <i>N</i>, the maximum denominator.
+     */
+    public long getOrder() {
+        return this.order;
+    }
+
+    /**
+     * Tells how many terms there are in this Farey sequence, including 0 and
+     * 1.
+     * @return The number of terms. For example, 11 for the Farey sequence of
+     * order 5.
+     */
+    public long size() {
+        return this.size;
+    }
+
+    /**
+     * Gives the index of a fraction in this Farey sequence.
+     * @param fraction A fraction from 0 to 1. For example,
+     * <sup>2</sup>&frasl;<sub>5</sub>.
+     * @return The index of the fraction if it is in the sequence. For example,
+     * 4 for <sup>2</sup>&frasl;<sub>5</sub> in the Farey sequence of order 5.
+     * If the fraction's denominator exceeds the order, the index of the
+     * greatest term less than the fraction.
+     * @throws IllegalArgumentException If the fraction is less than 0 or more
+     * than 1, or if its denominator is more than {@link Integer#MAX_VALUE}.
+     */
+    public long rank(Fraction fraction) {
+        long numer = fraction.getNumerator();
+        long denom = fraction.getDenominator();
+        if (numer < 0 || numer > denom || denom > Integer.MAX_VALUE) {
+            String exceptionMessage = fraction.toString() + " is out of range for ranking in the Farey sequence of order " + this.order;
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        return countUpTo(numer, denom, this.order);
+    }
+
+    /**
+     * Gives the term of this Farey sequence at a given index.
+     * @param index The index, from 0 to {@link #size()} &minus; 1. For
+     * example, 4.
+     * @return The term at that index. For example,
+     * <sup>2</sup>&frasl;<sub>5</sub> for index 4 in the Farey sequence of
+     * order 5.
+     * @throws IndexOutOfBoundsException If the index is negative or not less
+     * than the size of the sequence.
+     */
+    public Fraction unrank(long index) {
+        long[] term = this.unrankToPair(index);
+        return new Fraction(term[0], term[1]);
+    }
+
+    private long[] unrankToPair(long index) {
+        if (index < 0 || index >= this.size) {
+            String exceptionMessage = "Index " + index + " is out of bounds for the Farey sequence of order " + this.order;
+            throw new IndexOutOfBoundsException(exceptionMessage);
+        }
+        if (index == 0) {
+            return new long[]{0, 1};
+        }
+        long leftNumer = 0, leftDenom = 1, rightNumer = 1, rightDenom = 1;
+        // Invariant: rank(left) < index <= rank(right), left and right are
+        // neighbors in the Farey sequence
+        while (leftDenom + rightDenom <= this.order) {
+            long r = countUpTo(leftNumer + rightNumer, leftDenom + rightDenom, this.order);
+            if (r == index) {
+                return new long[]{leftNumer + rightNumer, leftDenom + rightDenom};
+            }
+            if (r < index) {
+                // Going right: the candidates are left + j * right
+                long lo = 1, hi = (this.order - leftDenom) / rightDenom;
+                while (lo < hi) {
+                    long mid = lo + (hi - lo + 1) / 2;
+                    if (countUpTo(leftNumer + mid * rightNumer, leftDenom + mid * rightDenom, this.order) < index) {
+                        lo = mid;
+                    } else {
+                        hi = mid - 1;
+                    }
+                }
+                long newLeftNumer = leftNumer + lo * rightNumer;
+                long newLeftDenom = leftDenom + lo * rightDenom;
+                if (lo < (this.order - leftDenom) / rightDenom) {
+                    rightNumer = newLeftNumer + rightNumer;
+                    rightDenom = newLeftDenom + rightDenom;
+                }
+                leftNumer = newLeftNumer;
+                leftDenom = newLeftDenom;
+            } else {
+                // Going left: the candidates are right + j * left
+                long lo = 1, hi = (this.order - rightDenom) / leftDenom;
+                while (lo < hi) {
+                    long mid = lo + (hi - lo + 1) / 2;
+                    if (countUpTo(rightNumer + mid * leftNumer, rightDenom + mid * leftDenom, this.order) >= index) {
+                        lo = mid;
+                    } else {
+                        hi = mid - 1;
+                    }
+                }
+                long newRightNumer = rightNumer + lo * leftNumer;
+                long newRightDenom = rightDenom + lo * leftDenom;
+                if (lo < (this.order - rightDenom) / leftDenom) {
+                    leftNumer = newRightNumer + leftNumer;
+                    leftDenom = newRightDenom + leftDenom;
+                }
+                rightNumer = newRightNumer;
+                rightDenom = newRightDenom;
+            }
+        }
+        return new long[]{rightNumer, rightDenom};
+    }
+
+    /**
+     * Counts the fractions in lowest terms greater than 0 and at most
+     * <i>u</i>/<i>v</i> with denominator at most <i>n</i>. This is the rank of
+     * <i>u</i>/<i>v</i> in the Farey sequence of order <i>n</i>, since 0 has
+     * rank 0.
+     */
+    static long countUpTo(long u, long v, long n) {
+        int sqrtN = (int) Math.sqrt((double) n);
+        while ((long) (sqrtN + 1) * (sqrtN + 1) <= n) {
+            sqrtN++;
+        }
+        while ((long) sqrtN * sqrtN > n) {
+            sqrtN--;
+        }
+        // small[m] holds A(m) for m <= sqrtN, large[k] holds A(n/k) for n/k > sqrtN
+        long[] small = new long[sqrtN + 1];
+        long[] large = new long[sqrtN + 2];
+        for (long m = 1; m <= sqrtN; m++) {
+            small[(int) m] = countReduced(m, u, v, n, small, large, sqrtN);
+        }
+        for (long k = n / (sqrtN + 1); k >= 1; k--) {
+            large[(int) k] = countReduced(n / k, u, v, n, small, large, sqrtN);
+        }
+        return n <= sqrtN ? small[(int) n] : large[1];
+    }
+
+    private static long countReduced(long m, long u, long v, long n, long[] small, long[] large, int sqrtN) {
+        long count = floorSum(m + 1, v, u, 0);
+        long g = 2;
+        while (g <= m) {
+            long t = m / g;
+            long gHigh = m / t;
+            long countT = t <= sqrtN ? small[(int) t] : large[(int) (n / t)];
+            count -= (gHigh - g + 1) * countT;
+            g = gHigh + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Computes the sum of &lfloor;(<i>ai</i> + <i>b</i>)/<i>m</i>&rfloor; for
+     * <i>i</i> from 0 to <i>n</i> &minus; 1, for nonnegative <i>a</i> and
+     * <i>b</i>, in logarithmic time by the Euclidean-like reduction.
+     */
+    static long floorSum(long n, long m, long a, long b) {
+        long sum = 0;
+        while (true) {
+            if (a >= m) {
+                sum += (n * (n - 1) / 2) * (a / m);
+                a %= m;
+            }
+            if (b >= m) {
+                sum += n * (b / m);
+                b %= m;
+            }
+            long yMax = a * n + b;
+            if (yMax < m) {
+                return sum;
+            }
+            n = yMax / m;
+            b = yMax % m;
+            long swap = m;
+            m = a;
+            a = swap;
+        }
+    }
+
+    /**
+     * Gives the term after a given term without knowing the term before it.
+     * If <i>c</i>/<i>d</i> follows <i>a</i>/<i>b</i>, then <i>bc</i> &minus;
+     * <i>ad</i> = 1, so <i>d</i> is the largest number not exceeding the order
+     * that is congruent to &minus;<i>a</i><sup>&minus;1</sup> modulo
+     * <i>b</i>.
+     */
+    private long[] successor(long numer, long denom) {
+        long d0 = 0;
+        if (denom > 1) {
+            d0 = (denom - modularInverse(numer % denom, denom)) % denom;
+        }
+        long d = d0 + ((this.order - d0) / denom) * denom;
+        long c = (1 + numer * d) / denom;
+        return new long[]{c, d};
+    }
+
+    private static long modularInverse(long a, long m) {
+        long oldR = a, r = m, oldS = 1, s = 0, quotient, temp;
+        while (r != 0) {
+            quotient = oldR / r;
+            temp = oldR - quotient * r;
+            oldR = r;
+            r = temp;
+            temp = oldS - quotient * s;
+            oldS = s;
+            s = temp;
+        }
+        return ((oldS % m) + m) % m;
+    }
+
+    /**
+     * Passes every term of this sequence, in order, to a consumer of pairs of
+     * primitives. No objects are created.
+     * @param consumer The consumer to receive the terms.
+     */
+    public void forEachTerm(TermConsumer consumer) {
+        long a = 0, b = 1, c = 1, d = this.order;
+        long k, e, f;
+        consumer.accept(a, b);
+        while (c <= d) {
+            consumer.accept(c, d);
+            k = (this.order + b) / d;
+            e = k * c - a;
+            f = k * d - b;
+            a = c;
+            b = d;
+            c = e;
+            d = f;
+        }
+    }
+
+    private class FareySpliterator implements Spliterator<Fraction> {
+
+        private long a, b, c, d;
+        private long index;
+        private final long fence;
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Fraction> action) {
+            if (this.index >= this.fence) {
+                return false;
+            }
+            action.accept(new Fraction(this.a, this.b));
+            this.advance();
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Fraction> action) {
+            while (this.index < this.fence) {
+                action.accept(new Fraction(this.a, this.b));
+                this.advance();
+            }
+        }
+
+        private void advance() {
+            long k = (FareySequence.this.order + this.b) / this.d;
+            long e = k * this.c - this.a;
+            long f = k * this.d - this.b;
+            this.a = this.c;
+            this.b = this.d;
+            this.c = e;
+            this.d = f;
+            this.index++;
+        }
+
+        /**
+         * Splits off the first half of the remaining terms, by index. The
+         * middle term is found by unranking, and the term after it by the
+         * successor formula, so the second half can start right away.
+         */
+        @Override
+        public Spliterator<Fraction> trySplit() {
+            if (this.fence - this.index < 2 * MINIMUM_SPLIT_SIZE) {
+                return null;
+            }
+            long mid = this.index + (this.fence - this.index) / 2;
+            FareySpliterator prefix = new FareySpliterator(this.a, this.b, this.c, this.d, this.index, mid);
+            long[] midTerm = FareySequence.this.unrankToPair(mid);
+            long[] next = FareySequence.this.successor(midTerm[0], midTerm[1]);
+            this.a = midTerm[0];
+            this.b = midTerm[1];
+            this.c = next[0];
+            this.d = next[1];
+            this.index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.fence - this.index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | SORTED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+
+        @Override
+        public Comparator<? super Fraction> getComparator() {
+            return null;
+        }
+
+        FareySpliterator(long a, long b, long c, long d, long index, long fence) {
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.d = d;
+            this.index = index;
+            this.fence = fence;
+        }
+
+    }
+
+    /**
+     * Gives a spliterator over the terms of this sequence. It splits by index
+     * interval, finding the start of each new interval by unranking, so
+     * parallel streams over large Farey sequences can divide the work evenly
+     * without anyone enumerating the terms before the split point.
+     * @return A sized, sorted spliterator.
+     */
+    @Override
+    public Spliterator<Fraction> spliterator() {
+        return new FareySpliterator(0, 1, 1, this.order, 0, this.size);
+    }
+
+    /**
+     * Gives an iterator over the terms of this sequence.
+     * @return An iterator starting from 0 and ending at 1.
+     */
+    @Override
+    public Iterator<Fraction> iterator() {
+        return new Iterator<Fraction>() {
+
+            private long a = 0, b = 1, c = 1, d = FareySequence.this.order;
+            private boolean ended = false;
+
+            @Override
+            public boolean hasNext() {
+                return !this.ended;
+            }
+
+            @Override
+            public Fraction next() {
+                if (this.ended) {
+                    throw new NoSuchElementException("Reached the end of the Farey sequence of order " + FareySequence.this.order);
+                }
+                Fraction term = new Fraction(this.a, this.b);
+                if (this.c > this.d) {
+                    this.ended = true;
+                } else {
+                    long k = (FareySequence.this.order + this.b) / this.d;
+                    long e = k * this.c - this.a;
+                    long f = k * this.d - this.b;
+                    this.a = this.c;
+                    this.b = this.d;
+                    this.c = e;
+                    this.d = f;
+                }
+                return term;
+            }
+
+        };
+    }
+
+    /**
+     * Gives a stream of the terms of this sequence.
+     * @param parallel Whether the stream should be parallel.
+     * @return A sized, sorted stream.
+     */
+    public Stream<Fraction> stream(boolean parallel) {
+        return StreamSupport.stream(this.spliterator(), parallel);
+    }
+
+    /**
+     * Constructor.
+     * @param n The order of the Farey sequence. For example, 5.
+     * @throws IllegalArgumentException If <code>n</code> is less than 1 or
+     * more than {@link Integer#MAX_VALUE}.
+     */
+    public FareySequence(long n) {
+        if (n < 1 || n > Integer.MAX_VALUE) {
+            String exceptionMessage = "Order " + n + " is out of range for a Farey sequence";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        this.order = n;
+        this.size = countUpTo(1, 1, n) + 1;
+    }
+
+}
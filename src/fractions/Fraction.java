@@ -32,8 +32,6 @@ public class Fraction implements Comparable<Fraction>, Serializable {
     private final long numerator;
     private final long denominator;
 
-    private final double numericVal;
-
     protected static final int HASH_SEP = 65536;
 
     /**
@@ -340,19 +338,23 @@ public class Fraction implements Comparable<Fraction>, Serializable {
      */
     @Override
     public int compareTo(Fraction other) {
-        Fraction diff = this.minus(other);
-        if (diff.numerator < 0) {
-            return -1;
-        }
-        if (diff.numerator > 0) {
-            return 1;
+        // Since both denominators are positive, comparing the cross products
+        // as 128-bit integers is exact and doesn't create any new objects
+        long crossA = this.numerator * other.denominator;
+        long crossB = other.numerator * this.denominator;
+        long crossAHigh = Math.multiplyHigh(this.numerator, other.denominator);
+        long crossBHigh = Math.multiplyHigh(other.numerator, this.denominator);
+        if (crossAHigh != crossBHigh) {
+            return Long.compare(crossAHigh, crossBHigh);
         }
-        return 0;
+        return Long.compareUnsigned(crossA, crossB);
     }
 
     /**
      * Gives a numeric approximation of the value of this fraction. This is
-     * likely to be precise if the denominator is a small power of 2.
+     * likely to be precise if the denominator is a small power of 2. It is
+     * computed anew each time rather than stored, so as to keep fractions to
+     * just their numerators and denominators.
      * @return A floating point approximation of the value of this fraction. For
      * example, if this fraction is <sup>1</sup>&frasl;<sub>7</sub>, the result
      * might be something like 0.14285714285714285714285714285714. If this
@@ -360,7 +362,7 @@ public class Fraction implements Comparable<Fraction>, Serializable {
      * something like 0.46153846153846153846153846153846.
      */
     public double getNumericApproximation() {
-        return this.numericVal;
+        return (double) this.numerator / (double) this.denominator;
     }
 
     /**
@@ -374,15 +376,7 @@ public class Fraction implements Comparable<Fraction>, Serializable {
      * digits) or "/" (may only occur once or not at all).
      */
     public static Fraction parseFract(String s) {
-        s = s.replace(" ", "");
-        int slashIndex = s.indexOf('/');
-        if (slashIndex == -1) {
-            long numer = Long.parseLong(s);
-            return new Fraction(numer);
-        }
-        long numer = Long.parseLong(s.substring(0, slashIndex));
-        long denom = Long.parseLong(s.substring(slashIndex + 1));
-        return new Fraction(numer, denom);
+        return FractionParser.parse(s, 0, s.length());
     }
 
     /**
@@ -394,7 +388,6 @@ public class Fraction implements Comparable<Fraction>, Serializable {
      */
     public Fraction(long numer) {
         this.numerator = numer;
-        this.numericVal = numer;
         this.denominator = 1;
     }
 
@@ -420,7 +413,6 @@ public class Fraction implements Comparable<Fraction>, Serializable {
         }
         this.numerator = numer / gcdNumDen;
         this.denominator = denom / gcdNumDen;
-        this.numericVal = ((double) this.numerator / (double) this.denominator);
     }
 
 }
@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fractions;
+
+import calculators.NumberTheoreticFunctionsCalculator;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.stream.Collector;
+
+/**
+ * Accumulates a running sum of fractions without reducing to lowest terms
+ * after every addition. The sum is kept over a common denominator, namely the
+ * least common multiple of the denominators added so far, so the only
+ * greatest common divisor computed per addition is that of two denominators.
+ * The numerator is only reduced against the denominator when the denominator
+ * grows past a size threshold or when the result is requested. If the 64-bit
+ * representation would overflow, the accumulator quietly switches over to
+ * {@link BigInteger} and stays there. This class is not thread-safe, but
+ * {@link #collector()} supplies a collector suitable for parallel streams.
+ * @author Alonso del Arte
+ */
+public class FractionAccumulator {
+
+    /**
+     * The default number of bits the denominator may grow to before the
+     * accumulated sum is reduced to lowest terms, 48.
+     */
+    public static final int DEFAULT_REDUCTION_THRESHOLD_BITS = 48;
+
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    private final int baseThresholdBits;
+
+    private int thresholdBits;
+
+    private long numer = 0L;
+    private long denom = 1L;
+
+    private BigInteger bigNumer = null;
+    private BigInteger bigDenom = null;
+
+    /**
+     * Adds a fraction to the running sum.
+     * @param addend The fraction to add. For example,
+     * <sup>1</sup>&frasl;<sub>7</sub>.
+     * @return This accumulator, so that calls can be chained.
+     */
+    public FractionAccumulator add(Fraction addend) {
+        this.add(addend.getNumerator(), addend.getDenominator());
+        return this;
+    }
+
+    /**
+     * Adds an integer to the running sum.
+     * @param addend The integer to add. For example, 3.
+     * @return This accumulator, so that calls can be chained.
+     */
+    public FractionAccumulator add(long addend) {
+        this.add(addend, 1L);
+        return this;
+    }
+
+    /**
+     * Adds the running sum of another accumulator to this one. The other
+     * accumulator is not changed.
+     * @param other The accumulator whose sum to add to this one.
+     * @return This accumulator, so that calls can be chained.
+     */
+    public FractionAccumulator combine(FractionAccumulator other) {
+        if (other.bigNumer == null) {
+            this.add(other.numer, other.denom);
+        } else {
+            this.promote();
+            this.addBig(other.bigNumer, other.bigDenom);
+        }
+        return this;
+    }
+
+    private void add(long n, long d) {
+        if (this.bigNumer == null) {
+            if (this.tryAddLong(n, d)) {
+                return;
+            }
+            this.reduce();
+            if (this.tryAddLong(n, d)) {
+                return;
+            }
+            this.promote();
+        }
+        this.addBig(BigInteger.valueOf(n), BigInteger.valueOf(d));
+    }
+
+    private boolean tryAddLong(long n, long d) {
+        long gcdDenoms = NumberTheoreticFunctionsCalculator.euclideanGCD(this.denom, d);
+        long ownMult = d / gcdDenoms;
+        long addendMult = this.denom / gcdDenoms;
+        try {
+            long newDenom = Math.multiplyExact(this.denom, ownMult);
+            long newNumer = Math.addExact(Math.multiplyExact(this.numer, ownMult), Math.multiplyExact(n, addendMult));
+            this.numer = newNumer;
+            this.denom = newDenom;
+        } catch (ArithmeticException ae) {
+            return false;
+        }
+        if (64 - Long.numberOfLeadingZeros(this.denom) > this.thresholdBits) {
+            this.reduce();
+        }
+        return true;
+    }
+
+    private void addBig(BigInteger n, BigInteger d) {
+        BigInteger gcdDenoms = this.bigDenom.gcd(d);
+        BigInteger ownMult = d.divide(gcdDenoms);
+        BigInteger addendMult = this.bigDenom.divide(gcdDenoms);
+        this.bigNumer = this.bigNumer.multiply(ownMult).add(n.multiply(addendMult));
+        this.bigDenom = this.bigDenom.multiply(ownMult);
+        if (this.bigDenom.bitLength() > this.thresholdBits) {
+            this.reduce();
+        }
+    }
+
+    private void promote() {
+        if (this.bigNumer == null) {
+            this.bigNumer = BigInteger.valueOf(this.numer);
+            this.bigDenom = BigInteger.valueOf(this.denom);
+        }
+    }
+
+    /**
+     * Reduces the running sum to lowest terms. If the denominator is still
+     * larger than the threshold afterwards, the threshold is raised so that
+     * the next reduction is attempted only after the denominator has doubled
+     * in length, which keeps the cost of reductions proportional to the growth
+     * of the sum.
+     */
+    private void reduce() {
+        int denomBits;
+        if (this.bigNumer == null) {
+            long gcdNumDen = NumberTheoreticFunctionsCalculator.euclideanGCD(this.numer, this.denom);
+            if (gcdNumDen > 1) {
+                this.numer /= gcdNumDen;
+                this.denom /= gcdNumDen;
+            }
+            denomBits = 64 - Long.numberOfLeadingZeros(this.denom);
+        } else {
+            BigInteger gcdNumDen = this.bigNumer.gcd(this.bigDenom);
+            if (!gcdNumDen.equals(BigInteger.ONE)) {
+                this.bigNumer = this.bigNumer.divide(gcdNumDen);
+                this.bigDenom = this.bigDenom.divide(gcdNumDen);
+            }
+            denomBits = this.bigDenom.bitLength();
+        }
+        this.thresholdBits = Math.max(this.baseThresholdBits, 2 * denomBits);
+    }
+
+    /**
+     * Tells whether the running sum has outgrown 64-bit integers at some point.
+     * @return True if the accumulator has switched over to {@link BigInteger},
+     * false otherwise.
+     */
+    public boolean isArbitraryPrecision() {
+        return this.bigNumer != null;
+    }
+
+    /**
+     * Gives the running sum as a fraction in lowest terms.
+     * @return The sum of everything added so far. For example, if
+     * <sup>1</sup>&frasl;<sub>2</sub>, <sup>1</sup>&frasl;<sub>3</sub> and
+     * <sup>1</sup>&frasl;<sub>6</sub> were added, the result will be 1.
+     * @throws ArithmeticException If the sum in lowest terms does not fit in
+     * a {@link Fraction}, which uses 64-bit integers for the numerator and the
+     * denominator.
+     */
+    public Fraction toFraction() {
+        this.reduce();
+        if (this.bigNumer == null) {
+            return new Fraction(this.numer, this.denom);
+        }
+        if (this.bigNumer.compareTo(LONG_MIN) < 0 || this.bigNumer.compareTo(LONG_MAX) > 0 || this.bigDenom.compareTo(LONG_MAX) > 0) {
+            String exceptionMessage = "The sum " + this.bigNumer + "/" + this.bigDenom + " exceeds the range of the Fraction data type";
+            throw new ArithmeticException(exceptionMessage);
+        }
+        return new Fraction(this.bigNumer.longValue(), this.bigDenom.longValue());
+    }
+
+    /**
+     * Gives a numeric approximation of the running sum. Unlike {@link
+     * #toFraction()}, this works even if the sum has outgrown 64-bit integers.
+     * @return A floating point approximation of the sum. For example, if
+     * <sup>1</sup>&frasl;<sub>7</sub> was the only thing added, the result
+     * might be something like 0.14285714285714285.
+     */
+    public double getNumericApproximation() {
+        if (this.bigNumer == null) {
+            return (double) this.numer / (double) this.denom;
+        }
+        BigDecimal quotient = new BigDecimal(this.bigNumer).divide(new BigDecimal(this.bigDenom), MathContext.DECIMAL64);
+        return quotient.doubleValue();
+    }
+
+    /**
+     * Gives a collector that sums a stream of fractions with accumulators, so
+     * that each thread of a parallel stream has its own accumulator and the
+     * partial sums are combined at the end.
+     * @return A collector producing the sum in lowest terms. For example,
+     * <code>fractions.parallelStream().collect(FractionAccumulator.collector())</code>.
+     * @throws ArithmeticException If the final sum does not fit in a {@link
+     * Fraction}.
+     */
+    public static Collector<Fraction, FractionAccumulator, Fraction> collector() {
+        return Collector.of(FractionAccumulator::new, FractionAccumulator::add, FractionAccumulator::combine, FractionAccumulator::toFraction, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Default constructor. The sum starts at 0 and the reduction threshold is
+     * {@link #DEFAULT_REDUCTION_THRESHOLD_BITS}.
+     */
+    public FractionAccumulator() {
+        this(DEFAULT_REDUCTION_THRESHOLD_BITS);
+    }
+
+    /**
+     * Constructor with a custom reduction threshold. The sum starts at 0.
+     * @param reductionThresholdBits How many bits the common denominator may
+     * grow to before the sum is reduced to lowest terms. For example, 32.
+     * @throws IllegalArgumentException If the threshold is less than 1.
+     */
+    public FractionAccumulator(int reductionThresholdBits) {
+        if (reductionThresholdBits < 1) {
+            String exceptionMessage = "Reduction threshold " + reductionThresholdBits + " is not allowed, it should be at least 1 bit.";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        this.baseThresholdBits = reductionThresholdBits;
+        this.thresholdBits = reductionThresholdBits;
+    }
+
+}
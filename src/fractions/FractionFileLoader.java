@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fractions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Loads files of newline-separated fractions into packed arrays. The file is
+ * memory-mapped in chunks that end on line boundaries, and the chunks are
+ * parsed in parallel with {@link FractionParser#parseInto(ByteBuffer, int,
+ * int, long[], int)}, first to count the fractions in each chunk and then to
+ * parse them straight into their places in a single packed array. Blank lines
+ * are skipped.
+ * @author Alonso del Arte
+ */
+public class FractionFileLoader {
+
+    /**
+     * The default chunk size, 16 mebibytes. Chunks may come out a little
+     * longer so as to end on a line boundary.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 24;
+
+    private static final int MAXIMUM_CHUNK_SIZE = 1 << 30;
+
+    private static final int MAXIMUM_FRACTIONS = (Integer.MAX_VALUE - 8) / 2;
+
+    /**
+     * The fractions loaded from a file, together with how long it took.
+     */
+    public static class LoadResult {
+
+        private final long[] packed;
+        private final int count;
+        private final long byteCount;
+        private final long elapsedNanos;
+
+        /**
+         * Gives the packed array of fractions. The array is not copied.
+         * @return The packed array, in the format described for {@link
+         * FractionParser}.
+         */
+        public long[] getPackedFractions() {
+            return this.packed;
+        }
+
+        /**
+         * Tells how many fractions were loaded.
+         * @return The number of fractions, half the length of the packed
+         * array.
+         */
+        public int size() {
+            return this.count;
+        }
+
+        /**
+         * Wraps one of the loaded fractions into a <code>Fraction</code>
+         * object.
+         * @param index The index of the fraction, from 0 to {@link #size()}
+         * &minus; 1.
+         * @return A <code>Fraction</code> object.
+         */
+        public Fraction getFraction(int index) {
+            return new Fraction(this.packed[2 * index], this.packed[2 * index + 1]);
+        }
+
+        /**
+         * Tells how many bytes were read.
+         * @return The size of the file.
+         */
+        public long getByteCount() {
+            return this.byteCount;
+        }
+
+        /**
+         * Tells how long the load took, including mapping the file.
+         * @return The elapsed time in nanoseconds.
+         */
+        public long getElapsedNanos() {
+            return this.elapsedNanos;
+        }
+
+        /**
+         * Gives the load throughput in fractions.
+         * @return Fractions per second.
+         */
+        public double getFractionsPerSecond() {
+            return this.count * 1.0E9 / Math.max(this.elapsedNanos, 1L);
+        }
+
+        /**
+         * Gives the load throughput in bytes.
+         * @return Mebibytes per second.
+         */
+        public double getMebibytesPerSecond() {
+            return this.byteCount * 1.0E9 / Math.max(this.elapsedNanos, 1L) / (1 << 20);
+        }
+
+        /**
+         * Gives a one-line throughput report.
+         * @return A <code>String</code> like "Loaded 10000000 fractions (118
+         * MiB) in 412.3 ms: 24253000 fractions/s, 286.2 MiB/s".
+         */
+        @Override
+        public String toString() {
+            return String.format("Loaded %d fractions (%d MiB) in %.1f ms: %.0f fractions/s, %.1f MiB/s", this.count, this.byteCount >> 20, this.elapsedNanos / 1.0E6, this.getFractionsPerSecond(), this.getMebibytesPerSecond());
+        }
+
+        private LoadResult(long[] packed, int count, long byteCount, long elapsedNanos) {
+            this.packed = packed;
+            this.count = count;
+            this.byteCount = byteCount;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+    }
+
+    /**
+     * Loads a file of newline-separated fractions using the default chunk
+     * size.
+     * @param path The file to load. For example, a file whose first lines are
+     * "1/2", "-22/7" and "5".
+     * @return The loaded fractions and the time it took.
+     * @throws IOException If the file can't be opened or mapped.
+     * @throws NumberFormatException If any non-blank line is not a fraction in
+     * the format described for {@link FractionParser#parse(CharSequence)}.
+     * @throws IllegalArgumentException If any fraction has denominator 0.
+     */
+    public static LoadResult load(Path path) throws IOException {
+        return load(path, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Loads a file of newline-separated fractions.
+     * @param path The file to load.
+     * @param chunkSize The approximate number of bytes for each parallel task.
+     * For example, 4194304.
+     * @return The loaded fractions and the time it took.
+     * @throws IOException If the file can't be opened or mapped.
+     * @throws NumberFormatException If any non-blank line is not a fraction in
+     * the format described for {@link FractionParser#parse(CharSequence)}.
+     * @throws IllegalArgumentException If any fraction has denominator 0, if
+     * the chunk size is not positive or is greater than 2<sup>30</sup>, or if
+     * the file has more fractions than fit in a packed array.
+     */
+    public static LoadResult load(Path path, int chunkSize) throws IOException {
+        if (chunkSize < 1 || chunkSize > MAXIMUM_CHUNK_SIZE) {
+            String exceptionMessage = "Chunk size " + chunkSize + " is out of range";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        long startTime = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<Long> bounds = findChunkBounds(channel, size, chunkSize);
+            int chunkCount = bounds.size() - 1;
+            MappedByteBuffer[] chunks = new MappedByteBuffer[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                long chunkStart = bounds.get(i);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, bounds.get(i + 1) - chunkStart);
+            }
+            int[] counts = new int[chunkCount];
+            IntStream.range(0, chunkCount).parallel().forEach(i -> counts[i] = countLines(chunks[i]));
+            int[] offsets = new int[chunkCount];
+            long total = 0;
+            for (int i = 0; i < chunkCount; i++) {
+                offsets[i] = (int) total;
+                total += counts[i];
+                if (total > MAXIMUM_FRACTIONS) {
+                    String exceptionMessage = path + " has more than " + MAXIMUM_FRACTIONS + " fractions, too many for one packed array";
+                    throw new IllegalArgumentException(exceptionMessage);
+                }
+            }
+            long[] packed = new long[2 * (int) total];
+            IntStream.range(0, chunkCount).parallel().forEach(i -> parseLines(chunks[i], packed, offsets[i]));
+            return new LoadResult(packed, (int) total, size, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Splits the file into chunks of roughly the requested size, each ending
+     * right after a newline or at the end of the file.
+     */
+    private static List<Long> findChunkBounds(FileChannel channel, long size, int chunkSize) throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long curr = 0L;
+        while (curr < size) {
+            long next = curr + chunkSize;
+            if (next >= size) {
+                next = size;
+            } else {
+                boolean newlineFound = false;
+                while (!newlineFound && next < size) {
+                    probe.clear();
+                    int read = channel.read(probe, next);
+                    for (int i = 0; i < read && !newlineFound; i++) {
+                        next++;
+                        newlineFound = (probe.get(i) == '\n');
+                    }
+                    if (next - curr > MAXIMUM_CHUNK_SIZE) {
+                        String exceptionMessage = "No line break found within " + MAXIMUM_CHUNK_SIZE + " bytes of position " + curr;
+                        throw new IOException(exceptionMessage);
+                    }
+                }
+            }
+            bounds.add(next);
+            curr = next;
+        }
+        return bounds;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\r' || b == '\n';
+    }
+
+    private static int countLines(ByteBuffer chunk) {
+        int count = 0;
+        boolean contentSeen = false;
+        int limit = chunk.limit();
+        byte b;
+        for (int i = 0; i < limit; i++) {
+            b = chunk.get(i);
+            if (b == '\n') {
+                if (contentSeen) {
+                    count++;
+                }
+                contentSeen = false;
+            } else if (!isBlank(b)) {
+                contentSeen = true;
+            }
+        }
+        if (contentSeen) {
+            count++;
+        }
+        return count;
+    }
+
+    private static void parseLines(ByteBuffer chunk, long[] dest, int offset) {
+        int index = offset;
+        int lineStart = 0;
+        boolean contentSeen = false;
+        int limit = chunk.limit();
+        byte b;
+        for (int i = 0; i < limit; i++) {
+            b = chunk.get(i);
+            if (b == '\n') {
+                if (contentSeen) {
+                    FractionParser.parseInto(chunk, lineStart, i, dest, index);
+                    index++;
+                }
+                lineStart = i + 1;
+                contentSeen = false;
+            } else if (!isBlank(b)) {
+                contentSeen = true;
+            }
+        }
+        if (contentSeen) {
+            FractionParser.parseInto(chunk, lineStart, limit, dest, index);
+        }
+    }
+
+}
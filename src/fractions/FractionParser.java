@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fractions;
+
+import calculators.NumberTheoreticFunctionsCalculator;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Single-pass parsers for fractions written as "numerator/denominator" or just
+ * "numerator." Spaces may occur anywhere and are ignored, as in {@link
+ * Fraction#parseFract(String)}. Other than exception objects for malformed
+ * input, the only thing allocated is the result, and the variant that writes
+ * into a packed array of primitives allocates nothing at all. In a packed
+ * array, the fraction at index <i>i</i> has its numerator at position
+ * 2<i>i</i> and its denominator at position 2<i>i</i> + 1, in lowest terms and
+ * with a positive denominator, just as a <code>Fraction</code> object would
+ * hold them.
+ * @author Alonso del Arte
+ */
+public class FractionParser {
+
+    /**
+     * Returned by {@link #accumulate(long, int, long)} on overflow. Since the
+     * accumulators are never positive, this can't be mistaken for a valid
+     * accumulator.
+     */
+    private static final long OVERFLOW = 1L;
+
+    /**
+     * Parses a sequence of characters into a <code>Fraction</code> object.
+     * @param s The characters to parse. May contain spaces. For example, "22 /
+     * 7".
+     * @return A <code>Fraction</code> object. For example, <code>new
+     * Fraction(22, 7)</code>.
+     * @throws NumberFormatException If <code>s</code> contains characters other
+     * than digits, spaces, "+" or "-" (may occur once before the digits of the
+     * numerator and once before the digits of the denominator) or "/" (may only
+     * occur once or not at all), or if either part is outside the range of
+     * <code>long</code>.
+     * @throws IllegalArgumentException If the denominator is 0.
+     */
+    public static Fraction parse(CharSequence s) {
+        return parse(s, 0, s.length());
+    }
+
+    /**
+     * Parses part of a sequence of characters into a <code>Fraction</code>
+     * object.
+     * @param s The characters to parse from. For example, "x = 22/7;".
+     * @param start The index of the first character to parse. For example, 4.
+     * @param end The index after the last character to parse. For example, 8.
+     * @return A <code>Fraction</code> object. For example, <code>new
+     * Fraction(22, 7)</code>.
+     * @throws NumberFormatException If the given range is not a fraction in
+     * the format described for {@link #parse(CharSequence)}.
+     * @throws IllegalArgumentException If the denominator is 0.
+     */
+    public static Fraction parse(CharSequence s, int start, int end) {
+        long numerAcc = 0L;
+        long denomAcc = 0L;
+        long limit = -Long.MAX_VALUE;
+        boolean negNumer = false;
+        boolean negDenom = false;
+        boolean inDenom = false;
+        boolean signAllowed = true;
+        boolean digitsSeen = false;
+        char ch;
+        for (int i = start; i < end; i++) {
+            ch = s.charAt(i);
+            if (ch == ' ') {
+                continue;
+            }
+            if (signAllowed && (ch == '-' || ch == '+')) {
+                if (ch == '-') {
+                    limit = Long.MIN_VALUE;
+                    if (inDenom) {
+                        negDenom = true;
+                    } else {
+                        negNumer = true;
+                    }
+                }
+                signAllowed = false;
+            } else if (ch == '/' && digitsSeen && !inDenom) {
+                inDenom = true;
+                signAllowed = true;
+                digitsSeen = false;
+                limit = -Long.MAX_VALUE;
+            } else if (ch >= '0' && ch <= '9') {
+                if (inDenom) {
+                    denomAcc = accumulate(denomAcc, ch - '0', limit);
+                } else {
+                    numerAcc = accumulate(numerAcc, ch - '0', limit);
+                }
+                if (numerAcc == OVERFLOW || denomAcc == OVERFLOW) {
+                    throw badInput(s.subSequence(start, end));
+                }
+                signAllowed = false;
+                digitsSeen = true;
+            } else {
+                throw badInput(s.subSequence(start, end));
+            }
+        }
+        if (!digitsSeen) {
+            throw badInput(s.subSequence(start, end));
+        }
+        long numer = negNumer ? numerAcc : -numerAcc;
+        if (!inDenom) {
+            return new Fraction(numer);
+        }
+        long denom = negDenom ? denomAcc : -denomAcc;
+        return new Fraction(numer, denom);
+    }
+
+    /**
+     * Parses bytes of ASCII text into a fraction and stores it in a packed
+     * array. This function allocates nothing unless the input is malformed.
+     * @param buffer The buffer to read from. Only absolute reads are used, so
+     * the position and limit of the buffer are not changed and several threads
+     * may parse different ranges of the same buffer at the same time.
+     * @param start The index of the first byte to parse.
+     * @param end The index after the last byte to parse. Trailing carriage
+     * returns are ignored, like spaces.
+     * @param dest The packed array to store the fraction in.
+     * @param index The index of the fraction in the packed array, so the
+     * numerator will go in <code>dest[2 * index]</code> and the denominator in
+     * <code>dest[2 * index + 1]</code>.
+     * @throws NumberFormatException If the given range is not a fraction in
+     * the format described for {@link #parse(CharSequence)}.
+     * @throws IllegalArgumentException If the denominator is 0.
+     */
+    public static void parseInto(ByteBuffer buffer, int start, int end, long[] dest, int index) {
+        long numerAcc = 0L;
+        long denomAcc = 0L;
+        long limit = -Long.MAX_VALUE;
+        boolean negNumer = false;
+        boolean negDenom = false;
+        boolean inDenom = false;
+        boolean signAllowed = true;
+        boolean digitsSeen = false;
+        byte b;
+        for (int i = start; i < end; i++) {
+            b = buffer.get(i);
+            if (b == ' ' || b == '\r') {
+                continue;
+            }
+            if (signAllowed && (b == '-' || b == '+')) {
+                if (b == '-') {
+                    limit = Long.MIN_VALUE;
+                    if (inDenom) {
+                        negDenom = true;
+                    } else {
+                        negNumer = true;
+                    }
+                }
+                signAllowed = false;
+            } else if (b == '/' && digitsSeen && !inDenom) {
+                inDenom = true;
+                signAllowed = true;
+                digitsSeen = false;
+                limit = -Long.MAX_VALUE;
+            } else if (b >= '0' && b <= '9') {
+                if (inDenom) {
+                    denomAcc = accumulate(denomAcc, b - '0', limit);
+                } else {
+                    numerAcc = accumulate(numerAcc, b - '0', limit);
+                }
+                if (numerAcc == OVERFLOW || denomAcc == OVERFLOW) {
+                    throw badInput(buffer, start, end);
+                }
+                signAllowed = false;
+                digitsSeen = true;
+            } else {
+                throw badInput(buffer, start, end);
+            }
+        }
+        if (!digitsSeen) {
+            throw badInput(buffer, start, end);
+        }
+        long numer = negNumer ? numerAcc : -numerAcc;
+        long denom = 1L;
+        if (inDenom) {
+            denom = negDenom ? denomAcc : -denomAcc;
+        }
+        pack(numer, denom, dest, index);
+    }
+
+    /**
+     * Stores a fraction in lowest terms with a positive denominator in a
+     * packed array, without creating a <code>Fraction</code> object.
+     * @param numer The numerator, need not be coprime to the denominator. For
+     * example, 2.
+     * @param denom The denominator, may be negative but not 0. For example,
+     * &minus;4.
+     * @param dest The packed array. For the example, it would get &minus;1 and
+     * 2 at the positions for the given index.
+     * @param index The index of the fraction in the packed array.
+     * @throws IllegalArgumentException If the denominator is 0.
+     */
+    public static void pack(long numer, long denom, long[] dest, int index) {
+        if (denom == 0) {
+            String exceptionMessage = "Denominator 0 is not allowed.";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        long gcdNumDen = NumberTheoreticFunctionsCalculator.euclideanGCD(numer, denom);
+        if (denom < 0) {
+            gcdNumDen *= -1;
+        }
+        dest[2 * index] = numer / gcdNumDen;
+        dest[2 * index + 1] = denom / gcdNumDen;
+    }
+
+    /**
+     * Adds a decimal digit to a negative accumulator, in the manner of {@link
+     * Long#parseLong(String)}, so that {@link Long#MIN_VALUE} can be parsed.
+     * @param acc The accumulator so far, 0 or negative.
+     * @param digit The digit, from 0 to 9.
+     * @param limit Either {@link Long#MIN_VALUE} for negative numbers or
+     * &minus;{@link Long#MAX_VALUE} for positive numbers.
+     * @return The new accumulator, or {@link #OVERFLOW} if the digit would
+     * take the accumulator past the limit.
+     */
+    private static long accumulate(long acc, int digit, long limit) {
+        if (acc < limit / 10) {
+            return OVERFLOW;
+        }
+        acc *= 10;
+        if (acc < limit + digit) {
+            return OVERFLOW;
+        }
+        return acc - digit;
+    }
+
+    private static NumberFormatException badInput(CharSequence s) {
+        return new NumberFormatException("For input string: \"" + s + "\"");
+    }
+
+    private static NumberFormatException badInput(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = start; i < end; i++) {
+            bytes[i - start] = buffer.get(i);
+        }
+        return badInput(new String(bytes, StandardCharsets.US_ASCII));
+    }
+
+}
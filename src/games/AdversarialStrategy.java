@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Plays to exploit the scoring rule rather than to find the number quickly.
+ * Since {@link NumberGuessingGame#scoreGame(int, int, int)} rewards a big
+ * difference between the winning guess and the guess before it, this
+ * strategy makes a deliberately wrong guess as far from the numbers still in
+ * play as possible right before what it hopes is the winning guess. It
+ * bisects until the number is known or only two guesses are left. If the
+ * number is known, it wastes a guess only if that pays more than the
+ * difference already at hand; if two guesses are left, it always wastes the
+ * first one and takes a single shot at the middle with the second.
+ * @author Alonso del Arte
+ */
+public class AdversarialStrategy implements PlayerStrategy {
+
+    @Override
+    public int nextGuess(int low, int high, int prevGuess, int guessOrd, RandomGenerator random) {
+        int remaining = NumberGuessingGame.MAXIMUM_GUESSES - guessOrd;
+        if (remaining >= 2 && (low == high || remaining == 2)) {
+            int middle = (low + high) >>> 1;
+            int farGuess = NumberGuessingGame.MAXIMUM_NUMBER;
+            if (middle - NumberGuessingGame.MINIMUM_NUMBER > farGuess - middle) {
+                farGuess = NumberGuessingGame.MINIMUM_NUMBER;
+            }
+            if (low < high) {
+                return farGuess;
+            }
+            int scoreNow = remaining * Math.abs(low - prevGuess);
+            int scoreLater = (remaining - 1) * Math.abs(low - farGuess);
+            if (scoreLater > scoreNow) {
+                return farGuess;
+            }
+        }
+        return (low + high) >>> 1;
+    }
+
+    @Override
+    public String toString() {
+        return "Adversarial";
+    }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Always guesses the middle of the numbers not yet ruled out. This finds the
+ * number in the fewest guesses in the worst case, but with only {@link
+ * NumberGuessingGame#MAXIMUM_GUESSES} guesses it can't always find it.
+ * @author Alonso del Arte
+ */
+public class BinarySearchStrategy implements PlayerStrategy {
+
+    @Override
+    public int nextGuess(int low, int high, int prevGuess, int guessOrd, RandomGenerator random) {
+        return (low + high) >>> 1;
+    }
+
+    @Override
+    public String toString() {
+        return "Binary search";
+    }
+
+}
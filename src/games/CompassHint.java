@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+/**
+ * The hint given for a guess in the {@link GaussianIntegerGuessingGame}: which
+ * way to go from the guess to get to the answer. Other than {@link #CORRECT},
+ * each hint is one of the eight octants into which the lines <i>y</i> = 0,
+ * <i>x</i> = 0, <i>y</i> = <i>x</i> and <i>y</i> = &minus;<i>x</i> through the
+ * guess divide the plane. Going counterclockwise, an octant starts at one of
+ * those rays, inclusive, and ends at the next, exclusive, so that the octant
+ * of <i>k</i> is the one with the angle from the guess to the answer at least
+ * <i>k</i>&pi;/4 and less than (<i>k</i> + 1)&pi;/4.
+ * <p>Each octant is the intersection of two half-planes <i>a</i>&Delta;<i>x</i>
+ * + <i>b</i>&Delta;<i>y</i> &ge; <i>t</i>, with a strict inequality on the
+ * boundary that's excluded written as &ge; 1, since &Delta;<i>x</i> and
+ * &Delta;<i>y</i> are integers. So the hint is worked out with exact integer
+ * comparisons rather than with {@link
+ * algebraics.quadratics.ImaginaryQuadraticInteger#angle()}, which could put a
+ * point on one of the diagonals in the wrong octant by rounding.</p>
+ * @author Alonso del Arte
+ */
+public enum CompassHint {
+
+    /**
+     * The guess is the answer.
+     */
+    CORRECT(0, 0, 0, 0, 0, 0),
+
+    /**
+     * The answer is east by northeast of the guess: from due east inclusive to
+     * northeast exclusive.
+     */
+    EAST_NORTHEAST(0, 1, 0, 1, -1, 1),
+
+    /**
+     * The answer is north by northeast of the guess: from northeast inclusive
+     * to due north exclusive.
+     */
+    NORTH_NORTHEAST(1, 0, 1, -1, 1, 0),
+
+    /**
+     * The answer is north by northwest of the guess: from due north inclusive
+     * to northwest exclusive.
+     */
+    NORTH_NORTHWEST(-1, 0, 0, 1, 1, 1),
+
+    /**
+     * The answer is west by northwest of the guess: from northwest inclusive
+     * to due west exclusive.
+     */
+    WEST_NORTHWEST(0, 1, 1, -1, -1, 0),
+
+    /**
+     * The answer is west by southwest of the guess: from due west inclusive to
+     * southwest exclusive.
+     */
+    WEST_SOUTHWEST(0, -1, 0, -1, 1, 1),
+
+    /**
+     * The answer is south by southwest of the guess: from southwest inclusive
+     * to due south exclusive.
+     */
+    SOUTH_SOUTHWEST(-1, 0, 1, 1, -1, 0),
+
+    /**
+     * The answer is south by southeast of the guess: from due south inclusive
+     * to southeast exclusive.
+     */
+    SOUTH_SOUTHEAST(1, 0, 0, -1, -1, 1),
+
+    /**
+     * The answer is east by southeast of the guess: from southeast inclusive
+     * to due east exclusive.
+     */
+    EAST_SOUTHEAST(0, -1, 1, 1, 1, 0);
+
+    private final int firstA, firstB, firstT;
+
+    private final int secondA, secondB, secondT;
+
+    /**
+     * Gives the hint for a guess that's off by a given amount.
+     * @param dx The real part of the answer minus the real part of the guess.
+     * For example, 3.
+     * @param dy The imaginary part of the answer minus the imaginary part of
+     * the guess. For example, &minus;7.
+     * @return The hint. For example, {@link #SOUTH_SOUTHEAST}.
+     */
+    public static CompassHint of(long dx, long dy) {
+        if (dx == 0 && dy == 0) {
+            return CORRECT;
+        }
+        if (dy >= 0 && dx > 0) {
+            return (dy < dx) ? EAST_NORTHEAST : NORTH_NORTHEAST;
+        }
+        if (dx <= 0 && dy > 0) {
+            return (-dx < dy) ? NORTH_NORTHWEST : WEST_NORTHWEST;
+        }
+        if (dy <= 0 && dx < 0) {
+            return (-dy < -dx) ? WEST_SOUTHWEST : SOUTH_SOUTHWEST;
+        }
+        return (dx < -dy) ? SOUTH_SOUTHEAST : EAST_SOUTHEAST;
+    }
+
+    /**
+     * Tells whether a point could be the answer given this hint for a guess.
+     * @param guessX The real part of the guess. For example, 2.
+     * @param guessY The imaginary part of the guess. For example, 5.
+     * @param x The real part of the point. For example, 5.
+     * @param y The imaginary part of the point. For example, &minus;2.
+     * @return True if {@link #of(long, long)} gives this hint for the point
+     * minus the guess, false otherwise.
+     */
+    public boolean admits(long guessX, long guessY, long x, long y) {
+        if (this == CORRECT) {
+            return x == guessX && y == guessY;
+        }
+        long dx = x - guessX;
+        long dy = y - guessY;
+        return this.firstA * dx + this.firstB * dy >= this.firstT
+                && this.secondA * dx + this.secondB * dy >= this.secondT;
+    }
+
+    /**
+     * Gives the half-plane constraints of this hint as coefficients for a
+     * point with real part <i>x</i> and imaginary part <i>y</i>, that is,
+     * <i>ax</i> + <i>by</i> &ge; <i>t</i>, for a guess at a given point.
+     * @return Two arrays {<i>a</i>, <i>b</i>, <i>t</i>}.
+     * @throws IllegalStateException If this is {@link #CORRECT}, which is not
+     * given by half-planes.
+     */
+    long[][] constraints(long guessX, long guessY) {
+        if (this == CORRECT) {
+            throw new IllegalStateException("A correct guess has no half-planes");
+        }
+        return new long[][] {
+            {this.firstA, this.firstB, this.firstA * guessX + this.firstB * guessY + this.firstT},
+            {this.secondA, this.secondB, this.secondA * guessX + this.secondB * guessY + this.secondT}
+        };
+    }
+
+    /**
+     * Gives a description of the hint for the player.
+     * @return For example, "south by southeast" for {@link #SOUTH_SOUTHEAST}.
+     */
+    @Override
+    public String toString() {
+        if (this == CORRECT) {
+            return "correct";
+        }
+        return this.name().toLowerCase().replace("_", " by ");
+    }
+
+    CompassHint(int a1, int b1, int t1, int a2, int b2, int t2) {
+        this.firstA = a1;
+        this.firstB = b1;
+        this.firstT = t1;
+        this.secondA = a2;
+        this.secondB = b2;
+        this.secondT = t2;
+    }
+
+}
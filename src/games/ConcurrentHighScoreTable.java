@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A high score table that many threads can add to at once without locking.
+ * The records are kept in a concurrent skip list in {@link ScoreComparator}
+ * order, so the worst record is always at the end. Most scores don't make the
+ * table once it has filled up, and those are rejected after reading the worst
+ * record, without writing anything shared. Scores that do make it are inserted
+ * and then the worst record is dropped, each step lock-free.
+ * <p>The table may briefly hold one record more than its capacity per thread
+ * that's in the middle of adding, but {@link #getRecords()} never gives more
+ * than the capacity. Since <code>ScoreComparator</code> only finds records
+ * equal if they have the same player name, score and timestamp, records are
+ * only ever merged with exact duplicates.</p>
+ * @author Alonso del Arte
+ */
+public class ConcurrentHighScoreTable implements Leaderboard {
+
+    private static final ScoreComparator COMPARATOR = new ScoreComparator();
+
+    private final int capacity;
+
+    private final ConcurrentSkipListMap<HighScoreTableRecord, Boolean> records = new ConcurrentSkipListMap<>(COMPARATOR);
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * Tells how many records this table can hold.
+     * @return The capacity given to the constructor, or {@link
+     * HighScoreTable#DEFAULT_CAPACITY}.
+     */
+    @Override
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Tells how many records this table holds now.
+     * @return A number from 0 to the capacity.
+     */
+    @Override
+    public int size() {
+        return Math.min(this.count.get(), this.capacity);
+    }
+
+    /**
+     * Tells whether a score made now would make it into this table. Another
+     * thread may add a better score right after this check, so a true result
+     * is no guarantee.
+     * @param score The score. For example, 200.
+     * @return True if the table isn't full yet or if the score is strictly
+     * better than the worst score in the table, false otherwise.
+     */
+    @Override
+    public boolean qualifies(int score) {
+        if (this.count.get() < this.capacity) {
+            return true;
+        }
+        Map.Entry<HighScoreTableRecord, Boolean> worst = this.records.lastEntry();
+        return worst == null || score > worst.getKey().getScore();
+    }
+
+    /**
+     * Adds a record to this table, if it's good enough. If the table is full,
+     * the worst record is dropped to make room.
+     * @param score The record to add. For example, Jim's score of 200.
+     * @return True if the record was added and not immediately dropped, false
+     * if it was rejected, was a duplicate, or was dropped in favor of records
+     * other threads added at the same time.
+     */
+    @Override
+    public boolean addHighScore(HighScoreTableRecord score) {
+        if (this.count.get() >= this.capacity) {
+            Map.Entry<HighScoreTableRecord, Boolean> worst = this.records.lastEntry();
+            if (worst != null && COMPARATOR.compare(score, worst.getKey()) >= 0) {
+                return false;
+            }
+        }
+        if (this.records.putIfAbsent(score, Boolean.TRUE) != null) {
+            return false;
+        }
+        if (this.count.incrementAndGet() <= this.capacity) {
+            return true;
+        }
+        Map.Entry<HighScoreTableRecord, Boolean> dropped = this.records.pollLastEntry();
+        if (dropped == null) {
+            return true;
+        }
+        this.count.decrementAndGet();
+        return dropped.getKey() != score;
+    }
+
+    /**
+     * Gives the records in this table, best first. This never blocks threads
+     * that are adding records, nor is it blocked by them. A record added while
+     * the snapshot is being taken may or may not be in it.
+     * @return An unmodifiable list of at most as many records as the capacity,
+     * sorted by {@link ScoreComparator}.
+     */
+    @Override
+    public List<HighScoreTableRecord> getRecords() {
+        ArrayList<HighScoreTableRecord> snapshot = new ArrayList<>(this.capacity);
+        for (HighScoreTableRecord record : this.records.keySet()) {
+            if (snapshot.size() == this.capacity) {
+                break;
+            }
+            snapshot.add(record);
+        }
+        return Collections.unmodifiableList(snapshot);
+    }
+
+    /**
+     * Constructor with the default capacity of {@value
+     * HighScoreTable#DEFAULT_CAPACITY} records.
+     */
+    public ConcurrentHighScoreTable() {
+        this(HighScoreTable.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     * @param maxRecords How many records the table can hold. For example, 5.
+     * @throws IllegalArgumentException If <code>maxRecords</code> is less
+     * than 1.
+     */
+    public ConcurrentHighScoreTable(int maxRecords) {
+        if (maxRecords < 1) {
+            String exceptionMessage = "Capacity " + maxRecords + " is not valid, should be at least 1";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        this.capacity = maxRecords;
+    }
+
+}
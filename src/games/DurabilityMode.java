@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+/**
+ * How hard a {@link ScoreWriter} works to make sure a score survives a crash.
+ * @author Alonso del Arte
+ */
+public enum DurabilityMode {
+
+    /**
+     * Each batch is written to the log but left to the operating system to
+     * put on the storage device. A batch survives the game crashing, but
+     * might not survive the machine crashing. The log is forced to the
+     * storage device only on shutdown.
+     */
+    WRITE,
+
+    /**
+     * Each batch is written to the log and forced to the storage device before
+     * the next batch is started. This is slower, but a batch that's been
+     * flushed survives the machine crashing.
+     */
+    FORCE
+
+}
@@ -1,4 +1,388 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
 package games;
 
-public class FractionGuessingGame {
+import calculators.NumberTheoreticFunctionsCalculator;
+import fractions.Fraction;
+
+import java.util.Scanner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * A guessing game for fractions. The answer is drawn uniformly from the
+ * fractions strictly between 0 and 1 with denominator no greater than a given
+ * maximum, that is, the Farey sequence of that order minus its endpoints. The
+ * player is told whether a guess is too high or too low, and can get a hint
+ * for the next guess.
+ * <p>Hints come from the Stern&ndash;Brocot tree. The game keeps a bracket of
+ * two fractions that are neighbors in the Farey sequence, with the answer
+ * somewhere from the left end to the right end inclusive. The hint is the
+ * mediant of the bracket, which takes constant time to compute. Feedback on a
+ * guess walks the bracket down the Stern&ndash;Brocot tree as far as the
+ * feedback allows, skipping a whole run of same-side steps with a single
+ * division, so no list of candidates is ever scanned.</p>
+ * @author Alonso del Arte
+ */
+public class FractionGuessingGame extends GameWithLeaderBoard {
+
+    public static final int MAXIMUM_GUESSES = 10;
+    public static final long DEFAULT_MAXIMUM_DENOMINATOR = 100;
+
+    /**
+     * The most a score is scaled by, so that a game with a very large maximum
+     * denominator can't overflow the score.
+     */
+    static final int MAXIMUM_SCORE_SCALE = Integer.MAX_VALUE / MAXIMUM_GUESSES;
+
+    private static final Fraction ZERO = new Fraction(0);
+    private static final Fraction ONE = new Fraction(1);
+
+    private final long maxDenom;
+
+    private Fraction answer;
+
+    private Fraction lowerBound;
+    private Fraction upperBound;
+
+    private long leftNumer, leftDenom, rightNumer, rightDenom;
+
+    private int guessCount;
+
+    private String playerName = "";
+
+    @Override
+    long gameID() {
+        return -6307818823451096017L;
+    }
+
+    /**
+     * Chooses a fraction uniformly at random from the fractions strictly
+     * between 0 and 1 with denominator at most the given maximum. This picks
+     * a pair (<i>p</i>, <i>q</i>) with 0 &lt; <i>p</i> &lt; <i>q</i> &le;
+     * <i>N</i> uniformly by unranking a triangular index in constant time, and
+     * tries again if the pair is not in lowest terms. Since a little over 60%
+     * of such pairs are coprime, the expected number of tries is less than 2,
+     * and the expected time is dominated by the greatest common divisor
+     * computations, which are logarithmic in <i>N</i>.
+     * @param maxDenom The maximum denominator <i>N</i>. For example, 100.
+     * @return A pseudorandom fraction in lowest terms. For example,
+     * <sup>37</sup>&frasl;<sub>84</sub>.
+     * @throws IllegalArgumentException If <code>maxDenom</code> is less than 2
+     * or more than 2<sup>31</sup>.
+     */
+    public static Fraction chooseFraction(long maxDenom) {
+        return chooseFraction(maxDenom, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Chooses a fraction as {@link #chooseFraction(long)} does, but with a
+     * given pseudorandom number generator, so that the choice can be
+     * reproduced from a seed.
+     * @param maxDenom The maximum denominator. For example, 100.
+     * @param random The generator. For example, a {@link
+     * java.util.SplittableRandom} seeded with 1729.
+     * @return A pseudorandom fraction in lowest terms. For example,
+     * <sup>37</sup>&frasl;<sub>84</sub>.
+     * @throws IllegalArgumentException If <code>maxDenom</code> is less than 2
+     * or more than 2<sup>31</sup>.
+     */
+    public static Fraction chooseFraction(long maxDenom, RandomGenerator random) {
+        if (maxDenom < 2 || maxDenom > (1L << 31)) {
+            String exceptionMessage = "Maximum denominator " + maxDenom + " is out of range";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        long pairCount = maxDenom * (maxDenom - 1) / 2;
+        long numer, denom;
+        do {
+            long k = random.nextLong(pairCount);
+            // The pairs with denominator less than q number (q - 1)(q - 2)/2
+            long m = (long) ((Math.sqrt(8.0 * k + 1.0) - 1.0) / 2.0);
+            while (m * (m + 1) / 2 > k) {
+                m--;
+            }
+            while ((m + 1) * (m + 2) / 2 <= k) {
+                m++;
+            }
+            denom = m + 2;
+            numer = k - m * (m + 1) / 2 + 1;
+        } while (NumberTheoreticFunctionsCalculator.euclideanGCD(numer, denom) != 1);
+        return new Fraction(numer, denom);
+    }
+
+    /**
+     * Starts a new round with a new pseudorandom answer.
+     */
+    public void startRound() {
+        this.startRound(chooseFraction(this.maxDenom));
+    }
+
+    void startRound(Fraction chosenAnswer) {
+        this.answer = chosenAnswer;
+        this.lowerBound = ZERO;
+        this.upperBound = ONE;
+        this.leftNumer = 0;
+        this.leftDenom = 1;
+        this.rightNumer = 1;
+        this.rightDenom = 1;
+        this.guessCount = 0;
+    }
+
+    /**
+     * Checks a guess against the answer, counts it, and narrows down the hint
+     * bracket accordingly.
+     * @param guess The guess. For example, <sup>1</sup>&frasl;<sub>2</sub>.
+     * @return Whether the guess is too low, too high or correct, as determined
+     * by {@link Fraction#compareTo(Fraction)}.
+     * @throws IllegalStateException If no round has been started.
+     */
+    public GuessOutcome checkGuess(Fraction guess) {
+        if (this.answer == null) {
+            throw new IllegalStateException("No round has been started");
+        }
+        this.guessCount++;
+        int comparison = guess.compareTo(this.answer);
+        if (comparison == 0) {
+            return GuessOutcome.CORRECT;
+        }
+        if (comparison < 0) {
+            if (guess.compareTo(this.lowerBound) > 0) {
+                this.lowerBound = guess;
+                this.descend();
+            }
+            return GuessOutcome.TOO_LOW;
+        }
+        if (guess.compareTo(this.upperBound) < 0) {
+            this.upperBound = guess;
+            this.descend();
+        }
+        return GuessOutcome.TOO_HIGH;
+    }
+
+    /**
+     * Walks the bracket down the Stern&ndash;Brocot tree until its mediant is
+     * strictly between the bounds given by the feedback so far, or until the
+     * mediant's denominator is too large. Each pass of the loop skips a whole
+     * run of same-side steps, so when the player follows the suggestions,
+     * there is usually just one pass per guess.
+     */
+    private void descend() {
+        boolean keepGoing = true;
+        while (keepGoing && this.leftDenom + this.rightDenom <= this.maxDenom) {
+            Fraction mediant = new Fraction(this.leftNumer + this.rightNumer, this.leftDenom + this.rightDenom);
+            if (mediant.compareTo(this.lowerBound) <= 0) {
+                keepGoing = this.advanceLeft(this.lowerBound.getNumerator(), this.lowerBound.getDenominator());
+            } else if (mediant.compareTo(this.upperBound) >= 0) {
+                keepGoing = this.advanceRight(this.upperBound.getNumerator(), this.upperBound.getDenominator());
+            } else {
+                keepGoing = false;
+            }
+        }
+    }
+
+    /**
+     * Moves the left end of the bracket right, past every Stern&ndash;Brocot
+     * node that is not greater than the given bound. Going right <i>k</i> times
+     * from the bracket (<i>L</i>, <i>R</i>) makes the left end <i>L</i> +
+     * <i>kR</i> (adding numerators and denominators), so the largest <i>k</i>
+     * can be found with one division instead of <i>k</i> steps.
+     * @return True if the bracket changed, false if it did not.
+     */
+    private boolean advanceLeft(long boundNumer, long boundDenom) {
+        try {
+            long slack = Math.subtractExact(Math.multiplyExact(boundNumer, this.leftDenom), Math.multiplyExact(this.leftNumer, boundDenom));
+            long stepGain = Math.subtractExact(Math.multiplyExact(this.rightNumer, boundDenom), Math.multiplyExact(boundNumer, this.rightDenom));
+            long k = Math.min(slack / stepGain, (this.maxDenom - this.leftDenom) / this.rightDenom);
+            this.leftNumer += k * this.rightNumer;
+            this.leftDenom += k * this.rightDenom;
+            return k > 0;
+        } catch (ArithmeticException ae) {
+            // A bound with a huge numerator or denominator leaves the bracket
+            // as it is, which is still correct, just not as narrow
+            return false;
+        }
+    }
+
+    /**
+     * Moves the right end of the bracket left, past every Stern&ndash;Brocot
+     * node that is not less than the given bound, in the same manner as {@link
+     * #advanceLeft(long, long)}.
+     * @return True if the bracket changed, false if it did not.
+     */
+    private boolean advanceRight(long boundNumer, long boundDenom) {
+        try {
+            long slack = Math.subtractExact(Math.multiplyExact(this.rightNumer, boundDenom), Math.multiplyExact(boundNumer, this.rightDenom));
+            long stepGain = Math.subtractExact(Math.multiplyExact(boundNumer, this.leftDenom), Math.multiplyExact(this.leftNumer, boundDenom));
+            long k = Math.min(slack / stepGain, (this.maxDenom - this.rightDenom) / this.leftDenom);
+            this.rightNumer += k * this.leftNumer;
+            this.rightDenom += k * this.leftDenom;
+            return k > 0;
+        } catch (ArithmeticException ae) {
+            // Same as for advanceLeft()
+            return false;
+        }
+    }
+
+    /**
+     * Suggests the next guess. This is the mediant of the bracket, the
+     * simplest fraction strictly between its ends. If the mediant's
+     * denominator is too large, the answer must be one of the ends, and the
+     * one not yet ruled out is suggested.
+     * @return A fraction that has not been ruled out by the feedback so far.
+     * For example, <sup>1</sup>&frasl;<sub>2</sub> at the start of a round.
+     */
+    public Fraction suggestGuess() {
+        long mediantDenom = this.leftDenom + this.rightDenom;
+        if (mediantDenom <= this.maxDenom) {
+            return new Fraction(this.leftNumer + this.rightNumer, mediantDenom);
+        }
+        Fraction left = new Fraction(this.leftNumer, this.leftDenom);
+        if (left.compareTo(this.lowerBound) > 0) {
+            return left;
+        }
+        return new Fraction(this.rightNumer, this.rightDenom);
+    }
+
+    /**
+     * Tells how many guesses have been made so far in this round.
+     * @return The number of guesses, including the correct guess if it has
+     * been made.
+     */
+    public int getGuessCount() {
+        return this.guessCount;
+    }
+
+    /**
+     * Tells what the maximum denominator of this game is.
+     * @return The maximum denominator. For example, 100.
+     */
+    public long getMaximumDenominator() {
+        return this.maxDenom;
+    }
+
+    /**
+     * Scores a won round. The fewer the guesses, the higher the score, scaled
+     * by the maximum denominator, since a round with more fractions to choose
+     * from is harder, up to {@link #MAXIMUM_SCORE_SCALE}.
+     * @param guessOrd How many wrong guesses came before the right one. For
+     * example, 3.
+     * @return The score. For example, 700 if the maximum denominator is 100.
+     */
+    int scoreGame(int guessOrd) {
+        return (MAXIMUM_GUESSES - guessOrd) * (int) Math.min(this.maxDenom, MAXIMUM_SCORE_SCALE);
+    }
+
+    void playRound(Scanner input) {
+        GameMetrics.RoundTimer timer = this.metrics().startRound();
+        System.out.println();
+        this.startRound();
+        boolean notGuessedYet = true;
+        Fraction guess;
+        while (notGuessedYet && this.guessCount < MAXIMUM_GUESSES) {
+            System.out.print("Please enter a fraction between 0 and 1 with denominator up to " + this.maxDenom + ": ");
+            try {
+                guess = Fraction.parseFract(input.nextLine());
+            } catch (IllegalArgumentException iae) {
+                timer.invalidGuess();
+                System.out.println("Sorry, didn't catch that, " + iae.getMessage());
+                System.out.println("Maybe try again...");
+                continue;
+            }
+            timer.guessReceived();
+            switch (this.checkGuess(guess)) {
+                case CORRECT:
+                    notGuessedYet = false;
+                    int score = this.scoreGame(this.guessCount - 1);
+                    System.out.println("That's right! You win!");
+                    System.out.println("With a score of " + score + ".");
+                    long start = System.nanoTime();
+                    boolean saved = false;
+                    try {
+                        this.leaderboard().addHighScore(new HighScoreTableRecord(this.playerName, score));
+                        saved = true;
+                    } catch (IllegalStateException ise) {
+                        System.out.println("Sorry, couldn't save your score, " + ise.getMessage());
+                    }
+                    this.metrics().scoreSubmitted(start, saved);
+                    break;
+                case TOO_LOW:
+                    System.out.println("Too low. Maybe try " + this.suggestGuess() + "?");
+                    break;
+                default:
+                    System.out.println("Too high. Maybe try " + this.suggestGuess() + "?");
+            }
+            timer.guessAnswered();
+        }
+        timer.roundCompleted(!notGuessedYet);
+        if (notGuessedYet) {
+            System.out.println("Sorry, you ran out of guesses.");
+            System.out.println("The fraction was " + this.answer);
+        }
+    }
+
+    /**
+     * Plays a round on the console. The same <code>Scanner</code> is used
+     * for every round, so that input buffered by one round isn't lost to the
+     * next.
+     */
+    @Override
+    void playRound() {
+        this.playRound(console());
+    }
+
+    /**
+     * Constructor for a game with the default maximum denominator.
+     */
+    public FractionGuessingGame() {
+        this(DEFAULT_MAXIMUM_DENOMINATOR);
+    }
+
+    /**
+     * Constructor for a game with a custom maximum denominator.
+     * @param maximumDenominator The maximum denominator for the answers. For
+     * example, 1000.
+     * @throws IllegalArgumentException If the maximum denominator is less than
+     * 2 or more than 2<sup>31</sup>.
+     */
+    public FractionGuessingGame(long maximumDenominator) {
+        if (maximumDenominator < 2 || maximumDenominator > (1L << 31)) {
+            String exceptionMessage = "Maximum denominator " + maximumDenominator + " is out of range";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        this.maxDenom = maximumDenominator;
+    }
+
+    public static void main(String[] args) {
+        greetUser();
+        FractionGuessingGame game = new FractionGuessingGame();
+        MetricsReporter reporter = startMetricsReporter();
+        try (Scanner scan = console()) {
+            game.playerName = getUserName(scan);
+            boolean keepPlaying = true;
+            while (keepPlaying) {
+                game.playRound(scan);
+                keepPlaying = askToPlayAgain(scan);
+            }
+        } finally {
+            if (reporter != null) {
+                reporter.close();
+            }
+        }
+    }
+
 }
@@ -0,0 +1,317 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and counters for the rounds of one game, for watching hosted
+ * play. There is one instance per game ID, shared by every instance of the
+ * game, in the same way as the game's {@link Leaderboard}. Recording is a
+ * call to <code>System.nanoTime()</code> and a few atomic increments, which
+ * is nothing next to reading a line of input. Use a {@link MetricsReporter}
+ * to write the metrics out periodically.
+ * @author Alonso del Arte
+ */
+public class GameMetrics {
+
+    private static final ConcurrentMap<Long, GameMetrics> METRICS = new ConcurrentHashMap<>();
+
+    private final long gameID;
+
+    private final LatencyHistogram timeToFirstGuess = new LatencyHistogram();
+    private final LatencyHistogram guessProcessing = new LatencyHistogram();
+    private final LatencyHistogram scoreSubmission = new LatencyHistogram();
+
+    private final LongAdder roundsStarted = new LongAdder();
+    private final LongAdder roundsCompleted = new LongAdder();
+    private final LongAdder roundsWon = new LongAdder();
+    private final LongAdder invalidGuesses = new LongAdder();
+    private final LongAdder scoresDropped = new LongAdder();
+
+    /**
+     * Times one round, so that a game loop doesn't have to keep track of
+     * which guess is the first one or when each guess came in. A timer
+     * belongs to one round and is not meant to be shared between threads.
+     */
+    public static final class RoundTimer {
+
+        private final GameMetrics metrics;
+        private final long roundStart;
+        private boolean guessedYet = false;
+        private long received;
+
+        /**
+         * Notes that a guess came in. The first time this is called in a
+         * round, the time since the start of the round is recorded as the
+         * time to first guess.
+         */
+        public void guessReceived() {
+            if (this.guessedYet) {
+                this.received = System.nanoTime();
+            } else {
+                this.received = this.metrics.firstGuess(this.roundStart);
+                this.guessedYet = true;
+            }
+        }
+
+        /**
+         * Counts a guess that could not be understood or was rejected. Calls
+         * {@link #guessReceived()} first if that has not been done for this
+         * guess, so that an invalid first guess still counts as the first
+         * guess.
+         */
+        public void invalidGuess() {
+            if (!this.guessedYet) {
+                this.guessReceived();
+            }
+            this.metrics.invalidGuess();
+        }
+
+        /**
+         * Records the time since the last call to {@link #guessReceived()}
+         * as the time taken to process that guess.
+         */
+        public void guessAnswered() {
+            this.metrics.guessProcessed(this.received);
+        }
+
+        /**
+         * Counts the end of the round.
+         * @param won Whether the player guessed right.
+         */
+        public void roundCompleted(boolean won) {
+            this.metrics.roundCompleted(won);
+        }
+
+        private RoundTimer(GameMetrics gameMetrics) {
+            this.metrics = gameMetrics;
+            this.roundStart = gameMetrics.roundStarted();
+        }
+
+    }
+
+    /**
+     * Gives the metrics for a game, creating them the first time they're
+     * asked for.
+     * @param gameID The ID of the game. For example, {@link
+     * NumberGuessingGame#GAME_ID}.
+     * @return The metrics for the game.
+     */
+    public static GameMetrics forGame(long gameID) {
+        return METRICS.computeIfAbsent(gameID, GameMetrics::new);
+    }
+
+    /**
+     * Gives the metrics of every game that has asked for them so far.
+     * @return An unmodifiable map from game ID to metrics, in order of game
+     * ID.
+     */
+    public static Map<Long, GameMetrics> all() {
+        return Collections.unmodifiableMap(new TreeMap<>(METRICS));
+    }
+
+    /**
+     * Gives the game ID these metrics are for.
+     * @return The game ID. For example, {@link NumberGuessingGame#GAME_ID}.
+     */
+    public long getGameID() {
+        return this.gameID;
+    }
+
+    /**
+     * Counts the start of a round.
+     * @return The current value of <code>System.nanoTime()</code>, to be
+     * passed on to {@link #firstGuess(long)}.
+     */
+    public long roundStarted() {
+        this.roundsStarted.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Counts the start of a round and starts timing it.
+     * @return A timer for the round.
+     */
+    public RoundTimer startRound() {
+        return new RoundTimer(this);
+    }
+
+    /**
+     * Records the time from the start of a round to the player's first
+     * guess, whether or not the guess could be understood.
+     * @param roundStart What {@link #roundStarted()} returned.
+     * @return The current value of <code>System.nanoTime()</code>.
+     */
+    public long firstGuess(long roundStart) {
+        long now = System.nanoTime();
+        this.timeToFirstGuess.record(now - roundStart);
+        return now;
+    }
+
+    /**
+     * Records how long it took to process a guess, from having the input to
+     * having answered it, including submitting the score if the guess won.
+     * @param received The value of <code>System.nanoTime()</code> when the
+     * guess was received.
+     */
+    public void guessProcessed(long received) {
+        this.guessProcessing.record(System.nanoTime() - received);
+    }
+
+    /**
+     * Counts a guess that could not be understood. Such guesses don't count
+     * against the player, and their processing time is not recorded.
+     */
+    public void invalidGuess() {
+        this.invalidGuesses.increment();
+    }
+
+    /**
+     * Counts the end of a round.
+     * @param won Whether the player guessed right.
+     */
+    public void roundCompleted(boolean won) {
+        this.roundsCompleted.increment();
+        if (won) {
+            this.roundsWon.increment();
+        }
+    }
+
+    /**
+     * Records how long it took to submit a score to the leaderboard, or to
+     * decide that it doesn't qualify.
+     * @param start The value of <code>System.nanoTime()</code> when the
+     * submission started.
+     * @param saved Whether the score was saved or didn't need to be. False
+     * if the score qualified but had to be dropped.
+     */
+    public void scoreSubmitted(long start, boolean saved) {
+        this.scoreSubmission.record(System.nanoTime() - start);
+        if (!saved) {
+            this.scoresDropped.increment();
+        }
+    }
+
+    /**
+     * Gives the times from the start of a round to the first guess.
+     * @return The histogram of times to first guess.
+     */
+    public LatencyHistogram getTimeToFirstGuess() {
+        return this.timeToFirstGuess;
+    }
+
+    /**
+     * Gives the times taken to process guesses.
+     * @return The histogram of guess processing times.
+     */
+    public LatencyHistogram getGuessProcessing() {
+        return this.guessProcessing;
+    }
+
+    /**
+     * Gives the times taken to submit scores to the leaderboard.
+     * @return The histogram of score submission times.
+     */
+    public LatencyHistogram getScoreSubmission() {
+        return this.scoreSubmission;
+    }
+
+    /**
+     * Tells how many rounds have been started.
+     * @return The number of rounds started. For example, 12.
+     */
+    public long getRoundsStarted() {
+        return this.roundsStarted.sum();
+    }
+
+    /**
+     * Tells how many rounds have been played to the end, won or lost.
+     * @return The number of rounds completed. For example, 11.
+     */
+    public long getRoundsCompleted() {
+        return this.roundsCompleted.sum();
+    }
+
+    /**
+     * Tells how many rounds the players won.
+     * @return The number of rounds won. For example, 7.
+     */
+    public long getRoundsWon() {
+        return this.roundsWon.sum();
+    }
+
+    /**
+     * Tells how many guesses could not be understood.
+     * @return The number of invalid guesses. For example, 2.
+     */
+    public long getInvalidGuesses() {
+        return this.invalidGuesses.sum();
+    }
+
+    /**
+     * Tells how many qualifying scores had to be dropped, for example because
+     * too many were waiting to be saved.
+     * @return The number of scores dropped. For example, 0.
+     */
+    public long getScoresDropped() {
+        return this.scoresDropped.sum();
+    }
+
+    /**
+     * Sets all the counters and histograms back to 0.
+     */
+    public void reset() {
+        this.timeToFirstGuess.reset();
+        this.guessProcessing.reset();
+        this.scoreSubmission.reset();
+        this.roundsStarted.reset();
+        this.roundsCompleted.reset();
+        this.roundsWon.reset();
+        this.invalidGuesses.reset();
+        this.scoresDropped.reset();
+    }
+
+    /**
+     * Summarizes the metrics on one line.
+     * @return A summary. For example, "game 4549604001330510643: rounds
+     * started=12 completed=11 won=7 invalid guesses=2 scores dropped=0 | first
+     * guess n=12 mean=3.10 s ... | guess n=40 ... | score n=7 ...".
+     */
+    @Override
+    public String toString() {
+        return "game " + this.gameID + ": rounds started=" + this.getRoundsStarted()
+                + " completed=" + this.getRoundsCompleted()
+                + " won=" + this.getRoundsWon()
+                + " invalid guesses=" + this.getInvalidGuesses()
+                + " scores dropped=" + this.getScoresDropped()
+                + " | first guess " + this.timeToFirstGuess
+                + " | guess " + this.guessProcessing
+                + " | score " + this.scoreSubmission;
+    }
+
+    private GameMetrics(long gameID) {
+        this.gameID = gameID;
+    }
+
+}
@@ -0,0 +1,621 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hosts many rounds of the number guessing game at once over TCP, on a single
+ * thread with a selector. Each connection has its own {@link
+ * NumberGuessingSession}, so the rules and scoring are the same as on the
+ * console. The protocol is line-based ASCII, one reply line per request line:
+ * <table>
+ *   <caption>Requests and replies</caption>
+ *   <tr><th>Request</th><th>Reply</th></tr>
+ *   <tr><td>NAME <i>name</i></td><td>OK</td></tr>
+ *   <tr><td>NEW</td><td>READY <i>min</i> <i>max</i> <i>guesses</i>, where
+ *   the number is at least <i>min</i> and less than <i>max</i></td></tr>
+ *   <tr><td><i>n</i> or GUESS <i>n</i></td><td>LOW, HIGH, WIN <i>score</i>
+ *   or, on a wrong last guess, LOSE <i>number</i></td></tr>
+ *   <tr><td>TOP</td><td>TOP followed by <i>name</i>:<i>score</i> pairs, best
+ *   first</td></tr>
+ *   <tr><td>QUIT</td><td>BYE, then the server closes the connection</td></tr>
+ * </table>
+ * Anything else, including a guess outside the range, gets a reply starting
+ * with ERROR, and a rejected guess doesn't count. Winning scores go into the
+ * {@link Leaderboard} of the number guessing game, shared by all connections,
+ * and the rounds are recorded in the {@link GameMetrics} of the number
+ * guessing game, as on the console. Unless another leaderboard is given, that
+ * is the game's partition of the default {@link LeaderboardRegistry}, and if
+ * the registry has no room for it, winning scores are dropped rather than
+ * saved. Given a {@link ScoreWriter}, the server saves winning scores through
+ * it, to the writer's store.
+ * <p>If a client sends requests faster than it reads replies, the server stops
+ * reading from that client until the pending replies have been written, so
+ * one slow client can't make the server buffer without limit. Connections
+ * that stay idle longer than the idle timeout are told BYE and closed.</p>
+ * @author Alonso del Arte
+ */
+public class GameServer implements Closeable {
+
+    /**
+     * How long a connection may go without sending anything before it's
+     * closed, if no idle timeout is specified, in milliseconds.
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 60000L;
+
+    /**
+     * The longest request line accepted, in bytes, not counting the line
+     * break.
+     */
+    public static final int MAXIMUM_LINE_LENGTH = 256;
+
+    private static final int OUTPUT_BUFFER_SIZE = 8192;
+
+    /**
+     * Room that must be left in the output buffer before another request is
+     * handled. The longest reply is the TOP reply.
+     */
+    private static final int MAXIMUM_REPLY_LENGTH = 16 + HighScoreTable.DEFAULT_CAPACITY * (MAXIMUM_LINE_LENGTH + 12);
+
+    private final ServerSocketChannel serverChannel;
+
+    private final Selector selector;
+
+    private final long idleTimeoutNanos;
+
+    /**
+     * The leaderboard winning scores go into, or null for the number guessing
+     * game's partition of the default registry.
+     */
+    private final Leaderboard leaderboard;
+
+    private final ScoreWriter scoreWriter;
+
+    private final GameMetrics metrics = GameMetrics.forGame(NumberGuessingGame.GAME_ID);
+
+    private final RandomGenerator random;
+
+    private final Thread selectorThread;
+
+    private volatile boolean running = true;
+
+    private static class Connection {
+
+        private final SocketChannel channel;
+        private final ByteBuffer input = ByteBuffer.allocate(MAXIMUM_LINE_LENGTH + 2);
+        private final ByteBuffer output = ByteBuffer.allocate(OUTPUT_BUFFER_SIZE);
+        private final StringBuilder reply = new StringBuilder();
+        private NumberGuessingSession session = null;
+        private GameMetrics.RoundTimer timer = null;
+        private String playerName = "";
+        private long lastActivity;
+        private boolean closing = false;
+
+        Connection(SocketChannel socketChannel, long now) {
+            this.channel = socketChannel;
+            this.lastActivity = now;
+        }
+
+    }
+
+    /**
+     * Gives the port this server is listening on.
+     * @return The port number. If the server was constructed with port 0,
+     * this is the port the system picked.
+     */
+    public int getPort() {
+        return this.serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Gives the leaderboard for this server.
+     * @return The leaderboard that winning scores go into. Unless another
+     * leaderboard was given, this is the partition for {@link
+     * NumberGuessingGame#GAME_ID} in the default {@link LeaderboardRegistry},
+     * shared with the console game.
+     * @throws IllegalStateException If the default registry has no room left
+     * for the number guessing game's partition.
+     */
+    public Leaderboard getTable() {
+        if (this.leaderboard == null) {
+            return LeaderboardRegistry.getDefault().leaderboard(NumberGuessingGame.GAME_ID);
+        }
+        return this.leaderboard;
+    }
+
+    /**
+     * Gives the metrics the rounds hosted by this server are recorded in.
+     * These are the metrics for {@link NumberGuessingGame#GAME_ID}, shared
+     * with the console game.
+     * @return The metrics for the number guessing game.
+     */
+    public GameMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    private void run() {
+        long checkIntervalMillis = Math.max(1L, Math.min(1000L, TimeUnit.NANOSECONDS.toMillis(this.idleTimeoutNanos) / 4));
+        long nextIdleCheck = System.nanoTime();
+        try {
+            while (this.running) {
+                this.selector.select(checkIntervalMillis);
+                long now = System.nanoTime();
+                Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            this.accept(now);
+                        } else {
+                            Connection conn = (Connection) key.attachment();
+                            if (key.isReadable()) {
+                                this.read(key, conn, now);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                this.write(key, conn);
+                            }
+                        }
+                    } catch (IOException ioe) {
+                        closeQuietly(key);
+                    }
+                }
+                if (now - nextIdleCheck >= 0) {
+                    this.closeIdleConnections(now);
+                    nextIdleCheck = now + TimeUnit.MILLISECONDS.toNanos(checkIntervalMillis);
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (this.running) {
+                System.err.println("Game server stopped: " + e.getMessage());
+            }
+        } finally {
+            for (SelectionKey key : this.selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                this.selector.close();
+                this.serverChannel.close();
+            } catch (IOException ioe) {
+                System.err.println("Problem closing game server: " + ioe.getMessage());
+            }
+        }
+    }
+
+    private void accept(long now) throws IOException {
+        SocketChannel channel = this.serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(java.net.StandardSocketOptions.TCP_NODELAY, true);
+        channel.register(this.selector, SelectionKey.OP_READ, new Connection(channel, now));
+    }
+
+    private void read(SelectionKey key, Connection conn, long now) throws IOException {
+        int count = conn.channel.read(conn.input);
+        if (count < 0) {
+            closeQuietly(key);
+            return;
+        }
+        conn.lastActivity = now;
+        this.handleLines(conn);
+        this.write(key, conn);
+    }
+
+    /**
+     * Handles the complete lines in the input buffer, as long as there's room
+     * for the replies. Whatever's left over stays in the buffer for next time.
+     */
+    private void handleLines(Connection conn) {
+        ByteBuffer input = conn.input;
+        input.flip();
+        int lineStart = input.position();
+        int limit = input.limit();
+        boolean heldBack = false;
+        for (int i = lineStart; i < limit && !conn.closing && !heldBack; i++) {
+            if (input.get(i) == '\n') {
+                if (conn.output.remaining() < MAXIMUM_REPLY_LENGTH) {
+                    heldBack = true;
+                    break;
+                }
+                int lineEnd = i;
+                if (lineEnd > lineStart && input.get(lineEnd - 1) == '\r') {
+                    lineEnd--;
+                }
+                byte[] bytes = new byte[lineEnd - lineStart];
+                input.get(lineStart, bytes);
+                this.respond(conn, new String(bytes, StandardCharsets.US_ASCII).trim());
+                lineStart = i + 1;
+            }
+        }
+        input.position(lineStart);
+        input.compact();
+        if (!input.hasRemaining() && !conn.closing && !heldBack) {
+            input.clear();
+            conn.reply.setLength(0);
+            conn.reply.append("ERROR Line too long");
+            conn.closing = true;
+            this.queueReply(conn);
+        }
+    }
+
+    private void respond(Connection conn, String line) {
+        StringBuilder reply = conn.reply;
+        reply.setLength(0);
+        int space = line.indexOf(' ');
+        String command = (space < 0) ? line : line.substring(0, space);
+        String argument = (space < 0) ? "" : line.substring(space + 1).trim();
+        switch (command.toUpperCase()) {
+            case "NAME":
+                conn.playerName = argument;
+                reply.append("OK");
+                break;
+            case "NEW":
+                conn.session = NumberGuessingSession.start(this.random);
+                conn.timer = this.metrics.startRound();
+                reply.append("READY ").append(NumberGuessingGame.MINIMUM_NUMBER).append(' ').append(NumberGuessingGame.MAXIMUM_NUMBER).append(' ').append(NumberGuessingGame.MAXIMUM_GUESSES);
+                break;
+            case "GUESS":
+                this.guess(conn, argument);
+                break;
+            case "TOP":
+                reply.append("TOP");
+                List<HighScoreTableRecord> records;
+                try {
+                    records = this.getTable().getRecords();
+                } catch (IllegalStateException ise) {
+                    break;
+                }
+                for (HighScoreTableRecord record : records) {
+                    reply.append(' ').append(record.getPlayerName().replace(' ', '_')).append(':').append(record.getScore());
+                }
+                break;
+            case "QUIT":
+                reply.append("BYE");
+                conn.closing = true;
+                break;
+            default:
+                this.guess(conn, line);
+        }
+        this.queueReply(conn);
+    }
+
+    private void guess(Connection conn, String argument) {
+        StringBuilder reply = conn.reply;
+        NumberGuessingSession session = conn.session;
+        boolean inProgress = session != null && !session.isOver();
+        int guessedNumber;
+        try {
+            guessedNumber = Integer.parseInt(argument);
+        } catch (NumberFormatException nfe) {
+            if (inProgress) {
+                conn.timer.invalidGuess();
+            }
+            reply.append("ERROR Unrecognized request");
+            return;
+        }
+        if (!inProgress) {
+            reply.append("ERROR No round in progress, send NEW to start one");
+            return;
+        }
+        GameMetrics.RoundTimer timer = conn.timer;
+        timer.guessReceived();
+        GuessOutcome outcome;
+        try {
+            outcome = session.guess(guessedNumber);
+        } catch (IllegalArgumentException iae) {
+            timer.invalidGuess();
+            reply.append("ERROR ").append(iae.getMessage());
+            return;
+        }
+        switch (outcome) {
+            case CORRECT:
+                int score = session.score();
+                long submissionStart = System.nanoTime();
+                boolean saved = this.submitScore(conn.playerName, score);
+                this.metrics.scoreSubmitted(submissionStart, saved);
+                reply.append("WIN ").append(score);
+                break;
+            case TOO_LOW:
+                if (session.isOver()) {
+                    reply.append("LOSE ").append(session.getNumber());
+                } else {
+                    reply.append("LOW");
+                }
+                break;
+            default:
+                if (session.isOver()) {
+                    reply.append("LOSE ").append(session.getNumber());
+                } else {
+                    reply.append("HIGH");
+                }
+        }
+        timer.guessAnswered();
+        if (session.isOver()) {
+            timer.roundCompleted(session.isWon());
+        }
+    }
+
+    /**
+     * Puts a winning score on the leaderboard if it qualifies, through the
+     * score writer if there is one. This doesn't wait on the disk, so it's
+     * safe to call on the selector thread.
+     * @return True if the score was saved or didn't qualify, false if it had
+     * to be dropped.
+     */
+    private boolean submitScore(String playerName, int score) {
+        Leaderboard table;
+        try {
+            table = this.getTable();
+        } catch (IllegalStateException ise) {
+            return false;
+        }
+        if (!table.qualifies(score)) {
+            return true;
+        }
+        HighScoreTableRecord record = new HighScoreTableRecord(playerName, score);
+        if (this.scoreWriter == null) {
+            table.addHighScore(record);
+            return true;
+        }
+        try {
+            return this.scoreWriter.submit(record);
+        } catch (IllegalStateException ise) {
+            return false;
+        }
+    }
+
+    private void queueReply(Connection conn) {
+        StringBuilder reply = conn.reply;
+        if (!conn.output.hasRemaining()) {
+            return;
+        }
+        int length = Math.min(reply.length(), conn.output.remaining() - 1);
+        for (int i = 0; i < length; i++) {
+            conn.output.put((byte) reply.charAt(i));
+        }
+        conn.output.put((byte) '\n');
+    }
+
+    /**
+     * Writes as much pending output as the socket takes. If some is left over,
+     * waits for the socket to become writable and stops reading meanwhile.
+     */
+    private void write(SelectionKey key, Connection conn) throws IOException {
+        conn.output.flip();
+        conn.channel.write(conn.output);
+        boolean drained = !conn.output.hasRemaining();
+        conn.output.compact();
+        if (drained) {
+            if (conn.closing) {
+                closeQuietly(key);
+                return;
+            }
+            key.interestOps(SelectionKey.OP_READ);
+            if (conn.input.position() > 0) {
+                // Lines held back for lack of output room can go now
+                this.handleLines(conn);
+                if (conn.output.position() > 0) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                }
+            }
+        } else {
+            key.interestOps(SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void closeIdleConnections(long now) {
+        for (SelectionKey key : this.selector.keys()) {
+            Object attachment = key.attachment();
+            if (attachment instanceof Connection) {
+                Connection conn = (Connection) attachment;
+                if (now - conn.lastActivity > this.idleTimeoutNanos) {
+                    if (!conn.closing && conn.output.remaining() > 16) {
+                        conn.output.put("BYE Idle timeout\n".getBytes(StandardCharsets.US_ASCII));
+                    }
+                    conn.closing = true;
+                    try {
+                        conn.output.flip();
+                        conn.channel.write(conn.output);
+                    } catch (IOException ioe) {
+                        // Closing anyway
+                    }
+                    closeQuietly(key);
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ioe) {
+            // Nothing more to do for this connection
+        }
+    }
+
+    /**
+     * Stops this server and closes all its connections. Waits for the
+     * selector thread to finish.
+     * @throws IOException Not actually thrown, declared for {@link
+     * Closeable}.
+     */
+    @Override
+    public void close() throws IOException {
+        this.running = false;
+        this.selector.wakeup();
+        try {
+            this.selectorThread.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Constructor with the default idle timeout. The server starts accepting
+     * connections right away.
+     * @param port The port to listen on, or 0 for any free port. For example,
+     * 4549.
+     * @throws IOException If the port can't be bound.
+     */
+    public GameServer(int port) throws IOException {
+        this(new InetSocketAddress(port), DEFAULT_IDLE_TIMEOUT_MILLIS, new SplittableRandom());
+    }
+
+    /**
+     * Constructor. The server starts accepting connections right away, and
+     * winning scores go into the number guessing game's partition of the
+     * default {@link LeaderboardRegistry}.
+     * @param address The address to listen on. For example, port 4549 on the
+     * loopback address.
+     * @param idleTimeoutMillis How long a connection may go without sending
+     * anything before it's closed, in milliseconds. For example, 60000.
+     * @param rng The generator to choose the numbers with. Only the selector
+     * thread uses it.
+     * @throws IOException If the address can't be bound.
+     * @throws IllegalArgumentException If the idle timeout is not positive.
+     */
+    public GameServer(InetSocketAddress address, long idleTimeoutMillis, RandomGenerator rng) throws IOException {
+        this(address, idleTimeoutMillis, rng, null, null);
+    }
+
+    /**
+     * Constructor with a leaderboard of its own. The server starts accepting
+     * connections right away.
+     * @param address The address to listen on. For example, port 4549 on the
+     * loopback address.
+     * @param idleTimeoutMillis How long a connection may go without sending
+     * anything before it's closed, in milliseconds. For example, 60000.
+     * @param rng The generator to choose the numbers with. Only the selector
+     * thread uses it.
+     * @param leaderboard The leaderboard for winning scores to go into. For
+     * example, a new {@link ConcurrentHighScoreTable}.
+     * @throws IOException If the address can't be bound.
+     * @throws IllegalArgumentException If the idle timeout is not positive.
+     * @throws NullPointerException If the leaderboard is null.
+     */
+    public GameServer(InetSocketAddress address, long idleTimeoutMillis, RandomGenerator rng, Leaderboard leaderboard) throws IOException {
+        this(address, idleTimeoutMillis, rng, requireLeaderboard(leaderboard), null);
+    }
+
+    /**
+     * Constructor that saves winning scores through a score writer. The server
+     * starts accepting connections right away, and winning scores go into the
+     * leaderboard of the writer's store.
+     * @param address The address to listen on. For example, port 4549 on the
+     * loopback address.
+     * @param idleTimeoutMillis How long a connection may go without sending
+     * anything before it's closed, in milliseconds. For example, 60000.
+     * @param rng The generator to choose the numbers with. Only the selector
+     * thread uses it.
+     * @param writer The writer to save winning scores through. The server
+     * doesn't close it.
+     * @throws IOException If the address can't be bound.
+     * @throws IllegalArgumentException If the idle timeout is not positive.
+     * @throws NullPointerException If the writer is null.
+     */
+    public GameServer(InetSocketAddress address, long idleTimeoutMillis, RandomGenerator rng, ScoreWriter writer) throws IOException {
+        this(address, idleTimeoutMillis, rng, writer.getStore().getTable(), writer);
+    }
+
+    private static Leaderboard requireLeaderboard(Leaderboard leaderboard) {
+        if (leaderboard == null) {
+            throw new NullPointerException("Leaderboard should not be null");
+        }
+        return leaderboard;
+    }
+
+    private GameServer(InetSocketAddress address, long idleTimeoutMillis, RandomGenerator rng, Leaderboard leaderboard, ScoreWriter writer) throws IOException {
+        if (idleTimeoutMillis < 1) {
+            String exceptionMessage = "Idle timeout " + idleTimeoutMillis + " ms is not valid";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.random = rng;
+        this.leaderboard = leaderboard;
+        this.scoreWriter = writer;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        try {
+            this.serverChannel.bind(address, 1024);
+            this.serverChannel.configureBlocking(false);
+            this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException ioe) {
+            this.serverChannel.close();
+            this.selector.close();
+            throw ioe;
+        }
+        this.selectorThread = new Thread(this::run, "GameServer on port " + this.getPort());
+        this.selectorThread.start();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : 4549;
+        Path scoresPath = Paths.get(NumberGuessingGame.SCORES_FILE_NAME);
+        ScoreWriter writer = null;
+        try {
+            Leaderboard leaderboard = LeaderboardRegistry.getDefault().leaderboard(NumberGuessingGame.GAME_ID);
+            HighScoreStore store = new HighScoreStore(scoresPath, leaderboard, HighScoreStore.DEFAULT_BATCH_SIZE, HighScoreStore.DEFAULT_COMPACTION_THRESHOLD);
+            writer = new ScoreWriter(store, DurabilityMode.WRITE);
+        } catch (IOException ioe) {
+            System.out.println("High scores won't be saved, couldn't open " + scoresPath + ": " + ioe.getMessage());
+        } catch (IllegalStateException ise) {
+            System.out.println("High scores won't be saved, " + ise.getMessage());
+        }
+        InetSocketAddress address = new InetSocketAddress(port);
+        GameServer server;
+        if (writer == null) {
+            server = new GameServer(address, DEFAULT_IDLE_TIMEOUT_MILLIS, new SplittableRandom());
+        } else {
+            server = new GameServer(address, DEFAULT_IDLE_TIMEOUT_MILLIS, new SplittableRandom(), writer);
+            ScoreWriter scores = writer;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.close();
+                    scores.close();
+                } catch (IOException ioe) {
+                    System.err.println("Sorry, couldn't save high scores, " + ioe.getMessage());
+                }
+            }));
+        }
+        System.out.println("Number guessing game server listening on port " + server.getPort());
+    }
+
+}
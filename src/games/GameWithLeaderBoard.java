@@ -17,6 +17,7 @@
  */
 package games;
 
+import java.io.IOException;
 import java.util.Scanner;
 
 /**
@@ -25,8 +26,32 @@ import java.util.Scanner;
  */
 public abstract class GameWithLeaderBoard {
 
+    private static Scanner console = null;
+
     abstract long gameID();
 
+    /**
+     * Gives this game's leaderboard, the partition for {@link #gameID()} in
+     * the default {@link LeaderboardRegistry}. Every instance of a game shares
+     * the same leaderboard.
+     * @return The leaderboard for this game.
+     * @throws IllegalStateException If the game doesn't have a leaderboard
+     * yet and the registry's record budget has no room for one. Games should
+     * tell the player the score can't be saved and go on.
+     */
+    Leaderboard leaderboard() {
+        return LeaderboardRegistry.getDefault().leaderboard(this.gameID());
+    }
+
+    /**
+     * Gives this game's latency and round metrics. Every instance of a game
+     * shares the same metrics.
+     * @return The metrics for {@link #gameID()}.
+     */
+    GameMetrics metrics() {
+        return GameMetrics.forGame(this.gameID());
+    }
+
     boolean levelApplicable() {
         return false;
     }
@@ -38,6 +63,43 @@ public abstract class GameWithLeaderBoard {
         System.out.print("Please enter your name for the high scores board: ");
     }
 
+    /**
+     * Starts reporting metrics if the system properties ask for it, as
+     * described for {@link MetricsReporter#fromSystemProperties()}. If the
+     * metrics file can't be opened, or the file name or the period is not
+     * valid, the game goes on without reporting.
+     * @return The reporter, to be closed when the player is done, or null.
+     */
+    static MetricsReporter startMetricsReporter() {
+        try {
+            return MetricsReporter.fromSystemProperties();
+        } catch (IOException ioe) {
+            System.out.println("Metrics won't be reported, couldn't open "
+                    + System.getProperty(MetricsReporter.FILE_PROPERTY) + ": "
+                    + ioe.getMessage());
+            return null;
+        } catch (IllegalArgumentException iae) {
+            System.out.println("Metrics won't be reported, "
+                    + MetricsReporter.FILE_PROPERTY + " or "
+                    + MetricsReporter.PERIOD_PROPERTY + " is not valid: "
+                    + iae.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Gives the <code>Scanner</code> for the console. Every game uses the same
+     * one, round after round, so that input buffered by one round isn't lost
+     * to the next.
+     * @return The scanner for <code>System.in</code>.
+     */
+    static synchronized Scanner console() {
+        if (console == null) {
+            console = new Scanner(System.in);
+        }
+        return console;
+    }
+
     static String getUserName(Scanner input) {
         return input.nextLine();
     }
@@ -0,0 +1,343 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import algebraics.quadratics.ImaginaryQuadraticInteger;
+import static calculators.NumberTheoreticFunctionsCalculator.RING_GAUSSIAN;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * A guessing game for Gaussian integers. The answer is drawn uniformly from
+ * the Gaussian integers with absolute value at most a given radius. After each
+ * wrong guess, the player is told which way the answer lies from the guess, as
+ * a {@link CompassHint}, and can get a suggestion for the next guess.
+ * <p>The game keeps the answers still consistent with the hints so far in a
+ * {@link LatticePointIndex}, so that each hint prunes the feasible set in less
+ * time than it would take to check every candidate. The suggestion is the
+ * feasible point nearest the centroid of the feasible set, which tends to cut
+ * the feasible set down the most whatever the hint turns out to be.</p>
+ * @author Alonso del Arte
+ */
+public class GaussianIntegerGuessingGame extends GameWithLeaderBoard {
+
+    public static final int MAXIMUM_GUESSES = 10;
+    public static final int DEFAULT_RADIUS = 100;
+
+    /**
+     * The largest radius a game may have. The index of candidates has on the
+     * order of <i>r</i><sup>4/3</sup> buckets, so much larger radii would take
+     * a lot of memory.
+     */
+    public static final int MAXIMUM_RADIUS = 1 << 12;
+
+    private final int radius;
+
+    /**
+     * The generator for this game's answers, or null to use the generator of
+     * whichever thread is playing.
+     */
+    private final RandomGenerator random;
+
+    private ImaginaryQuadraticInteger answer;
+
+    private LatticePointIndex candidates;
+
+    private int guessCount;
+
+    private String playerName = "";
+
+    @Override
+    long gameID() {
+        return 2918032475634427149L;
+    }
+
+    /**
+     * Chooses a Gaussian integer uniformly at random from those with absolute
+     * value at most the given radius. This picks a point in the square around
+     * the disk and tries again if it's outside the disk, which takes fewer
+     * than 4/&pi; &asymp; 1.27 tries on average.
+     * @param r The radius. For example, 100.
+     * @param random The generator. For example, a {@link
+     * java.util.SplittableRandom} seeded with 1729.
+     * @return A pseudorandom Gaussian integer. For example, 37 &minus; 12<i>i</i>.
+     * @throws IllegalArgumentException If the radius is negative or more than
+     * {@link #MAXIMUM_RADIUS}.
+     */
+    public static ImaginaryQuadraticInteger chooseGaussianInteger(int r, RandomGenerator random) {
+        if (r < 0 || r > MAXIMUM_RADIUS) {
+            String exceptionMessage = "Radius " + r + " is out of range";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        long radiusSquared = (long) r * r;
+        int a, b;
+        do {
+            a = random.nextInt(-r, r + 1);
+            b = random.nextInt(-r, r + 1);
+        } while ((long) a * a + (long) b * b > radiusSquared);
+        return new ImaginaryQuadraticInteger(a, b, RING_GAUSSIAN);
+    }
+
+    /**
+     * Starts a new round with a new pseudorandom answer.
+     */
+    public void startRound() {
+        RandomGenerator generator = (this.random == null) ? ThreadLocalRandom.current() : this.random;
+        this.startRound(chooseGaussianInteger(this.radius, generator));
+    }
+
+    void startRound(ImaginaryQuadraticInteger chosenAnswer) {
+        this.answer = chosenAnswer;
+        this.candidates = new LatticePointIndex(this.radius);
+        this.guessCount = 0;
+    }
+
+    /**
+     * Checks a guess against the answer, counts it, and rules out the
+     * candidates that don't fit the hint.
+     * @param guess The guess. For example, 3 + 4<i>i</i>.
+     * @return Which way the answer is from the guess, or {@link
+     * CompassHint#CORRECT} if the guess is the answer.
+     * @throws IllegalStateException If no round has been started.
+     * @throws IllegalArgumentException If the guess is not in the Gaussian
+     * integers.
+     */
+    public CompassHint checkGuess(ImaginaryQuadraticInteger guess) {
+        if (this.answer == null) {
+            throw new IllegalStateException("No round has been started");
+        }
+        if (guess.getRing().getRadicand() != -1 || guess.getDenominator() != 1) {
+            String exceptionMessage = guess.toASCIIString() + " is not a Gaussian integer";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        this.guessCount++;
+        int x = guess.getRegPartMult();
+        int y = guess.getSurdPartMult();
+        CompassHint hint = CompassHint.of((long) this.answer.getRegPartMult() - x,
+                (long) this.answer.getSurdPartMult() - y);
+        if (hint == CompassHint.CORRECT) {
+            this.candidates.retainOnly(x, y);
+        } else {
+            for (long[] constraint : hint.constraints(x, y)) {
+                this.candidates.retain(constraint[0], constraint[1], constraint[2]);
+            }
+        }
+        return hint;
+    }
+
+    /**
+     * Suggests the next guess: the candidate nearest the centroid of the
+     * candidates still consistent with the hints so far.
+     * @return A Gaussian integer that hasn't been ruled out. For example, 0 at
+     * the start of a round.
+     * @throws IllegalStateException If no round has been started.
+     */
+    public ImaginaryQuadraticInteger suggestGuess() {
+        if (this.candidates == null) {
+            throw new IllegalStateException("No round has been started");
+        }
+        int[] point = this.candidates.nearCentroid();
+        return new ImaginaryQuadraticInteger(point[0], point[1], RING_GAUSSIAN);
+    }
+
+    /**
+     * Tells how many candidates are still consistent with the hints so far.
+     * @return The number of candidates. For example, 31417 at the start of a
+     * round with radius 100.
+     */
+    public long getCandidateCount() {
+        return this.candidates.count();
+    }
+
+    /**
+     * Tells whether a Gaussian integer could still be the answer.
+     * @param number The number to check. For example, 3 + 4<i>i</i>.
+     * @return True if it's in the disk and fits every hint so far.
+     */
+    public boolean isCandidate(ImaginaryQuadraticInteger number) {
+        if (number.getRing().getRadicand() != -1 || number.getDenominator() != 1) {
+            return false;
+        }
+        return this.candidates.contains(number.getRegPartMult(), number.getSurdPartMult());
+    }
+
+    /**
+     * Gives every candidate still consistent with the hints so far. This
+     * takes time proportional to the number of candidates.
+     * @return A list of Gaussian integers, in no particular order.
+     */
+    public List<ImaginaryQuadraticInteger> getCandidates() {
+        List<ImaginaryQuadraticInteger> numbers = new ArrayList<>();
+        for (int[] point : this.candidates.points()) {
+            numbers.add(new ImaginaryQuadraticInteger(point[0], point[1], RING_GAUSSIAN));
+        }
+        return numbers;
+    }
+
+    /**
+     * Tells how many guesses have been made so far in this round.
+     * @return The number of guesses, including the correct guess if it has
+     * been made.
+     */
+    public int getGuessCount() {
+        return this.guessCount;
+    }
+
+    /**
+     * Tells what the radius of this game is.
+     * @return The radius. For example, 100.
+     */
+    public int getRadius() {
+        return this.radius;
+    }
+
+    /**
+     * Scores a won round. The fewer the guesses, the higher the score, scaled
+     * by the radius, since a round with more points to choose from is harder.
+     * @param guessOrd How many wrong guesses came before the right one. For
+     * example, 3.
+     * @return The score. For example, 700 if the radius is 100.
+     */
+    int scoreGame(int guessOrd) {
+        return (MAXIMUM_GUESSES - guessOrd) * this.radius;
+    }
+
+    private static ImaginaryQuadraticInteger parseGuess(String line) {
+        String[] parts = line.trim().split("[\\s,]+");
+        if (parts.length != 2) {
+            String exceptionMessage = "Expected two integers, not \"" + line + "\"";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        int a = Integer.parseInt(parts[0]);
+        int b = Integer.parseInt(parts[1]);
+        return new ImaginaryQuadraticInteger(a, b, RING_GAUSSIAN);
+    }
+
+    void playRound(Scanner input) {
+        GameMetrics.RoundTimer timer = this.metrics().startRound();
+        System.out.println();
+        this.startRound();
+        boolean notGuessedYet = true;
+        ImaginaryQuadraticInteger guess;
+        while (notGuessedYet && this.guessCount < MAXIMUM_GUESSES) {
+            System.out.print("Please enter the real and imaginary parts of a Gaussian integer with absolute value up to " + this.radius + ": ");
+            try {
+                guess = parseGuess(input.nextLine());
+            } catch (IllegalArgumentException iae) {
+                timer.invalidGuess();
+                System.out.println("Sorry, didn't catch that, " + iae.getMessage());
+                System.out.println("Maybe try again...");
+                continue;
+            }
+            timer.guessReceived();
+            CompassHint hint = this.checkGuess(guess);
+            if (hint == CompassHint.CORRECT) {
+                notGuessedYet = false;
+                int score = this.scoreGame(this.guessCount - 1);
+                System.out.println("That's right! You win!");
+                System.out.println("With a score of " + score + ".");
+                long start = System.nanoTime();
+                boolean saved = false;
+                try {
+                    this.leaderboard().addHighScore(new HighScoreTableRecord(this.playerName, score));
+                    saved = true;
+                } catch (IllegalStateException ise) {
+                    System.out.println("Sorry, couldn't save your score, " + ise.getMessage());
+                }
+                this.metrics().scoreSubmitted(start, saved);
+            } else {
+                System.out.println("Go " + hint + ". Maybe try " + this.suggestGuess() + "?");
+            }
+            timer.guessAnswered();
+        }
+        timer.roundCompleted(!notGuessedYet);
+        if (notGuessedYet) {
+            System.out.println("Sorry, you ran out of guesses.");
+            System.out.println("The number was " + this.answer);
+        }
+    }
+
+    /**
+     * Plays a round on the console. The same <code>Scanner</code> is used
+     * for every round, so that input buffered by one round isn't lost to the
+     * next.
+     */
+    @Override
+    void playRound() {
+        this.playRound(console());
+    }
+
+    /**
+     * Constructor for a game with the default radius.
+     */
+    public GaussianIntegerGuessingGame() {
+        this(DEFAULT_RADIUS);
+    }
+
+    /**
+     * Constructor for a game with a custom radius.
+     * @param r The radius for the answers. For example, 1000.
+     * @throws IllegalArgumentException If the radius is less than 1 or more
+     * than {@link #MAXIMUM_RADIUS}.
+     */
+    public GaussianIntegerGuessingGame(int r) {
+        this(r, null);
+    }
+
+    /**
+     * Constructor for a game with a custom radius and generator, so that the
+     * answers can be reproduced from a seed.
+     * @param r The radius for the answers. For example, 1000.
+     * @param generator The generator for the answers. For example, a {@link
+     * java.util.SplittableRandom} seeded with 1729. If null, the playing
+     * thread's generator is used.
+     * @throws IllegalArgumentException If the radius is less than 1 or more
+     * than {@link #MAXIMUM_RADIUS}.
+     */
+    public GaussianIntegerGuessingGame(int r, RandomGenerator generator) {
+        if (r < 1 || r > MAXIMUM_RADIUS) {
+            String exceptionMessage = "Radius " + r + " is out of range";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        this.radius = r;
+        this.random = generator;
+    }
+
+    public static void main(String[] args) {
+        greetUser();
+        GaussianIntegerGuessingGame game = new GaussianIntegerGuessingGame();
+        MetricsReporter reporter = startMetricsReporter();
+        try (Scanner scan = console()) {
+            game.playerName = getUserName(scan);
+            boolean keepPlaying = true;
+            while (keepPlaying) {
+                game.playRound(scan);
+                keepPlaying = askToPlayAgain(scan);
+            }
+        } finally {
+            if (reporter != null) {
+                reporter.close();
+            }
+        }
+    }
+
+}
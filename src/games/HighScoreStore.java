@@ -0,0 +1,443 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a leaderboard on disk as an append-only log of fixed-size
+ * records. Each record is {@value #RECORD_SIZE} bytes: the timestamp as a
+ * <code>long</code>, the score as an <code>int</code>, the length of the
+ * player's name in bytes as a <code>short</code> and then the name in UTF-8,
+ * truncated to {@value #MAXIMUM_NAME_BYTES} bytes if necessary. The first
+ * record-sized block of the file is a header.
+ * <p>On opening, the log is memory-mapped and scanned straight into a {@link
+ * HighScoreTable}, with no deserialization. A partial record at the end of the
+ * file, left by a crash in the middle of a write, is ignored. Only scores that
+ * make it into the table are logged, and they're written in batches, so a
+ * score is not durable until {@link #flush()} or {@link #close()} is called or
+ * its batch fills up. Once the log has many more records than the table can
+ * hold, it is compacted in the background: the current table is written to a
+ * temporary file that then atomically replaces the log.</p>
+ * @author Alonso del Arte
+ */
+public class HighScoreStore implements Closeable {
+
+    /**
+     * The size of each record in the log, in bytes.
+     */
+    public static final int RECORD_SIZE = 64;
+
+    /**
+     * The most bytes of a player's name that are kept. Longer names are
+     * truncated, but never in the middle of a character.
+     */
+    public static final int MAXIMUM_NAME_BYTES = RECORD_SIZE - 14;
+
+    /**
+     * How many records are buffered before they're written out, if no batch
+     * size is specified.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 16;
+
+    /**
+     * How many records the log may have before it is compacted, if no
+     * threshold is specified.
+     */
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 1024;
+
+    private static final int MAGIC = 0x48535331; // "HSS1" in ASCII
+
+    private static final int MAXIMUM_MAPPING_RECORDS = Integer.MAX_VALUE / RECORD_SIZE;
+
+    private final Path path;
+
+    private final Leaderboard table;
+
+    private final int compactionThreshold;
+
+    private final ByteBuffer pending;
+
+    private final ExecutorService compactor;
+
+    private final Object compactionLock = new Object();
+
+    private FileChannel channel;
+
+    private long recordCount;
+
+    private Future<?> compaction = null;
+
+    private boolean closing = false;
+
+    private boolean closed = false;
+
+    /**
+     * Gives the leaderboard backed by this store. Records should be added
+     * through {@link #addHighScore(HighScoreTableRecord)} rather than directly
+     * to the leaderboard, or they won't be saved.
+     * @return The leaderboard, with the records loaded from the log.
+     */
+    public Leaderboard getTable() {
+        return this.table;
+    }
+
+    /**
+     * Tells how many records are in the log, counting those not yet written
+     * out.
+     * @return The number of records. Just after compaction, this is the same
+     * as the size of the table.
+     */
+    public synchronized long getRecordCount() {
+        return this.recordCount + this.pending.position() / RECORD_SIZE;
+    }
+
+    /**
+     * Adds a record to the table and, if the table keeps it, to the log. The
+     * record is buffered until its batch fills up or the store is flushed.
+     * @param record The record to add. For example, Jim's score of 200.
+     * @return True if the record made it into the table, false if it was
+     * rejected, in which case nothing is logged.
+     * @throws IOException If a full batch can't be written out.
+     * @throws IllegalStateException If this store has been closed.
+     */
+    public synchronized boolean addHighScore(HighScoreTableRecord record) throws IOException {
+        this.ensureOpen();
+        if (!this.table.addHighScore(record)) {
+            return false;
+        }
+        encode(record, this.pending);
+        if (!this.pending.hasRemaining()) {
+            this.writePending();
+            if (this.recordCount >= this.compactionThreshold && !this.closing && (this.compaction == null || this.compaction.isDone())) {
+                this.compaction = this.compactor.submit(() -> {
+                    this.compact();
+                    return null;
+                });
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes out any buffered records without forcing them to the storage
+     * device. They'll survive the process crashing, but maybe not the machine
+     * crashing.
+     * @throws IOException If the records can't be written.
+     * @throws IllegalStateException If this store has been closed.
+     */
+    public synchronized void write() throws IOException {
+        this.ensureOpen();
+        this.writePending();
+    }
+
+    /**
+     * Writes out any buffered records and forces them to the storage device.
+     * @throws IOException If the records can't be written.
+     * @throws IllegalStateException If this store has been closed.
+     */
+    public synchronized void flush() throws IOException {
+        this.ensureOpen();
+        this.writePending();
+        this.channel.force(false);
+    }
+
+    /**
+     * Rewrites the log so that it has only the records currently in the
+     * table. This is usually done in the background when the log gets long,
+     * but may be called directly. The table is copied under the store's lock
+     * and written to a temporary file in the same directory without holding
+     * the lock, so records can still be added meanwhile. Those records are
+     * then copied over from the end of the old log, and the temporary file
+     * replaces the old log in a single atomic move, so a crash during
+     * compaction leaves the old log intact.
+     * @throws IOException If the new log can't be written or moved into
+     * place.
+     * @throws IllegalStateException If this store has been closed.
+     */
+    public void compact() throws IOException {
+        synchronized (this.compactionLock) {
+            List<HighScoreTableRecord> records;
+            long snapshotCount;
+            synchronized (this) {
+                this.ensureOpen();
+                this.writePending();
+                records = this.table.getRecords();
+                snapshotCount = this.recordCount;
+            }
+            Path dir = this.path.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(dir, this.path.getFileName().toString(), ".tmp");
+            try (FileChannel tempChannel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * (records.size() + 1));
+                writeHeader(buffer);
+                for (HighScoreTableRecord record : records) {
+                    encode(record, buffer);
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    tempChannel.write(buffer);
+                }
+                tempChannel.force(true);
+                synchronized (this) {
+                    this.ensureOpen();
+                    this.writePending();
+                    long added = this.recordCount - snapshotCount;
+                    if (added > 0) {
+                        try (FileChannel oldLog = FileChannel.open(this.path, StandardOpenOption.READ)) {
+                            long tailBytes = added * RECORD_SIZE;
+                            long from = oldLog.size() - tailBytes;
+                            long copied = 0;
+                            while (copied < tailBytes) {
+                                copied += oldLog.transferTo(from + copied, tailBytes - copied, tempChannel);
+                            }
+                        }
+                        tempChannel.force(true);
+                    }
+                    this.channel.close();
+                    try {
+                        Files.move(temp, this.path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                        this.recordCount = records.size() + added;
+                    } finally {
+                        this.channel = FileChannel.open(this.path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                    }
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Waits for any background compaction to finish, writes out buffered
+     * records and closes the log. If the log has reached the compaction
+     * threshold since the last compaction, it is compacted first. Calling
+     * this on a store that's already closed or closing has no effect.
+     * @throws IOException If buffered records can't be written out.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (this.closed || this.closing) {
+                return;
+            }
+            // No more background compactions get submitted after this
+            this.closing = true;
+        }
+        this.compactor.shutdown();
+        try {
+            this.compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (this.getRecordCount() >= this.compactionThreshold) {
+                this.compact();
+            }
+        } finally {
+            synchronized (this) {
+                try {
+                    this.writePending();
+                    this.channel.force(false);
+                } finally {
+                    this.closed = true;
+                    this.channel.close();
+                }
+            }
+        }
+    }
+
+    private void ensureOpen() {
+        if (this.closed) {
+            throw new IllegalStateException("High score store for " + this.path + " has been closed");
+        }
+    }
+
+    private void writePending() throws IOException {
+        this.pending.flip();
+        this.recordCount += this.pending.remaining() / RECORD_SIZE;
+        while (this.pending.hasRemaining()) {
+            this.channel.write(this.pending);
+        }
+        this.pending.clear();
+    }
+
+    private static void writeHeader(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.putInt(MAGIC);
+        buffer.position(start + RECORD_SIZE);
+    }
+
+    private static void encode(HighScoreTableRecord record, ByteBuffer buffer) {
+        int start = buffer.position();
+        byte[] nameBytes = record.getPlayerName().getBytes(StandardCharsets.UTF_8);
+        int nameLength = Math.min(nameBytes.length, MAXIMUM_NAME_BYTES);
+        if (nameLength < nameBytes.length) {
+            // Back up to the start of a character
+            while (nameLength > 0 && (nameBytes[nameLength] & 0xC0) == 0x80) {
+                nameLength--;
+            }
+        }
+        buffer.putLong(record.getTimestamp());
+        buffer.putInt(record.getScore());
+        buffer.putShort((short) nameLength);
+        buffer.put(nameBytes, 0, nameLength);
+        buffer.position(start + RECORD_SIZE);
+    }
+
+    private static HighScoreTableRecord decode(ByteBuffer buffer, int start, byte[] nameBytes) throws IOException {
+        long timestamp = buffer.getLong(start);
+        int score = buffer.getInt(start + 8);
+        int nameLength = buffer.getShort(start + 12);
+        if (nameLength < 0 || nameLength > MAXIMUM_NAME_BYTES) {
+            String exceptionMessage = "Corrupted record at offset " + start + ", name length " + nameLength;
+            throw new IOException(exceptionMessage);
+        }
+        for (int i = 0; i < nameLength; i++) {
+            nameBytes[i] = buffer.get(start + 14 + i);
+        }
+        return new HighScoreTableRecord(new String(nameBytes, 0, nameLength, StandardCharsets.UTF_8), score, timestamp);
+    }
+
+    /**
+     * Memory-maps the log and loads its records into the table, a window at a
+     * time. Returns the number of complete records.
+     */
+    private long load() throws IOException {
+        long size = this.channel.size();
+        if (size == 0) {
+            ByteBuffer header = ByteBuffer.allocate(RECORD_SIZE);
+            writeHeader(header);
+            header.flip();
+            while (header.hasRemaining()) {
+                this.channel.write(header, header.position());
+            }
+            this.channel.force(true);
+            return 0;
+        }
+        if (size < RECORD_SIZE || this.channel.map(FileChannel.MapMode.READ_ONLY, 0, RECORD_SIZE).getInt(0) != MAGIC) {
+            String exceptionMessage = this.path + " is not a high score log";
+            throw new IOException(exceptionMessage);
+        }
+        long count = size / RECORD_SIZE - 1;
+        byte[] nameBytes = new byte[MAXIMUM_NAME_BYTES];
+        long done = 0;
+        while (done < count) {
+            int windowRecords = (int) Math.min(count - done, MAXIMUM_MAPPING_RECORDS);
+            MappedByteBuffer window = this.channel.map(FileChannel.MapMode.READ_ONLY, (done + 1) * RECORD_SIZE, (long) windowRecords * RECORD_SIZE);
+            for (int i = 0; i < windowRecords; i++) {
+                this.table.addHighScore(decode(window, i * RECORD_SIZE, nameBytes));
+            }
+            done += windowRecords;
+        }
+        if (size % RECORD_SIZE != 0) {
+            // Drop the partial record so that appends stay aligned
+            this.channel.truncate((count + 1) * RECORD_SIZE);
+        }
+        return count;
+    }
+
+    /**
+     * Constructor with the default table capacity, batch size and compaction
+     * threshold.
+     * @param file The log file. It is created if it doesn't exist yet. For
+     * example, "NumberGuessingGame.scores".
+     * @throws IOException If the file can't be opened or created, or if it
+     * exists but is not a high score log.
+     */
+    public HighScoreStore(Path file) throws IOException {
+        this(file, HighScoreTable.DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Constructor.
+     * @param file The log file. It is created if it doesn't exist yet.
+     * @param capacity How many records the table holds. For example, 10.
+     * @param batch How many records to buffer before writing them out. For
+     * example, 16.
+     * @param threshold How many records the log may have before it is
+     * compacted in the background. For example, 1024.
+     * @throws IOException If the file can't be opened or created, or if it
+     * exists but is not a high score log.
+     * @throws IllegalArgumentException If the capacity or batch size is less
+     * than 1, or if the threshold is less than the capacity.
+     */
+    public HighScoreStore(Path file, int capacity, int batch, int threshold) throws IOException {
+        this(file, new HighScoreTable(capacity), batch, threshold);
+    }
+
+    /**
+     * Constructor for a store backing a given leaderboard, such as a
+     * partition of a {@link LeaderboardRegistry}. The records in the log are
+     * added to the leaderboard, which may already have records of its own.
+     * @param file The log file. It is created if it doesn't exist yet.
+     * @param leaderboard The leaderboard to load the log into and to add
+     * records to.
+     * @param batch How many records to buffer before writing them out. For
+     * example, 16.
+     * @param threshold How many records the log may have before it is
+     * compacted in the background. For example, 1024.
+     * @throws IOException If the file can't be opened or created, or if it
+     * exists but is not a high score log.
+     * @throws IllegalArgumentException If the batch size is less than 1, or
+     * if the threshold is less than the capacity of the leaderboard.
+     */
+    public HighScoreStore(Path file, Leaderboard leaderboard, int batch, int threshold) throws IOException {
+        int capacity = leaderboard.getCapacity();
+        if (batch < 1) {
+            String exceptionMessage = "Batch size " + batch + " is not valid, should be at least 1";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        if (threshold < capacity) {
+            String exceptionMessage = "Compaction threshold " + threshold + " should be at least the capacity " + capacity;
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        this.path = file;
+        this.table = leaderboard;
+        this.compactionThreshold = threshold;
+        this.pending = ByteBuffer.allocateDirect(batch * RECORD_SIZE);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.recordCount = this.load();
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+        this.channel.close();
+        this.channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "HighScoreStore compactor for " + file.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+}
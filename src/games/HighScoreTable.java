@@ -20,23 +20,133 @@ package games;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
 
 /**
- *
+ * A high score table that keeps only the best scores, as ordered by {@link
+ * ScoreComparator}. The records are held in a heap with the worst record on
+ * top, so adding a record takes logarithmic time in the capacity, and a score
+ * that can't make the table is rejected after a single comparison.
  * @author Alonso del Arte
  */
-public class HighScoreTable implements Serializable {
+public class HighScoreTable implements Leaderboard, Serializable {
 
     private static final long serialVersionUID = 4549602407897643827L;
 
-    private final ArrayList<HighScoreTableRecord> records = new ArrayList<>();
+    /**
+     * How many records a table holds if no capacity is specified.
+     */
+    public static final int DEFAULT_CAPACITY = 10;
+
+    private static final ScoreComparator COMPARATOR = new ScoreComparator();
+
+    private final int capacity;
+
+    /**
+     * The records, with the worst one at the head of the queue.
+     */
+    private final PriorityQueue<HighScoreTableRecord> records;
+
+    /**
+     * The sorted records as of the last change, or null if there have been
+     * changes since the last call to {@link #getRecords()}.
+     */
+    private transient List<HighScoreTableRecord> snapshot = null;
+
+    /**
+     * Tells how many records this table can hold.
+     * @return The capacity given to the constructor, or {@link
+     * #DEFAULT_CAPACITY}.
+     */
+    @Override
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Tells how many records this table holds now.
+     * @return A number from 0 to the capacity.
+     */
+    @Override
+    public synchronized int size() {
+        return this.records.size();
+    }
+
+    /**
+     * Tells whether a score made now would make it into this table. This
+     * makes it possible to skip creating a record for a score that won't be
+     * kept.
+     * @param score The score. For example, 200.
+     * @return True if the table isn't full yet or if the score is strictly
+     * better than the worst score in the table, false otherwise. A score that
+     * only ties the worst score doesn't qualify, since it was made later.
+     */
+    @Override
+    public synchronized boolean qualifies(int score) {
+        return this.records.size() < this.capacity || score > this.records.peek().getScore();
+    }
+
+    /**
+     * Adds a record to this table, if it's good enough. If the table is full,
+     * the worst record is dropped to make room.
+     * @param score The record to add. For example, Jim's score of 200.
+     * @return True if the record was added, false if it was rejected because
+     * the table is full and the record doesn't rank higher than any record
+     * already in it.
+     */
+    @Override
+    public synchronized boolean addHighScore(HighScoreTableRecord score) {
+        if (this.records.size() < this.capacity) {
+            this.records.add(score);
+        } else if (COMPARATOR.compare(score, this.records.peek()) < 0) {
+            this.records.poll();
+            this.records.add(score);
+        } else {
+            return false;
+        }
+        this.snapshot = null;
+        return true;
+    }
+
+    /**
+     * Gives the records in this table, best first. The list is built at most
+     * once per change to the table and shared between callers until the next
+     * change.
+     * @return An unmodifiable list of records, sorted by {@link
+     * ScoreComparator}.
+     */
+    @Override
+    public synchronized List<HighScoreTableRecord> getRecords() {
+        if (this.snapshot == null) {
+            ArrayList<HighScoreTableRecord> sorted = new ArrayList<>(this.records);
+            sorted.sort(COMPARATOR);
+            this.snapshot = Collections.unmodifiableList(sorted);
+        }
+        return this.snapshot;
+    }
 
-    public void addHighScore(HighScoreTableRecord score) {
-        this.records.add(score);
+    /**
+     * Constructor with the default capacity of {@value #DEFAULT_CAPACITY}
+     * records.
+     */
+    public HighScoreTable() {
+        this(DEFAULT_CAPACITY);
     }
 
-    public ArrayList<HighScoreTableRecord> getRecords() {
-        return new ArrayList<>(this.records);
+    /**
+     * Constructor.
+     * @param maxRecords How many records the table can hold. For example, 5.
+     * @throws IllegalArgumentException If <code>maxRecords</code> is less
+     * than 1.
+     */
+    public HighScoreTable(int maxRecords) {
+        if (maxRecords < 1) {
+            String exceptionMessage = "Capacity " + maxRecords + " is not valid, should be at least 1";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        this.capacity = maxRecords;
+        this.records = new PriorityQueue<>(maxRecords, COMPARATOR.reversed());
     }
 
 }
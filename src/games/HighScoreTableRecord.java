@@ -20,11 +20,100 @@ package games;
 import java.io.Serializable;
 
 /**
- *
+ * A single entry for a high score table: who scored, how much and when.
  * @author Alonso del Arte
  */
 public class HighScoreTableRecord implements Serializable {
 
     private static final long serialVersionUID = 4549602614056074035L;
 
+    private final String playerName;
+    private final int score;
+    private final long timestamp;
+
+    /**
+     * Gives the name of the player who made this score.
+     * @return The player's name. For example, "Jim".
+     */
+    public String getPlayerName() {
+        return this.playerName;
+    }
+
+    /**
+     * Gives the score.
+     * @return The score. For example, 200.
+     */
+    public int getScore() {
+        return this.score;
+    }
+
+    /**
+     * Tells when the score was made.
+     * @return The time in milliseconds since the epoch. For example,
+     * 1593561600000 for July 1, 2020 at midnight UTC.
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return this.playerName + ": " + this.score;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = this.playerName.hashCode();
+        hash = 31 * hash + this.score;
+        hash = 31 * hash + Long.hashCode(this.timestamp);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final HighScoreTableRecord other = (HighScoreTableRecord) obj;
+        if (this.score != other.score) {
+            return false;
+        }
+        if (this.timestamp != other.timestamp) {
+            return false;
+        }
+        return this.playerName.equals(other.playerName);
+    }
+
+    /**
+     * Constructor for a score made just now.
+     * @param name The player's name. For example, "Jim".
+     * @param points The score. For example, 200.
+     */
+    public HighScoreTableRecord(String name, int points) {
+        this(name, points, System.currentTimeMillis());
+    }
+
+    /**
+     * Constructor for a score made at a given time.
+     * @param name The player's name. For example, "Jim".
+     * @param points The score. For example, 200.
+     * @param time When the score was made, in milliseconds since the epoch.
+     * For example, 1593561600000.
+     * @throws NullPointerException If <code>name</code> is null.
+     */
+    public HighScoreTableRecord(String name, int points, long time) {
+        if (name == null) {
+            throw new NullPointerException("Player name must not be null");
+        }
+        this.playerName = name;
+        this.score = points;
+        this.timestamp = time;
+    }
+
 }
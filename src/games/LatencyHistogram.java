@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies in nanoseconds with log-linear buckets, in the
+ * style of HdrHistogram. Each power of 2 is split into {@link
+ * #SUB_BUCKET_COUNT} buckets of equal width, so a recorded value is known to
+ * within about 6%, from 1 nanosecond up to centuries, in a fixed 960 counts.
+ * Recording is a few shifts and an atomic increment, and never allocates, so
+ * it's cheap enough to do on every guess. Any number of threads may record at
+ * the same time.
+ * @author Alonso del Arte
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * How many buckets each power of 2 is split into.
+     */
+    public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final LongAdder totalCount = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+    static int bucketIndex(long nanos) {
+        if (nanos < SUB_BUCKET_COUNT) {
+            return (int) nanos;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKET_COUNT + (int) ((nanos >>> shift) - SUB_BUCKET_COUNT);
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lower = (long) (index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /**
+     * Records a latency. Negative latencies, which can only come from a
+     * mistake in the caller, are recorded as 0.
+     * @param nanos The latency in nanoseconds. For example, 35000.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        this.counts.incrementAndGet(bucketIndex(value));
+        this.totalCount.increment();
+        this.totalNanos.add(value);
+        this.maxNanos.accumulate(value);
+    }
+
+    /**
+     * Tells how many latencies have been recorded.
+     * @return The number of latencies. For example, 1200.
+     */
+    public long getCount() {
+        return this.totalCount.sum();
+    }
+
+    /**
+     * Gives the exact mean of the recorded latencies.
+     * @return The mean in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public double getMean() {
+        long count = this.totalCount.sum();
+        return (count == 0) ? 0.0 : (double) this.totalNanos.sum() / count;
+    }
+
+    /**
+     * Gives the exact greatest recorded latency.
+     * @return The maximum in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public long getMax() {
+        return this.maxNanos.get();
+    }
+
+    /**
+     * Gives a percentile of the recorded latencies, to within the width of a
+     * bucket. If latencies are being recorded at the same time, they may or
+     * may not be taken into account.
+     * @param percentile The percentile, from 0.0 to 100.0. For example, 99.0.
+     * @return The upper bound of the bucket the percentile falls in, but no
+     * more than the maximum, in nanoseconds. Or 0 if nothing has been
+     * recorded.
+     * @throws IllegalArgumentException If the percentile is less than 0 or
+     * more than 100.
+     */
+    public long getPercentile(double percentile) {
+        if (!(percentile >= 0.0 && percentile <= 100.0)) {
+            String exceptionMessage = "Percentile " + percentile + " is not between 0 and 100";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = this.counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), this.getMax());
+            }
+        }
+        return this.getMax();
+    }
+
+    /**
+     * Sets the histogram back to empty. Latencies recorded while resetting
+     * may or may not survive the reset.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            this.counts.set(i, 0L);
+        }
+        this.totalCount.reset();
+        this.totalNanos.reset();
+        this.maxNanos.reset();
+    }
+
+    /**
+     * Formats a latency with a unit suited to its size.
+     * @param nanos A latency in nanoseconds. For example, 1500000.
+     * @return The latency as text. For example, "1.50 ms".
+     */
+    static String formatNanos(double nanos) {
+        if (nanos < 1000.0) {
+            return String.format("%.0f ns", nanos);
+        }
+        if (nanos < 1000000.0) {
+            return String.format("%.2f \u00B5s", nanos / 1000.0);
+        }
+        if (nanos < 1000000000.0) {
+            return String.format("%.2f ms", nanos / 1000000.0);
+        }
+        return String.format("%.2f s", nanos / 1000000000.0);
+    }
+
+    /**
+     * Summarizes the histogram as the count, mean, median, 99th percentile
+     * and maximum.
+     * @return A summary. For example, "n=1200 mean=41.20 &micro;s p50=35.00
+     * &micro;s p99=180.00 &micro;s max=2.31 ms".
+     */
+    @Override
+    public String toString() {
+        return "n=" + this.getCount() + " mean=" + formatNanos(this.getMean())
+                + " p50=" + formatNanos(this.getPercentile(50.0))
+                + " p99=" + formatNanos(this.getPercentile(99.0))
+                + " max=" + formatNanos(this.getMax());
+    }
+
+}
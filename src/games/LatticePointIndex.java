@@ -0,0 +1,326 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps track of which lattice points in a disk centered at the origin are
+ * still feasible, as half-plane constraints rule them out. The square around
+ * the disk is cut into a grid of buckets <i>s</i> points on a side, with
+ * <i>s</i> about the cube root of the radius <i>r</i>. A bucket that's
+ * entirely feasible is kept as just its bounds and count, and a bucket that a
+ * constraint line or the circle cuts through gets a bitmap of its points.
+ * <p>To apply a constraint, each live bucket is checked by its corners first.
+ * A bucket with every corner on the feasible side is kept whole, and a bucket
+ * with every corner on the other side is dropped whole, without looking at its
+ * points. Only the O(<i>r</i>/<i>s</i>) buckets the line crosses have their
+ * points checked one by one, so the cost is O((<i>r</i>/<i>s</i>)<sup>2</sup>
+ * + <i>rs</i>) = O(<i>r</i><sup>4/3</sup>), less than the
+ * O(<i>r</i><sup>2</sup>) of scanning every candidate, and it goes down as
+ * buckets are dropped.</p>
+ * @author Alonso del Arte
+ */
+class LatticePointIndex {
+
+    private static final class Bucket {
+
+        final int minX, minY, maxX, maxY;
+
+        /**
+         * The feasible points, bit (<i>y</i> &minus; minY) &times; width +
+         * (<i>x</i> &minus; minX), or null if every point is feasible.
+         */
+        long[] alive = null;
+
+        int count;
+
+        int width() {
+            return this.maxX - this.minX + 1;
+        }
+
+        boolean isAlive(int x, int y) {
+            if (this.alive == null) {
+                return true;
+            }
+            int bit = (y - this.minY) * this.width() + (x - this.minX);
+            return (this.alive[bit >> 6] & (1L << bit)) != 0;
+        }
+
+        void materialize() {
+            if (this.alive == null) {
+                int bits = this.count;
+                this.alive = new long[(bits + 63) >> 6];
+                for (int i = 0; i < bits; i++) {
+                    this.alive[i >> 6] |= 1L << i;
+                }
+            }
+        }
+
+        void kill(int x, int y) {
+            int bit = (y - this.minY) * this.width() + (x - this.minX);
+            this.alive[bit >> 6] &= ~(1L << bit);
+            this.count--;
+        }
+
+        Bucket(int minX, int minY, int maxX, int maxY) {
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.count = (maxX - minX + 1) * (maxY - minY + 1);
+        }
+
+    }
+
+    private final int radius;
+
+    private final int cellSize;
+
+    private final ArrayList<Bucket> live = new ArrayList<>();
+
+    private long count = 0;
+
+    /**
+     * Tells how many points are still feasible.
+     * @return The number of points. At first, this is the number of lattice
+     * points in the disk, for example, 317 for radius 10.
+     */
+    long count() {
+        return this.count;
+    }
+
+    /**
+     * Tells how many buckets still have feasible points.
+     * @return The number of buckets. For example, 44.
+     */
+    int liveBucketCount() {
+        return this.live.size();
+    }
+
+    int getRadius() {
+        return this.radius;
+    }
+
+    int getCellSize() {
+        return this.cellSize;
+    }
+
+    /**
+     * Tells whether a point is still feasible. This takes time linear in the
+     * number of live buckets.
+     * @param x The real part. For example, 3.
+     * @param y The imaginary part. For example, &minus;4.
+     * @return True if the point is in the disk and hasn't been ruled out.
+     */
+    boolean contains(int x, int y) {
+        for (Bucket bucket : this.live) {
+            if (x >= bucket.minX && x <= bucket.maxX && y >= bucket.minY
+                    && y <= bucket.maxY) {
+                return bucket.isAlive(x, y);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rules out every point not satisfying <i>ax</i> + <i>by</i> &ge;
+     * <i>t</i>.
+     * @param a The coefficient of the real part. For example, 1.
+     * @param b The coefficient of the imaginary part. For example, &minus;1.
+     * @param t The threshold. For example, 4.
+     */
+    void retain(long a, long b, long t) {
+        int i = 0;
+        while (i < this.live.size()) {
+            Bucket bucket = this.live.get(i);
+            long lowX = (a >= 0) ? bucket.minX : bucket.maxX;
+            long highX = (a >= 0) ? bucket.maxX : bucket.minX;
+            long lowY = (b >= 0) ? bucket.minY : bucket.maxY;
+            long highY = (b >= 0) ? bucket.maxY : bucket.minY;
+            if (a * lowX + b * lowY >= t) {
+                i++;
+                continue;
+            }
+            if (a * highX + b * highY >= t) {
+                bucket.materialize();
+                int before = bucket.count;
+                for (int y = bucket.minY; y <= bucket.maxY; y++) {
+                    for (int x = bucket.minX; x <= bucket.maxX; x++) {
+                        if (a * x + b * y < t && bucket.isAlive(x, y)) {
+                            bucket.kill(x, y);
+                        }
+                    }
+                }
+                this.count -= before - bucket.count;
+            } else {
+                this.count -= bucket.count;
+                bucket.count = 0;
+            }
+            if (bucket.count == 0) {
+                int last = this.live.size() - 1;
+                this.live.set(i, this.live.get(last));
+                this.live.remove(last);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Rules out every point except one.
+     * @param x The real part of the point to keep. For example, 3.
+     * @param y The imaginary part of the point to keep. For example,
+     * &minus;4.
+     */
+    void retainOnly(int x, int y) {
+        this.retain(1, 0, x);
+        this.retain(-1, 0, -x);
+        this.retain(0, 1, y);
+        this.retain(0, -1, -y);
+    }
+
+    /**
+     * Gives the feasible point nearest the centroid of the feasible points,
+     * which makes a good guess. Ties are broken by whichever bucket and point
+     * come up first. This takes time linear in the number of live buckets
+     * plus the number of points in the bucket searched.
+     * @return An array {<i>x</i>, <i>y</i>}, or null if no points are
+     * feasible.
+     */
+    int[] nearCentroid() {
+        if (this.count == 0) {
+            return null;
+        }
+        double sumX = 0.0;
+        double sumY = 0.0;
+        for (Bucket bucket : this.live) {
+            if (bucket.alive == null) {
+                sumX += (bucket.minX + bucket.maxX) / 2.0 * bucket.count;
+                sumY += (bucket.minY + bucket.maxY) / 2.0 * bucket.count;
+            } else {
+                for (int y = bucket.minY; y <= bucket.maxY; y++) {
+                    for (int x = bucket.minX; x <= bucket.maxX; x++) {
+                        if (bucket.isAlive(x, y)) {
+                            sumX += x;
+                            sumY += y;
+                        }
+                    }
+                }
+            }
+        }
+        double cx = sumX / this.count;
+        double cy = sumY / this.count;
+        int[] best = null;
+        double bestDist = Double.POSITIVE_INFINITY;
+        for (Bucket bucket : this.live) {
+            double nearX = Math.max(bucket.minX, Math.min(cx, bucket.maxX));
+            double nearY = Math.max(bucket.minY, Math.min(cy, bucket.maxY));
+            double boundDist = (nearX - cx) * (nearX - cx) + (nearY - cy) * (nearY - cy);
+            if (boundDist >= bestDist) {
+                continue;
+            }
+            if (bucket.alive == null) {
+                int x = (int) Math.round(nearX);
+                int y = (int) Math.round(nearY);
+                double dist = (x - cx) * (x - cx) + (y - cy) * (y - cy);
+                if (dist < bestDist) {
+                    bestDist = dist;
+                    best = new int[] {x, y};
+                }
+                continue;
+            }
+            for (int y = bucket.minY; y <= bucket.maxY; y++) {
+                for (int x = bucket.minX; x <= bucket.maxX; x++) {
+                    double dist = (x - cx) * (x - cx) + (y - cy) * (y - cy);
+                    if (dist < bestDist && bucket.isAlive(x, y)) {
+                        bestDist = dist;
+                        best = new int[] {x, y};
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gives every feasible point. This takes time proportional to the number
+     * of feasible points, so it's meant for small sets and for tests.
+     * @return A list of arrays {<i>x</i>, <i>y</i>}, in no particular order.
+     */
+    List<int[]> points() {
+        List<int[]> points = new ArrayList<>((int) Math.min(this.count, 1 << 20));
+        for (Bucket bucket : this.live) {
+            for (int y = bucket.minY; y <= bucket.maxY; y++) {
+                for (int x = bucket.minX; x <= bucket.maxX; x++) {
+                    if (bucket.isAlive(x, y)) {
+                        points.add(new int[] {x, y});
+                    }
+                }
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Constructor. Only the buckets the circle cuts through have their points
+     * checked against the disk.
+     * @param r The radius of the disk. For example, 100.
+     * @throws IllegalArgumentException If the radius is negative or more than
+     * {@link GaussianIntegerGuessingGame#MAXIMUM_RADIUS}.
+     */
+    LatticePointIndex(int r) {
+        if (r < 0 || r > GaussianIntegerGuessingGame.MAXIMUM_RADIUS) {
+            String exceptionMessage = "Radius " + r + " is out of range";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        this.radius = r;
+        this.cellSize = Math.max(1, (int) Math.round(Math.cbrt(r)));
+        long radiusSquared = (long) r * r;
+        for (int minY = -r; minY <= r; minY += this.cellSize) {
+            int maxY = Math.min(minY + this.cellSize - 1, r);
+            long nearY = (minY > 0) ? minY : ((maxY < 0) ? maxY : 0);
+            long farY = Math.max(Math.abs((long) minY), Math.abs((long) maxY));
+            for (int minX = -r; minX <= r; minX += this.cellSize) {
+                int maxX = Math.min(minX + this.cellSize - 1, r);
+                long nearX = (minX > 0) ? minX : ((maxX < 0) ? maxX : 0);
+                if (nearX * nearX + nearY * nearY > radiusSquared) {
+                    continue;
+                }
+                Bucket bucket = new Bucket(minX, minY, maxX, maxY);
+                long farX = Math.max(Math.abs((long) minX), Math.abs((long) maxX));
+                if (farX * farX + farY * farY > radiusSquared) {
+                    bucket.materialize();
+                    for (int y = minY; y <= maxY; y++) {
+                        for (int x = minX; x <= maxX; x++) {
+                            if ((long) x * x + (long) y * y > radiusSquared) {
+                                bucket.kill(x, y);
+                            }
+                        }
+                    }
+                }
+                if (bucket.count > 0) {
+                    this.live.add(bucket);
+                    this.count += bucket.count;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.util.List;
+
+/**
+ * A table of the best scores for a game, ordered by {@link ScoreComparator}
+ * and holding at most a fixed number of records.
+ * @author Alonso del Arte
+ */
+public interface Leaderboard {
+
+    /**
+     * Tells how many records this leaderboard can hold.
+     * @return The capacity. For example, 10.
+     */
+    int getCapacity();
+
+    /**
+     * Tells how many records this leaderboard holds now.
+     * @return A number from 0 to the capacity.
+     */
+    int size();
+
+    /**
+     * Tells whether a score made now would make it onto this leaderboard.
+     * This makes it possible to skip creating a record for a score that won't
+     * be kept.
+     * @param score The score. For example, 200.
+     * @return True if the leaderboard isn't full yet or if the score is
+     * strictly better than the worst score on it, false otherwise.
+     */
+    boolean qualifies(int score);
+
+    /**
+     * Adds a record to this leaderboard, if it's good enough. If the
+     * leaderboard is full, the worst record is dropped to make room.
+     * @param score The record to add. For example, Jim's score of 200.
+     * @return True if the record was added, false if it was rejected.
+     */
+    boolean addHighScore(HighScoreTableRecord score);
+
+    /**
+     * Gives the records on this leaderboard, best first.
+     * @return An unmodifiable list of at most as many records as the
+     * capacity, sorted by {@link ScoreComparator}.
+     */
+    List<HighScoreTableRecord> getRecords();
+
+}
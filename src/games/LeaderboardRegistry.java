@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps one leaderboard per game, keyed by {@link GameWithLeaderBoard#gameID()
+ * game ID}. Each partition is a {@link ConcurrentHighScoreTable} with its own
+ * capacity, so a busy game neither locks out nor crowds out the others. The
+ * capacities are drawn from a budget shared by the whole registry, which
+ * bounds how many records all the partitions together can hold.
+ * <p>A snapshot reads each partition without locking it, so it doesn't stall
+ * writers on any partition. The snapshot of each partition is consistent in
+ * itself, but different partitions may be read at slightly different
+ * times.</p>
+ * @author Alonso del Arte
+ */
+public class LeaderboardRegistry {
+
+    /**
+     * How many records a partition holds if it's created without a capacity
+     * being given.
+     */
+    public static final int DEFAULT_PARTITION_CAPACITY
+            = HighScoreTable.DEFAULT_CAPACITY;
+
+    /**
+     * How many records the partitions of a registry may hold altogether, if
+     * no other budget is given.
+     */
+    public static final int DEFAULT_RECORD_BUDGET = 1 << 16;
+
+    private static final LeaderboardRegistry DEFAULT_REGISTRY
+            = new LeaderboardRegistry();
+
+    private final ConcurrentHashMap<Long, ConcurrentHighScoreTable> partitions
+            = new ConcurrentHashMap<>();
+
+    private final int recordBudget;
+
+    private final AtomicInteger reserved = new AtomicInteger();
+
+    /**
+     * Gives the registry shared by the games in this process.
+     * @return The default registry, with the default record budget.
+     */
+    public static LeaderboardRegistry getDefault() {
+        return DEFAULT_REGISTRY;
+    }
+
+    /**
+     * Tells how many records the partitions may hold altogether.
+     * @return The record budget. For example, 65536.
+     */
+    public int getRecordBudget() {
+        return this.recordBudget;
+    }
+
+    /**
+     * Tells how much of the record budget has been given out to partitions.
+     * @return The sum of the capacities of the partitions. For example, 30
+     * if there are three partitions with the default capacity.
+     */
+    public int getReservedCapacity() {
+        return this.reserved.get();
+    }
+
+    private void reserve(long gameID, int capacity) {
+        int before;
+        do {
+            before = this.reserved.get();
+            if (capacity > this.recordBudget - before) {
+                String exceptionMessage = "Capacity " + capacity
+                        + " for game " + gameID + " exceeds remaining budget of "
+                        + (this.recordBudget - before) + " records";
+                throw new IllegalStateException(exceptionMessage);
+            }
+        } while (!this.reserved.compareAndSet(before, before + capacity));
+    }
+
+    private ConcurrentHighScoreTable create(long gameID, int capacity) {
+        this.reserve(gameID, capacity);
+        return new ConcurrentHighScoreTable(capacity);
+    }
+
+    /**
+     * Creates the partition for a game with a given capacity.
+     * @param gameID The game ID. For example, 4549604001330510643.
+     * @param capacity How many records the game's leaderboard holds. For
+     * example, 25.
+     * @return The new leaderboard.
+     * @throws IllegalArgumentException If the capacity is less than 1.
+     * @throws IllegalStateException If the game already has a partition, or
+     * if the capacity would take the registry over its record budget.
+     */
+    public Leaderboard register(long gameID, int capacity) {
+        if (capacity < 1) {
+            String exceptionMessage = "Capacity " + capacity
+                    + " should be at least 1";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        boolean[] created = {false};
+        ConcurrentHighScoreTable partition
+                = this.partitions.computeIfAbsent(gameID, id -> {
+                    created[0] = true;
+                    return this.create(id, capacity);
+                });
+        if (!created[0]) {
+            String exceptionMessage = "Game " + gameID
+                    + " already has a leaderboard";
+            throw new IllegalStateException(exceptionMessage);
+        }
+        return partition;
+    }
+
+    /**
+     * Gives the leaderboard for a game, creating it with the default capacity
+     * if the game doesn't have one yet. After the first call for a given game,
+     * this is just a lookup.
+     * @param gameID The game ID. For example, 4549604001330510643.
+     * @return The game's leaderboard.
+     * @throws IllegalStateException If the partition needs to be created but
+     * the default capacity would take the registry over its record budget.
+     */
+    public Leaderboard leaderboard(long gameID) {
+        ConcurrentHighScoreTable partition = this.partitions.get(gameID);
+        if (partition == null) {
+            partition = this.partitions.computeIfAbsent(gameID,
+                    id -> this.create(id, DEFAULT_PARTITION_CAPACITY));
+        }
+        return partition;
+    }
+
+    /**
+     * Removes a game's partition and returns its capacity to the budget.
+     * @param gameID The game ID. For example, 4549604001330510643.
+     * @return True if the game had a partition, false if it didn't.
+     */
+    public boolean remove(long gameID) {
+        ConcurrentHighScoreTable partition = this.partitions.remove(gameID);
+        if (partition == null) {
+            return false;
+        }
+        this.reserved.addAndGet(-partition.getCapacity());
+        return true;
+    }
+
+    /**
+     * Tells how many games have partitions.
+     * @return The number of partitions. For example, 2.
+     */
+    public int partitionCount() {
+        return this.partitions.size();
+    }
+
+    /**
+     * Gives the records of every game. No partition is locked while this
+     * runs, so games can keep adding records.
+     * @return An unmodifiable map from game ID to that game's records, best
+     * first.
+     */
+    public Map<Long, List<HighScoreTableRecord>> snapshot() {
+        Map<Long, List<HighScoreTableRecord>> records
+                = new HashMap<>();
+        this.partitions.forEach((id, partition)
+                -> records.put(id, partition.getRecords()));
+        return Collections.unmodifiableMap(records);
+    }
+
+    /**
+     * Constructor with the default record budget.
+     */
+    public LeaderboardRegistry() {
+        this(DEFAULT_RECORD_BUDGET);
+    }
+
+    /**
+     * Constructor with a given record budget.
+     * @param budget How many records all the partitions together may hold.
+     * For example, 1000.
+     * @throws IllegalArgumentException If the budget is less than 1.
+     */
+    public LeaderboardRegistry(int budget) {
+        if (budget < 1) {
+            String exceptionMessage = "Record budget " + budget
+                    + " should be at least 1";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        this.recordBudget = budget;
+    }
+
+}
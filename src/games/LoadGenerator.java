@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays many rounds against a {@link GameServer} over many connections at
+ * once and measures throughput and latency. Each connection has its own
+ * thread, which plays by bisection and times every request from sending the
+ * line to reading the reply.
+ * @author Alonso del Arte
+ */
+public class LoadGenerator {
+
+    /**
+     * The results of a load run.
+     */
+    public static class Report {
+
+        private final int connections;
+        private final long rounds;
+        private final long wins;
+        private final long elapsedNanos;
+        private final long[] latencies;
+
+        /**
+         * Tells how many rounds were played in all.
+         * @return The number of rounds.
+         */
+        public long getRounds() {
+            return this.rounds;
+        }
+
+        /**
+         * Tells how many rounds were won.
+         * @return The number of wins.
+         */
+        public long getWins() {
+            return this.wins;
+        }
+
+        /**
+         * Tells how many requests were sent in all.
+         * @return The number of requests.
+         */
+        public long getRequests() {
+            return this.latencies.length;
+        }
+
+        /**
+         * Gives the request throughput.
+         * @return Requests per second.
+         */
+        public double getRequestsPerSecond() {
+            return this.latencies.length * 1.0E9 / Math.max(this.elapsedNanos, 1L);
+        }
+
+        /**
+         * Gives a latency percentile.
+         * @param percentile The percentile, from 0 to 100. For example, 99.9.
+         * @return The latency below which that percentage of requests fell, in
+         * nanoseconds, or 0 if there were no requests.
+         */
+        public long getLatencyPercentile(double percentile) {
+            if (this.latencies.length == 0) {
+                return 0L;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * this.latencies.length) - 1;
+            return this.latencies[Math.max(0, Math.min(index, this.latencies.length - 1))];
+        }
+
+        /**
+         * Gives a one-line summary.
+         * @return A <code>String</code> like "64 connections, 64000 rounds,
+         * 384000 requests in 2103.5 ms: 182553 requests/s, p50 201.3 &micro;s,
+         * p99 1288.0 &micro;s, p99.9 4210.7 &micro;s".
+         */
+        @Override
+        public String toString() {
+            return String.format("%d connections, %d rounds, %d requests in %.1f ms: %.0f requests/s, p50 %.1f us, p99 %.1f us, p99.9 %.1f us", this.connections, this.rounds, this.latencies.length, this.elapsedNanos / 1.0E6, this.getRequestsPerSecond(), this.getLatencyPercentile(50) / 1000.0, this.getLatencyPercentile(99) / 1000.0, this.getLatencyPercentile(99.9) / 1000.0);
+        }
+
+        private Report(int connectionCount, long roundCount, long winCount, long elapsed, long[] sortedLatencies) {
+            this.connections = connectionCount;
+            this.rounds = roundCount;
+            this.wins = winCount;
+            this.elapsedNanos = elapsed;
+            this.latencies = sortedLatencies;
+        }
+
+    }
+
+    private static class Client {
+
+        private final Socket socket;
+        private final BufferedReader reader;
+        private final OutputStream output;
+        private final long[] latencies;
+        private int requestCount = 0;
+        private long wins = 0;
+
+        private String request(String line) throws IOException {
+            byte[] bytes = (line + "\n").getBytes(StandardCharsets.US_ASCII);
+            long start = System.nanoTime();
+            this.output.write(bytes);
+            this.output.flush();
+            String reply = this.reader.readLine();
+            this.latencies[this.requestCount++] = System.nanoTime() - start;
+            if (reply == null) {
+                throw new IOException("Server closed the connection after \"" + line + "\"");
+            }
+            if (reply.startsWith("ERROR")) {
+                throw new IOException("Server replied \"" + reply + "\" to \"" + line + "\"");
+            }
+            return reply;
+        }
+
+        private void playRounds(int rounds) throws IOException {
+            for (int r = 0; r < rounds; r++) {
+                String[] ready = this.request("NEW").split(" ");
+                int low = Integer.parseInt(ready[1]);
+                int high = Integer.parseInt(ready[2]) - 1;
+                String reply = "";
+                while (!reply.startsWith("WIN") && !reply.startsWith("LOSE")) {
+                    int guess = (low + high) / 2;
+                    reply = this.request(Integer.toString(guess));
+                    if (reply.equals("LOW")) {
+                        low = guess + 1;
+                    } else if (reply.equals("HIGH")) {
+                        high = guess - 1;
+                    }
+                }
+                if (reply.startsWith("WIN")) {
+                    this.wins++;
+                }
+            }
+            this.request("QUIT");
+        }
+
+        Client(InetAddress host, int port, int rounds, int id) throws IOException {
+            this.socket = new Socket(host, port);
+            this.socket.setTcpNoDelay(true);
+            this.reader = new BufferedReader(new InputStreamReader(this.socket.getInputStream(), StandardCharsets.US_ASCII));
+            this.output = this.socket.getOutputStream();
+            this.latencies = new long[2 + rounds * (1 + NumberGuessingGame.MAXIMUM_GUESSES)];
+            this.request("NAME Load" + id);
+        }
+
+    }
+
+    /**
+     * Plays rounds against a game server and reports how it went.
+     * @param host The server's address. For example, the loopback address.
+     * @param port The server's port. For example, 4549.
+     * @param connections How many connections to play on at once. For
+     * example, 64.
+     * @param roundsPerConnection How many rounds to play on each connection.
+     * For example, 1000.
+     * @return A report with the throughput and latency percentiles.
+     * @throws IOException If any connection fails or the server gives an
+     * unexpected reply.
+     * @throws IllegalArgumentException If the number of connections or rounds
+     * is not positive.
+     */
+    public static Report run(InetAddress host, int port, int connections, int roundsPerConnection) throws IOException {
+        if (connections < 1 || roundsPerConnection < 1) {
+            String exceptionMessage = connections + " connections with " + roundsPerConnection + " rounds each is not a valid load";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        Client[] clients = new Client[connections];
+        ExecutorService pool = Executors.newFixedThreadPool(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                clients[i] = new Client(host, port, roundsPerConnection, i);
+            }
+            List<Future<Void>> futures = new ArrayList<>(connections);
+            long startTime = System.nanoTime();
+            for (int i = 0; i < connections; i++) {
+                final Client client = clients[i];
+                futures.add(pool.submit(() -> {
+                    client.playRounds(roundsPerConnection);
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - startTime;
+            int total = 0;
+            long wins = 0;
+            for (Client client : clients) {
+                total += client.requestCount;
+                wins += client.wins;
+            }
+            long[] latencies = new long[total];
+            int offset = 0;
+            for (Client client : clients) {
+                System.arraycopy(client.latencies, 0, latencies, offset, client.requestCount);
+                offset += client.requestCount;
+            }
+            Arrays.sort(latencies);
+            return new Report(connections, (long) connections * roundsPerConnection, wins, elapsed, latencies);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for clients", ie);
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Client failed", cause);
+        } finally {
+            pool.shutdownNow();
+            for (Client client : clients) {
+                if (client != null) {
+                    client.socket.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a load test against a server on the loopback address. If no port
+     * is given, starts a server in this process first.
+     * @param args Optionally, the number of connections, the number of rounds
+     * per connection and the port, in that order. For example, 64, 1000,
+     * 4549.
+     * @throws IOException If the load test fails.
+     */
+    public static void main(String[] args) throws IOException {
+        int connections = (args.length > 0) ? Integer.parseInt(args[0]) : 64;
+        int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 1000;
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        if (args.length > 2) {
+            System.out.println(run(loopback, Integer.parseInt(args[2]), connections, rounds));
+        } else {
+            try (GameServer server = new GameServer(0)) {
+                System.out.println(run(loopback, server.getPort(), connections, rounds));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the {@link GameMetrics} of every game periodically, one line per
+ * game, with the rounds per second since the previous report. This runs on a
+ * daemon thread of its own, so the game threads never wait on the output.
+ * Closing the reporter writes one last report.
+ * @author Alonso del Arte
+ */
+public class MetricsReporter implements Closeable {
+
+    /**
+     * The system property giving the file to append reports to. If it's not
+     * set, {@link #fromSystemProperties()} gives no reporter.
+     */
+    public static final String FILE_PROPERTY = "games.metrics.file";
+
+    /**
+     * The system property giving the number of seconds between reports.
+     */
+    public static final String PERIOD_PROPERTY = "games.metrics.period";
+
+    /**
+     * How many seconds between reports if the period is not specified.
+     */
+    public static final long DEFAULT_PERIOD_SECONDS = 60;
+
+    private final PrintStream out;
+
+    private final boolean ownsOutput;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<Long, Long> previousCompleted = new HashMap<>();
+
+    private long previousNanos;
+
+    /**
+     * Writes a report of every game's metrics now.
+     */
+    public synchronized void report() {
+        long now = System.nanoTime();
+        double seconds = (now - this.previousNanos) / 1.0E9;
+        this.previousNanos = now;
+        String timestamp = Instant.now().toString();
+        for (GameMetrics metrics : GameMetrics.all().values()) {
+            long completed = metrics.getRoundsCompleted();
+            Long previous = this.previousCompleted.put(metrics.getGameID(), completed);
+            double roundsPerSecond = (completed - (previous == null ? 0L : previous)) / seconds;
+            this.out.println(timestamp + " " + String.format("%.3f", roundsPerSecond) + " rounds/s " + metrics);
+        }
+        this.out.flush();
+    }
+
+    /**
+     * Stops reporting, after writing one last report. If the reporter was
+     * given a file, the file is closed.
+     */
+    @Override
+    public void close() {
+        this.scheduler.shutdown();
+        try {
+            this.scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        this.report();
+        if (this.ownsOutput) {
+            this.out.close();
+        }
+    }
+
+    /**
+     * Gives a reporter configured by the system properties {@link
+     * #FILE_PROPERTY} and {@link #PERIOD_PROPERTY}, if reporting was asked
+     * for. For example, <code>-Dgames.metrics.file=metrics.log
+     * -Dgames.metrics.period=10</code> appends a report to metrics.log every
+     * ten seconds.
+     * @return A reporter, or null if {@link #FILE_PROPERTY} is not set.
+     * @throws IOException If the file can't be opened.
+     * @throws NumberFormatException If the period is not a number.
+     * @throws IllegalArgumentException If the period is less than 1 or the
+     * file name is not a valid path.
+     */
+    public static MetricsReporter fromSystemProperties() throws IOException {
+        String fileName = System.getProperty(FILE_PROPERTY);
+        if (fileName == null) {
+            return null;
+        }
+        long period = Long.parseLong(System.getProperty(PERIOD_PROPERTY, Long.toString(DEFAULT_PERIOD_SECONDS)));
+        return new MetricsReporter(Paths.get(fileName), period, TimeUnit.SECONDS);
+    }
+
+    private MetricsReporter(PrintStream out, boolean ownsOutput, long period, TimeUnit unit) {
+        if (period < 1) {
+            if (ownsOutput) {
+                out.close();
+            }
+            String exceptionMessage = "Period " + period + " " + unit + " is not valid, should be at least 1";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        this.out = out;
+        this.ownsOutput = ownsOutput;
+        this.previousNanos = System.nanoTime();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleAtFixedRate(this::report, period, period, unit);
+    }
+
+    /**
+     * Constructor for a reporter writing to a stream, such as a log. The
+     * stream is not closed when the reporter is.
+     * @param out The stream to write to. For example, <code>System.err</code>.
+     * @param period The time between reports. For example, 60.
+     * @param unit The unit of the period. For example, seconds.
+     * @throws IllegalArgumentException If the period is less than 1.
+     */
+    public MetricsReporter(PrintStream out, long period, TimeUnit unit) {
+        this(out, false, period, unit);
+    }
+
+    /**
+     * Constructor for a reporter appending to a file.
+     * @param file The file to append to. It's created if it doesn't exist.
+     * @param period The time between reports. For example, 60.
+     * @param unit The unit of the period. For example, seconds.
+     * @throws IOException If the file can't be opened.
+     * @throws IllegalArgumentException If the period is less than 1.
+     */
+    public MetricsReporter(Path file, long period, TimeUnit unit) throws IOException {
+        this(new PrintStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), false, StandardCharsets.UTF_8), true, period, unit);
+    }
+
+}
@@ -17,7 +17,13 @@
  */
 package games;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Scanner;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * The number guessing game specified by the Java 3 Week 1 class document. The
@@ -45,9 +51,11 @@ import java.util.Scanner;
  *   <li>Application gives the option to play again or quit</li>
  * </ul>
  * As I'm understanding these requirements, a player is not penalized for
- * guessing a letter or other non-numeric character. However, it is my
- * understanding that the player is penalized for guessing outside the specified
- * range (e.g., 5 million when the range is 1 to 100.
+ * guessing a letter or other non-numeric character. Nor is a player penalized
+ * for guessing outside the specified range (e.g., 5 million when the range is 1
+ * to 100): such a guess is rejected and not counted, since the score depends on
+ * how far off the guesses are, and a far off guess would overflow or inflate
+ * it.
  * @author Alonso del Arte
  */
 public class NumberGuessingGame extends GameWithLeaderBoard {
@@ -61,16 +69,56 @@ public class NumberGuessingGame extends GameWithLeaderBoard {
     private static final String NUMBER_QUERY = "Please enter an integer between "
             + MINIMUM_NUMBER + " and " + MAXIMUM_NUMBER + ": ";
 
-    private static HighScoreTable table;
+    /**
+     * The file the high scores are kept in, in the working directory.
+     */
+    public static final String SCORES_FILE_NAME = "NumberGuessingGame.scores";
+
+    private static ScoreWriter scoreWriter = null;
+
+    /**
+     * The ID of this game's partition in the {@link LeaderboardRegistry}.
+     */
+    public static final long GAME_ID = 4549604001330510643L;
 
     @Override
     long gameID() {
-        return 4549604001330510643L;
+        return GAME_ID;
     }
 
+    /**
+     * The generator for this game's numbers, or null to use the generator of
+     * whichever thread is playing.
+     */
+    private final RandomGenerator random;
+
+    /**
+     * Chooses a number with the current thread's generator, so that games on
+     * different threads don't contend for a shared seed.
+     * @param min The least number that may be chosen. For example, 1.
+     * @param max The number above the greatest that may be chosen. For
+     * example, 100.
+     * @return A pseudorandom number at least <code>min</code> and less than
+     * <code>max</code>. For example, 37.
+     */
     public static int chooseNumber(int min, int max) {
+        return chooseNumber(min, max, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Chooses a number with a given generator. With a seeded generator, the
+     * same sequence of numbers can be chosen again.
+     * @param min The least number that may be chosen. For example, 1.
+     * @param max The number above the greatest that may be chosen. For
+     * example, 100.
+     * @param random The generator. It should not be shared between threads
+     * unless it's meant to be, like {@link java.util.Random}.
+     * @return A pseudorandom number at least <code>min</code> and less than
+     * <code>max</code>. For example, 37.
+     */
+    public static int chooseNumber(int min, int max, RandomGenerator random) {
         int span = max - min;
-        double rnd = Math.random() * span;
+        double rnd = random.nextDouble() * span;
         return (int) Math.floor(rnd) + min;
     }
 
@@ -82,46 +130,67 @@ public class NumberGuessingGame extends GameWithLeaderBoard {
     }
 
     void playRound(Scanner input) {
+        if (this.random == null) {
+            playRound(input, NumberGuessingSession.start());
+        } else {
+            playRound(input, NumberGuessingSession.start(this.random));
+        }
+    }
+
+    void playRound(Scanner input, NumberGuessingSession session) {
+        GameMetrics.RoundTimer timer = this.metrics().startRound();
         System.out.println();
-        boolean notGuessedYet = true;
-        int guessCount = 0;
-        int number = chooseNumber(MINIMUM_NUMBER, MAXIMUM_NUMBER);
-        int prevGuess = number - MAXIMUM_NUMBER;
         int guessedNumber;
-        while (notGuessedYet && guessCount < MAXIMUM_GUESSES) {
+        while (!session.isOver()) {
             try {
                 guessedNumber = getNumberGuess(input);
             } catch (NumberFormatException nfe) {
+                timer.invalidGuess();
                 System.out.println("Sorry, didn't catch that, "
                         + nfe.getMessage());
                 System.out.println("Maybe try again...");
                 continue;
             }
-            if (guessedNumber == number) {
-                notGuessedYet = false;
-                int score = scoreGame(number, prevGuess, guessCount);
-                System.out.println("That's right! You win!");
-                System.out.println("With a score of " + score + ".");
-                updateScoreBoard(score);
-            } else {
-                if (guessedNumber < number) {
+            timer.guessReceived();
+            GuessOutcome outcome;
+            try {
+                outcome = session.guess(guessedNumber);
+            } catch (IllegalArgumentException iae) {
+                timer.invalidGuess();
+                System.out.println("Sorry, " + iae.getMessage() + ".");
+                System.out.println("Maybe try again...");
+                continue;
+            }
+            switch (outcome) {
+                case CORRECT:
+                    System.out.println("That's right! You win!");
+                    System.out.println("With a score of " + session.score()
+                            + ".");
+                    this.updateScoreBoard(session.score());
+                    break;
+                case TOO_LOW:
                     System.out.println("Too low.");
-                } else {
+                    break;
+                default:
                     System.out.println("Too high.");
-                }
             }
-            prevGuess = guessedNumber;
-            guessCount++;
+            timer.guessAnswered();
         }
-        if (notGuessedYet) {
+        timer.roundCompleted(session.isWon());
+        if (!session.isWon()) {
             System.out.println("Sorry, you ran out of guesses.");
-            System.out.println("The number was " + number);
+            System.out.println("The number was " + session.getNumber());
         }
     }
 
+    /**
+     * Plays a round on the console. The same <code>Scanner</code> is used
+     * for every round, so that input buffered by one round isn't lost to the
+     * next.
+     */
     @Override
     void playRound() {
-        this.playRound(new Scanner(System.in));
+        this.playRound(console());
     }
 
     static int scoreGame(int rightGuess, int priorGuess, int guessOrd) {
@@ -134,20 +203,111 @@ public class NumberGuessingGame extends GameWithLeaderBoard {
         return (MAXIMUM_GUESSES - guessOrd) * delta;
     }
 
-    private static void updateScoreBoard(int score) {
-        // TODO: Implement
+    private void updateScoreBoard(int score) {
+        long start = System.nanoTime();
+        boolean saved = false;
+        try {
+            saved = this.submitScore(score);
+        } finally {
+            this.metrics().scoreSubmitted(start, saved);
+        }
+    }
+
+    private boolean submitScore(int score) {
+        Leaderboard leaderboard;
+        try {
+            leaderboard = this.leaderboard();
+        } catch (IllegalStateException ise) {
+            System.out.println("Sorry, couldn't save your score, "
+                    + ise.getMessage());
+            return false;
+        }
+        if (!leaderboard.qualifies(score)) {
+            return true;
+        }
+        String name = (playerName == null) ? "" : playerName;
+        HighScoreTableRecord record = new HighScoreTableRecord(name, score);
+        if (scoreWriter == null) {
+            leaderboard.addHighScore(record);
+            return true;
+        }
+        try {
+            if (!scoreWriter.submit(record)) {
+                System.out.println("Sorry, too many scores waiting to be saved,"
+                        + " couldn't save yours");
+                return false;
+            }
+        } catch (IllegalStateException ise) {
+            System.out.println("Sorry, couldn't save your score, "
+                    + ise.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Constructor for a game with numbers chosen by the playing thread's
+     * generator.
+     */
+    public NumberGuessingGame() {
+        this.random = null;
     }
 
+    /**
+     * Constructor for a game that can be replayed. The same seed gives the
+     * same numbers, round after round.
+     * @param seed The seed. For example, 1729.
+     */
+    public NumberGuessingGame(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Plays the game on the console.
+     * @param args Optionally, a seed to replay a previous sequence of games.
+     * For example, 1729.
+     */
     public static void main(String[] args) {
+        NumberGuessingGame game;
+        if (args.length > 0) {
+            game = new NumberGuessingGame(Long.parseLong(args[0]));
+        } else {
+            game = new NumberGuessingGame();
+        }
+        Path scoresPath = Paths.get(SCORES_FILE_NAME);
+        try {
+            HighScoreStore store = new HighScoreStore(scoresPath,
+                    game.leaderboard(), HighScoreStore.DEFAULT_BATCH_SIZE,
+                    HighScoreStore.DEFAULT_COMPACTION_THRESHOLD);
+            scoreWriter = new ScoreWriter(store, DurabilityMode.WRITE);
+        } catch (IOException ioe) {
+            System.out.println("High scores won't be saved, couldn't open "
+                    + scoresPath + ": " + ioe.getMessage());
+        } catch (IllegalStateException ise) {
+            System.out.println("High scores won't be saved, "
+                    + ise.getMessage());
+        }
+        MetricsReporter reporter = startMetricsReporter();
         greetUser();
-        NumberGuessingGame game = new NumberGuessingGame();
-        try (Scanner scan = new Scanner(System.in)) {
+        try (Scanner scan = console()) {
             playerName = getUserName(scan);
             boolean keepPlaying = true;
             while (keepPlaying) {
                 game.playRound(scan);
                 keepPlaying = askToPlayAgain(scan);
             }
+        } finally {
+            if (reporter != null) {
+                reporter.close();
+            }
+            if (scoreWriter != null) {
+                try {
+                    scoreWriter.close();
+                } catch (IOException ioe) {
+                    System.out.println("Sorry, couldn't save high scores, "
+                            + ioe.getMessage());
+                }
+            }
         }
     }
 
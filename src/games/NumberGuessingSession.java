@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * One round of the number guessing game, with no input or output. A session
+ * picks a number from {@link NumberGuessingGame#MINIMUM_NUMBER} up to but not
+ * including {@link NumberGuessingGame#MAXIMUM_NUMBER}, takes up to {@link
+ * NumberGuessingGame#MAXIMUM_GUESSES} guesses and scores the round as {@link
+ * NumberGuessingGame#scoreGame(int, int, int)} does. Guesses less than {@link
+ * NumberGuessingGame#MINIMUM_NUMBER} or greater than {@link
+ * NumberGuessingGame#MAXIMUM_NUMBER} are rejected without counting against
+ * the player, since a far off guess right before the right one would
+ * otherwise inflate the score. The number is not disclosed until the session
+ * is over.
+ * <p>Sessions are cheap and independent of one another, so a program can run
+ * many of them in a tight loop or host many of them at once, and seeded
+ * sessions can be replayed exactly. A single session is not meant to be
+ * shared between threads.</p>
+ * @author Alonso del Arte
+ */
+public class NumberGuessingSession {
+
+    private final int number;
+
+    private int prevGuess;
+
+    private int guessCount = 0;
+
+    private boolean won = false;
+
+    private int score = 0;
+
+    /**
+     * Makes a guess.
+     * @param guessedNumber The guess. For example, 50.
+     * @return Whether the guess is too low, too high or correct.
+     * @throws IllegalArgumentException If the guess is less than {@link
+     * NumberGuessingGame#MINIMUM_NUMBER} or greater than {@link
+     * NumberGuessingGame#MAXIMUM_NUMBER}. The guess is not counted.
+     * @throws IllegalStateException If the session is already over.
+     */
+    public GuessOutcome guess(int guessedNumber) {
+        if (this.isOver()) {
+            String exceptionMessage = "Can't guess " + guessedNumber + ", the round is over";
+            throw new IllegalStateException(exceptionMessage);
+        }
+        if (guessedNumber < NumberGuessingGame.MINIMUM_NUMBER || guessedNumber > NumberGuessingGame.MAXIMUM_NUMBER) {
+            String exceptionMessage = "Guess " + guessedNumber + " is not between " + NumberGuessingGame.MINIMUM_NUMBER + " and " + NumberGuessingGame.MAXIMUM_NUMBER;
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        GuessOutcome outcome;
+        if (guessedNumber == this.number) {
+            this.won = true;
+            this.score = NumberGuessingGame.scoreGame(this.number, this.prevGuess, this.guessCount);
+            outcome = GuessOutcome.CORRECT;
+        } else if (guessedNumber < this.number) {
+            outcome = GuessOutcome.TOO_LOW;
+        } else {
+            outcome = GuessOutcome.TOO_HIGH;
+        }
+        this.prevGuess = guessedNumber;
+        this.guessCount++;
+        return outcome;
+    }
+
+    /**
+     * Tells whether the round is over, either because the number was guessed
+     * or because the player ran out of guesses.
+     * @return True if no more guesses are allowed, false otherwise.
+     */
+    public boolean isOver() {
+        return this.won || this.guessCount >= NumberGuessingGame.MAXIMUM_GUESSES;
+    }
+
+    /**
+     * Tells whether the number was guessed.
+     * @return True if the player guessed the number, false if not or not yet.
+     */
+    public boolean isWon() {
+        return this.won;
+    }
+
+    /**
+     * Tells how many guesses have been made so far.
+     * @return The number of guesses, from 0 to {@link
+     * NumberGuessingGame#MAXIMUM_GUESSES}.
+     */
+    public int getGuessCount() {
+        return this.guessCount;
+    }
+
+    /**
+     * Gives the score for this round.
+     * @return The score if the number was guessed, 0 otherwise. For example,
+     * 80 if the number was 50 and it was guessed on the fourth try right after
+     * a guess of 30.
+     */
+    public int score() {
+        return this.score;
+    }
+
+    /**
+     * Discloses the number, once the round is over.
+     * @return The number. For example, 50.
+     * @throws IllegalStateException If the round is not over yet.
+     */
+    public int getNumber() {
+        if (!this.isOver()) {
+            throw new IllegalStateException("The number is not disclosed until the round is over");
+        }
+        return this.number;
+    }
+
+    /**
+     * Starts a session with a number chosen by {@link
+     * NumberGuessingGame#chooseNumber(int, int)}, that is, by the current
+     * thread's generator.
+     * @return A new session.
+     */
+    public static NumberGuessingSession start() {
+        return new NumberGuessingSession(NumberGuessingGame.chooseNumber(NumberGuessingGame.MINIMUM_NUMBER, NumberGuessingGame.MAXIMUM_NUMBER));
+    }
+
+    /**
+     * Starts a session with a number chosen by a seeded pseudorandom number
+     * generator. The same seed always gives the same number.
+     * @param seed The seed. For example, 1729.
+     * @return A new session.
+     */
+    public static NumberGuessingSession start(long seed) {
+        return start(new SplittableRandom(seed));
+    }
+
+    /**
+     * Starts a session with a number chosen by a given pseudorandom number
+     * generator. To run many sessions reproducibly, a single seeded generator
+     * can be passed to this function repeatedly, or, if it's a {@link
+     * SplittableRandom}, split for separate threads.
+     * @param random The generator to choose the number with.
+     * @return A new session.
+     */
+    public static NumberGuessingSession start(RandomGenerator random) {
+        return new NumberGuessingSession(NumberGuessingGame.chooseNumber(NumberGuessingGame.MINIMUM_NUMBER, NumberGuessingGame.MAXIMUM_NUMBER, random));
+    }
+
+    /**
+     * Constructor for a session with a known number.
+     * @param chosenNumber The number to guess. For example, 50.
+     */
+    NumberGuessingSession(int chosenNumber) {
+        this.number = chosenNumber;
+        this.prevGuess = chosenNumber - NumberGuessingGame.MAXIMUM_NUMBER;
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A way of playing the number guessing game, for simulations. Strategies are
+ * given everything the feedback so far has established, so they can be
+ * stateless and shared between threads.
+ * @author Alonso del Arte
+ */
+public interface PlayerStrategy {
+
+    /**
+     * Chooses the next guess.
+     * @param low The least number not yet ruled out by the feedback. For
+     * example, 26.
+     * @param high The greatest number not yet ruled out by the feedback. For
+     * example, 74.
+     * @param prevGuess The previous guess, or 0 if there hasn't been one
+     * yet. For example, 37.
+     * @param guessOrd How many guesses have been made so far, from 0 to
+     * {@link NumberGuessingGame#MAXIMUM_GUESSES} &minus; 1. For example, 2.
+     * @param random A pseudorandom number generator for strategies that need
+     * one. It belongs to the calling thread.
+     * @return The guess. It need not be between <code>low</code> and
+     * <code>high</code>, though a guess outside that range is wasted unless
+     * the strategy is after something other than finding the number. But it
+     * must be from {@link NumberGuessingGame#MINIMUM_NUMBER} to {@link
+     * NumberGuessingGame#MAXIMUM_NUMBER}, or the simulation fails with an
+     * <code>IllegalArgumentException</code>.
+     */
+    int nextGuess(int low, int high, int prevGuess, int guessOrd, RandomGenerator random);
+
+}
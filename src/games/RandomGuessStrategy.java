@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Guesses any of the numbers not yet ruled out, with equal probability.
+ * @author Alonso del Arte
+ */
+public class RandomGuessStrategy implements PlayerStrategy {
+
+    @Override
+    public int nextGuess(int low, int high, int prevGuess, int guessOrd, RandomGenerator random) {
+        return low + random.nextInt(high - low + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "Random";
+    }
+
+}
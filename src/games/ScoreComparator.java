@@ -17,18 +17,39 @@
  */
 package games;
 
+import java.io.Serializable;
 import java.util.Comparator;
 
 /**
- *
+ * Orders high score table records from best to worst. A higher score comes
+ * first. Of two equal scores, the one made earlier comes first, and if they
+ * were made at the same time, they're ordered by player name. Thus two records
+ * compare as equal only if they're equal.
  * @author Alonso del Arte
  */
-public class ScoreComparator implements Comparator<HighScoreTableRecord> {
+public class ScoreComparator implements Comparator<HighScoreTableRecord>, Serializable {
+
+    private static final long serialVersionUID = 4549602885379302516L;
 
-    // STUB TO FAIL THE FIRST TEST
+    /**
+     * Compares two high score table records.
+     * @param record1 The first record. For example, Jim's score of 200.
+     * @param record2 The second record. For example, Aabirah's score of 300.
+     * @return A negative integer if the first record ranks higher than the
+     * second, 0 if they're equal, a positive integer if the second ranks
+     * higher. For the example, a positive integer.
+     */
     @Override
     public int compare(HighScoreTableRecord record1, HighScoreTableRecord record2) {
-        return 0;
+        int comparison = Integer.compare(record2.getScore(), record1.getScore());
+        if (comparison != 0) {
+            return comparison;
+        }
+        comparison = Long.compare(record1.getTimestamp(), record2.getTimestamp());
+        if (comparison != 0) {
+            return comparison;
+        }
+        return record1.getPlayerName().compareTo(record2.getPlayerName());
     }
 
 }
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Simulates many rounds of the number guessing game to find out how {@link
+ * NumberGuessingGame#scoreGame(int, int, int)} scores various strategies. The
+ * rounds are played by {@link NumberGuessingSession} objects, so the rules are
+ * the same as for people, but with no input or output. The work is split
+ * across a fork/join pool, with each task getting its own pseudorandom number
+ * generator split off from its parent's and counting scores in its own
+ * histogram, so the threads share nothing until the histograms are added up
+ * on joining. The same seed gives the same results no matter how many threads
+ * there are.
+ * @author Alonso del Arte
+ */
+public class ScoreSimulation {
+
+    /**
+     * The highest possible score, for guessing right on the first try.
+     */
+    public static final int MAXIMUM_SCORE = NumberGuessingGame.MAXIMUM_GUESSES * NumberGuessingGame.MAXIMUM_NUMBER;
+
+    /**
+     * Tasks with at most this many rounds are not split further.
+     */
+    private static final long SEQUENTIAL_THRESHOLD = 1 << 16;
+
+    /**
+     * How a strategy scored over many rounds. Lost rounds score 0, while won
+     * rounds always score at least 1.
+     */
+    public static class ScoreDistribution {
+
+        private final String strategyName;
+        private final long[] counts;
+        private final long rounds;
+        private final long elapsedNanos;
+
+        /**
+         * Tells how many rounds got a particular score.
+         * @param score The score, from 0 to {@link #MAXIMUM_SCORE}. For
+         * example, 200.
+         * @return The number of rounds with that score.
+         */
+        public long getCount(int score) {
+            return this.counts[score];
+        }
+
+        /**
+         * Tells how many rounds were played.
+         * @return The number of rounds.
+         */
+        public long getRounds() {
+            return this.rounds;
+        }
+
+        /**
+         * Tells how many rounds were won.
+         * @return The number of rounds with a positive score.
+         */
+        public long getWins() {
+            return this.rounds - this.counts[0];
+        }
+
+        /**
+         * Gives the average score, counting lost rounds as 0.
+         * @return The mean score.
+         */
+        public double getMean() {
+            double total = 0.0;
+            for (int score = 1; score <= MAXIMUM_SCORE; score++) {
+                total += (double) score * this.counts[score];
+            }
+            return total / this.rounds;
+        }
+
+        /**
+         * Gives a score percentile.
+         * @param percentile The percentile, from 0 to 100. For example, 90.
+         * @return The lowest score at or below which at least that percentage
+         * of rounds fell.
+         */
+        public int getPercentile(double percentile) {
+            double target = percentile / 100.0 * this.rounds;
+            long cumulative = 0;
+            for (int score = 0; score < MAXIMUM_SCORE; score++) {
+                cumulative += this.counts[score];
+                if (cumulative >= target) {
+                    return score;
+                }
+            }
+            return MAXIMUM_SCORE;
+        }
+
+        /**
+         * Gives a summary of the distribution.
+         * @return A <code>String</code> like "Binary search: 100000000 rounds
+         * in 3512.8 ms, 31.3% won, mean 38.97, median 0, p90 150, p99 300,
+         * max 400".
+         */
+        @Override
+        public String toString() {
+            int max = MAXIMUM_SCORE;
+            while (max > 0 && this.counts[max] == 0) {
+                max--;
+            }
+            return String.format("%s: %d rounds in %.1f ms, %.1f%% won, mean %.2f, median %d, p90 %d, p99 %d, max %d", this.strategyName, this.rounds, this.elapsedNanos / 1.0E6, 100.0 * this.getWins() / this.rounds, this.getMean(), this.getPercentile(50), this.getPercentile(90), this.getPercentile(99), max);
+        }
+
+        private ScoreDistribution(String name, long[] scoreCounts, long roundCount, long elapsed) {
+            this.strategyName = name;
+            this.counts = scoreCounts;
+            this.rounds = roundCount;
+            this.elapsedNanos = elapsed;
+        }
+
+    }
+
+    private static class SimulationTask extends RecursiveTask<long[]> {
+
+        private static final long serialVersionUID = 4549604117342951209L;
+
+        private final PlayerStrategy strategy;
+        private final long rounds;
+        private final SplittableRandom random;
+
+        @Override
+        protected long[] compute() {
+            if (this.rounds <= SEQUENTIAL_THRESHOLD) {
+                long[] counts = new long[MAXIMUM_SCORE + 1];
+                for (long i = 0; i < this.rounds; i++) {
+                    counts[play(this.strategy, this.random)]++;
+                }
+                return counts;
+            }
+            long half = this.rounds / 2;
+            SimulationTask left = new SimulationTask(this.strategy, half, this.random.split());
+            SimulationTask right = new SimulationTask(this.strategy, this.rounds - half, this.random);
+            left.fork();
+            long[] counts = right.compute();
+            long[] leftCounts = left.join();
+            for (int score = 0; score <= MAXIMUM_SCORE; score++) {
+                counts[score] += leftCounts[score];
+            }
+            return counts;
+        }
+
+        SimulationTask(PlayerStrategy playerStrategy, long roundCount, SplittableRandom rng) {
+            this.strategy = playerStrategy;
+            this.rounds = roundCount;
+            this.random = rng;
+        }
+
+    }
+
+    /**
+     * Plays one round with a given strategy.
+     * @param strategy The strategy to play with.
+     * @param random The pseudorandom number generator to choose the number
+     * with, and for the strategy to use.
+     * @return The score, 0 if the round was lost.
+     */
+    static int play(PlayerStrategy strategy, SplittableRandom random) {
+        NumberGuessingSession session = NumberGuessingSession.start(random);
+        int low = NumberGuessingGame.MINIMUM_NUMBER;
+        int high = NumberGuessingGame.MAXIMUM_NUMBER - 1;
+        int prevGuess = 0;
+        while (!session.isOver()) {
+            int guess = strategy.nextGuess(low, high, prevGuess, session.getGuessCount(), random);
+            switch (session.guess(guess)) {
+                case TOO_LOW:
+                    low = Math.max(low, guess + 1);
+                    break;
+                case TOO_HIGH:
+                    high = Math.min(high, guess - 1);
+                    break;
+                default:
+                    // The loop ends since the session is over
+            }
+            prevGuess = guess;
+        }
+        return session.score();
+    }
+
+    /**
+     * Simulates rounds with a strategy on the common fork/join pool.
+     * @param strategy The strategy to simulate. It is shared by all the
+     * threads. For example, a {@link BinarySearchStrategy}.
+     * @param rounds How many rounds to play. For example, 100000000.
+     * @param seed The seed for the pseudorandom number generators. For
+     * example, 1729.
+     * @return The distribution of the scores.
+     * @throws IllegalArgumentException If the number of rounds is not
+     * positive, or if the strategy guesses a number outside the range of the
+     * game, which {@link NumberGuessingSession#guess(int)} rejects.
+     */
+    public static ScoreDistribution simulate(PlayerStrategy strategy, long rounds, long seed) {
+        return simulate(strategy, rounds, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Simulates rounds with a strategy on a given fork/join pool.
+     * @param strategy The strategy to simulate.
+     * @param rounds How many rounds to play.
+     * @param seed The seed for the pseudorandom number generators.
+     * @param pool The pool to run the simulation on.
+     * @return The distribution of the scores.
+     * @throws IllegalArgumentException If the number of rounds is not
+     * positive, or if the strategy guesses a number outside the range of the
+     * game, which {@link NumberGuessingSession#guess(int)} rejects.
+     */
+    public static ScoreDistribution simulate(PlayerStrategy strategy, long rounds, long seed, ForkJoinPool pool) {
+        if (rounds < 1) {
+            String exceptionMessage = "Number of rounds " + rounds + " is not valid, should be at least 1";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        long startTime = System.nanoTime();
+        long[] counts = pool.invoke(new SimulationTask(strategy, rounds, new SplittableRandom(seed)));
+        return new ScoreDistribution(strategy.toString(), counts, rounds, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Simulates the binary search, random and adversarial strategies and
+     * reports their score distributions.
+     * @param args Optionally, the number of rounds per strategy and the seed.
+     * For example, 100000000 and 1729.
+     */
+    public static void main(String[] args) {
+        long rounds = (args.length > 0) ? Long.parseLong(args[0]) : 100000000L;
+        long seed = (args.length > 1) ? Long.parseLong(args[1]) : System.nanoTime();
+        PlayerStrategy[] strategies = {new BinarySearchStrategy(), new RandomGuessStrategy(), new AdversarialStrategy()};
+        for (PlayerStrategy strategy : strategies) {
+            System.out.println(simulate(strategy, rounds, seed));
+        }
+    }
+
+}
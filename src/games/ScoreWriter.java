@@ -0,0 +1,410 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Saves high scores to a {@link HighScoreStore} in the background, so that a
+ * game never waits on the disk. A game thread hands a record to {@link
+ * #submit(HighScoreTableRecord)}, which puts it in a bounded buffer and
+ * returns right away. A flusher thread takes the records out of the buffer in
+ * batches, adds them to the store and writes them out, either once a batch
+ * has {@link #getBatchSize() enough records} or once the oldest record has
+ * waited {@link #getMaximumDelay(TimeUnit) long enough}, whichever comes
+ * first. If the buffer is full, the record is turned away rather than making
+ * the game wait.
+ * <p>A record shows up on the store's leaderboard once its batch has been
+ * flushed. Closing the writer flushes whatever is still in the buffer, forces
+ * it to the storage device and closes the store.</p>
+ * @author Alonso del Arte
+ */
+public class ScoreWriter implements Closeable {
+
+    /**
+     * How many records the buffer holds if no capacity is specified.
+     */
+    public static final int DEFAULT_BUFFER_CAPACITY = 1024;
+
+    /**
+     * How many records make a batch if no batch size is specified.
+     */
+    public static final int DEFAULT_BATCH_SIZE = HighScoreStore.DEFAULT_BATCH_SIZE;
+
+    /**
+     * How long a record may wait in the buffer, in milliseconds, if no delay
+     * is specified.
+     */
+    public static final long DEFAULT_MAXIMUM_DELAY_MILLIS = 200;
+
+    private final HighScoreStore store;
+
+    private final DurabilityMode mode;
+
+    private final int batchSize;
+
+    private final long maximumDelayNanos;
+
+    private final HighScoreTableRecord[] buffer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition recordsReady = this.lock.newCondition();
+
+    private final Condition batchWritten = this.lock.newCondition();
+
+    private final Thread flusher;
+
+    private int head = 0;
+
+    private int count = 0;
+
+    private long oldestSubmission;
+
+    private long submitted = 0;
+
+    private long written = 0;
+
+    private long rejected = 0;
+
+    private long flushRequested = 0;
+
+    private boolean closing = false;
+
+    private IOException failure = null;
+
+    /**
+     * Gives the store this writer saves to.
+     * @return The store. Its leaderboard has every record flushed so far.
+     */
+    public HighScoreStore getStore() {
+        return this.store;
+    }
+
+    /**
+     * Tells what this writer does with each batch once it's written.
+     * @return The durability mode. For example, {@link DurabilityMode#WRITE}.
+     */
+    public DurabilityMode getDurabilityMode() {
+        return this.mode;
+    }
+
+    /**
+     * Tells how many records make a batch.
+     * @return The batch size. For example, 16.
+     */
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * Tells how long a record may wait in the buffer before it's flushed,
+     * even if its batch isn't full.
+     * @param unit The unit for the answer. For example, {@link
+     * TimeUnit#MILLISECONDS}.
+     * @return The maximum delay. For example, 200.
+     */
+    public long getMaximumDelay(TimeUnit unit) {
+        return unit.convert(this.maximumDelayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Tells how many records the buffer can hold.
+     * @return The capacity. For example, 1024.
+     */
+    public int getBufferCapacity() {
+        return this.buffer.length;
+    }
+
+    /**
+     * Tells how many records have been turned away because the buffer was
+     * full.
+     * @return The number of records rejected. Ideally 0.
+     */
+    public long getRejectedCount() {
+        this.lock.lock();
+        try {
+            return this.rejected;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Tells how many records are waiting in the buffer or being written.
+     * @return The number of records not yet flushed. For example, 3.
+     */
+    public long getPendingCount() {
+        this.lock.lock();
+        try {
+            return this.submitted - this.written;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Puts a record in the buffer to be saved. This doesn't wait on the
+     * flusher or on the disk.
+     * @param record The record to save. For example, Jim's score of 200.
+     * @return True if the record was put in the buffer, false if it was
+     * turned away because the buffer is full.
+     * @throws NullPointerException If the record is null.
+     * @throws IllegalStateException If this writer has been closed, or if the
+     * flusher has failed to write to the store.
+     */
+    public boolean submit(HighScoreTableRecord record) {
+        if (record == null) {
+            throw new NullPointerException("Record should not be null");
+        }
+        this.lock.lock();
+        try {
+            this.ensureWritable();
+            if (this.count == this.buffer.length) {
+                this.rejected++;
+                return false;
+            }
+            if (this.count == 0) {
+                this.oldestSubmission = System.nanoTime();
+            }
+            this.buffer[(this.head + this.count) % this.buffer.length] = record;
+            this.count++;
+            this.submitted++;
+            if (this.count == 1 || this.count == this.batchSize) {
+                this.recordsReady.signal();
+            }
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until every record submitted so far has been flushed. This is
+     * meant for tests and for checkpoints, not for the game loop.
+     * @throws IOException If the flusher failed to write to the store.
+     * @throws InterruptedException If interrupted while waiting.
+     * @throws IllegalStateException If this writer has been closed.
+     */
+    public void flush() throws IOException, InterruptedException {
+        this.lock.lock();
+        try {
+            if (this.closing) {
+                throw new IllegalStateException("Score writer has been closed");
+            }
+            long target = this.submitted;
+            this.flushRequested = target;
+            this.recordsReady.signal();
+            while (this.written < target && this.failure == null) {
+                this.batchWritten.await();
+            }
+            if (this.failure != null) {
+                throw this.failure;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes whatever is still in the buffer, forces the log to the storage
+     * device and closes the store. Calling this on a writer that's already
+     * closed has no effect.
+     * @throws IOException If the flusher failed to write to the store, or if
+     * the store can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.lock.lock();
+        try {
+            this.closing = true;
+            this.recordsReady.signal();
+        } finally {
+            this.lock.unlock();
+        }
+        boolean interrupted = false;
+        while (this.flusher.isAlive()) {
+            try {
+                this.flusher.join();
+            } catch (InterruptedException ie) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        this.store.close();
+        this.lock.lock();
+        try {
+            if (this.failure != null) {
+                throw this.failure;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void ensureWritable() {
+        if (this.closing) {
+            throw new IllegalStateException("Score writer has been closed");
+        }
+        if (this.failure != null) {
+            String exceptionMessage = "Score writer stopped after failing to write, "
+                    + this.failure.getMessage();
+            throw new IllegalStateException(exceptionMessage, this.failure);
+        }
+    }
+
+    /**
+     * Waits until there's a batch to flush and takes it out of the buffer.
+     * @return The records to flush, or null if the writer is closing and the
+     * buffer is empty.
+     */
+    private HighScoreTableRecord[] takeBatch() {
+        this.lock.lock();
+        try {
+            while (true) {
+                if (this.count == 0) {
+                    if (this.closing) {
+                        return null;
+                    }
+                    this.recordsReady.awaitUninterruptibly();
+                    continue;
+                }
+                if (this.closing || this.count >= this.batchSize
+                        || this.flushRequested > this.written) {
+                    break;
+                }
+                long remaining = this.oldestSubmission + this.maximumDelayNanos
+                        - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                try {
+                    this.recordsReady.awaitNanos(remaining);
+                } catch (InterruptedException ie) {
+                    // The flusher only stops once it's closed and drained
+                }
+            }
+            HighScoreTableRecord[] batch = new HighScoreTableRecord[this.count];
+            for (int i = 0; i < batch.length; i++) {
+                int index = (this.head + i) % this.buffer.length;
+                batch[i] = this.buffer[index];
+                this.buffer[index] = null;
+            }
+            this.head = (this.head + batch.length) % this.buffer.length;
+            this.count = 0;
+            return batch;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        HighScoreTableRecord[] batch;
+        while ((batch = this.takeBatch()) != null) {
+            IOException caught = null;
+            try {
+                for (HighScoreTableRecord record : batch) {
+                    this.store.addHighScore(record);
+                }
+                if (this.mode == DurabilityMode.FORCE) {
+                    this.store.flush();
+                } else {
+                    this.store.write();
+                }
+            } catch (IOException ioe) {
+                caught = ioe;
+            }
+            this.lock.lock();
+            try {
+                this.written += batch.length;
+                if (caught != null && this.failure == null) {
+                    this.failure = caught;
+                }
+                this.batchWritten.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Constructor with the default buffer capacity, batch size and maximum
+     * delay.
+     * @param store The store to save to. The writer takes over the store: it
+     * should not be written to except through the writer, and it's closed when
+     * the writer is closed.
+     * @param mode What to do with each batch once it's written. For example,
+     * {@link DurabilityMode#WRITE}.
+     */
+    public ScoreWriter(HighScoreStore store, DurabilityMode mode) {
+        this(store, mode, DEFAULT_BUFFER_CAPACITY, DEFAULT_BATCH_SIZE,
+                DEFAULT_MAXIMUM_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructor. The flusher thread is started right away, as a daemon
+     * thread, so the writer should be closed to be sure the last records are
+     * saved.
+     * @param store The store to save to. The writer takes over the store: it
+     * should not be written to except through the writer, and it's closed when
+     * the writer is closed.
+     * @param mode What to do with each batch once it's written. For example,
+     * {@link DurabilityMode#FORCE}.
+     * @param capacity How many records the buffer can hold. For example, 256.
+     * @param batch How many records make a batch. For example, 16.
+     * @param maximumDelay How long a record may wait in the buffer before
+     * it's flushed even though its batch isn't full. For example, 200.
+     * @param unit The unit of the maximum delay. For example, {@link
+     * TimeUnit#MILLISECONDS}.
+     * @throws NullPointerException If the store, the mode or the unit is
+     * null.
+     * @throws IllegalArgumentException If the batch size is less than 1 or
+     * more than the capacity, or if the maximum delay is negative.
+     */
+    public ScoreWriter(HighScoreStore store, DurabilityMode mode, int capacity,
+            int batch, long maximumDelay, TimeUnit unit) {
+        if (store == null || mode == null || unit == null) {
+            throw new NullPointerException("Store, mode and unit should not be null");
+        }
+        if (batch < 1 || batch > capacity) {
+            String exceptionMessage = "Batch size " + batch
+                    + " should be from 1 to the buffer capacity " + capacity;
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        if (maximumDelay < 0) {
+            String exceptionMessage = "Maximum delay " + maximumDelay
+                    + " should not be negative";
+            throw new IllegalArgumentException(exceptionMessage);
+        }
+        this.store = store;
+        this.mode = mode;
+        this.batchSize = batch;
+        this.maximumDelayNanos = unit.toNanos(maximumDelay);
+        this.buffer = new HighScoreTableRecord[capacity];
+        this.flusher = new Thread(this::flushLoop, "score-writer");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package allocation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares how many bytes a call to the API exercised by a test may allocate
+ * on the heap. The test has to pass each call to {@link
+ * AllocationBudgetRule#measure(String, java.util.function.IntConsumer)}, which
+ * warms it up, measures it and fails the test if it goes over budget.
+ * @author Alonso del Arte
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface AllocationBudget {
+
+    /**
+     * How many bytes one call may allocate, on average.
+     * @return The budget in bytes per call. For example, 0.
+     */
+    long value() default 0;
+
+    /**
+     * How many calls to make before measuring, to give the just-in-time
+     * compiler a chance to compile the call, and to eliminate allocations
+     * with escape analysis where it can.
+     * @return The number of warmup calls. For example, 50000.
+     */
+    int warmup() default 50000;
+
+    /**
+     * How many calls to measure.
+     * @return The number of measured calls. For example, 100000.
+     */
+    int iterations() default 100000;
+
+}
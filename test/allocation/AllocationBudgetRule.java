@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package allocation;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntConsumer;
+
+import org.junit.Assume;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+/**
+ * Checks that a test's calls stay within their declared {@link
+ * AllocationBudget}. The bytes allocated are read from the thread's
+ * allocation counter in <code>com.sun.management.ThreadMXBean</code>, before
+ * and after the measured calls, on the thread running the test. If the JVM
+ * doesn't support this, the test is skipped rather than failed.
+ * <p>Use it as a JUnit rule:</p>
+ * <pre>    &#64;Rule
+ *    public AllocationBudgetRule allocations = new AllocationBudgetRule();
+ *
+ *    &#64;Test
+ *    &#64;AllocationBudget(0)
+ *    public void testSomething() {
+ *        allocations.measure("something", i -&gt; sink += something(i));
+ *    }</pre>
+ * <p>The call should not box its arguments or its result, as that would be
+ * counted against it.</p>
+ * @author Alonso del Arte
+ */
+public class AllocationBudgetRule implements TestRule {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    /**
+     * How many times to measure before deciding a call is over budget. A call
+     * that really allocates does so every time, but the JVM itself sometimes
+     * allocates on the test's thread, for example when deoptimizing compiled
+     * code, so the least of a few measurements is the one that counts.
+     */
+    private static final int MEASUREMENT_ATTEMPTS = 3;
+
+    private AllocationBudget budget;
+
+    private String testName;
+
+    private boolean measured;
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported()) {
+                sunBean.setThreadAllocatedMemoryEnabled(true);
+                return sunBean;
+            }
+        }
+        return null;
+    }
+
+    private static long measureOnce(IntConsumer call, int iterations) {
+        long overhead = THREADS.getCurrentThreadAllocatedBytes();
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        overhead = before - overhead;
+        for (int i = 0; i < iterations; i++) {
+            call.accept(i);
+        }
+        long after = THREADS.getCurrentThreadAllocatedBytes();
+        return Math.max(0, after - before - overhead);
+    }
+
+    @Override
+    public Statement apply(Statement base, Description description) {
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                budget = description.getAnnotation(AllocationBudget.class);
+                testName = description.getMethodName();
+                measured = false;
+                base.evaluate();
+                if (budget != null && !measured) {
+                    String msg = testName + " declares an allocation budget but never called measure()";
+                    throw new AssertionError(msg);
+                }
+            }
+        };
+    }
+
+    /**
+     * Warms up and measures a call, and fails if it allocates more than the
+     * budget declared on the test method.
+     * @param api What is being measured, for the failure message. For
+     * example, "euclideanGCD(int, int)".
+     * @param call The call to measure. It is given the index of the call, so
+     * it can cycle through an array of inputs prepared beforehand.
+     * @return The average number of bytes allocated per call.
+     * @throws IllegalStateException If the test method has no {@link
+     * AllocationBudget} annotation.
+     * @throws AssertionError If the call allocated more than the budget.
+     */
+    public double measure(String api, IntConsumer call) {
+        if (this.budget == null) {
+            String exceptionMessage = "Test " + this.testName + " needs an @AllocationBudget annotation to measure " + api;
+            throw new IllegalStateException(exceptionMessage);
+        }
+        Assume.assumeTrue("Thread allocation counters not supported by this JVM", THREADS != null);
+        this.measured = true;
+        for (int i = 0; i < this.budget.warmup(); i++) {
+            call.accept(i);
+        }
+        int iterations = this.budget.iterations();
+        long allocated = Long.MAX_VALUE;
+        for (int attempt = 0; attempt < MEASUREMENT_ATTEMPTS && allocated > this.budget.value() * iterations; attempt++) {
+            allocated = Math.min(allocated, measureOnce(call, iterations));
+        }
+        double bytesPerCall = (double) allocated / iterations;
+        System.out.println(api + ": " + bytesPerCall + " bytes per call, budget " + this.budget.value());
+        if (bytesPerCall > this.budget.value()) {
+            String msg = api + " allocated " + allocated + " bytes over " + iterations + " calls, or " + bytesPerCall + " bytes per call, but its budget is " + this.budget.value() + " bytes per call";
+            throw new AssertionError(msg);
+        }
+        return bytesPerCall;
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package allocation;
+
+import calculators.NumberTheoreticFunctionsCalculator;
+import fractions.Fraction;
+import fractions.FractionParser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the hot paths that are supposed to allocate nothing still
+ * don't. The inputs are all prepared before measuring, so that only the calls
+ * themselves are counted.
+ * @author Alonso del Arte
+ */
+public class HotPathAllocationTest {
+
+    private static final int INPUT_MASK = 1023;
+
+    private static long sink;
+
+    @Rule
+    public AllocationBudgetRule allocations = new AllocationBudgetRule();
+
+    private static int[] randomInts(long seed, int origin, int bound) {
+        return new SplittableRandom(seed).ints(INPUT_MASK + 1, origin, bound).toArray();
+    }
+
+    /**
+     * Test of euclideanGCD(int, int) method, of class
+     * NumberTheoreticFunctionsCalculator. It should allocate nothing.
+     */
+    @Test
+    @AllocationBudget(0)
+    public void testEuclideanGCDInt() {
+        System.out.println("euclideanGCD(int, int)");
+        int[] as = randomInts(1729, -1000000, 1000000);
+        int[] bs = randomInts(4104, 1, 1000000);
+        allocations.measure("euclideanGCD(int, int)", i -> sink += NumberTheoreticFunctionsCalculator.euclideanGCD(as[i & INPUT_MASK], bs[i & INPUT_MASK]));
+        assertEquals(6, NumberTheoreticFunctionsCalculator.euclideanGCD(-12, 18));
+    }
+
+    /**
+     * Test of euclideanGCD(long, long) method, of class
+     * NumberTheoreticFunctionsCalculator. It should allocate nothing.
+     */
+    @Test
+    @AllocationBudget(0)
+    public void testEuclideanGCDLong() {
+        System.out.println("euclideanGCD(long, long)");
+        long[] as = new SplittableRandom(1729).longs(INPUT_MASK + 1, 1, Long.MAX_VALUE).toArray();
+        long[] bs = new SplittableRandom(4104).longs(INPUT_MASK + 1, 1, Long.MAX_VALUE).toArray();
+        allocations.measure("euclideanGCD(long, long)", i -> sink += NumberTheoreticFunctionsCalculator.euclideanGCD(as[i & INPUT_MASK], bs[i & INPUT_MASK]));
+    }
+
+    /**
+     * Test of symbolLegendre method, of class
+     * NumberTheoreticFunctionsCalculator. It should allocate nothing, at least
+     * for the small primes used here.
+     */
+    @Test
+    @AllocationBudget(0)
+    public void testSymbolLegendre() {
+        System.out.println("symbolLegendre");
+        int[] primes = {3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47, 53, 59};
+        int[] as = randomInts(1729, -500, 500);
+        allocations.measure("symbolLegendre", i -> sink += NumberTheoreticFunctionsCalculator.symbolLegendre(as[i & INPUT_MASK], primes[i & 15]));
+    }
+
+    /**
+     * Test of compareTo method, of class Fraction. Comparing cross products
+     * as 128-bit integers should allocate nothing.
+     */
+    @Test
+    @AllocationBudget(0)
+    public void testFractionCompareTo() {
+        System.out.println("Fraction.compareTo");
+        SplittableRandom random = new SplittableRandom(1729);
+        Fraction[] fractions = new Fraction[INPUT_MASK + 1];
+        for (int i = 0; i < fractions.length; i++) {
+            fractions[i] = new Fraction(random.nextLong(-Long.MAX_VALUE, Long.MAX_VALUE), random.nextLong(1, Long.MAX_VALUE));
+        }
+        allocations.measure("Fraction.compareTo", i -> sink += fractions[i & INPUT_MASK].compareTo(fractions[(i + 1) & INPUT_MASK]));
+    }
+
+    /**
+     * Test of parseInto method, of class FractionParser. Parsing well-formed
+     * input into a packed array should allocate nothing.
+     */
+    @Test
+    @AllocationBudget(0)
+    public void testFractionParserParseInto() {
+        System.out.println("FractionParser.parseInto");
+        String[] lines = {"1/2", "-355/113", "  22 / 7\r", "-9223372036854775807/9223372036854775806", "0", "+17/-4"};
+        StringBuilder text = new StringBuilder();
+        int[] starts = new int[lines.length + 1];
+        for (int i = 0; i < lines.length; i++) {
+            starts[i] = text.length();
+            text.append(lines[i]);
+        }
+        starts[lines.length] = text.length();
+        ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.US_ASCII));
+        long[] dest = new long[2 * lines.length];
+        allocations.measure("FractionParser.parseInto", i -> {
+            int index = i % lines.length;
+            FractionParser.parseInto(buffer, starts[index], starts[index + 1], dest, index);
+        });
+        assertEquals(-355, dest[2]);
+        assertEquals(113, dest[3]);
+        assertEquals(-17, dest[10]);
+        assertEquals(4, dest[11]);
+    }
+
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package calculators;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the batch functions of NumberTheoreticFunctionsCalculator, which
+ * run on BatchTrialDivision, and for the PackedFactorizations they give. The
+ * results are checked against the functions for one number at a time, on a
+ * pool of one thread and on a pool of several.
+ * @author Alonso del Arte
+ */
+public class BatchTrialDivisionTest {
+
+    private static final int BATCH_SIZE = 200000;
+
+    /**
+     * The numbers in the batch are between &minus;10<sup>8</sup> and
+     * 10<sup>8</sup>, so that checking them one at a time doesn't take too
+     * long.
+     */
+    private static final long BATCH_BOUND = 100000000L;
+
+    /**
+     * Numbers up to this are also checked against {@link
+     * NumberTheoreticFunctionsCalculator#primeFactors(int)}, which divides
+     * all the way up to the largest prime factor.
+     */
+    private static final int SMALL_BOUND = 100000;
+
+    private static final long[] EDGE_CASES = {0, 1, -1, 2, -2, 3, -3, 4,
+        Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE + 1, Integer.MAX_VALUE,
+        Integer.MIN_VALUE};
+
+    private static ForkJoinPool singleThreadPool;
+
+    private static ForkJoinPool multiThreadPool;
+
+    private static long[] batch;
+
+    /**
+     * Bit <i>n</i> is set if <i>n</i> is prime, up to {@link #BATCH_BOUND}.
+     */
+    private static BitSet primes;
+
+    @BeforeClass
+    public static void setUpClass() {
+        singleThreadPool = new ForkJoinPool(1);
+        multiThreadPool = new ForkJoinPool(4);
+        SplittableRandom random = new SplittableRandom(1729);
+        batch = new long[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            if (i % 3 == 0) {
+                batch[i] = random.nextLong(-SMALL_BOUND, SMALL_BOUND + 1);
+            } else {
+                batch[i] = random.nextLong(-BATCH_BOUND, BATCH_BOUND + 1);
+            }
+        }
+        primes = PrimeSieve.bitmap(0, BATCH_BOUND + 1);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        singleThreadPool.shutdown();
+        multiThreadPool.shutdown();
+    }
+
+    /**
+     * Checks that a factorization is of the given number, that &minus;1 comes
+     * first if the number is negative, and that the rest are primes in
+     * ascending order.
+     */
+    private static void assertFactorization(long num, long[] factors) {
+        String msg = "Factorization of " + num;
+        if (num == 0) {
+            assertArrayEquals(msg, new long[]{0}, factors);
+            return;
+        }
+        int start = 0;
+        if (num < 0) {
+            assertTrue(msg + " should start with -1", factors.length > 0 && factors[0] == -1);
+            start = 1;
+        }
+        long product = 1;
+        long previous = 2;
+        for (int i = start; i < factors.length; i++) {
+            assertTrue(msg + " should be in ascending order", factors[i] >= previous);
+            assertTrue(msg + " has " + factors[i] + ", which is not prime", primes.get((int) factors[i]));
+            product *= factors[i];
+            previous = factors[i];
+        }
+        assertEquals(msg, Math.abs(num), product);
+    }
+
+    /**
+     * Test of isPrime method, of class NumberTheoreticFunctionsCalculator, for
+     * an array of 200,000 numbers. The result should match {@link
+     * NumberTheoreticFunctionsCalculator#isPrime(long)} for each number.
+     */
+    @Test
+    public void testIsPrimeBatch() {
+        System.out.println("isPrime(long[])");
+        BitSet single = NumberTheoreticFunctionsCalculator.isPrime(batch, singleThreadPool);
+        BitSet multi = NumberTheoreticFunctionsCalculator.isPrime(batch, multiThreadPool);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            boolean expected = NumberTheoreticFunctionsCalculator.isPrime(batch[i]);
+            assertEquals("isPrime(" + batch[i] + ")", expected, single.get(i));
+        }
+        assertEquals("Results should not depend on parallelism", single, multi);
+        assertEquals(single, NumberTheoreticFunctionsCalculator.isPrime(batch));
+    }
+
+    /**
+     * Test of factorAll method, of class NumberTheoreticFunctionsCalculator,
+     * for an array of 200,000 numbers. Each factorization should multiply
+     * out to the number, and match {@link
+     * NumberTheoreticFunctionsCalculator#primeFactors(int)} for the smaller
+     * numbers.
+     */
+    @Test
+    public void testFactorAllBatch() {
+        System.out.println("factorAll");
+        PackedFactorizations single = NumberTheoreticFunctionsCalculator.factorAll(batch, singleThreadPool);
+        PackedFactorizations multi = NumberTheoreticFunctionsCalculator.factorAll(batch, multiThreadPool);
+        assertEquals(BATCH_SIZE, single.size());
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            long[] factors = single.factorsOf(i);
+            assertFactorization(batch[i], factors);
+            if (Math.abs(batch[i]) <= SMALL_BOUND) {
+                List<Integer> expected = NumberTheoreticFunctionsCalculator.primeFactors((int) batch[i]);
+                long[] expectedArray = expected.stream().mapToLong(Integer::longValue).toArray();
+                if (batch[i] == 1) {
+                    expectedArray = new long[0];
+                }
+                assertArrayEquals("Factors of " + batch[i], expectedArray, factors);
+            }
+        }
+        assertArrayEquals("Offsets should not depend on parallelism", single.getOffsets(), multi.getOffsets());
+        assertArrayEquals("Factors should not depend on parallelism", single.getFactors(), multi.getFactors());
+    }
+
+    /**
+     * Test of isPrime and factorAll methods, of class
+     * NumberTheoreticFunctionsCalculator, for an empty array.
+     */
+    @Test
+    public void testEmptyBatch() {
+        System.out.println("isPrime(long[]), factorAll (empty)");
+        long[] empty = {};
+        assertTrue(NumberTheoreticFunctionsCalculator.isPrime(empty, multiThreadPool).isEmpty());
+        PackedFactorizations factorizations = NumberTheoreticFunctionsCalculator.factorAll(empty, multiThreadPool);
+        assertEquals(0, factorizations.size());
+        assertArrayEquals(new int[]{0}, factorizations.getOffsets());
+        assertEquals(0, factorizations.getFactors().length);
+    }
+
+    /**
+     * Test of isPrime and factorAll methods, of class
+     * NumberTheoreticFunctionsCalculator, for 0, &plusmn;1, &plusmn;2, and
+     * the extremes of <code>long</code> and <code>int</code>.
+     */
+    @Test
+    public void testEdgeCases() {
+        System.out.println("isPrime(long[]), factorAll (edge cases)");
+        for (ForkJoinPool pool : new ForkJoinPool[]{singleThreadPool, multiThreadPool}) {
+            BitSet primality = NumberTheoreticFunctionsCalculator.isPrime(EDGE_CASES, pool);
+            for (int i = 0; i < EDGE_CASES.length; i++) {
+                boolean expected = NumberTheoreticFunctionsCalculator.isPrime(EDGE_CASES[i]);
+                assertEquals("isPrime(" + EDGE_CASES[i] + ")", expected, primality.get(i));
+            }
+            PackedFactorizations factorizations = NumberTheoreticFunctionsCalculator.factorAll(EDGE_CASES, pool);
+            assertArrayEquals(new long[]{0}, factorizations.factorsOf(0));
+            assertArrayEquals(new long[0], factorizations.factorsOf(1));
+            assertArrayEquals(new long[]{-1}, factorizations.factorsOf(2));
+            assertArrayEquals(new long[]{2}, factorizations.factorsOf(3));
+            assertArrayEquals(new long[]{-1, 2}, factorizations.factorsOf(4));
+            long[] minFactors = factorizations.factorsOf(8);
+            assertEquals(64, minFactors.length);
+            assertEquals(-1L, minFactors[0]);
+            for (int i = 1; i < minFactors.length; i++) {
+                assertEquals(2L, minFactors[i]);
+            }
+            long[] maxFactors = {7, 7, 73, 127, 337, 92737, 649657};
+            assertArrayEquals(maxFactors, factorizations.factorsOf(9));
+            long[] nearMinFactors = {-1, 7, 7, 73, 127, 337, 92737, 649657};
+            assertArrayEquals(nearMinFactors, factorizations.factorsOf(10));
+            assertArrayEquals(new long[]{Integer.MAX_VALUE}, factorizations.factorsOf(11));
+            assertEquals(32, factorizations.factorCount(12));
+        }
+    }
+
+    /**
+     * Test of factor and factorCount methods, of class PackedFactorizations.
+     */
+    @Test
+    public void testPackedFactorizations() {
+        System.out.println("PackedFactorizations");
+        long[] nums = {44100, -7, 0, 1};
+        PackedFactorizations factorizations = NumberTheoreticFunctionsCalculator.factorAll(nums, singleThreadPool);
+        assertEquals(4, factorizations.size());
+        assertArrayEquals(new int[]{0, 8, 10, 11, 11}, factorizations.getOffsets());
+        assertEquals(8, factorizations.factorCount(0));
+        assertEquals(7L, factorizations.factor(0, 7));
+        assertEquals(7L, factorizations.factor(1, 1));
+        assertEquals(0, factorizations.factorCount(3));
+        long[] factors = factorizations.getFactors();
+        factors[0] = 1729;
+        assertEquals("Copy should not change the factorizations", 2L, factorizations.factor(0, 0));
+    }
+
+    /**
+     * Test of factor method, of class PackedFactorizations, for a factor past
+     * the end of a number's factors. It should not give the next number's
+     * first factor.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testFactorOutOfRange() {
+        System.out.println("factor (out of range)");
+        long[] nums = {6, 35};
+        PackedFactorizations factorizations = NumberTheoreticFunctionsCalculator.factorAll(nums, singleThreadPool);
+        long factor = factorizations.factor(0, 2);
+        System.out.println("Somehow got factor " + factor);
+    }
+
+}
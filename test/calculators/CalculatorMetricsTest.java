@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package calculators;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the CalculatorMetrics class. The counters only work if the JVM
+ * was started with <code>-Dcalculators.metrics=true</code>, which the build
+ * does for the unit tests. Otherwise these tests are skipped.
+ * @author Alonso del Arte
+ */
+public class CalculatorMetricsTest {
+
+    private final CalculatorMetrics metrics = CalculatorMetrics.getInstance();
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("Calculator metrics are not enabled", CalculatorMetrics.ENABLED);
+        this.metrics.reset();
+    }
+
+    /**
+     * Test of getCallCount and getTotalNanos methods, of class
+     * CalculatorMetrics.
+     */
+    @Test
+    public void testGetCallCount() {
+        System.out.println("getCallCount");
+        for (int i = 0; i < 3; i++) {
+            NumberTheoreticFunctionsCalculator.isPrime(1729L);
+        }
+        NumberTheoreticFunctionsCalculator.euclideanGCD(1729L, 4104L);
+        assertEquals(3L, this.metrics.getCallCount(CalculatorMetrics.Operation.IS_PRIME));
+        assertEquals(1L, this.metrics.getCallCount(CalculatorMetrics.Operation.EUCLIDEAN_GCD));
+        assertEquals(0L, this.metrics.getCallCount(CalculatorMetrics.Operation.FIELD_CLASS_NUMBER));
+        assertTrue(this.metrics.getTotalNanos(CalculatorMetrics.Operation.IS_PRIME) > 0L);
+        Map<String, Long> callCounts = this.metrics.getCallCounts();
+        assertEquals(Long.valueOf(3L), callCounts.get("IS_PRIME"));
+        assertEquals(CalculatorMetrics.Operation.values().length, callCounts.size());
+    }
+
+    /**
+     * Test of getTrialDivisions method, of class CalculatorMetrics. Finding
+     * that 97 is prime takes trial divisions by 3, 5, 7 and 9.
+     */
+    @Test
+    public void testGetTrialDivisions() {
+        System.out.println("getTrialDivisions");
+        assertTrue(NumberTheoreticFunctionsCalculator.isPrime(97L));
+        assertEquals(4L, this.metrics.getTrialDivisions());
+        assertTrue(NumberTheoreticFunctionsCalculator.isPrime(97L));
+        assertEquals(8L, this.metrics.getTrialDivisions());
+    }
+
+    /**
+     * Test of getCallCount method, of class CalculatorMetrics, for a batch
+     * primality test. The batch should count as one call, not one call per
+     * number.
+     */
+    @Test
+    public void testGetCallCountBatch() {
+        System.out.println("getCallCount (batch)");
+        long[] nums = {1, 2, 3, 4, 5, -7, 91, 1729, 1000003};
+        NumberTheoreticFunctionsCalculator.isPrime(nums);
+        assertEquals(1L, this.metrics.getCallCount(CalculatorMetrics.Operation.IS_PRIME_BATCH));
+        assertEquals(0L, this.metrics.getCallCount(CalculatorMetrics.Operation.IS_PRIME));
+    }
+
+    /**
+     * Test of reset method, of class CalculatorMetrics.
+     */
+    @Test
+    public void testReset() {
+        System.out.println("reset");
+        NumberTheoreticFunctionsCalculator.isPrime(1000003L);
+        CalculatorMetrics.ringConstructed();
+        assertTrue(this.metrics.getTrialDivisions() > 0L);
+        assertEquals(1L, this.metrics.getRingConstructions());
+        this.metrics.reset();
+        assertEquals(0L, this.metrics.getTrialDivisions());
+        assertEquals(0L, this.metrics.getRingConstructions());
+        assertEquals(0L, this.metrics.getCallCount(CalculatorMetrics.Operation.IS_PRIME));
+        assertEquals(0L, this.metrics.getTotalNanos(CalculatorMetrics.Operation.IS_PRIME));
+        assertEquals(0L, this.metrics.getFactorizationCacheHits());
+        assertEquals(0L, this.metrics.getFactorizationCacheMisses());
+    }
+
+    /**
+     * Test of the registration of CalculatorMetrics with the platform MBean
+     * server, under {@link CalculatorMetrics#OBJECT_NAME}. The counters
+     * should be readable as attributes.
+     * @throws JMException If the MBean can't be found or read.
+     */
+    @Test
+    public void testRegistration() throws JMException {
+        System.out.println("MBean registration");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(CalculatorMetrics.OBJECT_NAME);
+        assertTrue(server.isRegistered(name));
+        assertEquals(Boolean.TRUE, server.getAttribute(name, "Enabled"));
+        NumberTheoreticFunctionsCalculator.isPrime(97L);
+        assertEquals(4L, server.getAttribute(name, "TrialDivisions"));
+        server.invoke(name, "reset", new Object[0], new String[0]);
+        assertEquals(0L, server.getAttribute(name, "TrialDivisions"));
+    }
+
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package calculators;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the FactorizationCache class. The cache is shared by the whole
+ * JVM, so each test turns it on and empties it first, and puts it back the
+ * way it was afterwards.
+ * @author Alonso del Arte
+ */
+public class FactorizationCacheTest {
+
+    private boolean wasEnabled;
+
+    private final AtomicInteger computations = new AtomicInteger();
+
+    /**
+     * Factors by trial division, counting how many times it's called.
+     */
+    private final IntFunction<int[]> countingFactorizer = num -> {
+        this.computations.incrementAndGet();
+        return referenceFactors(num);
+    };
+
+    private static int[] referenceFactors(int num) {
+        List<Integer> factors = new ArrayList<>();
+        long n = num;
+        if (n == 0) {
+            factors.add(0);
+        } else {
+            if (n < 0) {
+                factors.add(-1);
+                n = -n;
+            }
+            for (long p = 2; p * p <= n; p++) {
+                while (n % p == 0) {
+                    factors.add((int) p);
+                    n /= p;
+                }
+            }
+            if (n > 1) {
+                factors.add((int) n);
+            }
+        }
+        return factors.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Finds numbers that all go in the same stripe.
+     * @param howMany How many numbers to find.
+     * @return Numbers greater than 1 in the same stripe as 2.
+     */
+    private static int[] sameStripe(int howMany) {
+        int stripe = FactorizationCache.stripeIndex(2);
+        int[] nums = new int[howMany];
+        int count = 0;
+        for (int n = 2; count < howMany; n++) {
+            if (FactorizationCache.stripeIndex(n) == stripe) {
+                nums[count++] = n;
+            }
+        }
+        return nums;
+    }
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("Factorization cache capacity is 0", FactorizationCache.CAPACITY > 0);
+        this.wasEnabled = FactorizationCache.isEnabled();
+        FactorizationCache.setEnabled(true);
+        FactorizationCache.clear();
+        FactorizationCache.resetStatistics();
+    }
+
+    @After
+    public void tearDown() {
+        FactorizationCache.setEnabled(this.wasEnabled);
+        FactorizationCache.clear();
+        FactorizationCache.resetStatistics();
+    }
+
+    /**
+     * Test of factorize method, of class FactorizationCache. The second time
+     * a number is asked for, it should come from the cache.
+     */
+    @Test
+    public void testFactorize() {
+        System.out.println("factorize");
+        int[] expected = {2, 2, 3, 3, 5, 5, 7, 7};
+        assertArrayEquals(expected, FactorizationCache.factorize(44100, this.countingFactorizer));
+        assertArrayEquals(expected, FactorizationCache.factorize(44100, this.countingFactorizer));
+        assertEquals(1, this.computations.get());
+        assertEquals(1, FactorizationCache.size());
+    }
+
+    /**
+     * Test of getHitCount, getMissCount, getHitRate and resetStatistics
+     * methods, of class FactorizationCache.
+     */
+    @Test
+    public void testStatistics() {
+        System.out.println("getHitCount, getMissCount, getHitRate");
+        assertEquals(0.0, FactorizationCache.getHitRate(), 0.0);
+        for (int i = 0; i < 4; i++) {
+            FactorizationCache.factorize(-1729, this.countingFactorizer);
+        }
+        FactorizationCache.factorize(1728, this.countingFactorizer);
+        assertEquals(3L, FactorizationCache.getHitCount());
+        assertEquals(2L, FactorizationCache.getMissCount());
+        assertEquals(0.6, FactorizationCache.getHitRate(), 0.0000001);
+        FactorizationCache.resetStatistics();
+        assertEquals(0L, FactorizationCache.getHitCount());
+        assertEquals(0L, FactorizationCache.getMissCount());
+        assertEquals(0.0, FactorizationCache.getHitRate(), 0.0);
+        assertEquals("Resetting statistics should not empty the cache", 2, FactorizationCache.size());
+    }
+
+    /**
+     * Test of the eviction by FactorizationCache. When a stripe is full, the
+     * least recently used number in it should be evicted, not the least
+     * recently added.
+     */
+    @Test
+    public void testEviction() {
+        System.out.println("eviction");
+        int capacity = FactorizationCache.STRIPE_CAPACITY;
+        int[] nums = sameStripe(capacity + 1);
+        for (int i = 0; i < capacity; i++) {
+            FactorizationCache.factorize(nums[i], this.countingFactorizer);
+        }
+        assertEquals(capacity, FactorizationCache.size());
+        FactorizationCache.factorize(nums[0], this.countingFactorizer);
+        FactorizationCache.factorize(nums[capacity], this.countingFactorizer);
+        assertEquals("Stripe should stay at capacity", capacity, FactorizationCache.size());
+        assertEquals(capacity + 1, this.computations.get());
+        FactorizationCache.factorize(nums[0], this.countingFactorizer);
+        assertEquals("Recently used number should not have been evicted", capacity + 1, this.computations.get());
+        if (capacity > 1) {
+            FactorizationCache.factorize(nums[1], this.countingFactorizer);
+            assertEquals("Least recently used number should have been evicted", capacity + 2, this.computations.get());
+        }
+    }
+
+    /**
+     * Test of setEnabled method, of class FactorizationCache. Turning the
+     * cache off should empty it, and while it's off every factorization
+     * should be computed and nothing counted as a hit or a miss.
+     */
+    @Test
+    public void testSetEnabled() {
+        System.out.println("setEnabled");
+        FactorizationCache.factorize(44100, this.countingFactorizer);
+        FactorizationCache.setEnabled(false);
+        assertFalse(FactorizationCache.isEnabled());
+        assertEquals(0, FactorizationCache.size());
+        FactorizationCache.factorize(44100, this.countingFactorizer);
+        FactorizationCache.factorize(44100, this.countingFactorizer);
+        assertEquals(3, this.computations.get());
+        assertEquals(0, FactorizationCache.size());
+        assertEquals(0L, FactorizationCache.getHitCount());
+        assertEquals(1L, FactorizationCache.getMissCount());
+        FactorizationCache.setEnabled(true);
+        assertTrue(FactorizationCache.isEnabled());
+        FactorizationCache.factorize(44100, this.countingFactorizer);
+        FactorizationCache.factorize(44100, this.countingFactorizer);
+        assertEquals(4, this.computations.get());
+    }
+
+    /**
+     * Test of clear method, of class FactorizationCache.
+     */
+    @Test
+    public void testClear() {
+        System.out.println("clear");
+        for (int n = 2; n < 20; n++) {
+            FactorizationCache.factorize(n, this.countingFactorizer);
+        }
+        assertTrue(FactorizationCache.size() > 0);
+        FactorizationCache.clear();
+        assertEquals(0, FactorizationCache.size());
+        assertEquals("Clearing should not reset the statistics", 18L, FactorizationCache.getMissCount());
+        FactorizationCache.factorize(2, this.countingFactorizer);
+        assertEquals(19, this.computations.get());
+    }
+
+    /**
+     * Test of the FactorizationCache class with several threads factoring
+     * the same numbers at once through {@link
+     * NumberTheoreticFunctionsCalculator#primeFactors(int)}. Every
+     * factorization should match trial division, whether it came from the
+     * cache or not.
+     * @throws Exception If a thread fails.
+     */
+    @Test
+    public void testConcurrentFactorizations() throws Exception {
+        System.out.println("concurrent factorizations");
+        int threadCount = 4;
+        int range = FactorizationCache.CAPACITY;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                int offset = t * 7919;
+                futures.add(executor.submit(() -> {
+                    int checked = 0;
+                    for (int pass = 0; pass < 3; pass++) {
+                        for (int i = 0; i < range; i++) {
+                            int num = ((i + offset) % range) - range / 2;
+                            int[] expected = referenceFactors(num);
+                            List<Integer> actual = NumberTheoreticFunctionsCalculator.primeFactors(num);
+                            int[] actualArray = actual.stream().mapToInt(Integer::intValue).toArray();
+                            assertArrayEquals("Factors of " + num, expected, actualArray);
+                            checked++;
+                        }
+                    }
+                    return checked;
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                assertEquals(Integer.valueOf(3 * range), future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(FactorizationCache.size() <= FactorizationCache.STRIPE_CAPACITY * FactorizationCache.STRIPE_COUNT);
+        assertTrue("Some factorizations should have come from the cache", FactorizationCache.getHitCount() > 0);
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package calculators;
+
+import algebraics.quadratics.ImaginaryQuadraticRing;
+import algebraics.quadratics.RealQuadraticRing;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the NumberTheoryOperationEvent class, through the functions of
+ * NumberTheoreticFunctionsCalculator that record it.
+ * @author Alonso del Arte
+ */
+public class NumberTheoryOperationEventTest {
+
+    /**
+     * Runs an action under a Java Flight Recorder recording of {@link
+     * NumberTheoryOperationEvent} and gives the events recorded.
+     * @param threshold The threshold for the recording, or null to leave the
+     * default threshold.
+     * @param action What to record.
+     * @return The events recorded, in the order they were committed.
+     * @throws IOException If the recording can't be written or read back.
+     */
+    private static List<RecordedEvent> record(Duration threshold, Runnable action) throws IOException {
+        Path file = Files.createTempFile("operations", ".jfr");
+        try (Recording recording = new Recording()) {
+            if (threshold == null) {
+                recording.enable(NumberTheoryOperationEvent.NAME);
+            } else {
+                recording.enable(NumberTheoryOperationEvent.NAME).withThreshold(threshold);
+            }
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+            List<RecordedEvent> events = new ArrayList<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().equals(NumberTheoryOperationEvent.NAME)) {
+                    events.add(event);
+                }
+            }
+            return events;
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Test of the event recorded by fieldClassNumber. For
+     * <b>Z</b>[&radic;&minus;5], the Kronecker symbols (&minus;20 | <i>i</i>)
+     * are summed for <i>i</i> from 1 to 19.
+     * @throws IOException If the recording can't be written or read back.
+     */
+    @Test
+    public void testFieldClassNumberEvent() throws IOException {
+        System.out.println("fieldClassNumber event");
+        ImaginaryQuadraticRing ring = new ImaginaryQuadraticRing(-5);
+        List<RecordedEvent> events = record(Duration.ZERO,
+                () -> assertEquals(2, NumberTheoreticFunctionsCalculator.fieldClassNumber(ring)));
+        assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        assertEquals("fieldClassNumber", event.getString("operation"));
+        assertEquals(-5, event.getInt("radicand"));
+        assertEquals(ring.toASCIIString(), event.getString("input"));
+        assertEquals(19L, event.getLong("iterations"));
+    }
+
+    /**
+     * Test of the event recorded by fundamentalUnit. The class number of a
+     * real quadratic ring needs its fundamental unit, so both calls should be
+     * recorded, the fundamental unit first since it finishes first.
+     * @throws IOException If the recording can't be written or read back.
+     */
+    @Test
+    public void testFundamentalUnitEvent() throws IOException {
+        System.out.println("fundamentalUnit event");
+        RealQuadraticRing ring = new RealQuadraticRing(7);
+        List<RecordedEvent> events = record(Duration.ZERO,
+                () -> assertEquals(1, NumberTheoreticFunctionsCalculator.fieldClassNumber(ring)));
+        assertEquals(2, events.size());
+        RecordedEvent unitEvent = events.get(0);
+        assertEquals("fundamentalUnit", unitEvent.getString("operation"));
+        assertEquals(7, unitEvent.getInt("radicand"));
+        assertEquals(ring.toASCIIString(), unitEvent.getString("input"));
+        assertTrue(unitEvent.getLong("iterations") > 0L);
+        RecordedEvent classNumberEvent = events.get(1);
+        assertEquals("fieldClassNumber", classNumberEvent.getString("operation"));
+        assertEquals(7, classNumberEvent.getInt("radicand"));
+        assertTrue(classNumberEvent.getLong("iterations") > 0L);
+    }
+
+    /**
+     * Test of the default threshold of NumberTheoryOperationEvent. A quick
+     * call should not be recorded unless the recording asks for it.
+     * @throws IOException If the recording can't be written or read back.
+     */
+    @Test
+    public void testDefaultThreshold() throws IOException {
+        System.out.println("default threshold");
+        ImaginaryQuadraticRing ring = new ImaginaryQuadraticRing(-1);
+        List<RecordedEvent> events = record(null,
+                () -> NumberTheoreticFunctionsCalculator.fieldClassNumber(ring));
+        assertEquals(0, events.size());
+    }
+
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package calculators;
+
+import java.util.BitSet;
+import java.util.PrimitiveIterator;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the PrimeSieve class. The primes it finds are checked against
+ * {@link NumberTheoreticFunctionsCalculator#isPrime(long)}.
+ * @author Alonso del Arte
+ */
+public class PrimeSieveTest {
+
+    private static long[] expectedPrimes(long from, long to) {
+        return LongStream.range(from, to)
+                .filter(n -> n > 1 && NumberTheoreticFunctionsCalculator.isPrime(n))
+                .toArray();
+    }
+
+    private static void assertSieveMatches(long from, long to) {
+        long[] expected = expectedPrimes(from, to);
+        String range = " from " + from + " to " + to;
+        assertArrayEquals("Primes" + range, expected, PrimeSieve.primes(from, to).toArray());
+        assertArrayEquals("Parallel primes" + range, expected, PrimeSieve.primes(from, to, true).toArray());
+        assertEquals("Count" + range, expected.length, PrimeSieve.count(from, to));
+        PrimitiveIterator.OfLong iterator = PrimeSieve.iterator(from, to);
+        for (long p : expected) {
+            assertTrue("Iterator should have " + p + range, iterator.hasNext());
+            assertEquals(p, iterator.nextLong());
+        }
+        assertFalse("Iterator should be done" + range, iterator.hasNext());
+        BitSet bitmap = PrimeSieve.bitmap(from, to);
+        assertEquals("Bitmap cardinality" + range, expected.length, bitmap.cardinality());
+        for (long p : expected) {
+            assertTrue("Bitmap should have " + p + range, bitmap.get((int) (p - from)));
+        }
+    }
+
+    /**
+     * Test of the PrimeSieve class, for every small range, including those
+     * that start or end at 0, 1, 2 or 3.
+     */
+    @Test
+    public void testSmallRanges() {
+        System.out.println("small ranges");
+        for (long from = 0; from < 40; from++) {
+            for (long to = from; to < 60; to++) {
+                assertSieveMatches(from, to);
+            }
+        }
+    }
+
+    /**
+     * Test of the PrimeSieve class, for ranges starting with negative
+     * numbers. The negative numbers should be left out, not treated as
+     * primes.
+     */
+    @Test
+    public void testNegativeFrom() {
+        System.out.println("negative from");
+        assertSieveMatches(-10, 0);
+        assertSieveMatches(-10, 3);
+        assertSieveMatches(-1, 100);
+        assertArrayEquals(expectedPrimes(0, 1000), PrimeSieve.primes(Long.MIN_VALUE, 1000).toArray());
+        assertEquals(168L, PrimeSieve.count(Long.MIN_VALUE, 1000));
+        assertArrayEquals(new long[]{2, 3, 5, 7}, PrimeSieve.primes(-100, 10).toArray());
+    }
+
+    /**
+     * Test of the PrimeSieve class, for ranges starting, ending or crossing
+     * at the boundaries between segments.
+     */
+    @Test
+    public void testSegmentBoundaries() {
+        System.out.println("segment boundaries");
+        long span = PrimeSieve.SEGMENT_SPAN;
+        for (long k = 1; k < 4; k++) {
+            long boundary = k * span;
+            assertSieveMatches(boundary - 100, boundary);
+            assertSieveMatches(boundary, boundary + 100);
+            assertSieveMatches(boundary - 100, boundary + 100);
+            assertSieveMatches(boundary - 1, boundary + 1);
+        }
+        assertSieveMatches(0, span);
+        assertSieveMatches(span - 37, 3 * span + 41);
+    }
+
+    /**
+     * Test of the PrimeSieve class, for ranges ending at or near {@link
+     * PrimeSieve#MAXIMUM_BOUND}.
+     */
+    @Test
+    public void testNearMaximumBound() {
+        System.out.println("near MAXIMUM_BOUND");
+        long max = PrimeSieve.MAXIMUM_BOUND;
+        assertSieveMatches(max - 300, max);
+        assertSieveMatches(max - 1000, max - 700);
+    }
+
+    /**
+     * Test of the PrimeSieve class, for a range beyond {@link
+     * PrimeSieve#MAXIMUM_BOUND}. It should be rejected rather than take up
+     * all the memory.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBeyondMaximumBound() {
+        System.out.println("beyond MAXIMUM_BOUND");
+        long count = PrimeSieve.count(PrimeSieve.MAXIMUM_BOUND - 1000, PrimeSieve.MAXIMUM_BOUND + 1);
+        System.out.println("Somehow counted " + count + " primes beyond the maximum");
+    }
+
+    /**
+     * Test of primes method, of class PrimeSieve. A parallel stream over
+     * many segments should give the same primes in the same order as a
+     * sequential stream.
+     */
+    @Test
+    public void testParallelMatchesSequential() {
+        System.out.println("primes (parallel)");
+        long from = 12345;
+        long to = 9 * PrimeSieve.SEGMENT_SPAN + 6789;
+        long[] sequential = PrimeSieve.primes(from, to, false).toArray();
+        long[] parallel = PrimeSieve.primes(from, to, true).toArray();
+        assertArrayEquals(sequential, parallel);
+        assertEquals(sequential.length, PrimeSieve.count(from, to));
+        assertEquals(sequential.length, PrimeSieve.bitmap(from, to).cardinality());
+    }
+
+    /**
+     * Test of count method, of class PrimeSieve. There are 664579 primes
+     * below ten million.
+     */
+    @Test
+    public void testCount() {
+        System.out.println("count");
+        assertEquals(664579L, PrimeSieve.count(0, 10000000));
+        assertEquals(0L, PrimeSieve.count(100, 100));
+        assertEquals(0L, PrimeSieve.count(100, 10));
+    }
+
+    /**
+     * Test of bitmap method, of class PrimeSieve.
+     */
+    @Test
+    public void testBitmap() {
+        System.out.println("bitmap");
+        BitSet expected = new BitSet();
+        int[] offsets = {1, 3, 7, 9, 13, 27, 31, 37, 39, 49, 51, 57, 63, 67, 73, 79, 81, 91, 93, 97, 99};
+        for (int offset : offsets) {
+            expected.set(offset);
+        }
+        assertEquals(expected, PrimeSieve.bitmap(100, 200));
+    }
+
+    /**
+     * Test of bitmap method, of class PrimeSieve, for a range too long for a
+     * bit set.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBitmapTooLong() {
+        System.out.println("bitmap (too long)");
+        BitSet bitmap = PrimeSieve.bitmap(Long.MIN_VALUE, 1000);
+        System.out.println("Somehow made a bitmap of " + bitmap.length() + " bits");
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fractions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the FareySequence class.
+ * @author Alonso del Arte
+ */
+public class FareySequenceTest {
+
+    /**
+     * Test of iterator method, of class FareySequence. The Farey sequence of
+     * order 5 should be 0, 1/5, 1/4, 1/3, 2/5, 1/2, 3/5, 2/3, 3/4, 4/5, 1.
+     */
+    @Test
+    public void testIterator() {
+        System.out.println("iterator");
+        List<Fraction> expected = new ArrayList<>();
+        expected.add(new Fraction(0));
+        expected.add(new Fraction(1, 5));
+        expected.add(new Fraction(1, 4));
+        expected.add(new Fraction(1, 3));
+        expected.add(new Fraction(2, 5));
+        expected.add(new Fraction(1, 2));
+        expected.add(new Fraction(3, 5));
+        expected.add(new Fraction(2, 3));
+        expected.add(new Fraction(3, 4));
+        expected.add(new Fraction(4, 5));
+        expected.add(new Fraction(1));
+        List<Fraction> actual = new ArrayList<>();
+        for (Fraction fraction : new FareySequence(5)) {
+            actual.add(fraction);
+        }
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Test of size method, of class FareySequence. The sizes of the Farey
+     * sequences of orders 1 to 10 are 2, 3, 5, 7, 11, 13, 19, 23, 29 and 33,
+     * and the Farey sequence of order 100 has 3045 terms.
+     */
+    @Test
+    public void testSize() {
+        System.out.println("size");
+        long[] expecteds = {2, 3, 5, 7, 11, 13, 19, 23, 29, 33};
+        for (int n = 1; n <= 10; n++) {
+            String msg = "Farey sequence of order " + n + " should have " + expecteds[n - 1] + " terms";
+            assertEquals(msg, expecteds[n - 1], new FareySequence(n).size());
+        }
+        assertEquals(3045, new FareySequence(100).size());
+    }
+
+    /**
+     * Test of rank and unrank methods, of class FareySequence. Every term of
+     * the Farey sequence of order 150 should rank as its index, and unrank
+     * back to itself.
+     */
+    @Test
+    public void testRankAndUnrank() {
+        System.out.println("rank");
+        System.out.println("unrank");
+        FareySequence sequence = new FareySequence(150);
+        long index = 0;
+        for (Fraction fraction : sequence) {
+            assertEquals(index, sequence.rank(fraction));
+            assertEquals(fraction, sequence.unrank(index));
+            index++;
+        }
+        assertEquals(sequence.size(), index);
+    }
+
+    /**
+     * Another test of rank method, of class FareySequence. A fraction with a
+     * denominator greater than the order should rank as the greatest term
+     * less than it, and a fraction greater than 1 should be rejected.
+     */
+    @Test
+    public void testRankOutsideSequence() {
+        FareySequence sequence = new FareySequence(5);
+        assertEquals(4, sequence.rank(new Fraction(3, 7)));
+        try {
+            long badRank = sequence.rank(new Fraction(7, 5));
+            String msg = "Ranking 7/5 should not have given " + badRank;
+            fail(msg);
+        } catch (IllegalArgumentException iae) {
+            System.out.println("Trying to rank 7/5 correctly caused IllegalArgumentException");
+            System.out.println("\"" + iae.getMessage() + "\"");
+        }
+    }
+
+    /**
+     * Test of stream method, of class FareySequence. A parallel stream should
+     * give the same terms in the same order as iterating sequentially, and
+     * the same as traversing the primitives with forEachTerm.
+     */
+    @Test
+    public void testStream() {
+        System.out.println("stream");
+        FareySequence sequence = new FareySequence(300);
+        List<Fraction> expected = new ArrayList<>();
+        sequence.forEachTerm((numer, denom) -> expected.add(new Fraction(numer, denom)));
+        assertEquals(sequence.size(), expected.size());
+        List<Fraction> sequential = sequence.stream(false).collect(Collectors.toList());
+        assertEquals(expected, sequential);
+        List<Fraction> parallel = sequence.stream(true).collect(Collectors.toList());
+        assertEquals(expected, parallel);
+    }
+
+}
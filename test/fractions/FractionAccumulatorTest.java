@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fractions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the FractionAccumulator class.
+ * @author Alonso del Arte
+ */
+public class FractionAccumulatorTest {
+
+    /**
+     * Test of add method, of class FractionAccumulator. The sum of the unit
+     * fractions 1/2, 1/3 and 1/6 should be 1.
+     */
+    @Test
+    public void testAdd() {
+        System.out.println("add");
+        FractionAccumulator accumulator = new FractionAccumulator();
+        accumulator.add(new Fraction(1, 2)).add(new Fraction(1, 3)).add(new Fraction(1, 6));
+        Fraction expected = new Fraction(1);
+        assertEquals(expected, accumulator.toFraction());
+        accumulator.add(-3);
+        expected = new Fraction(-2);
+        assertEquals(expected, accumulator.toFraction());
+    }
+
+    /**
+     * Another test of add method, of class FractionAccumulator. The harmonic
+     * number H<sub>20</sub> should come out the same as with {@link
+     * Fraction#plus(Fraction)}, even with a very low reduction threshold.
+     */
+    @Test
+    public void testAddMatchesFractionPlus() {
+        Fraction expected = new Fraction(0);
+        FractionAccumulator accumulator = new FractionAccumulator(4);
+        Fraction unitFract;
+        for (int n = 1; n <= 20; n++) {
+            unitFract = new Fraction(1, n);
+            expected = expected.plus(unitFract);
+            accumulator.add(unitFract);
+        }
+        assertEquals(expected, accumulator.toFraction());
+        assertFalse("H_20 should not need arbitrary precision", accumulator.isArbitraryPrecision());
+    }
+
+    /**
+     * Test that FractionAccumulator switches to arbitrary precision rather
+     * than overflowing. The harmonic number H<sub>60</sub> has a denominator
+     * that does not fit in 64 bits, but subtracting the same unit fractions
+     * again should bring the sum back to 0 exactly.
+     */
+    @Test
+    public void testSwitchToArbitraryPrecision() {
+        FractionAccumulator accumulator = new FractionAccumulator();
+        for (int n = 1; n <= 60; n++) {
+            accumulator.add(new Fraction(1, n));
+        }
+        assertTrue("H_60 should need arbitrary precision", accumulator.isArbitraryPrecision());
+        double expected = 4.67987041295;
+        assertEquals(expected, accumulator.getNumericApproximation(), FractionTest.TEST_DELTA);
+        try {
+            Fraction result = accumulator.toFraction();
+            String msg = "H_60 should not fit in a Fraction, yet it gave " + result.toString();
+            fail(msg);
+        } catch (ArithmeticException ae) {
+            System.out.println("Trying to get H_60 as a Fraction correctly caused ArithmeticException");
+            System.out.println("\"" + ae.getMessage() + "\"");
+        }
+        for (int n = 1; n <= 60; n++) {
+            accumulator.add(new Fraction(-1, n));
+        }
+        assertEquals(new Fraction(0), accumulator.toFraction());
+    }
+
+    /**
+     * Test of combine method, of class FractionAccumulator.
+     */
+    @Test
+    public void testCombine() {
+        System.out.println("combine");
+        FractionAccumulator accumulatorA = new FractionAccumulator();
+        accumulatorA.add(new Fraction(7, 8));
+        FractionAccumulator accumulatorB = new FractionAccumulator();
+        accumulatorB.add(new Fraction(1, 3));
+        accumulatorA.combine(accumulatorB);
+        Fraction expected = new Fraction(29, 24);
+        assertEquals(expected, accumulatorA.toFraction());
+        expected = new Fraction(1, 3);
+        assertEquals(expected, accumulatorB.toFraction());
+    }
+
+    /**
+     * Test of collector method, of class FractionAccumulator. Summing on a
+     * parallel stream should give the same result as summing sequentially.
+     */
+    @Test
+    public void testCollector() {
+        System.out.println("collector");
+        List<Fraction> fractions = new ArrayList<>();
+        Fraction expected = new Fraction(0);
+        Fraction fraction;
+        for (int denom = 1; denom < 1000; denom++) {
+            fraction = new Fraction(denom % 7 - 3, denom % 12 + 1);
+            fractions.add(fraction);
+            expected = expected.plus(fraction);
+        }
+        Fraction actual = fractions.parallelStream().collect(FractionAccumulator.collector());
+        assertEquals(expected, actual);
+    }
+
+}
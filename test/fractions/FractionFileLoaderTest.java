@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fractions;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the FractionFileLoader class. Most of these load the same file
+ * with several chunk sizes, so that the chunk boundaries fall in different
+ * places, including the middle of lines.
+ * @author Alonso del Arte
+ */
+public class FractionFileLoaderTest {
+
+    private static final int[] CHUNK_SIZES = {1, 2, 3, 5, 7, 11, 64, FractionFileLoader.DEFAULT_CHUNK_SIZE};
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        this.file = Files.createTempFile("fractions", ".txt");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file);
+    }
+
+    private void write(String contents) throws IOException {
+        Files.write(this.file, contents.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void assertLoads(long[] expected) throws IOException {
+        for (int chunkSize : CHUNK_SIZES) {
+            FractionFileLoader.LoadResult result = FractionFileLoader.load(this.file, chunkSize);
+            assertArrayEquals("Chunk size " + chunkSize, expected, result.getPackedFractions());
+            assertEquals(expected.length / 2, result.size());
+            assertEquals(Files.size(this.file), result.getByteCount());
+        }
+    }
+
+    /**
+     * Test of load method, of class FractionFileLoader. Whatever the chunk
+     * size, every line should be parsed whole exactly once, in order.
+     * @throws IOException If the temporary file can't be written or read.
+     */
+    @Test
+    public void testLoad() throws IOException {
+        System.out.println("load");
+        StringBuilder contents = new StringBuilder();
+        long[] expected = new long[2 * 500];
+        for (int i = 0; i < 500; i++) {
+            long numer = (i % 2 == 0) ? i * 7919L : -i;
+            long denom = i + 1;
+            contents.append(numer).append('/').append(denom).append('\n');
+            FractionParser.pack(numer, denom, expected, i);
+        }
+        this.write(contents.toString());
+        assertLoads(expected);
+        FractionFileLoader.LoadResult result = FractionFileLoader.load(this.file, 7);
+        assertEquals(new Fraction(7919 * 2, 3), result.getFraction(2));
+    }
+
+    /**
+     * Test of load method, of class FractionFileLoader, for a file with
+     * Windows line endings. The carriage returns should be ignored, even when
+     * a chunk boundary falls between one and its line feed.
+     * @throws IOException If the temporary file can't be written or read.
+     */
+    @Test
+    public void testLoadCRLF() throws IOException {
+        System.out.println("load (CRLF)");
+        this.write("1/2\r\n-22/7\r\n5\r\n\r\n 3/4 \r\n");
+        assertLoads(new long[]{1, 2, -22, 7, 5, 1, 3, 4});
+    }
+
+    /**
+     * Test of load method, of class FractionFileLoader, for a file whose last
+     * line has no newline at the end. The last line should still be loaded.
+     * @throws IOException If the temporary file can't be written or read.
+     */
+    @Test
+    public void testLoadNoFinalNewline() throws IOException {
+        System.out.println("load (no final newline)");
+        this.write("1/2\n3/4\n-5/6");
+        assertLoads(new long[]{1, 2, 3, 4, -5, 6});
+    }
+
+    /**
+     * Test of load method, of class FractionFileLoader, for an empty file
+     * and for a file of blank lines.
+     * @throws IOException If the temporary file can't be written or read.
+     */
+    @Test
+    public void testLoadEmpty() throws IOException {
+        System.out.println("load (empty)");
+        this.write("");
+        assertLoads(new long[0]);
+        this.write("\n  \n\r\n\n");
+        assertLoads(new long[0]);
+    }
+
+    /**
+     * Test of load method, of class FractionFileLoader, for a file with a
+     * line that is not a fraction.
+     * @throws IOException If the temporary file can't be written or read.
+     */
+    @Test(expected = NumberFormatException.class)
+    public void testLoadBadLine() throws IOException {
+        System.out.println("load (bad line)");
+        this.write("1/2\nthree quarters\n5/6\n");
+        FractionFileLoader.LoadResult result = FractionFileLoader.load(this.file, 5);
+        System.out.println("Somehow loaded " + result.size() + " fractions");
+    }
+
+    /**
+     * Test of load method, of class FractionFileLoader, for a chunk size of
+     * 0.
+     * @throws IOException If the temporary file can't be written or read.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoadBadChunkSize() throws IOException {
+        System.out.println("load (bad chunk size)");
+        this.write("1/2\n");
+        FractionFileLoader.LoadResult result = FractionFileLoader.load(this.file, 0);
+        System.out.println("Somehow loaded " + result.size() + " fractions");
+    }
+
+}
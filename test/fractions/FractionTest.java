@@ -18,6 +18,7 @@ package fractions;
 
 import calculators.NumberTheoreticFunctionsCalculator;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -26,6 +27,7 @@ import java.util.List;
 import javax.naming.InvalidNameException;
 import javax.naming.ldap.Rdn;
 
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -520,6 +522,47 @@ public class FractionTest {
         assertEquals(expResult, result, TEST_DELTA);
     }
 
+    /**
+     * Measures how many bytes each new <code>Fraction</code> object takes up,
+     * with the allocated bytes counter of the current thread. With just two
+     * <code>long</code> fields, a fraction should take 32 bytes on a typical
+     * 64-bit virtual machine with compressed class pointers, less than the 40
+     * bytes it took when it also held a <code>double</code>. The counter picks
+     * up a little bookkeeping besides the fractions, so the assertions only
+     * check that the average is below 40 bytes. This test is skipped on
+     * virtual machines that don't count allocations per thread.
+     */
+    @Test
+    public void testFootprint() {
+        System.out.println("Fraction footprint");
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+        int count = 100000;
+        Fraction[] integers = new Fraction[count];
+        Fraction[] fractions = new Fraction[count];
+        long threadID = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadID);
+        for (int i = 0; i < count; i++) {
+            integers[i] = new Fraction(i);
+        }
+        long between = threadBean.getThreadAllocatedBytes(threadID);
+        for (int i = 0; i < count; i++) {
+            fractions[i] = new Fraction(2 * i, 2 * i + 1);
+        }
+        long after = threadBean.getThreadAllocatedBytes(threadID);
+        double integerBytes = (double) (between - before) / count;
+        double fractionBytes = (double) (after - between) / count;
+        System.out.println("Allocated " + integerBytes + " bytes per integer Fraction, " + fractionBytes + " bytes per Fraction in lowest terms");
+        String msg = "Each Fraction should take less than 40 bytes, not " + integerBytes;
+        assertTrue(msg, integerBytes < 40.0);
+        msg = "Each Fraction in lowest terms should take less than 40 bytes, not " + fractionBytes;
+        assertTrue(msg, fractionBytes < 40.0);
+        assertEquals(new Fraction(count - 1), integers[count - 1]);
+        assertEquals(new Fraction(2 * count - 2, 2 * count - 1), fractions[count - 1]);
+    }
+
     /**
      * Test of reciprocal method, of class Fraction. Checks that applying the
      * reciprocal function to a reciprocal returns the original number. A
@@ -619,6 +662,27 @@ public class FractionTest {
         }
     }
 
+    /**
+     * Another test of parseFract method, of class Fraction. Malformed input,
+     * including a numerator just out of the range of <code>long</code>, should
+     * cause NumberFormatException.
+     */
+    @Test
+    public void testParseFractRejectsMalformedInput() {
+        String[] malformed = {"", "3/", "/3", "1/2/3", "--1", "22/7a", "9223372036854775808"};
+        for (String s : malformed) {
+            try {
+                Fraction fraction = Fraction.parseFract(s);
+                String msg = "Trying to parse \"" + s + "\" should have caused an exception, not given result " + fraction.toString();
+                fail(msg);
+            } catch (NumberFormatException nfe) {
+                System.out.println("Trying to parse \"" + s + "\" correctly caused NumberFormatException");
+            }
+        }
+        Fraction expected = new Fraction(Long.MIN_VALUE);
+        assertEquals(expected, Fraction.parseFract("-9223372036854775808"));
+    }
+
     /**
      * Test of Fraction constructor. Even if the constructor parameters are not
      * in lowest terms, the constructor should change them to lowest terms.
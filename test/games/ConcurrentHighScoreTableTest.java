@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alonso del Arte
+ */
+public class ConcurrentHighScoreTableTest {
+
+    private static final long BASE_TIME = 1593561600000L;
+
+    private static final int SCORES_PER_RUN = 1 << 17;
+
+    @Test
+    public void testAddHighScore() {
+        System.out.println("addHighScore");
+        ConcurrentHighScoreTable table = new ConcurrentHighScoreTable(5);
+        List<HighScoreTableRecord> all = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            HighScoreTableRecord record = new HighScoreTableRecord("Player" + i, (i * 37) % 101, BASE_TIME + i);
+            all.add(record);
+            table.addHighScore(record);
+        }
+        Collections.sort(all, new ScoreComparator());
+        assertEquals(all.subList(0, 5), table.getRecords());
+        assertFalse(table.qualifies(all.get(4).getScore()));
+        assertTrue(table.qualifies(all.get(4).getScore() + 1));
+    }
+
+    /**
+     * Contention benchmark for addHighScore, with 1 to 64 threads adding
+     * pseudorandom scores at the same time while another thread keeps taking
+     * snapshots. Whatever the number of threads, the table should end up with
+     * the top scores, and every snapshot should be sorted and within capacity.
+     * @throws InterruptedException If the test thread is interrupted while
+     * waiting for the adding threads.
+     */
+    @Test
+    public void testContention() throws InterruptedException {
+        final int capacity = 10;
+        for (int threadCount = 1; threadCount <= 64; threadCount *= 2) {
+            ConcurrentHighScoreTable table = new ConcurrentHighScoreTable(capacity);
+            int perThread = SCORES_PER_RUN / threadCount;
+            CountDownLatch startSignal = new CountDownLatch(1);
+            CountDownLatch doneSignal = new CountDownLatch(threadCount);
+            AtomicInteger snapshotErrors = new AtomicInteger();
+            Thread[] threads = new Thread[threadCount];
+            for (int t = 0; t < threadCount; t++) {
+                final int offset = t * perThread;
+                threads[t] = new Thread(() -> {
+                    try {
+                        startSignal.await();
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                    for (int i = offset; i < offset + perThread; i++) {
+                        int score = (int) ((i * 2654435761L) % 1000003);
+                        if (table.qualifies(score)) {
+                            table.addHighScore(new HighScoreTableRecord("Player" + i, score, BASE_TIME));
+                        }
+                    }
+                    doneSignal.countDown();
+                });
+                threads[t].start();
+            }
+            Thread reader = new Thread(() -> {
+                ScoreComparator comparator = new ScoreComparator();
+                while (doneSignal.getCount() > 0) {
+                    List<HighScoreTableRecord> snapshot = table.getRecords();
+                    if (snapshot.size() > capacity) {
+                        snapshotErrors.incrementAndGet();
+                    }
+                    for (int i = 1; i < snapshot.size(); i++) {
+                        if (comparator.compare(snapshot.get(i - 1), snapshot.get(i)) >= 0) {
+                            snapshotErrors.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            reader.start();
+            long startTime = System.nanoTime();
+            startSignal.countDown();
+            doneSignal.await();
+            long elapsed = System.nanoTime() - startTime;
+            reader.join();
+            int total = perThread * threadCount;
+            System.out.println(threadCount + " threads: " + (long) (total * 1.0E9 / elapsed) + " scores/s");
+            assertEquals(0, snapshotErrors.get());
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < total; i++) {
+                expected.add((int) ((i * 2654435761L) % 1000003));
+            }
+            Collections.sort(expected, Collections.reverseOrder());
+            List<HighScoreTableRecord> records = table.getRecords();
+            assertEquals(capacity, records.size());
+            for (int i = 0; i < capacity; i++) {
+                assertEquals(expected.get(i).intValue(), records.get(i).getScore());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import fractions.Fraction;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashSet;
+import java.util.Scanner;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alonso del Arte
+ */
+public class FractionGuessingGameTest {
+
+    private static final Fraction ZERO = new Fraction(0);
+    private static final Fraction ONE = new Fraction(1);
+
+    @Test
+    public void testChooseFraction() {
+        System.out.println("chooseFraction");
+        long maxDenom = 20;
+        Fraction fraction;
+        for (int i = 0; i < 1000; i++) {
+            fraction = FractionGuessingGame.chooseFraction(maxDenom);
+            String msg = "Pseudorandom fraction a(" + i + ") = " + fraction.toString() + " should be strictly between 0 and 1";
+            assertTrue(msg, fraction.compareTo(ZERO) > 0 && fraction.compareTo(ONE) < 0);
+            msg = "Pseudorandom fraction a(" + i + ") = " + fraction.toString() + " should have denominator at most " + maxDenom;
+            assertTrue(msg, fraction.getDenominator() <= maxDenom);
+        }
+    }
+
+    /**
+     * Another test of chooseFraction method, of class FractionGuessingGame.
+     * There are 31 fractions between 0 and 1 with denominator at most 10, and
+     * drawing 1000 of them should hit every one of them.
+     */
+    @Test
+    public void testFractionDistribution() {
+        HashSet<Fraction> fractions = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            fractions.add(FractionGuessingGame.chooseFraction(10));
+        }
+        assertEquals(31, fractions.size());
+    }
+
+    @Test
+    public void testCheckGuess() {
+        System.out.println("checkGuess");
+        FractionGuessingGame game = new FractionGuessingGame();
+        game.startRound(new Fraction(3, 7));
+        assertEquals(GuessOutcome.TOO_HIGH, game.checkGuess(new Fraction(1, 2)));
+        assertEquals(GuessOutcome.TOO_LOW, game.checkGuess(new Fraction(2, 5)));
+        assertEquals(GuessOutcome.CORRECT, game.checkGuess(new Fraction(6, 14)));
+        assertEquals(3, game.getGuessCount());
+    }
+
+    /**
+     * Test of suggestGuess method, of class FractionGuessingGame. Following
+     * the suggestions should find every fraction of the Farey sequence of
+     * order 12, and the suggestions should always stay within the bounds
+     * given by the feedback so far.
+     */
+    @Test
+    public void testSuggestGuess() {
+        System.out.println("suggestGuess");
+        long maxDenom = 12;
+        FractionGuessingGame game = new FractionGuessingGame(maxDenom);
+        for (long denom = 2; denom <= maxDenom; denom++) {
+            for (long numer = 1; numer < denom; numer++) {
+                Fraction answer = new Fraction(numer, denom);
+                if (answer.getDenominator() != denom) {
+                    continue;
+                }
+                game.startRound(answer);
+                Fraction lower = ZERO;
+                Fraction upper = ONE;
+                GuessOutcome outcome;
+                do {
+                    Fraction guess = game.suggestGuess();
+                    String msg = "Suggestion " + guess.toString() + " for " + answer.toString() + " should be between " + lower.toString() + " and " + upper.toString();
+                    assertTrue(msg, guess.compareTo(lower) > 0 && guess.compareTo(upper) < 0);
+                    outcome = game.checkGuess(guess);
+                    if (outcome == GuessOutcome.TOO_LOW) {
+                        lower = guess;
+                    } else if (outcome == GuessOutcome.TOO_HIGH) {
+                        upper = guess;
+                    }
+                    msg = "Following suggestions should find " + answer.toString() + " in at most " + maxDenom + " guesses";
+                    assertTrue(msg, game.getGuessCount() <= maxDenom);
+                } while (outcome != GuessOutcome.CORRECT);
+            }
+        }
+    }
+
+    /**
+     * Another test of suggestGuess method, of class FractionGuessingGame.
+     * After guesses that are not the suggestions, the suggestion should still
+     * be within the bounds given by the feedback.
+     */
+    @Test
+    public void testSuggestGuessAfterOtherGuesses() {
+        FractionGuessingGame game = new FractionGuessingGame(100);
+        Fraction answer = new Fraction(41, 97);
+        game.startRound(answer);
+        Fraction lower = new Fraction(2, 5);
+        Fraction upper = new Fraction(3, 7);
+        assertEquals(GuessOutcome.TOO_LOW, game.checkGuess(lower));
+        assertEquals(GuessOutcome.TOO_HIGH, game.checkGuess(upper));
+        Fraction expected = new Fraction(5, 12);
+        assertEquals(expected, game.suggestGuess());
+        assertEquals(GuessOutcome.TOO_LOW, game.checkGuess(new Fraction(33, 79)));
+        Fraction suggestion = game.suggestGuess();
+        String msg = "Suggestion " + suggestion.toString() + " should be between 33/79 and 3/7";
+        assertTrue(msg, suggestion.compareTo(new Fraction(33, 79)) > 0 && suggestion.compareTo(upper) < 0);
+    }
+
+    /**
+     * Test of scoreGame method, of class FractionGuessingGame. The score
+     * should be scaled by the maximum denominator, but not so much that it
+     * overflows.
+     */
+    @Test
+    public void testScoreGame() {
+        System.out.println("scoreGame");
+        assertEquals(1000, new FractionGuessingGame().scoreGame(0));
+        assertEquals(300, new FractionGuessingGame().scoreGame(7));
+        assertEquals(7000, new FractionGuessingGame(1000).scoreGame(3));
+        assertEquals(20, new FractionGuessingGame(2).scoreGame(0));
+        FractionGuessingGame hardest = new FractionGuessingGame(1L << 31);
+        for (int i = 0; i < FractionGuessingGame.MAXIMUM_GUESSES; i++) {
+            int score = hardest.scoreGame(i);
+            String msg = "Score " + score + " after " + i + " wrong guesses should be positive";
+            assertTrue(msg, score > 0);
+        }
+        assertEquals(FractionGuessingGame.MAXIMUM_GUESSES * FractionGuessingGame.MAXIMUM_SCORE_SCALE, hardest.scoreGame(0));
+    }
+
+    /**
+     * Test of playRound method, of class FractionGuessingGame. With maximum
+     * denominator 2, the answer can only be <sup>1</sup>&frasl;<sub>2</sub>,
+     * so the first guess wins, and the score should go on the leaderboard.
+     */
+    @Test
+    public void testPlayRound() {
+        System.out.println("playRound");
+        FractionGuessingGame game = new FractionGuessingGame(2);
+        int score = game.scoreGame(0);
+        boolean qualifies = game.leaderboard().qualifies(score);
+        long submittedBefore = game.metrics().getScoreSubmission().getCount();
+        long droppedBefore = game.metrics().getScoresDropped();
+        game.playRound(new Scanner(new ByteArrayInputStream("1/2\n".getBytes())));
+        assertEquals(1, game.getGuessCount());
+        assertEquals(submittedBefore + 1, game.metrics().getScoreSubmission().getCount());
+        assertEquals(droppedBefore, game.metrics().getScoresDropped());
+        if (qualifies) {
+            boolean found = false;
+            for (HighScoreTableRecord record : game.leaderboard().getRecords()) {
+                found = found || record.getScore() == score;
+            }
+            assertTrue("Score " + score + " should be on the leaderboard", found);
+        }
+    }
+
+    /**
+     * Another test of playRound method, of class FractionGuessingGame. If the
+     * registry has no room left for this game's leaderboard, winning should
+     * drop the score, not end the game with an exception.
+     */
+    @Test
+    public void testPlayRoundWithoutLeaderboard() {
+        System.out.println("playRound without leaderboard");
+        FractionGuessingGame game = new FractionGuessingGame(2);
+        LeaderboardRegistry registry = LeaderboardRegistry.getDefault();
+        long fillerID = -game.gameID();
+        registry.remove(game.gameID());
+        registry.register(fillerID, registry.getRecordBudget() - registry.getReservedCapacity());
+        try {
+            long droppedBefore = game.metrics().getScoresDropped();
+            game.playRound(new Scanner(new ByteArrayInputStream("1/2\n".getBytes())));
+            assertEquals(1, game.getGuessCount());
+            assertEquals(droppedBefore + 1, game.metrics().getScoresDropped());
+        } finally {
+            registry.remove(fillerID);
+        }
+    }
+
+}
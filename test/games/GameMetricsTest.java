@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the GameMetrics and MetricsReporter classes.
+ * @author Alonso del Arte
+ */
+public class GameMetricsTest {
+
+    /**
+     * Test of forGame method, of class GameMetrics. The same game ID should
+     * give the same metrics, and the games should share them.
+     */
+    @Test
+    public void testForGame() {
+        System.out.println("forGame");
+        GameMetrics metrics = GameMetrics.forGame(NumberGuessingGame.GAME_ID);
+        assertSame(metrics, GameMetrics.forGame(NumberGuessingGame.GAME_ID));
+        assertSame(metrics, new NumberGuessingGame().metrics());
+        assertNotSame(metrics, GameMetrics.forGame(NumberGuessingGame.GAME_ID + 1));
+        assertTrue(GameMetrics.all().containsKey(NumberGuessingGame.GAME_ID));
+    }
+
+    /**
+     * Test that playing a round of NumberGuessingGame is recorded. The guesses
+     * 75, "fifty", 25 and 50 should count as one round started, completed
+     * and won, one invalid guess, one time to first guess, three guesses
+     * processed and one score submitted.
+     */
+    @Test
+    public void testPlayRoundRecordsMetrics() {
+        System.out.println("playRound metrics");
+        GameMetrics metrics = GameMetrics.forGame(NumberGuessingGame.GAME_ID);
+        Scanner input = new Scanner(new ByteArrayInputStream("75\nfifty\n25\n50\n".getBytes(StandardCharsets.US_ASCII)));
+        NumberGuessingGame game = new NumberGuessingGame();
+        metrics.reset();
+        game.playRound(input, new NumberGuessingSession(50));
+        System.out.println();
+        assertEquals(1, metrics.getRoundsStarted());
+        assertEquals(1, metrics.getRoundsCompleted());
+        assertEquals(1, metrics.getRoundsWon());
+        assertEquals(1, metrics.getInvalidGuesses());
+        assertEquals(1, metrics.getTimeToFirstGuess().getCount());
+        assertEquals(3, metrics.getGuessProcessing().getCount());
+        assertEquals(1, metrics.getScoreSubmission().getCount());
+        assertEquals(0, metrics.getScoresDropped());
+        assertTrue(metrics.getGuessProcessing().getMax() > 0);
+    }
+
+    /**
+     * Test of startRound method, of class GameMetrics. An invalid first guess
+     * should count as the first guess, only valid guesses should have their
+     * processing timed, and the round should count as started and completed.
+     */
+    @Test
+    public void testStartRound() {
+        System.out.println("startRound");
+        GameMetrics metrics = GameMetrics.forGame(3735928560L);
+        GameMetrics.RoundTimer timer = metrics.startRound();
+        assertEquals(1, metrics.getRoundsStarted());
+        timer.invalidGuess();
+        assertEquals(1, metrics.getTimeToFirstGuess().getCount());
+        assertEquals(1, metrics.getInvalidGuesses());
+        for (int i = 0; i < 3; i++) {
+            timer.guessReceived();
+            timer.guessAnswered();
+        }
+        timer.roundCompleted(true);
+        assertEquals(1, metrics.getTimeToFirstGuess().getCount());
+        assertEquals(3, metrics.getGuessProcessing().getCount());
+        assertEquals(1, metrics.getRoundsCompleted());
+        assertEquals(1, metrics.getRoundsWon());
+    }
+
+    /**
+     * Test of report method, of class MetricsReporter. There should be a line
+     * for the game with its rounds per second and its metrics.
+     */
+    @Test
+    public void testReport() {
+        System.out.println("report");
+        long gameID = 3735928559L;
+        GameMetrics metrics = GameMetrics.forGame(gameID);
+        long start = metrics.roundStarted();
+        metrics.guessProcessed(metrics.firstGuess(start));
+        metrics.roundCompleted(false);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true);
+        try (MetricsReporter reporter = new MetricsReporter(out, 1, TimeUnit.HOURS)) {
+            reporter.report();
+        }
+        String report = bytes.toString();
+        System.out.print(report);
+        String line = report.lines().filter(s -> s.contains("game " + gameID + ":")).findFirst().orElse("");
+        assertTrue("Report should include game " + gameID, line.contains("rounds/s"));
+        assertTrue(line.contains("completed=1 won=0"));
+        assertTrue(line.contains("| guess n=1"));
+    }
+
+    /**
+     * Test of startMetricsReporter method, of class GameWithLeaderBoard. A
+     * period that's not a number or is less than 1 should mean no reporting,
+     * not an exception.
+     * @throws IOException If the temporary metrics file can't be created or
+     * deleted.
+     */
+    @Test
+    public void testStartMetricsReporterWithBadPeriod() throws IOException {
+        System.out.println("startMetricsReporter");
+        Path file = Files.createTempFile("metrics", ".log");
+        String[] badPeriods = {"ten", "0", "-5"};
+        try {
+            System.setProperty(MetricsReporter.FILE_PROPERTY, file.toString());
+            for (String badPeriod : badPeriods) {
+                System.setProperty(MetricsReporter.PERIOD_PROPERTY, badPeriod);
+                assertNull(GameWithLeaderBoard.startMetricsReporter());
+            }
+        } finally {
+            System.clearProperty(MetricsReporter.FILE_PROPERTY);
+            System.clearProperty(MetricsReporter.PERIOD_PROPERTY);
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Another test of MetricsReporter. A period less than 1 should be
+     * rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testReporterRejectsBadPeriod() {
+        new MetricsReporter(System.out, 0, TimeUnit.SECONDS).close();
+    }
+
+}
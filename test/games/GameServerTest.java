@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alonso del Arte
+ */
+public class GameServerTest {
+
+    private static final InetAddress LOOPBACK = InetAddress.getLoopbackAddress();
+
+    private GameServer server;
+
+    private ConcurrentHighScoreTable table;
+
+    @Before
+    public void setUp() throws IOException {
+        this.table = new ConcurrentHighScoreTable();
+        this.server = new GameServer(new InetSocketAddress(LOOPBACK, 0), 500L, new SplittableRandom(1729), this.table);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        this.server.close();
+    }
+
+    private static String send(OutputStream output, BufferedReader reader, String line) throws IOException {
+        output.write((line + "\n").getBytes(StandardCharsets.US_ASCII));
+        output.flush();
+        return reader.readLine();
+    }
+
+    /**
+     * Plays rounds by binary search until one is won.
+     * @return The WIN reply.
+     */
+    private static String playUntilWon(OutputStream output, BufferedReader reader) throws IOException {
+        String expected = "READY " + NumberGuessingGame.MINIMUM_NUMBER + " " + NumberGuessingGame.MAXIMUM_NUMBER + " " + NumberGuessingGame.MAXIMUM_GUESSES;
+        String reply = "";
+        while (!reply.startsWith("WIN")) {
+            assertEquals(expected, send(output, reader, "NEW"));
+            int low = NumberGuessingGame.MINIMUM_NUMBER;
+            int high = NumberGuessingGame.MAXIMUM_NUMBER - 1;
+            reply = "";
+            int guessCount = 0;
+            while (!reply.startsWith("WIN") && !reply.startsWith("LOSE")) {
+                int guess = (low + high) / 2;
+                reply = send(output, reader, "GUESS " + guess);
+                guessCount++;
+                if (reply.equals("LOW")) {
+                    low = guess + 1;
+                } else if (reply.equals("HIGH")) {
+                    high = guess - 1;
+                }
+            }
+            assertTrue(guessCount <= NumberGuessingGame.MAXIMUM_GUESSES);
+        }
+        return reply;
+    }
+
+    @Test
+    public void testProtocol() throws IOException {
+        System.out.println("Game server protocol");
+        try (Socket socket = new Socket(LOOPBACK, this.server.getPort())) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            OutputStream output = socket.getOutputStream();
+            assertEquals("OK", send(output, reader, "NAME Jim"));
+            assertTrue(send(output, reader, "50").startsWith("ERROR"));
+            playUntilWon(output, reader);
+            assertTrue(send(output, reader, "TOP").startsWith("TOP Jim:"));
+            assertTrue(send(output, reader, "bogus").startsWith("ERROR"));
+            assertEquals("BYE", send(output, reader, "QUIT"));
+            assertNull(reader.readLine());
+        }
+        assertEquals(1, this.table.size());
+    }
+
+    /**
+     * Test of getTable method, of class GameServer. Unless it's given a
+     * leaderboard, the server should use the number guessing game's partition
+     * of the default registry, the same one the console game uses.
+     * @throws IOException If the server can't be started.
+     */
+    @Test
+    public void testGetTable() throws IOException {
+        System.out.println("getTable");
+        assertSame(this.table, this.server.getTable());
+        try (GameServer registryServer = new GameServer(new InetSocketAddress(LOOPBACK, 0), 500L, new SplittableRandom(1729))) {
+            Leaderboard expected = LeaderboardRegistry.getDefault().leaderboard(NumberGuessingGame.GAME_ID);
+            assertSame(expected, registryServer.getTable());
+        }
+    }
+
+    /**
+     * If the default registry has no room left for the number guessing game's
+     * leaderboard, a win should still be answered, with the score dropped and
+     * counted as such, and TOP should give no records.
+     * @throws IOException If there's a problem talking to the server.
+     */
+    @Test
+    public void testWinWithoutLeaderboard() throws IOException {
+        System.out.println("Game server without leaderboard");
+        LeaderboardRegistry registry = LeaderboardRegistry.getDefault();
+        long fillerID = -NumberGuessingGame.GAME_ID;
+        registry.remove(NumberGuessingGame.GAME_ID);
+        registry.register(fillerID, registry.getRecordBudget() - registry.getReservedCapacity());
+        try (GameServer registryServer = new GameServer(new InetSocketAddress(LOOPBACK, 0), 500L, new SplittableRandom(1729));
+                Socket socket = new Socket(LOOPBACK, registryServer.getPort())) {
+            long droppedBefore = registryServer.getMetrics().getScoresDropped();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            OutputStream output = socket.getOutputStream();
+            assertTrue(playUntilWon(output, reader).startsWith("WIN "));
+            assertEquals("TOP", send(output, reader, "TOP"));
+            assertEquals(droppedBefore + 1, registryServer.getMetrics().getScoresDropped());
+        } finally {
+            registry.remove(fillerID);
+        }
+    }
+
+    /**
+     * A guess outside the range should get an ERROR reply and not count, so
+     * that a client can't inflate its score with a far off guess.
+     * @throws IOException If there's a problem talking to the server.
+     */
+    @Test
+    public void testGuessOutOfRange() throws IOException {
+        try (Socket socket = new Socket(LOOPBACK, this.server.getPort())) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            OutputStream output = socket.getOutputStream();
+            assertTrue(send(output, reader, "NEW").startsWith("READY"));
+            for (int i = 0; i < 2 * NumberGuessingGame.MAXIMUM_GUESSES; i++) {
+                String reply = send(output, reader, "GUESS -1000000");
+                assertTrue("Out of range guess should be rejected, not answered " + reply, reply.startsWith("ERROR"));
+            }
+            String reply = send(output, reader, Integer.toString(NumberGuessingGame.MAXIMUM_NUMBER + 1));
+            assertTrue(reply.startsWith("ERROR"));
+            reply = send(output, reader, Integer.toString(NumberGuessingGame.MINIMUM_NUMBER));
+            assertTrue("Round should still be in progress, got " + reply, reply.equals("LOW") || reply.startsWith("WIN"));
+        }
+        assertTrue(this.table.size() <= 1);
+        for (HighScoreTableRecord record : this.table.getRecords()) {
+            assertTrue(record.getScore() <= ScoreSimulation.MAXIMUM_SCORE);
+        }
+    }
+
+    /**
+     * Test that hosted rounds are recorded in the game metrics. Starting a
+     * round, making an invalid guess and then guessing every number from the
+     * lowest up should count as one round started and completed, one invalid
+     * guess, one time to first guess and one processing time per valid
+     * guess.
+     * @throws IOException If there's a problem talking to the server.
+     */
+    @Test
+    public void testRecordsMetrics() throws IOException {
+        System.out.println("Game server metrics");
+        GameMetrics metrics = this.server.getMetrics();
+        metrics.reset();
+        int guessCount = 0;
+        String reply;
+        try (Socket socket = new Socket(LOOPBACK, this.server.getPort())) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            OutputStream output = socket.getOutputStream();
+            assertTrue(send(output, reader, "NEW").startsWith("READY"));
+            assertTrue(send(output, reader, "GUESS fifty").startsWith("ERROR"));
+            do {
+                reply = send(output, reader, Integer.toString(NumberGuessingGame.MINIMUM_NUMBER + guessCount));
+                guessCount++;
+            } while (!reply.startsWith("WIN") && !reply.startsWith("LOSE"));
+        }
+        assertEquals(1, metrics.getRoundsStarted());
+        assertEquals(1, metrics.getRoundsCompleted());
+        assertEquals(reply.startsWith("WIN") ? 1 : 0, metrics.getRoundsWon());
+        assertEquals(reply.startsWith("WIN") ? 1 : 0, metrics.getScoreSubmission().getCount());
+        assertEquals(1, metrics.getInvalidGuesses());
+        assertEquals(1, metrics.getTimeToFirstGuess().getCount());
+        assertEquals(guessCount, metrics.getGuessProcessing().getCount());
+    }
+
+    @Test
+    public void testIdleTimeout() throws IOException {
+        System.out.println("Game server idle timeout");
+        try (Socket socket = new Socket(LOOPBACK, this.server.getPort())) {
+            socket.setSoTimeout(5000);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            long start = System.nanoTime();
+            assertEquals("BYE Idle timeout", reader.readLine());
+            assertNull(reader.readLine());
+            long elapsedMillis = (System.nanoTime() - start) / 1000000;
+            String msg = "Idle connection should have been closed after about 500 ms, not " + elapsedMillis;
+            assertTrue(msg, elapsedMillis >= 400);
+        }
+    }
+
+    /**
+     * Test of backpressure. A client that sends many requests without reading
+     * any replies should still get every reply, in order, once it starts
+     * reading.
+     */
+    @Test
+    public void testBackpressure() throws IOException {
+        System.out.println("Game server backpressure");
+        int requestCount = 20000;
+        try (Socket socket = new Socket(LOOPBACK, this.server.getPort())) {
+            socket.setSoTimeout(10000);
+            OutputStream output = socket.getOutputStream();
+            StringBuilder requests = new StringBuilder();
+            for (int i = 0; i < requestCount; i++) {
+                requests.append("NAME Player").append(i).append('\n');
+            }
+            Thread writer = new Thread(() -> {
+                try {
+                    output.write(requests.toString().getBytes(StandardCharsets.US_ASCII));
+                    output.flush();
+                } catch (IOException ioe) {
+                    System.out.println("Writing requests failed: " + ioe.getMessage());
+                }
+            });
+            writer.start();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            for (int i = 0; i < requestCount; i++) {
+                assertEquals("OK", reader.readLine());
+            }
+            try {
+                writer.join();
+            } catch (InterruptedException ie) {
+                fail("Interrupted waiting for writer");
+            }
+        }
+    }
+
+    @Test
+    public void testLoadGenerator() throws IOException {
+        System.out.println("LoadGenerator.run");
+        LoadGenerator.Report report = LoadGenerator.run(LOOPBACK, this.server.getPort(), 16, 50);
+        System.out.println(report);
+        assertEquals(800, report.getRounds());
+        String msg = "Should have won some but not all rounds, won " + report.getWins();
+        assertTrue(msg, report.getWins() > 0 && report.getWins() < 800);
+        assertTrue(report.getLatencyPercentile(50) <= report.getLatencyPercentile(99.9));
+    }
+
+}
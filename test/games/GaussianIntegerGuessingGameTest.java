@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import algebraics.quadratics.ImaginaryQuadraticInteger;
+import static calculators.NumberTheoreticFunctionsCalculator.RING_GAUSSIAN;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashSet;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the GaussianIntegerGuessingGame class and its hints.
+ * @author Alonso del Arte
+ */
+public class GaussianIntegerGuessingGameTest {
+
+    private static ImaginaryQuadraticInteger gaussian(int a, int b) {
+        return new ImaginaryQuadraticInteger(a, b, RING_GAUSSIAN);
+    }
+
+    /**
+     * Test of of method, of class CompassHint. Points on the axes and the
+     * diagonals should go in the octant that starts there, and every other
+     * point in the octant that {@link ImaginaryQuadraticInteger#angle()} puts
+     * it in.
+     */
+    @Test
+    public void testCompassHintOf() {
+        System.out.println("CompassHint.of");
+        assertEquals(CompassHint.CORRECT, CompassHint.of(0, 0));
+        assertEquals(CompassHint.EAST_NORTHEAST, CompassHint.of(5, 0));
+        assertEquals(CompassHint.NORTH_NORTHEAST, CompassHint.of(5, 5));
+        assertEquals(CompassHint.NORTH_NORTHWEST, CompassHint.of(0, 5));
+        assertEquals(CompassHint.WEST_NORTHWEST, CompassHint.of(-5, 5));
+        assertEquals(CompassHint.WEST_SOUTHWEST, CompassHint.of(-5, 0));
+        assertEquals(CompassHint.SOUTH_SOUTHWEST, CompassHint.of(-5, -5));
+        assertEquals(CompassHint.SOUTH_SOUTHEAST, CompassHint.of(0, -5));
+        assertEquals(CompassHint.EAST_SOUTHEAST, CompassHint.of(5, -5));
+        CompassHint[] octants = CompassHint.values();
+        for (int x = -12; x <= 12; x++) {
+            for (int y = -12; y <= 12; y++) {
+                if (x == 0 || y == 0 || x == y || x == -y) {
+                    continue;
+                }
+                double angle = gaussian(x, y).angle();
+                if (angle < 0) {
+                    angle += 2 * Math.PI;
+                }
+                int octant = (int) Math.floor(angle / (Math.PI / 4));
+                CompassHint expected = octants[octant + 1];
+                assertEquals(expected, CompassHint.of(x, y));
+                assertTrue(expected.admits(0, 0, x, y));
+            }
+        }
+    }
+
+    /**
+     * Test of checkGuess method, of class GaussianIntegerGuessingGame. After
+     * each hint, the candidates should be exactly the points of the disk that
+     * fit every hint so far, as found by checking every point.
+     */
+    @Test
+    public void testCheckGuess() {
+        System.out.println("checkGuess");
+        SplittableRandom random = new SplittableRandom(1729);
+        int r = 30;
+        for (int round = 0; round < 20; round++) {
+            GaussianIntegerGuessingGame game = new GaussianIntegerGuessingGame(r, random);
+            ImaginaryQuadraticInteger answer = GaussianIntegerGuessingGame.chooseGaussianInteger(r, random);
+            game.startRound(answer);
+            Set<ImaginaryQuadraticInteger> expected = new HashSet<>();
+            for (int x = -r; x <= r; x++) {
+                for (int y = -r; y <= r; y++) {
+                    if (x * x + y * y <= r * r) {
+                        expected.add(gaussian(x, y));
+                    }
+                }
+            }
+            assertEquals(expected, new HashSet<>(game.getCandidates()));
+            for (int turn = 0; turn < 4; turn++) {
+                ImaginaryQuadraticInteger guess = gaussian(random.nextInt(-r, r + 1), random.nextInt(-r, r + 1));
+                CompassHint hint = game.checkGuess(guess);
+                expected.removeIf(point -> !hint.admits(guess.getRegPartMult(), guess.getSurdPartMult(), point.getRegPartMult(), point.getSurdPartMult()));
+                assertEquals(expected, new HashSet<>(game.getCandidates()));
+                assertEquals(expected.size(), game.getCandidateCount());
+                assertTrue(game.isCandidate(answer));
+            }
+        }
+    }
+
+    /**
+     * Test of suggestGuess method, of class GaussianIntegerGuessingGame. A
+     * player who always takes the suggestion should find the answer within the
+     * maximum number of guesses.
+     */
+    @Test
+    public void testSuggestGuess() {
+        System.out.println("suggestGuess");
+        SplittableRandom random = new SplittableRandom(4096);
+        GaussianIntegerGuessingGame game = new GaussianIntegerGuessingGame(GaussianIntegerGuessingGame.DEFAULT_RADIUS, random);
+        int worst = 0;
+        for (int round = 0; round < 200; round++) {
+            game.startRound();
+            CompassHint hint;
+            do {
+                ImaginaryQuadraticInteger guess = game.suggestGuess();
+                assertTrue(game.isCandidate(guess));
+                hint = game.checkGuess(guess);
+            } while (hint != CompassHint.CORRECT);
+            assertEquals(1, game.getCandidateCount());
+            worst = Math.max(worst, game.getGuessCount());
+        }
+        System.out.println("Took at most " + worst + " suggested guesses");
+        assertTrue(worst <= GaussianIntegerGuessingGame.MAXIMUM_GUESSES);
+    }
+
+    /**
+     * Test of chooseGaussianInteger method, of class
+     * GaussianIntegerGuessingGame. Every number chosen should be in the disk.
+     */
+    @Test
+    public void testChooseGaussianInteger() {
+        System.out.println("chooseGaussianInteger");
+        SplittableRandom random = new SplittableRandom(1729);
+        for (int i = 0; i < 1000; i++) {
+            ImaginaryQuadraticInteger number = GaussianIntegerGuessingGame.chooseGaussianInteger(10, random);
+            assertTrue(number.norm() <= 100);
+        }
+    }
+
+    /**
+     * Test of scoreGame method, of class GaussianIntegerGuessingGame. The
+     * score should be scaled by the radius.
+     */
+    @Test
+    public void testScoreGame() {
+        System.out.println("scoreGame");
+        assertEquals(1000, new GaussianIntegerGuessingGame().scoreGame(0));
+        assertEquals(700, new GaussianIntegerGuessingGame().scoreGame(3));
+        assertEquals(9, new GaussianIntegerGuessingGame(1).scoreGame(1));
+        int r = GaussianIntegerGuessingGame.MAXIMUM_RADIUS;
+        assertEquals(GaussianIntegerGuessingGame.MAXIMUM_GUESSES * r, new GaussianIntegerGuessingGame(r).scoreGame(0));
+    }
+
+    /**
+     * Test of playRound method, of class GaussianIntegerGuessingGame. If the
+     * registry has no room left for this game's leaderboard, winning should
+     * drop the score, not end the game with an exception. With radius 1,
+     * guessing every candidate wins in at most five guesses.
+     */
+    @Test
+    public void testPlayRoundWithoutLeaderboard() {
+        System.out.println("playRound without leaderboard");
+        GaussianIntegerGuessingGame game = new GaussianIntegerGuessingGame(1, new SplittableRandom(1729));
+        LeaderboardRegistry registry = LeaderboardRegistry.getDefault();
+        long fillerID = -game.gameID();
+        registry.remove(game.gameID());
+        registry.register(fillerID, registry.getRecordBudget() - registry.getReservedCapacity());
+        try {
+            long droppedBefore = game.metrics().getScoresDropped();
+            String guesses = "0 0\n1 0\n-1 0\n0 1\n0 -1\n";
+            game.playRound(new Scanner(new ByteArrayInputStream(guesses.getBytes())));
+            assertTrue(game.getGuessCount() <= 5);
+            assertEquals(droppedBefore + 1, game.metrics().getScoresDropped());
+        } finally {
+            registry.remove(fillerID);
+        }
+    }
+
+    /**
+     * Test of the constructor of class GaussianIntegerGuessingGame. The radius
+     * should be from 1 to the maximum.
+     */
+    @Test
+    public void testConstructorRejectsBadRadius() {
+        int[] badRadii = {0, -1, GaussianIntegerGuessingGame.MAXIMUM_RADIUS + 1};
+        for (int r : badRadii) {
+            try {
+                GaussianIntegerGuessingGame game = new GaussianIntegerGuessingGame(r);
+                String msg = "Radius " + r + " should not have given game with radius " + game.getRadius();
+                fail(msg);
+            } catch (IllegalArgumentException iae) {
+                System.out.println("Radius " + r + " correctly caused IllegalArgumentException");
+                System.out.println("\"" + iae.getMessage() + "\"");
+            }
+        }
+    }
+
+}
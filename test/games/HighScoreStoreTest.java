@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alonso del Arte
+ */
+public class HighScoreStoreTest {
+
+    private static final long BASE_TIME = 1593561600000L;
+
+    private Path dir;
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        this.dir = Files.createTempDirectory("scores");
+        this.file = this.dir.resolve("test.scores");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.list(this.dir)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(this.dir);
+    }
+
+    @Test
+    public void testAddHighScore() throws IOException {
+        System.out.println("addHighScore");
+        List<HighScoreTableRecord> expected;
+        try (HighScoreStore store = new HighScoreStore(this.file, 5, 4, 1000)) {
+            for (int i = 0; i < 30; i++) {
+                store.addHighScore(new HighScoreTableRecord("Player" + i, (i * 37) % 101, BASE_TIME + i));
+            }
+            expected = store.getTable().getRecords();
+        }
+        try (HighScoreStore store = new HighScoreStore(this.file, 5, 4, 1000)) {
+            assertEquals(expected, store.getTable().getRecords());
+        }
+    }
+
+    @Test
+    public void testCompact() throws IOException {
+        System.out.println("compact");
+        try (HighScoreStore store = new HighScoreStore(this.file, 3, 1, 1000)) {
+            for (int i = 0; i < 20; i++) {
+                store.addHighScore(new HighScoreTableRecord("Player" + i, i, BASE_TIME + i));
+            }
+            assertEquals(20, store.getRecordCount());
+            store.compact();
+            assertEquals(3, store.getRecordCount());
+            assertEquals(4 * HighScoreStore.RECORD_SIZE, Files.size(this.file));
+            store.addHighScore(new HighScoreTableRecord("Jim", 100, BASE_TIME + 100));
+        }
+        try (HighScoreStore store = new HighScoreStore(this.file, 3, 1, 1000)) {
+            List<HighScoreTableRecord> records = store.getTable().getRecords();
+            assertEquals("Jim", records.get(0).getPlayerName());
+            assertEquals(19, records.get(1).getScore());
+            assertEquals(18, records.get(2).getScore());
+        }
+    }
+
+    /**
+     * Test of background compaction. Once the log reaches the threshold, it
+     * should be compacted without anyone asking, and no scores in the table
+     * should be lost.
+     */
+    @Test
+    public void testBackgroundCompaction() throws IOException {
+        List<HighScoreTableRecord> expected;
+        try (HighScoreStore store = new HighScoreStore(this.file, 4, 2, 8)) {
+            for (int i = 0; i < 100; i++) {
+                store.addHighScore(new HighScoreTableRecord("Player" + i, i, BASE_TIME + i));
+            }
+            expected = store.getTable().getRecords();
+        }
+        String msg = "Log should have been compacted, but it's " + Files.size(this.file) + " bytes";
+        assertTrue(msg, Files.size(this.file) < 50 * HighScoreStore.RECORD_SIZE);
+        try (HighScoreStore store = new HighScoreStore(this.file, 4, 2, 8)) {
+            assertEquals(expected, store.getTable().getRecords());
+        }
+    }
+
+    /**
+     * Test of close, racing with writers that keep setting off background
+     * compactions. A writer should only ever find the store closed, never the
+     * compactor shut down, and every score the table kept should be in the
+     * log after closing.
+     * @throws Exception If a writer thread fails in an unexpected way.
+     */
+    @Test
+    public void testCloseWhileWriting() throws Exception {
+        System.out.println("close");
+        for (int trial = 0; trial < 20; trial++) {
+            Files.deleteIfExists(this.file);
+            HighScoreStore store = new HighScoreStore(this.file, 8, 1, 8);
+            int threadCount = 4;
+            CountDownLatch started = new CountDownLatch(threadCount);
+            ExecutorService writers = Executors.newFixedThreadPool(threadCount);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                int offset = t * 1000000;
+                futures.add(writers.submit(() -> {
+                    started.countDown();
+                    try {
+                        for (int i = 0; ; i++) {
+                            store.addHighScore(new HighScoreTableRecord("Player" + (offset + i), offset + i, BASE_TIME + offset + i));
+                        }
+                    } catch (IllegalStateException ise) {
+                        return null; // The store was closed
+                    }
+                }));
+            }
+            started.await();
+            Thread.sleep(5);
+            store.close();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            writers.shutdown();
+            List<HighScoreTableRecord> expected = store.getTable().getRecords();
+            try (HighScoreStore reopened = new HighScoreStore(this.file, 8, 1, 8)) {
+                assertEquals(expected, reopened.getTable().getRecords());
+            }
+        }
+    }
+
+    @Test
+    public void testPartialRecordIgnored() throws IOException {
+        try (HighScoreStore store = new HighScoreStore(this.file)) {
+            store.addHighScore(new HighScoreTableRecord("Jim", 200, BASE_TIME));
+        }
+        try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5}));
+        }
+        try (HighScoreStore store = new HighScoreStore(this.file)) {
+            assertEquals(1, store.getTable().size());
+            store.addHighScore(new HighScoreTableRecord("Aabirah", 300, BASE_TIME));
+        }
+        try (HighScoreStore store = new HighScoreStore(this.file)) {
+            assertEquals(2, store.getTable().size());
+            assertEquals("Aabirah", store.getTable().getRecords().get(0).getPlayerName());
+        }
+    }
+
+    @Test
+    public void testLongNameTruncated() throws IOException {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            name.append('\u00E9');
+        }
+        try (HighScoreStore store = new HighScoreStore(this.file)) {
+            store.addHighScore(new HighScoreTableRecord(name.toString(), 200, BASE_TIME));
+        }
+        try (HighScoreStore store = new HighScoreStore(this.file)) {
+            String expected = name.substring(0, HighScoreStore.MAXIMUM_NAME_BYTES / 2);
+            assertEquals(expected, store.getTable().getRecords().get(0).getPlayerName());
+        }
+    }
+
+    @Test
+    public void testRejectsOtherFiles() throws IOException {
+        Files.write(this.file, new byte[HighScoreStore.RECORD_SIZE * 2]);
+        try (HighScoreStore store = new HighScoreStore(this.file)) {
+            fail("Opening a file of zeroes should not have given " + store.getTable().getRecords());
+        } catch (IOException ioe) {
+            System.out.println("Opening a file of zeroes correctly caused IOException");
+            System.out.println("\"" + ioe.getMessage() + "\"");
+        }
+    }
+
+}
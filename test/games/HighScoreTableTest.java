@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alonso del Arte
+ */
+public class HighScoreTableTest {
+
+    private static final long BASE_TIME = 1593561600000L;
+
+    @Test
+    public void testScoreComparator() {
+        System.out.println("compare");
+        ScoreComparator comparator = new ScoreComparator();
+        HighScoreTableRecord jim = new HighScoreTableRecord("Jim", 200, BASE_TIME);
+        HighScoreTableRecord aabirah = new HighScoreTableRecord("Aabirah", 300, BASE_TIME + 1000);
+        HighScoreTableRecord jimLater = new HighScoreTableRecord("Jim", 200, BASE_TIME + 1000);
+        HighScoreTableRecord bob = new HighScoreTableRecord("Bob", 200, BASE_TIME);
+        assertTrue("Higher score should rank first", comparator.compare(aabirah, jim) < 0);
+        assertTrue("Earlier of equal scores should rank first", comparator.compare(jim, jimLater) < 0);
+        assertTrue("Same score at same time should go by name", comparator.compare(bob, jim) < 0);
+        assertEquals(0, comparator.compare(jim, new HighScoreTableRecord("Jim", 200, BASE_TIME)));
+    }
+
+    @Test
+    public void testAddHighScore() {
+        System.out.println("addHighScore");
+        HighScoreTable table = new HighScoreTable(5);
+        List<HighScoreTableRecord> all = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int score = (i * 37) % 101;
+            HighScoreTableRecord record = new HighScoreTableRecord("Player" + i, score, BASE_TIME + i);
+            all.add(record);
+            table.addHighScore(record);
+        }
+        Collections.sort(all, new ScoreComparator());
+        List<HighScoreTableRecord> expected = all.subList(0, 5);
+        assertEquals(expected, table.getRecords());
+    }
+
+    @Test
+    public void testAddHighScoreRejectsLowScores() {
+        HighScoreTable table = new HighScoreTable(2);
+        assertTrue(table.qualifies(10));
+        assertTrue(table.addHighScore(new HighScoreTableRecord("Jim", 100, BASE_TIME)));
+        assertTrue(table.addHighScore(new HighScoreTableRecord("Aabirah", 50, BASE_TIME)));
+        assertFalse(table.qualifies(50));
+        assertFalse(table.addHighScore(new HighScoreTableRecord("Bob", 50, BASE_TIME + 1)));
+        assertFalse(table.addHighScore(new HighScoreTableRecord("Bob", 10, BASE_TIME)));
+        assertTrue(table.qualifies(51));
+        assertTrue(table.addHighScore(new HighScoreTableRecord("Bob", 51, BASE_TIME)));
+        assertEquals(2, table.size());
+        assertEquals("Bob", table.getRecords().get(1).getPlayerName());
+    }
+
+    @Test
+    public void testGetRecords() {
+        System.out.println("getRecords");
+        HighScoreTable table = new HighScoreTable();
+        table.addHighScore(new HighScoreTableRecord("Jim", 100, BASE_TIME));
+        List<HighScoreTableRecord> records = table.getRecords();
+        assertSame("Unchanged table should give the same snapshot", records, table.getRecords());
+        try {
+            records.add(new HighScoreTableRecord("Bob", 500, BASE_TIME));
+            fail("Snapshot should not be modifiable");
+        } catch (UnsupportedOperationException uoe) {
+            System.out.println("Trying to modify snapshot correctly caused UnsupportedOperationException");
+        }
+        table.addHighScore(new HighScoreTableRecord("Aabirah", 300, BASE_TIME));
+        assertEquals(1, records.size());
+        assertEquals(2, table.getRecords().size());
+        assertEquals("Aabirah", table.getRecords().get(0).getPlayerName());
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the LatencyHistogram class.
+ * @author Alonso del Arte
+ */
+public class LatencyHistogramTest {
+
+    /**
+     * Test of bucketIndex and bucketUpperBound, of class LatencyHistogram.
+     * The buckets should be contiguous and in order, each value should fall
+     * in a bucket whose upper bound is at least the value and no more than
+     * about 6% above it.
+     */
+    @Test
+    public void testBuckets() {
+        System.out.println("bucketIndex");
+        int prevIndex = 0;
+        for (long value = 0; value < 100000; value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(index == prevIndex || index == prevIndex + 1);
+            prevIndex = index;
+            long upper = LatencyHistogram.bucketUpperBound(index);
+            assertTrue(upper >= value);
+            assertTrue("Bucket for " + value + " too wide", upper - value <= value / LatencyHistogram.SUB_BUCKET_COUNT);
+        }
+        int lastIndex = LatencyHistogram.bucketIndex(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.bucketUpperBound(lastIndex));
+    }
+
+    /**
+     * Test of getPercentile method, of class LatencyHistogram. Percentiles
+     * should be within about 6% of the exact percentiles of the recorded
+     * values.
+     */
+    @Test
+    public void testGetPercentile() {
+        System.out.println("getPercentile");
+        LatencyHistogram histogram = new LatencyHistogram();
+        SplittableRandom random = new SplittableRandom(1729);
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble(5.0, 20.0));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(values[values.length - 1], histogram.getMax());
+        assertEquals(values[values.length - 1], histogram.getPercentile(100.0));
+        for (double percentile : new double[]{1.0, 50.0, 90.0, 99.0, 99.9}) {
+            long exact = values[(int) Math.ceil(percentile / 100.0 * values.length) - 1];
+            long approx = histogram.getPercentile(percentile);
+            String msg = "Percentile " + percentile + " should be about " + exact + ", not " + approx;
+            assertTrue(msg, approx >= exact && approx <= exact + exact / LatencyHistogram.SUB_BUCKET_COUNT);
+        }
+        double exactMean = Arrays.stream(values).average().getAsDouble();
+        assertEquals(exactMean, histogram.getMean(), 1.0);
+    }
+
+    /**
+     * Another test of getPercentile method, of class LatencyHistogram. An
+     * empty histogram should give 0, and percentiles out of range should be
+     * rejected.
+     */
+    @Test
+    public void testGetPercentileEmptyOrOutOfRange() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0L, histogram.getPercentile(50.0));
+        try {
+            long result = histogram.getPercentile(100.5);
+            fail("Percentile 100.5 should have been rejected, not given " + result);
+        } catch (IllegalArgumentException iae) {
+            System.out.println("Percentile 100.5 correctly caused IllegalArgumentException");
+            System.out.println("\"" + iae.getMessage() + "\"");
+        }
+    }
+
+    /**
+     * Test of reset method, of class LatencyHistogram.
+     */
+    @Test
+    public void testReset() {
+        System.out.println("reset");
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        histogram.record(-5);
+        assertEquals(2, histogram.getCount());
+        assertEquals(0L, histogram.getPercentile(50.0));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0L, histogram.getPercentile(99.0));
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the LeaderboardRegistry class.
+ * @author Alonso del Arte
+ */
+public class LeaderboardRegistryTest {
+
+    /**
+     * Test of leaderboard method, of class LeaderboardRegistry. Different game
+     * IDs should get different partitions, and the same game ID should get the
+     * same partition every time.
+     */
+    @Test
+    public void testLeaderboard() {
+        System.out.println("leaderboard");
+        LeaderboardRegistry registry = new LeaderboardRegistry();
+        Leaderboard numbers = registry.leaderboard(1L);
+        Leaderboard fractions = registry.leaderboard(2L);
+        assertSame(numbers, registry.leaderboard(1L));
+        assertNotSame(numbers, fractions);
+        numbers.addHighScore(new HighScoreTableRecord("Jim", 200));
+        assertEquals(1, numbers.size());
+        assertEquals(0, fractions.size());
+        assertEquals(LeaderboardRegistry.DEFAULT_PARTITION_CAPACITY,
+                numbers.getCapacity());
+        assertEquals(2, registry.partitionCount());
+    }
+
+    /**
+     * Test of register method, of class LeaderboardRegistry. Capacities
+     * should come out of the record budget, a partition that would go over
+     * budget should be refused, and removing a partition should return its
+     * capacity to the budget.
+     */
+    @Test
+    public void testRegister() {
+        System.out.println("register");
+        LeaderboardRegistry registry = new LeaderboardRegistry(50);
+        assertEquals(30, registry.register(1L, 30).getCapacity());
+        assertEquals(30, registry.getReservedCapacity());
+        try {
+            Leaderboard badPartition = registry.register(2L, 21);
+            String msg = "Going over budget should not have given "
+                    + badPartition;
+            fail(msg);
+        } catch (IllegalStateException ise) {
+            System.out.println("Going over budget correctly caused IllegalStateException");
+            System.out.println("\"" + ise.getMessage() + "\"");
+        }
+        assertEquals(1, registry.partitionCount());
+        try {
+            Leaderboard badPartition = registry.register(1L, 5);
+            String msg = "Registering game 1 twice should not have given "
+                    + badPartition;
+            fail(msg);
+        } catch (IllegalStateException ise) {
+            System.out.println("Registering twice correctly caused IllegalStateException");
+            System.out.println("\"" + ise.getMessage() + "\"");
+        }
+        assertTrue(registry.remove(1L));
+        assertFalse(registry.remove(1L));
+        assertEquals(0, registry.getReservedCapacity());
+        assertEquals(50, registry.register(2L, 50).getCapacity());
+    }
+
+    /**
+     * Test of snapshot method, of class LeaderboardRegistry. Taking snapshots
+     * over and over should not keep writers from adding records, and each
+     * snapshot should have each game's records in order.
+     * @throws InterruptedException If interrupted while waiting for the
+     * writers.
+     */
+    @Test
+    public void testSnapshot() throws InterruptedException {
+        System.out.println("snapshot");
+        LeaderboardRegistry registry = new LeaderboardRegistry();
+        int gameCount = 4;
+        int perGame = 20000;
+        Thread[] writers = new Thread[gameCount];
+        CountDownLatch done = new CountDownLatch(gameCount);
+        for (int g = 0; g < gameCount; g++) {
+            Leaderboard leaderboard = registry.register(g, 10);
+            writers[g] = new Thread(() -> {
+                for (int i = 1; i <= perGame; i++) {
+                    leaderboard.addHighScore(new HighScoreTableRecord("P", i));
+                }
+                done.countDown();
+            });
+        }
+        AtomicBoolean ordered = new AtomicBoolean(true);
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        int snapshots = 0;
+        while (done.getCount() > 0) {
+            for (List<HighScoreTableRecord> records
+                    : registry.snapshot().values()) {
+                for (int i = 1; i < records.size(); i++) {
+                    if (records.get(i - 1).getScore()
+                            < records.get(i).getScore()) {
+                        ordered.set(false);
+                    }
+                }
+            }
+            snapshots++;
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        System.out.println("Took " + snapshots + " snapshots while writing");
+        assertTrue(ordered.get());
+        Map<Long, List<HighScoreTableRecord>> snapshot = registry.snapshot();
+        assertEquals(gameCount, snapshot.size());
+        for (List<HighScoreTableRecord> records : snapshot.values()) {
+            assertEquals(10, records.size());
+            assertEquals(perGame, records.get(0).getScore());
+        }
+    }
+
+}
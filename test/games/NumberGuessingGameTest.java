@@ -21,6 +21,7 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.HashSet;
 import java.util.Scanner;
+import java.util.SplittableRandom;
 
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -168,6 +169,59 @@ public class NumberGuessingGameTest {
         assertArrayEquals(expected, actual);
     }
 
+    /**
+     * Another test of chooseNumber method, of class NumberGuessingGame. The
+     * same seed should give the same numbers.
+     */
+    @Test
+    public void testChooseNumberReproducible() {
+        SplittableRandom randomA = new SplittableRandom(1729);
+        SplittableRandom randomB = new SplittableRandom(1729);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(NumberGuessingGame.chooseNumber(-100, 100, randomA),
+                    NumberGuessingGame.chooseNumber(-100, 100, randomB));
+        }
+    }
+
+    @Test
+    public void testPlayRound() {
+        System.out.println("playRound");
+        String guesses = "75\nfifty\n25\n50\n";
+        InputStream mockStream = new ByteArrayInputStream(guesses.getBytes());
+        Scanner input = new Scanner(mockStream);
+        NumberGuessingSession session = new NumberGuessingSession(50);
+        new NumberGuessingGame().playRound(input, session);
+        System.out.println();
+        assertTrue(session.isWon());
+        assertEquals(3, session.getGuessCount());
+    }
+
+    /**
+     * Another test of playRound method, of class NumberGuessingGame. If the
+     * registry has no room left for this game's leaderboard, winning should
+     * drop the score, not end the game with an exception.
+     */
+    @Test
+    public void testPlayRoundWithoutLeaderboard() {
+        System.out.println("playRound without leaderboard");
+        LeaderboardRegistry registry = LeaderboardRegistry.getDefault();
+        long fillerID = -NumberGuessingGame.GAME_ID;
+        registry.remove(NumberGuessingGame.GAME_ID);
+        registry.register(fillerID, registry.getRecordBudget()
+                - registry.getReservedCapacity());
+        try {
+            NumberGuessingGame game = new NumberGuessingGame();
+            long droppedBefore = game.metrics().getScoresDropped();
+            Scanner input = new Scanner(new ByteArrayInputStream("50\n".getBytes()));
+            NumberGuessingSession session = new NumberGuessingSession(50);
+            game.playRound(input, session);
+            assertTrue(session.isWon());
+            assertEquals(droppedBefore + 1, game.metrics().getScoresDropped());
+        } finally {
+            registry.remove(fillerID);
+        }
+    }
+
     /*[TEMP JAVADOC DISABLE]*
      * Test of main method, of class NumberGuessingGame.
      */
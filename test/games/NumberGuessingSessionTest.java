@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alonso del Arte
+ */
+public class NumberGuessingSessionTest {
+
+    @Test
+    public void testGuess() {
+        System.out.println("guess");
+        NumberGuessingSession session = new NumberGuessingSession(50);
+        assertEquals(GuessOutcome.TOO_HIGH, session.guess(75));
+        assertEquals(GuessOutcome.TOO_LOW, session.guess(25));
+        assertEquals(GuessOutcome.TOO_LOW, session.guess(30));
+        assertFalse(session.isOver());
+        assertEquals(GuessOutcome.CORRECT, session.guess(50));
+        assertTrue(session.isOver());
+        assertTrue(session.isWon());
+        assertEquals(4, session.getGuessCount());
+        assertEquals(50, session.getNumber());
+    }
+
+    @Test
+    public void testScore() {
+        System.out.println("score");
+        NumberGuessingSession session = new NumberGuessingSession(50);
+        session.guess(75);
+        session.guess(25);
+        session.guess(30);
+        assertEquals(0, session.score());
+        session.guess(50);
+        assertEquals(NumberGuessingGame.scoreGame(50, 30, 3), session.score());
+        session = new NumberGuessingSession(50);
+        session.guess(50);
+        assertEquals(NumberGuessingGame.scoreGame(50, 50 - NumberGuessingGame.MAXIMUM_NUMBER, 0), session.score());
+    }
+
+    @Test
+    public void testRunsOutOfGuesses() {
+        NumberGuessingSession session = new NumberGuessingSession(50);
+        try {
+            int number = session.getNumber();
+            fail("Number " + number + " should not have been disclosed before the end");
+        } catch (IllegalStateException ise) {
+            System.out.println("Trying to get the number early correctly caused IllegalStateException");
+        }
+        for (int i = 0; i < NumberGuessingGame.MAXIMUM_GUESSES; i++) {
+            session.guess(i + 1);
+        }
+        assertTrue(session.isOver());
+        assertFalse(session.isWon());
+        assertEquals(0, session.score());
+        assertEquals(50, session.getNumber());
+        try {
+            GuessOutcome outcome = session.guess(50);
+            fail("Guessing after the round is over should not have given " + outcome);
+        } catch (IllegalStateException ise) {
+            System.out.println("Trying to guess after the end correctly caused IllegalStateException");
+        }
+    }
+
+    /**
+     * Another test of guess method, of class NumberGuessingSession. A guess
+     * outside the range should be rejected without counting, so that a far
+     * off guess can't inflate the score of the next one.
+     */
+    @Test
+    public void testGuessOutOfRange() {
+        NumberGuessingSession session = new NumberGuessingSession(50);
+        int[] badGuesses = {NumberGuessingGame.MINIMUM_NUMBER - 1, NumberGuessingGame.MAXIMUM_NUMBER + 1, -1000000, Integer.MAX_VALUE};
+        for (int badGuess : badGuesses) {
+            try {
+                GuessOutcome outcome = session.guess(badGuess);
+                fail("Guess " + badGuess + " should have been rejected, not given " + outcome);
+            } catch (IllegalArgumentException iae) {
+                System.out.println("Guessing " + badGuess + " correctly caused IllegalArgumentException");
+                System.out.println("\"" + iae.getMessage() + "\"");
+            }
+        }
+        assertEquals(0, session.getGuessCount());
+        assertEquals(GuessOutcome.CORRECT, session.guess(50));
+        assertEquals(NumberGuessingGame.scoreGame(50, 50 - NumberGuessingGame.MAXIMUM_NUMBER, 0), session.score());
+    }
+
+    @Test
+    public void testStart() {
+        System.out.println("start");
+        for (long seed = 0; seed < 100; seed++) {
+            NumberGuessingSession sessionA = NumberGuessingSession.start(seed);
+            NumberGuessingSession sessionB = NumberGuessingSession.start(seed);
+            for (int i = 0; i < NumberGuessingGame.MAXIMUM_GUESSES; i++) {
+                sessionA.guess(NumberGuessingGame.MAXIMUM_NUMBER);
+                sessionB.guess(NumberGuessingGame.MAXIMUM_NUMBER);
+            }
+            int number = sessionA.getNumber();
+            assertEquals(number, sessionB.getNumber());
+            String msg = "Number " + number + " should be in range";
+            assertTrue(msg, number >= NumberGuessingGame.MINIMUM_NUMBER && number < NumberGuessingGame.MAXIMUM_NUMBER);
+        }
+    }
+
+    /**
+     * Plays a lot of sessions with a bisecting strategy, at machine speed.
+     * Bisecting over 99 numbers needs up to 7 guesses, so with 5 guesses the
+     * strategy should win 31 rounds out of 99 on average.
+     */
+    @Test
+    public void testTightLoop() {
+        SplittableRandom random = new SplittableRandom(1729);
+        int rounds = 100000;
+        int wins = 0;
+        for (int i = 0; i < rounds; i++) {
+            NumberGuessingSession session = NumberGuessingSession.start(random);
+            int low = NumberGuessingGame.MINIMUM_NUMBER;
+            int high = NumberGuessingGame.MAXIMUM_NUMBER - 1;
+            while (!session.isOver()) {
+                int guess = (low + high) / 2;
+                GuessOutcome outcome = session.guess(guess);
+                if (outcome == GuessOutcome.TOO_LOW) {
+                    low = guess + 1;
+                } else if (outcome == GuessOutcome.TOO_HIGH) {
+                    high = guess - 1;
+                }
+            }
+            if (session.isWon()) {
+                wins++;
+            }
+        }
+        double winRate = (double) wins / rounds;
+        String msg = "Bisecting should win about 31/99 of rounds, won " + winRate;
+        assertEquals(msg, 31.0 / 99, winRate, 0.01);
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alonso del Arte
+ */
+public class ScoreSimulationTest {
+
+    private static final long ROUNDS = 2000000L;
+
+    @Test
+    public void testSimulate() {
+        System.out.println("simulate");
+        ScoreSimulation.ScoreDistribution distribution = ScoreSimulation.simulate(new BinarySearchStrategy(), ROUNDS, 1729L);
+        System.out.println(distribution);
+        assertEquals(ROUNDS, distribution.getRounds());
+        long total = 0;
+        for (int score = 0; score <= ScoreSimulation.MAXIMUM_SCORE; score++) {
+            total += distribution.getCount(score);
+        }
+        assertEquals(ROUNDS, total);
+        double winRate = (double) distribution.getWins() / ROUNDS;
+        String msg = "Binary search should win about 31/99 of rounds, won " + winRate;
+        assertEquals(msg, 31.0 / 99, winRate, 0.005);
+    }
+
+    /**
+     * Another test of simulate method, of class ScoreSimulation. The same
+     * seed should give the same histogram whether the simulation runs on one
+     * thread or several.
+     */
+    @Test
+    public void testSimulateIsReproducible() {
+        PlayerStrategy strategy = new RandomGuessStrategy();
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool several = new ForkJoinPool(4);
+        try {
+            ScoreSimulation.ScoreDistribution expected = ScoreSimulation.simulate(strategy, ROUNDS, 42L, single);
+            ScoreSimulation.ScoreDistribution actual = ScoreSimulation.simulate(strategy, ROUNDS, 42L, several);
+            for (int score = 0; score <= ScoreSimulation.MAXIMUM_SCORE; score++) {
+                assertEquals(expected.getCount(score), actual.getCount(score));
+            }
+        } finally {
+            single.shutdown();
+            several.shutdown();
+        }
+    }
+
+    /**
+     * Test of AdversarialStrategy. Wasting a guess once the number is known,
+     * to inflate the difference the score is based on, should pay off on
+     * average compared to plain binary search, which shows a weakness in the
+     * scoring rule.
+     */
+    @Test
+    public void testAdversarialStrategyBeatsBinarySearch() {
+        ScoreSimulation.ScoreDistribution plain = ScoreSimulation.simulate(new BinarySearchStrategy(), ROUNDS, 7L);
+        ScoreSimulation.ScoreDistribution gamed = ScoreSimulation.simulate(new AdversarialStrategy(), ROUNDS, 7L);
+        System.out.println(gamed);
+        String msg = "Adversarial mean " + gamed.getMean() + " should beat binary search mean " + plain.getMean();
+        assertTrue(msg, gamed.getMean() > plain.getMean());
+    }
+
+    /**
+     * Another test of simulate method, of class ScoreSimulation. A strategy
+     * that guesses outside the range of the game should make the simulation
+     * fail, not score past {@link ScoreSimulation#MAXIMUM_SCORE}.
+     */
+    @Test
+    public void testSimulateRejectsOutOfRangeStrategy() {
+        PlayerStrategy outOfRange = (low, high, prevGuess, guessOrd, random) -> (guessOrd == 0) ? 100000 : (low + high) / 2;
+        try {
+            ScoreSimulation.ScoreDistribution distribution = ScoreSimulation.simulate(outOfRange, ROUNDS, 1729L);
+            fail("Out of range strategy should have been rejected, not given " + distribution);
+        } catch (IllegalArgumentException iae) {
+            System.out.println("Simulating out of range strategy correctly caused IllegalArgumentException");
+            System.out.println("\"" + iae.getMessage() + "\"");
+        }
+    }
+
+    @Test
+    public void testRandomGuessStrategyStaysInRange() {
+        RandomGuessStrategy strategy = new RandomGuessStrategy();
+        java.util.SplittableRandom random = new java.util.SplittableRandom(0);
+        for (int i = 0; i < 10000; i++) {
+            int guess = strategy.nextGuess(26, 74, 37, 2, random);
+            assertTrue("Guess " + guess + " should be from 26 to 74", guess >= 26 && guess <= 74);
+        }
+    }
+
+}
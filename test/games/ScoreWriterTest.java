@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package games;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the ScoreWriter class.
+ * @author Alonso del Arte
+ */
+public class ScoreWriterTest {
+
+    private static final long BASE_TIME = 1593561600000L;
+
+    private Path dir;
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        this.dir = Files.createTempDirectory("scores");
+        this.file = this.dir.resolve("test.scores");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.list(this.dir)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(this.dir);
+    }
+
+    /**
+     * Test of submit method, of class ScoreWriter. A batch that fills up
+     * should be flushed without waiting out the maximum delay.
+     * @throws Exception If the store can't be opened or the test is
+     * interrupted.
+     */
+    @Test
+    public void testSubmit() throws Exception {
+        System.out.println("submit");
+        HighScoreStore store = new HighScoreStore(this.file);
+        try (ScoreWriter writer = new ScoreWriter(store, DurabilityMode.FORCE,
+                64, 4, 1, TimeUnit.HOURS)) {
+            for (int i = 1; i <= 4; i++) {
+                assertTrue(writer.submit(new HighScoreTableRecord("Jim", 100 * i, BASE_TIME + i)));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (writer.getPendingCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(0, writer.getPendingCount());
+            assertEquals(4, store.getTable().size());
+            assertEquals(400, store.getTable().getRecords().get(0).getScore());
+        }
+    }
+
+    /**
+     * Another test of submit method, of class ScoreWriter. A batch that
+     * doesn't fill up should still be flushed once the maximum delay has
+     * passed.
+     * @throws Exception If the store can't be opened or the test is
+     * interrupted.
+     */
+    @Test
+    public void testSubmitFlushesAfterDelay() throws Exception {
+        HighScoreStore store = new HighScoreStore(this.file);
+        try (ScoreWriter writer = new ScoreWriter(store, DurabilityMode.WRITE,
+                64, 16, 20, TimeUnit.MILLISECONDS)) {
+            writer.submit(new HighScoreTableRecord("Aabirah", 200, BASE_TIME));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (store.getTable().size() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(1, store.getTable().size());
+        }
+    }
+
+    /**
+     * Another test of submit method, of class ScoreWriter. Once the buffer is
+     * full, records should be turned away rather than waited on.
+     * @throws Exception If the store can't be opened.
+     */
+    @Test
+    public void testSubmitRejectsWhenFull() throws Exception {
+        HighScoreStore store = new HighScoreStore(this.file);
+        int capacity = 8;
+        int accepted = 0;
+        try (ScoreWriter writer = new ScoreWriter(store, DurabilityMode.WRITE,
+                capacity, capacity, 1, TimeUnit.HOURS)) {
+            synchronized (store) {
+                // Holding the store's lock stalls the flusher on its first batch
+                for (int i = 0; i < 5 * capacity; i++) {
+                    if (writer.submit(new HighScoreTableRecord("P", i, BASE_TIME + i))) {
+                        accepted++;
+                    }
+                }
+            }
+            assertTrue(accepted <= 2 * capacity);
+            assertEquals(5 * capacity - accepted, writer.getRejectedCount());
+        }
+    }
+
+    /**
+     * Test of close method, of class ScoreWriter. Closing should flush the
+     * records still in the buffer, so that they're in the log when it's
+     * reopened.
+     * @throws Exception If the store can't be opened or closed.
+     */
+    @Test
+    public void testClose() throws Exception {
+        System.out.println("close");
+        HighScoreStore store = new HighScoreStore(this.file);
+        ScoreWriter writer = new ScoreWriter(store, DurabilityMode.WRITE,
+                64, 16, 1, TimeUnit.HOURS);
+        for (int i = 1; i <= 5; i++) {
+            writer.submit(new HighScoreTableRecord("Jim", i, BASE_TIME + i));
+        }
+        writer.close();
+        writer.close();
+        try {
+            boolean submitted = writer.submit(new HighScoreTableRecord("Jim", 6));
+            String msg = "Submitting to a closed writer should not have given " + submitted;
+            fail(msg);
+        } catch (IllegalStateException ise) {
+            System.out.println("Submitting to closed writer correctly caused IllegalStateException");
+        }
+        try (HighScoreStore reopened = new HighScoreStore(this.file)) {
+            List<HighScoreTableRecord> records = reopened.getTable().getRecords();
+            assertEquals(5, records.size());
+            assertEquals(5, records.get(0).getScore());
+        }
+    }
+
+    /**
+     * Test of flush method, of class ScoreWriter. After flushing, every
+     * record submitted before should be on the leaderboard.
+     * @throws Exception If the store can't be opened or the test is
+     * interrupted.
+     */
+    @Test
+    public void testFlush() throws Exception {
+        System.out.println("flush");
+        HighScoreStore store = new HighScoreStore(this.file);
+        try (ScoreWriter writer = new ScoreWriter(store, DurabilityMode.FORCE,
+                64, 16, 1, TimeUnit.HOURS)) {
+            writer.submit(new HighScoreTableRecord("Jim", 200, BASE_TIME));
+            writer.submit(new HighScoreTableRecord("Aabirah", 300, BASE_TIME));
+            writer.flush();
+            assertEquals(2, store.getTable().size());
+            assertEquals(2, store.getRecordCount());
+        }
+    }
+
+}
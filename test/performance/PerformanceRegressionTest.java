@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2020 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package performance;
+
+import algebraics.quadratics.ImaginaryQuadraticRing;
+import calculators.FactorizationCache;
+import calculators.NumberTheoreticFunctionsCalculator;
+import fractions.Fraction;
+import games.BinarySearchStrategy;
+import games.ScoreSimulation;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongSupplier;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Performance regression suite. Each workload is run repeatedly for a fixed
+ * time and its throughput is divided by the throughput of a calibration loop
+ * measured on the same machine in the same JVM, so that the checked-in
+ * baseline doesn't depend much on how fast the machine is. A workload fails
+ * if its normalized throughput drops below the baseline by more than the
+ * tolerance, which is 50% unless the baseline file says otherwise, either for
+ * all workloads (<code>tolerance</code>) or for one
+ * (<code><i>workload</i>.tolerance</code>).
+ * <p>This is not run by <code>gradle test</code>, but by <code>gradle
+ * performanceTest</code>. After a deliberate change in performance, rewrite
+ * the baseline with <code>gradle performanceTest
+ * -Pperformance.updateBaseline=true</code> and check it in.</p>
+ * @author Alonso del Arte
+ */
+public class PerformanceRegressionTest {
+
+    /**
+     * The system property giving the path of the baseline file.
+     */
+    public static final String BASELINE_PROPERTY = "performance.baseline";
+
+    /**
+     * The system property that, if true, makes this suite rewrite the
+     * baseline file with the measured values instead of checking them.
+     */
+    public static final String UPDATE_PROPERTY = "performance.updateBaseline";
+
+    private static final String DEFAULT_BASELINE_PATH = "test/performance/baseline.properties";
+
+    private static final double DEFAULT_TOLERANCE = 0.5;
+
+    private static final long ROUND_NANOS = 200000000L;
+
+    private static final int WARMUP_ROUNDS = 5;
+
+    private static final int MEASURED_ROUNDS = 5;
+
+    /**
+     * Results of the workloads go here so that the JIT compiler can't throw
+     * the work away.
+     */
+    private static volatile long sink;
+
+    private static class Workload {
+
+        private final String name;
+        private final int opsPerRun;
+        private final LongSupplier body;
+
+        Workload(String name, int opsPerRun, LongSupplier body) {
+            this.name = name;
+            this.opsPerRun = opsPerRun;
+            this.body = body;
+        }
+
+    }
+
+    /**
+     * A loop of shifts, multiplications and remainders with no allocation,
+     * the same kind of arithmetic most of the workloads do.
+     */
+    private static final Workload CALIBRATION = new Workload("calibration", 1 << 16, () -> {
+        long x = 88172645463325252L;
+        long acc = 0;
+        for (int i = 0; i < (1 << 16); i++) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+            acc += (x & Integer.MAX_VALUE) % ((i & 1023) + 3);
+        }
+        return acc;
+    });
+
+    private static List<Workload> workloads() {
+        SplittableRandom random = new SplittableRandom(1729);
+        List<Workload> workloads = new ArrayList<>();
+        int[] factorable = random.ints(1000, 2, 100000).toArray();
+        workloads.add(new Workload("primeFactors", factorable.length, () -> {
+            long acc = 0;
+            boolean cacheWasEnabled = FactorizationCache.isEnabled();
+            FactorizationCache.setEnabled(false); // Time the trial division, not the cache
+            try {
+                for (int num : factorable) {
+                    acc += NumberTheoreticFunctionsCalculator.primeFactors(num).size();
+                }
+            } finally {
+                FactorizationCache.setEnabled(cacheWasEnabled);
+            }
+            return acc;
+        }));
+        long[] primalityCandidates = random.longs(1000, 3, 10000000000L).toArray();
+        workloads.add(new Workload("isPrimeLong", primalityCandidates.length, () -> {
+            long acc = 0;
+            for (long num : primalityCandidates) {
+                if (NumberTheoreticFunctionsCalculator.isPrime(num)) {
+                    acc++;
+                }
+            }
+            return acc;
+        }));
+        long[] gcdOperands = random.longs(20000, 1, Long.MAX_VALUE).toArray();
+        workloads.add(new Workload("euclideanGCD", gcdOperands.length / 2, () -> {
+            long acc = 0;
+            for (int i = 0; i < gcdOperands.length; i += 2) {
+                acc += NumberTheoreticFunctionsCalculator.euclideanGCD(gcdOperands[i], gcdOperands[i + 1]);
+            }
+            return acc;
+        }));
+        List<ImaginaryQuadraticRing> rings = new ArrayList<>();
+        for (int d = -1; d > -200; d--) {
+            if (NumberTheoreticFunctionsCalculator.isSquareFree(d)) {
+                rings.add(new ImaginaryQuadraticRing(d));
+            }
+        }
+        workloads.add(new Workload("fieldClassNumber", rings.size(), () -> {
+            long acc = 0;
+            for (ImaginaryQuadraticRing ring : rings) {
+                acc += NumberTheoreticFunctionsCalculator.fieldClassNumber(ring);
+            }
+            return acc;
+        }));
+        Fraction[] fractions = new Fraction[10000];
+        for (int i = 0; i < fractions.length; i++) {
+            fractions[i] = new Fraction(random.nextLong(-1000000, 1000000), random.nextLong(1, 1000000));
+        }
+        workloads.add(new Workload("fractionSort", fractions.length, () -> {
+            Fraction[] sorted = fractions.clone();
+            Arrays.sort(sorted);
+            return sorted[sorted.length / 2].getNumerator();
+        }));
+        ForkJoinPool singleThread = new ForkJoinPool(1);
+        BinarySearchStrategy strategy = new BinarySearchStrategy();
+        workloads.add(new Workload("scoreSimulation", 100000, () -> ScoreSimulation.simulate(strategy, 100000, 1729, singleThread).getWins()));
+        return workloads;
+    }
+
+    private static double runRound(Workload workload) {
+        long ops = 0;
+        long elapsed;
+        long start = System.nanoTime();
+        do {
+            sink += workload.body.getAsLong();
+            ops += workload.opsPerRun;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ROUND_NANOS);
+        return ops * 1.0E9 / elapsed;
+    }
+
+    /**
+     * Measures a workload's throughput, as the best of several rounds after
+     * a few warmup rounds. The best round is the one least disturbed by other
+     * processes and by the garbage collector.
+     * @param workload The workload to measure.
+     * @return Operations per second.
+     */
+    private static double measure(Workload workload) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            runRound(workload);
+        }
+        double best = 0.0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            best = Math.max(best, runRound(workload));
+        }
+        return best;
+    }
+
+    private static Properties loadBaseline(Path path) throws IOException {
+        Properties baseline = new Properties();
+        if (Files.exists(path)) {
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.ISO_8859_1)) {
+                baseline.load(reader);
+            }
+        }
+        return baseline;
+    }
+
+    private static void writeBaseline(Path path, Properties previous, List<Workload> workloads, double[] normalized) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.ISO_8859_1)) {
+            writer.write("# Throughput of each workload in PerformanceRegressionTest divided by the throughput\n");
+            writer.write("# of the calibration loop. Rewrite with\n");
+            writer.write("#   gradle performanceTest -Pperformance.updateBaseline=true\n");
+            writer.write("tolerance=" + previous.getProperty("tolerance", Double.toString(DEFAULT_TOLERANCE)) + "\n");
+            for (int i = 0; i < workloads.size(); i++) {
+                String name = workloads.get(i).name;
+                writer.write(name + "=" + String.format(Locale.ROOT, "%.4g", normalized[i]) + "\n");
+                String tolerance = previous.getProperty(name + ".tolerance");
+                if (tolerance != null) {
+                    writer.write(name + ".tolerance=" + tolerance + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs every workload and compares its normalized throughput to the
+     * baseline. A report of all the workloads is printed either way; if any
+     * regressed beyond its tolerance, the failure message lists them.
+     * @throws IOException If the baseline file can't be read or, when
+     * updating it, written.
+     */
+    @Test
+    public void testThroughputAgainstBaseline() throws IOException {
+        System.out.println("Performance regression suite");
+        Path baselinePath = Paths.get(System.getProperty(BASELINE_PROPERTY, DEFAULT_BASELINE_PATH));
+        Properties baseline = loadBaseline(baselinePath);
+        double defaultTolerance = Double.parseDouble(baseline.getProperty("tolerance", Double.toString(DEFAULT_TOLERANCE)));
+        List<Workload> workloads = workloads();
+        double calibration = measure(CALIBRATION);
+        double[] normalized = new double[workloads.size()];
+        for (int i = 0; i < normalized.length; i++) {
+            normalized[i] = measure(workloads.get(i));
+        }
+        calibration = Math.max(calibration, measure(CALIBRATION));
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "Calibration: %.0f ops/s%n", calibration));
+        report.append(String.format(Locale.ROOT, "%-18s %14s %10s %10s %7s  %s%n", "workload", "ops/s", "measured", "baseline", "ratio", "status"));
+        StringBuilder regressions = new StringBuilder();
+        for (int i = 0; i < normalized.length; i++) {
+            String name = workloads.get(i).name;
+            double opsPerSecond = normalized[i];
+            normalized[i] /= calibration;
+            String expectedStr = baseline.getProperty(name);
+            String status;
+            double expected = Double.NaN;
+            double ratio = Double.NaN;
+            if (expectedStr == null) {
+                status = "NEW, not in baseline";
+            } else {
+                expected = Double.parseDouble(expectedStr);
+                ratio = normalized[i] / expected;
+                double tolerance = Double.parseDouble(baseline.getProperty(name + ".tolerance", Double.toString(defaultTolerance)));
+                if (ratio < 1.0 - tolerance) {
+                    status = String.format(Locale.ROOT, "REGRESSION, more than %.0f%% slower", 100 * tolerance);
+                    regressions.append(String.format(Locale.ROOT, "%n  %s is %.1f%% slower than the baseline (%.4g vs. %.4g, tolerance %.0f%%)", name, 100 * (1.0 - ratio), normalized[i], expected, 100 * tolerance));
+                } else if (ratio > 1.0 / (1.0 - tolerance)) {
+                    status = "much faster, consider updating the baseline";
+                } else {
+                    status = "ok";
+                }
+            }
+            report.append(String.format(Locale.ROOT, "%-18s %14.0f %10.4g %10.4g %7.2f  %s%n", name, opsPerSecond, normalized[i], expected, ratio, status));
+        }
+        System.out.print(report);
+        if (Boolean.getBoolean(UPDATE_PROPERTY)) {
+            writeBaseline(baselinePath, baseline, workloads, normalized);
+            System.out.println("Baseline written to " + baselinePath.toAbsolutePath());
+            return;
+        }
+        if (regressions.length() > 0) {
+            fail("Throughput regressed beyond tolerance:" + regressions + System.lineSeparator() + report);
+        }
+    }
+
+}